@@ -0,0 +1,85 @@
+#!/usr/bin/env node
+/*
+ * Compares two JMH result files written with -rf json, for example a baseline kept from the main branch with the
+ * target/jmh-result.json of a change:
+ *
+ *   node src/jmh/compare.js baseline.json target/jmh-result.json [--threshold=10]
+ *
+ * Benchmarks are matched by name and parameters. A change is only reported as a regression or an improvement when it
+ * exceeds the threshold, in percent, and the error intervals of both scores do not overlap. The exit code is 1 when
+ * there is at least one regression, so the script can fail a build.
+ */
+const fs = require('fs');
+const path = require('path');
+
+const args = process.argv.slice(2);
+const files = args.filter(arg => !arg.startsWith('--'));
+const thresholdArg = args.find(arg => arg.startsWith('--threshold='));
+const threshold = thresholdArg ? Number(thresholdArg.substring('--threshold='.length)) : 10;
+
+if (files.length !== 2 || Number.isNaN(threshold)) {
+  console.error(`Usage: node ${path.relative(process.cwd(), __filename)} <baseline.json> <current.json> [--threshold=10]`);
+  process.exit(2);
+}
+
+function key(result) {
+  const params = Object.entries(result.params || {})
+    .map(([name, value]) => `${name}=${value}`)
+    .join(',');
+  return `${result.benchmark.replace(/^.*\.benchmark\./, '')}:${result.mode}${params ? `(${params})` : ''}`;
+}
+
+function load(file) {
+  return new Map(JSON.parse(fs.readFileSync(file, 'utf8')).map(result => [key(result), result]));
+}
+
+function interval(metric) {
+  const error = Number.isFinite(metric.scoreError) ? metric.scoreError : 0;
+  return [metric.score - error, metric.score + error];
+}
+
+const baseline = load(files[0]);
+const current = load(files[1]);
+const rows = [];
+let regressions = 0;
+
+for (const [name, result] of current) {
+  const before = baseline.get(name);
+  if (!before) {
+    rows.push([name, '', format(result.primaryMetric), '', 'new']);
+    continue;
+  }
+  const previous = before.primaryMetric;
+  const metric = result.primaryMetric;
+  const change = ((metric.score - previous.score) / previous.score) * 100;
+  // Throughput is better when higher, the time modes (avgt, sample, ss) when lower
+  const better = result.mode === 'thrpt' ? change > 0 : change < 0;
+  const [low, high] = interval(metric);
+  const [previousLow, previousHigh] = interval(previous);
+  const overlapping = low <= previousHigh && previousLow <= high;
+  let verdict = '';
+  if (Math.abs(change) >= threshold && !overlapping) {
+    verdict = better ? 'improvement' : 'REGRESSION';
+    if (!better) {
+      regressions++;
+    }
+  }
+  rows.push([name, format(previous), format(metric), `${change > 0 ? '+' : ''}${change.toFixed(1)}%`, verdict]);
+}
+for (const name of baseline.keys()) {
+  if (!current.has(name)) {
+    rows.push([name, format(baseline.get(name).primaryMetric), '', '', 'removed']);
+  }
+}
+
+function format(metric) {
+  return `${metric.score.toFixed(3)} ± ${(Number.isFinite(metric.scoreError) ? metric.scoreError : 0).toFixed(3)} ${metric.scoreUnit}`;
+}
+
+const header = ['Benchmark', 'Baseline', 'Current', 'Change', ''];
+const widths = header.map((title, column) => Math.max(title.length, ...rows.map(row => row[column].length)));
+for (const row of [header, ...rows]) {
+  console.log(row.map((cell, column) => cell.padEnd(widths[column])).join('  ').trimEnd());
+}
+console.log(`\n${regressions} regression(s) beyond ${threshold}%`);
+process.exit(regressions > 0 ? 1 : 0);
@@ -0,0 +1,142 @@
+package com.mattring.pharmascript.benchmark;
+
+import com.mattring.pharmascript.PharmascriptApp;
+import com.mattring.pharmascript.security.AuthoritiesConstants;
+import com.mattring.pharmascript.security.jwt.TokenProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Load test of the polling of {@code GET /api/prescriptions} over HTTP, by a client sending back the {@code ETag} of
+ * the page it holds ({@code conditional}) or not ({@code unconditional}), while the prescriptions do not change.
+ * <p>
+ * The throughput gives the requests per second, and the {@code responseBytes} counter the body bytes sent per second;
+ * divide them for the bytes per request. The CPU saved shows as a higher throughput at the same load, and as a lower
+ * allocation per request with the GC profiler, for example:
+ * {@code ./mvnw -Pdev,jmh test-compile exec:exec -Djmh.args="ConditionalGet -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Threads(8)
+public class ConditionalGetBenchmark {
+
+    private static final Instant BASE_DATE = Instant.parse("2023-01-01T00:00:00Z");
+
+    @Param({ "unconditional", "conditional" })
+    public String client;
+
+    @Param({ "20", "100" })
+    public int pageSize;
+
+    @Param({ "10000" })
+    public int prescriptions;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private HttpRequest request;
+
+    /**
+     * Bytes received by one benchmark thread, summed by JMH over all the threads.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Received {
+
+        public long responseBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context =
+            new SpringApplicationBuilder(PharmascriptApp.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("testdev")
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        String token = context
+            .getBean(TokenProvider.class)
+            .createToken(
+                new UsernamePasswordAuthenticationToken(
+                    "admin",
+                    "admin",
+                    Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN))
+                ),
+                false
+            );
+        String url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/prescriptions";
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        importPrescriptions(url, token);
+
+        HttpRequest.Builder builder = HttpRequest
+            .newBuilder(URI.create(url + "?page=0&size=" + pageSize + "&sort=id,asc"))
+            .header("Authorization", "Bearer " + token);
+        if ("conditional".equals(client)) {
+            HttpResponse<Void> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+            builder.header(HttpHeaders.IF_NONE_MATCH, response.headers().firstValue(HttpHeaders.ETAG).orElseThrow());
+        }
+        request = builder.build();
+    }
+
+    private void importPrescriptions(String url, String token) throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < prescriptions; i++) {
+            String date = BASE_DATE.plusSeconds(i).toString();
+            body
+                .append("{\"dosageAmount\":")
+                .append(1 + i % 100)
+                .append(",\"dosageInterval\":")
+                .append(1 + i % 24)
+                .append(",\"createdDate\":\"")
+                .append(date)
+                .append("\",\"updatedDate\":\"")
+                .append(date)
+                .append("\"}\n");
+        }
+        HttpResponse<String> response = httpClient.send(
+            HttpRequest
+                .newBuilder(URI.create(url + "/bulk"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(),
+            HttpResponse.BodyHandlers.ofString()
+        );
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("POST /api/prescriptions/bulk returned " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getPrescriptions(Received received) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200 && response.statusCode() != 304) {
+            throw new IllegalStateException("GET /api/prescriptions returned " + response.statusCode());
+        }
+        received.responseBytes += response.body().length;
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,91 @@
+package com.mattring.pharmascript.benchmark;
+
+import com.mattring.pharmascript.PharmascriptApp;
+import com.mattring.pharmascript.domain.Drug;
+import com.mattring.pharmascript.repository.DrugRepository;
+import com.mattring.pharmascript.service.DrugCatalogService;
+import com.mattring.pharmascript.service.dto.DrugDTO;
+import com.mattring.pharmascript.service.mapper.DrugMapper;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares resolving a drug from the {@link DrugCatalogService} with the {@code DrugRepository.findById} path it
+ * replaces, which goes through a read-only transaction and the {@code READ_WRITE} second-level cache region.
+ * <p>
+ * Both return a {@link DrugDTO}; the second-level cache is warmed up before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class DrugCatalogBenchmark {
+
+    @Param({ "1000" })
+    public int drugs;
+
+    private ConfigurableApplicationContext context;
+
+    private DrugRepository drugRepository;
+
+    private DrugMapper drugMapper;
+
+    private DrugCatalogService drugCatalogService;
+
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context =
+            new SpringApplicationBuilder(PharmascriptApp.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("testdev")
+                .properties("server.port=0")
+                .run();
+        drugRepository = context.getBean(DrugRepository.class);
+        drugMapper = context.getBean(DrugMapper.class);
+        drugCatalogService = context.getBean(DrugCatalogService.class);
+
+        ZonedDateTime now = ZonedDateTime.now();
+        List<Drug> entities = new ArrayList<>(drugs);
+        for (int i = 0; i < drugs; i++) {
+            entities.add(
+                new Drug().maker("Maker").brandName("Brand " + i).genericName("Generic " + i).createdDate(now).updatedDate(now)
+            );
+        }
+        ids = drugRepository.saveAll(entities).stream().mapToLong(Drug::getId).toArray();
+        drugCatalogService.reload();
+        for (long id : ids) {
+            drugRepository.findById(id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<DrugDTO> repositoryFindById() {
+        return drugRepository.findById(randomId()).map(drugMapper::toDto);
+    }
+
+    @Benchmark
+    public Optional<DrugDTO> catalogFindOne() {
+        return drugCatalogService.findOne(randomId());
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
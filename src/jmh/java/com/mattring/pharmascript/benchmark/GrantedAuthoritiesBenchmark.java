@@ -0,0 +1,46 @@
+package com.mattring.pharmascript.benchmark;
+
+import com.mattring.pharmascript.security.AuthoritiesConstants;
+import com.mattring.pharmascript.security.GrantedAuthorities;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Compares building the authorities of a token from its {@code auth} claim the way {@code TokenProvider} used to,
+ * splitting the claim and allocating a {@link SimpleGrantedAuthority} per role, with
+ * {@link GrantedAuthorities#fromClaim(String)}.
+ * <p>
+ * Run it with the GC profiler to compare the allocation rates, for example:
+ * {@code ./mvnw -Pdev,jmh test-compile exec:exec -Djmh.args="GrantedAuthorities -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class GrantedAuthoritiesBenchmark {
+
+    @Param({ AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN + "," + AuthoritiesConstants.USER })
+    public String claim;
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> splitClaim() {
+        return Arrays
+            .stream(claim.split(","))
+            .filter(auth -> !auth.trim().isEmpty())
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<GrantedAuthority> internedClaim() {
+        return GrantedAuthorities.fromClaim(claim);
+    }
+}
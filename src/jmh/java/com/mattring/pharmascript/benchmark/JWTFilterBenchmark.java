@@ -0,0 +1,103 @@
+package com.mattring.pharmascript.benchmark;
+
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.management.CacheRegionsService;
+import com.mattring.pharmascript.management.SecurityMetersService;
+import com.mattring.pharmascript.security.AuthoritiesConstants;
+import com.mattring.pharmascript.security.jwt.TokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Compares authenticating a request from its JWT the way the filter used to, validating then parsing the token, with
+ * {@link TokenProvider#getVerifiedAuthentication(String)} when the token is in the cache of verified tokens and when
+ * it is not.
+ * <p>
+ * The cache misses come from a pool of tokens larger than the cache region. {@code createToken} and
+ * {@code validateToken} measure the signature alone, as run on each login and on each request before the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class JWTFilterBenchmark {
+
+    private static final String SECRET =
+        "ZmQ0ZGI5NjQ0MDQwY2I4MjMxY2Y3ZmI3MjdhN2ZmMjNhODViOTg1ZGE0NTBjMGM4NDA5NzYxMjdjOWMwYWRmZTBlZjlhNGY3ZTg4Y2U3YTE1ODVkZDU5Y2Y3OGYwZWE1NzUzNWQ2YjFjZDc0NGMxZWU2MmQ3MjY1NzJmNTE0MzI=";
+
+    @Param({ "1000" })
+    public int cachedTokens;
+
+    private TokenProvider tokenProvider;
+
+    private Authentication authentication;
+
+    private String token;
+
+    private String[] missingTokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(SECRET);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCache().getRegion(TokenProvider.VERIFIED_TOKENS_CACHE).setMaxEntries((long) cachedTokens);
+        tokenProvider =
+            new TokenProvider(
+                jHipsterProperties,
+                applicationProperties,
+                new SecurityMetersService(new SimpleMeterRegistry()),
+                new CacheRegionsService(new SimpleMeterRegistry())
+            );
+
+        authentication = authentication("user");
+        token = tokenProvider.createToken(authentication, false);
+        missingTokens = new String[cachedTokens * 10];
+        for (int i = 0; i < missingTokens.length; i++) {
+            missingTokens[i] = tokenProvider.createToken(authentication("user" + i), false);
+        }
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication validateThenParse() {
+        return tokenProvider.validateToken(token) ? tokenProvider.getAuthentication(token) : null;
+    }
+
+    @Benchmark
+    public Optional<Authentication> verifiedCacheHit() {
+        return tokenProvider.getVerifiedAuthentication(token);
+    }
+
+    @Benchmark
+    public Optional<Authentication> verifiedCacheMiss() {
+        return tokenProvider.getVerifiedAuthentication(missingTokens[ThreadLocalRandom.current().nextInt(missingTokens.length)]);
+    }
+
+    private static Authentication authentication(String login) {
+        return new UsernamePasswordAuthenticationToken(
+            login,
+            login,
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))
+        );
+    }
+}
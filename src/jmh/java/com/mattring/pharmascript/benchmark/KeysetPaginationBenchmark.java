@@ -0,0 +1,141 @@
+package com.mattring.pharmascript.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares offset paging (what {@code GET /api/prescriptions?page=...} runs) with keyset paging
+ * ({@code GET /api/prescriptions?after=...}) on a generated {@code prescription} table.
+ * <p>
+ * The SQL mirrors what Hibernate generates for {@code PrescriptionRepository.findAll(Pageable)} plus its count query,
+ * and for {@code PrescriptionRepository.findKeysetPageAfter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class KeysetPaginationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final Instant BASE_DATE = Instant.parse("2023-01-01T00:00:00Z");
+
+    private static final String OFFSET_QUERY =
+        "select id, dosage_amount, dosage_interval, created_date, updated_date, drug_id, patient_id, doctor_id" +
+        " from prescription order by id asc limit ? offset ?";
+
+    private static final String COUNT_QUERY = "select count(id) from prescription";
+
+    private static final String KEYSET_QUERY =
+        "select id, dosage_amount, dosage_interval, created_date, updated_date, drug_id, patient_id, doctor_id" +
+        " from prescription where updated_date >= ? and (updated_date > ? or id > ?)" +
+        " order by updated_date asc, id asc limit ?";
+
+    @Param({ "1000000" })
+    public int rows;
+
+    @Param({ "0", "10000", "500000", "990000" })
+    public int depth;
+
+    private Connection connection;
+
+    private PreparedStatement offsetQuery;
+
+    private PreparedStatement countQuery;
+
+    private PreparedStatement keysetQuery;
+
+    private Timestamp cursorUpdatedDate;
+
+    private long cursorId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        // H2 would otherwise hand back the cached result of a repeated query on an unchanged table
+        connection = DriverManager.getConnection("jdbc:h2:mem:keyset-benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists prescription");
+            statement.execute(
+                "create table prescription (id bigint primary key, dosage_amount integer not null," +
+                " dosage_interval integer not null, created_date timestamp not null, updated_date timestamp not null," +
+                " drug_id bigint, patient_id bigint, doctor_id bigint)"
+            );
+            statement.execute("create index idx_prescription__updated_date_id on prescription (updated_date, id)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("insert into prescription values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                // Three rows share each updatedDate, so the id tie-breaker is exercised
+                Timestamp date = Timestamp.from(BASE_DATE.plusSeconds(i / 3));
+                insert.setLong(1, i);
+                insert.setInt(2, i % 100);
+                insert.setInt(3, i % 24);
+                insert.setTimestamp(4, date);
+                insert.setTimestamp(5, date);
+                insert.setLong(6, i % 500);
+                insert.setLong(7, i % 50_000);
+                insert.setLong(8, i % 2_000);
+                insert.addBatch();
+                if (i % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        // The keyset cursor of the last row of the page just before the one being read
+        cursorUpdatedDate = Timestamp.from(BASE_DATE.plusSeconds(depth / 3));
+        cursorId = depth;
+
+        offsetQuery = connection.prepareStatement(OFFSET_QUERY);
+        countQuery = connection.prepareStatement(COUNT_QUERY);
+        keysetQuery = connection.prepareStatement(KEYSET_QUERY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table prescription");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void offsetPage(Blackhole blackhole) throws SQLException {
+        offsetQuery.setInt(1, PAGE_SIZE);
+        offsetQuery.setInt(2, depth);
+        consume(offsetQuery, blackhole);
+        consume(countQuery, blackhole);
+    }
+
+    @Benchmark
+    public void keysetPage(Blackhole blackhole) throws SQLException {
+        keysetQuery.setTimestamp(1, cursorUpdatedDate);
+        keysetQuery.setTimestamp(2, cursorUpdatedDate);
+        keysetQuery.setLong(3, cursorId);
+        // One extra row tells whether there is a next page, as Spring Data does for a Slice
+        keysetQuery.setInt(4, PAGE_SIZE + 1);
+        consume(keysetQuery, blackhole);
+    }
+
+    private static void consume(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+            }
+        }
+    }
+}
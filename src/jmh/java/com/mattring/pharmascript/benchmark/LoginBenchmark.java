@@ -0,0 +1,99 @@
+package com.mattring.pharmascript.benchmark;
+
+import com.mattring.pharmascript.PharmascriptApp;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load test of {@code POST /api/authenticate} over HTTP, with more concurrent logins than verification threads.
+ * <p>
+ * The {@code logins} counter gives the successful logins per second and the {@code rejected} counter the logins turned
+ * down with a 503; divide the logins by {@code verificationThreads} for the logins per second per core. For example:
+ * {@code ./mvnw -Pdev,jmh test-compile exec:exec -Djmh.args="Login -p verificationThreads=2"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Threads(64)
+public class LoginBenchmark {
+
+    @Param({ "10", "12" })
+    public int bcryptStrength;
+
+    @Param({ "1", "4" })
+    public int verificationThreads;
+
+    @Param({ "32" })
+    public int queueCapacity;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest request;
+
+    /**
+     * Login outcomes of one benchmark thread, summed by JMH over all the threads.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+
+        public long logins;
+
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context =
+            new SpringApplicationBuilder(PharmascriptApp.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("testdev")
+                .properties(
+                    "server.port=0",
+                    "logging.level.root=WARN",
+                    "application.login.bcrypt-strength=" + bcryptStrength,
+                    "application.login.verification-threads=" + verificationThreads,
+                    "application.login.queue-capacity=" + queueCapacity
+                )
+                .run();
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request =
+            HttpRequest
+                .newBuilder(URI.create("http://localhost:" + port + "/api/authenticate"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user\",\"password\":\"user\"}"))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int authenticate(Outcomes outcomes) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 200) {
+            outcomes.logins++;
+        } else if (response.statusCode() == 503) {
+            outcomes.rejected++;
+        } else {
+            throw new IllegalStateException("POST /api/authenticate returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
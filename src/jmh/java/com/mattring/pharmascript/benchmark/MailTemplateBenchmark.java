@@ -0,0 +1,96 @@
+package com.mattring.pharmascript.benchmark;
+
+import com.mattring.pharmascript.domain.User;
+import com.mattring.pharmascript.service.MailTemplateService;
+import com.mattring.pharmascript.service.MailTemplateService.RenderedEmail;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Compares rendering the activation email of many users the way {@code MailService.sendEmailFromTemplate} used to,
+ * with a new {@link Context}, {@link Locale} and subject lookup per user, with
+ * {@link MailTemplateService#renderAll}.
+ * <p>
+ * Both use the same template engine, with the template cache enabled as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class MailTemplateBenchmark {
+
+    private static final String TEMPLATE = "mail/activationEmail";
+
+    private static final String TITLE_KEY = "email.activation.title";
+
+    @Param({ "1000" })
+    public int recipients;
+
+    private JHipsterProperties jHipsterProperties;
+
+    private ResourceBundleMessageSource messageSource;
+
+    private SpringTemplateEngine templateEngine;
+
+    private MailTemplateService mailTemplateService;
+
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getMail().setBaseUrl("http://127.0.0.1:8080");
+        messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("i18n/messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setTemplateEngineMessageSource(messageSource);
+        mailTemplateService = new MailTemplateService(jHipsterProperties, messageSource, templateEngine);
+
+        users = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setLangKey("en");
+            user.setActivationKey("activation" + i);
+            users.add(user);
+        }
+    }
+
+    @Benchmark
+    public void perUser(Blackhole blackhole) {
+        for (User user : users) {
+            Locale locale = Locale.forLanguageTag(user.getLangKey());
+            Context context = new Context(locale);
+            context.setVariable("user", user);
+            context.setVariable("baseUrl", jHipsterProperties.getMail().getBaseUrl());
+            blackhole.consume(templateEngine.process(TEMPLATE, context));
+            blackhole.consume(messageSource.getMessage(TITLE_KEY, null, locale));
+        }
+    }
+
+    @Benchmark
+    public List<RenderedEmail> renderAll() {
+        return mailTemplateService.renderAll(users, TEMPLATE, TITLE_KEY);
+    }
+}
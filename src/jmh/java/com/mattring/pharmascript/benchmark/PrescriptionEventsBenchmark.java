@@ -0,0 +1,198 @@
+package com.mattring.pharmascript.benchmark;
+
+import com.mattring.pharmascript.PharmascriptApp;
+import com.mattring.pharmascript.security.AuthoritiesConstants;
+import com.mattring.pharmascript.security.jwt.TokenProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Load test of {@code GET /api/prescriptions/events} over HTTP: {@code subscribers} clients hold an event stream
+ * open while a prescription is updated, and each operation lasts from the update request to the receipt of its event
+ * by every client.
+ * <p>
+ * The sample times give the propagation latency percentiles at that number of connections, for example:
+ * {@code ./mvnw -Pdev,jmh test-compile exec:exec -Djmh.args="PrescriptionEvents -p subscribers=5000"}
+ * The {@code prescription.events.*} meters of the application report the same lag from the server side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class PrescriptionEventsBenchmark {
+
+    @Param({ "100", "1000", "5000" })
+    public int subscribers;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private String url;
+
+    private String token;
+
+    private long prescriptionId;
+
+    private int dosageAmount;
+
+    private final AtomicLong received = new AtomicLong();
+
+    private long expected;
+
+    private CountDownLatch subscribed;
+
+    private final List<CompletableFuture<HttpResponse<Void>>> streams = new ArrayList<>();
+
+    /**
+     * The test configuration dispatches the events on the publishing thread; this restores the executor of the
+     * application, so that updates do not wait for the clients.
+     */
+    static class PrescriptionEventsExecutorConfiguration {
+
+        @Bean(name = "prescriptionEventsExecutor")
+        public Executor prescriptionEventsExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(4);
+            executor.setMaxPoolSize(4);
+            executor.setThreadNamePrefix("prescription-events-");
+            return executor;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context =
+            new SpringApplicationBuilder(PharmascriptApp.class, PrescriptionEventsExecutorConfiguration.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("testdev")
+                .properties("server.port=0", "logging.level.root=WARN", "spring.main.allow-bean-definition-overriding=true")
+                .run();
+        token =
+            context
+                .getBean(TokenProvider.class)
+                .createToken(
+                    new UsernamePasswordAuthenticationToken(
+                        "admin",
+                        "admin",
+                        Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN))
+                    ),
+                    false
+                );
+        url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/prescriptions";
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        HttpResponse<String> created = send(
+            HttpRequest
+                .newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(
+                    HttpRequest.BodyPublishers.ofString(
+                        "{\"dosageAmount\":1,\"dosageInterval\":8," +
+                        "\"createdDate\":\"2023-01-01T00:00:00Z\",\"updatedDate\":\"2023-01-01T00:00:00Z\"}"
+                    )
+                )
+        );
+        prescriptionId = Long.parseLong(created.body().replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        subscribed = new CountDownLatch(subscribers);
+        HttpRequest events = HttpRequest.newBuilder(URI.create(url + "/events")).header("Authorization", "Bearer " + token).build();
+        for (int i = 0; i < subscribers; i++) {
+            streams.add(httpClient.sendAsync(events, HttpResponse.BodyHandlers.fromLineSubscriber(new EventCounter())));
+        }
+        // Each stream starts with a comment once subscribed
+        if (!subscribed.await(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException(subscribed.getCount() + " streams not subscribed out of " + subscribers);
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(
+            builder.header("Authorization", "Bearer " + token).build(),
+            HttpResponse.BodyHandlers.ofString()
+        );
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(url + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        streams.forEach(stream -> stream.cancel(true));
+        context.close();
+    }
+
+    @Benchmark
+    public long updateAndReceive() throws IOException, InterruptedException {
+        dosageAmount = dosageAmount % 100 + 1;
+        send(
+            HttpRequest
+                .newBuilder(URI.create(url + "/" + prescriptionId))
+                .header("Content-Type", "application/merge-patch+json")
+                .method(
+                    "PATCH",
+                    HttpRequest.BodyPublishers.ofString("{\"id\":" + prescriptionId + ",\"dosageAmount\":" + dosageAmount + "}")
+                )
+        );
+        expected += subscribers;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received.get() < expected) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException(received.get() + " events received out of " + expected);
+            }
+            // Parks rather than spins, to leave the cores to the server and the clients
+            LockSupport.parkNanos(50_000);
+        }
+        return received.get();
+    }
+
+    /**
+     * Counts the events received by one client.
+     */
+    private class EventCounter implements Flow.Subscriber<String> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("event:updated")) {
+                received.incrementAndGet();
+            } else if (line.startsWith(":subscribed")) {
+                subscribed.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {}
+
+        @Override
+        public void onComplete() {}
+    }
+}
@@ -0,0 +1,97 @@
+package com.mattring.pharmascript.benchmark;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import com.mattring.pharmascript.PharmascriptApp;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Compares importing prescriptions one {@code POST /api/prescriptions} at a time with a single
+ * {@code POST /api/prescriptions/bulk}, through the full MVC and security stack on the embedded H2 database.
+ * <p>
+ * Scores are per prescription. JDBC batching is configured as in {@code application.yml}, which the test
+ * configuration used here does not do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class PrescriptionImportBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private static final String ROW =
+        "{\"dosageAmount\":1,\"dosageInterval\":8,\"createdDate\":\"2023-03-07T00:00:00Z\",\"updatedDate\":\"2023-03-07T00:00:00Z\"}";
+
+    private ConfigurableApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    private String ndjson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context =
+            new SpringApplicationBuilder(PharmascriptApp.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("testdev")
+                .properties(
+                    "server.port=0",
+                    "spring.jpa.properties.hibernate.jdbc.batch_size=25",
+                    "spring.jpa.properties.hibernate.order_inserts=true"
+                )
+                .run();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).apply(springSecurity()).build();
+        ndjson = String.join("\n", Collections.nCopies(ROWS, ROW));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singlePosts() throws Exception {
+        for (int i = 0; i < ROWS; i++) {
+            expectStatus(
+                mockMvc
+                    .perform(post("/api/prescriptions").with(user("benchmark")).contentType(MediaType.APPLICATION_JSON).content(ROW))
+                    .andReturn(),
+                201
+            );
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public MvcResult bulkPost() throws Exception {
+        return expectStatus(
+            mockMvc
+                .perform(post("/api/prescriptions/bulk").with(user("benchmark")).contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+                .andReturn(),
+            200
+        );
+    }
+
+    private static MvcResult expectStatus(MvcResult result, int status) {
+        if (result.getResponse().getStatus() != status) {
+            throw new IllegalStateException("Unexpected status " + result.getResponse().getStatus());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,180 @@
+package com.mattring.pharmascript.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mattring.pharmascript.PharmascriptApp;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.repository.PrescriptionRepository;
+import com.mattring.pharmascript.service.DrugCatalogService;
+import com.mattring.pharmascript.service.PrescriptionService;
+import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import com.mattring.pharmascript.service.mapper.PrescriptionMapper;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures the stages of {@code GET /api/prescriptions} on a generated database: the whole
+ * {@link PrescriptionService#findAll} call against H2, then separately the {@link PrescriptionMapper} on a page of
+ * loaded entities and the Jackson serialization of a page of DTOs with the {@link ObjectMapper} of the application.
+ * <p>
+ * Pages are taken at random offsets, so that the count and the fetch join queries do not always hit the same rows.
+ * Comparing two runs of this benchmark, for example before and after a change of the mapper:
+ * {@code node src/jmh/compare.js baseline.json target/jmh-result.json}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class PrescriptionReadPathBenchmark {
+
+    private static final Instant BASE_DATE = Instant.parse("2023-01-01T00:00:00Z");
+
+    private static final Date BIRTHDATE = Date.valueOf("1950-01-01");
+
+    /**
+     * Generated rows start above the ids of the {@code sequence_generator}, so they never collide with saved entities.
+     */
+    private static final long FIRST_ID = 1_000_000L;
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({ "100000" })
+    public int prescriptions;
+
+    @Param({ "20", "100" })
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private PrescriptionService prescriptionService;
+
+    private PrescriptionMapper prescriptionMapper;
+
+    private ObjectMapper objectMapper;
+
+    private List<Prescription> entities;
+
+    private List<PrescriptionDTO> dtos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context =
+            new SpringApplicationBuilder(PharmascriptApp.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("testdev")
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        prescriptionService = context.getBean(PrescriptionService.class);
+        prescriptionMapper = context.getBean(PrescriptionMapper.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        // About one drug for 200 prescriptions, one doctor for 200 and one patient for 10
+        int drugs = Math.max(1, prescriptions / 200);
+        int doctors = Math.max(1, prescriptions / 200);
+        int patients = Math.max(1, prescriptions / 10);
+        Timestamp date = Timestamp.from(BASE_DATE);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // The test datasource does not auto-commit
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.executeWithoutResult(status -> {
+            insert(
+                jdbcTemplate,
+                "insert into drug (id, maker, brand_name, generic_name, created_date, updated_date) values (?, ?, ?, ?, ?, ?)",
+                drugs,
+                i -> new Object[] { FIRST_ID + i, "Maker " + i % 20, "Brand " + i, "Generic " + i, date, date }
+            );
+            insert(
+                jdbcTemplate,
+                "insert into doctor (id, first_name, last_name, license_number, created_date, updated_date) values (?, ?, ?, ?, ?, ?)",
+                doctors,
+                i -> new Object[] { FIRST_ID + i, "First " + i, "Last " + i, "LIC-" + i, date, date }
+            );
+            insert(
+                jdbcTemplate,
+                "insert into patient (id, first_name, last_name, birthdate, created_date, updated_date) values (?, ?, ?, ?, ?, ?)",
+                patients,
+                i -> new Object[] { FIRST_ID + i, "First " + i, "Last " + i, BIRTHDATE, date, date }
+            );
+            insert(
+                jdbcTemplate,
+                "insert into prescription (id, dosage_amount, dosage_interval, created_date, updated_date," +
+                " drug_id, patient_id, doctor_id) values (?, ?, ?, ?, ?, ?, ?, ?)",
+                prescriptions,
+                i -> {
+                    Timestamp updatedDate = Timestamp.from(BASE_DATE.plusSeconds(i));
+                    return new Object[] {
+                        FIRST_ID + i,
+                        i % 4 + 1,
+                        i % 3 * 4 + 4,
+                        updatedDate,
+                        updatedDate,
+                        FIRST_ID + i % drugs,
+                        FIRST_ID + i % patients,
+                        FIRST_ID + i % doctors,
+                    };
+                }
+            );
+        });
+        context.getBean(DrugCatalogService.class).reload();
+
+        // The fetch join initializes the associations, so the entities can be mapped outside of the transaction
+        PrescriptionRepository prescriptionRepository = context.getBean(PrescriptionRepository.class);
+        entities =
+            transactionTemplate.execute(status ->
+                prescriptionRepository.findAllWithEagerRelationships(PageRequest.of(0, pageSize)).getContent()
+            );
+        dtos = prescriptionMapper.toDto(entities);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String sql, int rows, RowGenerator generator) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            batch.add(generator.row(i));
+            if (batch.size() == BATCH_SIZE || i == rows - 1) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<PrescriptionDTO> serviceFindAll() {
+        int page = ThreadLocalRandom.current().nextInt(prescriptions / pageSize);
+        return prescriptionService.findAll(PageRequest.of(page, pageSize));
+    }
+
+    @Benchmark
+    public List<PrescriptionDTO> mapperToDto() {
+        return prescriptionMapper.toDto(entities);
+    }
+
+    @Benchmark
+    public byte[] jacksonWritePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    private interface RowGenerator {
+        Object[] row(int i);
+    }
+}
@@ -0,0 +1,159 @@
+package com.mattring.pharmascript.benchmark;
+
+import com.mattring.pharmascript.PharmascriptApp;
+import com.mattring.pharmascript.config.VirtualThreads;
+import com.mattring.pharmascript.security.AuthoritiesConstants;
+import com.mattring.pharmascript.security.jwt.TokenProvider;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Load test of {@code GET /api/patients} over HTTP, with the requests on the Undertow worker pool ({@code platform})
+ * and on virtual threads ({@code virtual}), against an embedded H2 database made slow by a fixed delay per statement.
+ * <p>
+ * The platform mode has fewer request threads than database connections, as when request threads run out under
+ * database latency spikes; the virtual mode is bounded by the connections only. The throughput mode gives requests
+ * per second, the sample time mode gives the p99 latency. The {@code virtual} mode needs Java 21, for example:
+ * {@code ./mvnw -Pdev,jmh,virtual-threads test-compile exec:exec -Djmh.args="VirtualThreadsLoad"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Threads(200)
+public class VirtualThreadsLoadBenchmark {
+
+    @Param({ "platform", "virtual" })
+    public String threads;
+
+    @Param({ "20" })
+    public int statementDelayMs;
+
+    @Param({ "20" })
+    public int workerThreads;
+
+    @Param({ "40" })
+    public int connections;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && !VirtualThreads.isSupported()) {
+            throw new IllegalStateException("The virtual mode needs Java 21, running on Java " + Runtime.version());
+        }
+        context =
+            new SpringApplicationBuilder(PharmascriptApp.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("testdev")
+                .properties(
+                    "server.port=0",
+                    "logging.level.root=WARN",
+                    "server.undertow.threads.worker=" + workerThreads,
+                    "spring.datasource.hikari.maximum-pool-size=" + connections,
+                    "application.virtual-threads.enabled=" + virtual
+                )
+                .initializers(applicationContext ->
+                    applicationContext.getBeanFactory().addBeanPostProcessor(new SlowDataSourcePostProcessor(statementDelayMs))
+                )
+                .run();
+        String token = context
+            .getBean(TokenProvider.class)
+            .createToken(
+                new UsernamePasswordAuthenticationToken(
+                    "admin",
+                    "admin",
+                    Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN))
+                ),
+                false
+            );
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request =
+            HttpRequest
+                .newBuilder(URI.create("http://localhost:" + port + "/api/patients?page=0&size=20"))
+                .header("Authorization", "Bearer " + token)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getPatients() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/patients returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    /**
+     * Delays every statement prepared on the connections of the data sources, while holding the connection.
+     */
+    private static class SlowDataSourcePostProcessor implements BeanPostProcessor {
+
+        private final long delayMs;
+
+        SlowDataSourcePostProcessor(long delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource((DataSource) bean) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return slow(super.getConnection());
+                }
+            };
+        }
+
+        private Connection slow(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(
+                SlowDataSourcePostProcessor.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("prepare")) {
+                        Thread.sleep(delayMs);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                }
+            );
+        }
+    }
+}
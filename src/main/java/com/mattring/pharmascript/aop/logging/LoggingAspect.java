@@ -1,6 +1,8 @@
 package com.mattring.pharmascript.aop.logging;
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
@@ -23,6 +25,8 @@ public class LoggingAspect {
 
     private final Environment env;
 
+    private final ConcurrentMap<Class<?>, Logger> loggers = new ConcurrentHashMap<>();
+
     public LoggingAspect(Environment env) {
         this.env = env;
     }
@@ -52,13 +56,13 @@ public class LoggingAspect {
     }
 
     /**
-     * Retrieves the {@link Logger} associated to the given {@link JoinPoint}.
+     * Retrieves the {@link Logger} associated to the given {@link JoinPoint}, which is looked up once per declaring type.
      *
      * @param joinPoint join point we want the logger for.
      * @return {@link Logger} associated to the given {@link JoinPoint}.
      */
     private Logger logger(JoinPoint joinPoint) {
-        return LoggerFactory.getLogger(joinPoint.getSignature().getDeclaringTypeName());
+        return loggers.computeIfAbsent(joinPoint.getSignature().getDeclaringType(), LoggerFactory::getLogger);
     }
 
     /**
@@ -0,0 +1,135 @@
+package com.mattring.pharmascript.aop.logging;
+
+import com.mattring.pharmascript.config.ApplicationProperties;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Aspect for timing the execution of service, repository and Web REST methods, on the same pointcuts as
+ * {@link LoggingAspect}, and of the Spring Data repositories, whose proxies these pointcuts do not match.
+ * <p>
+ * Each method of each bean gets a {@link Timer} named {@value #METRIC_NAME}, tagged with the class of the bean and
+ * the name of the method, which is looked up once per bean class and method. A repository is tagged with its own
+ * interface, so that the methods it inherits from the Spring Data interfaces, such as {@code findById}, are timed per
+ * repository. The arguments and results are never formatted, so that it can stay enabled in production; with a
+ * sample rate below one, only a random fraction of the invocations are recorded. Which timers publish a latency
+ * histogram is decided by {@link #histogramFilter}.
+ */
+@Aspect
+public class MethodTimingAspect {
+
+    public static final String METRIC_NAME = "method.duration";
+
+    private final MeterRegistry meterRegistry;
+
+    private final double sampleRate;
+
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, Timer>> timers = new ConcurrentHashMap<>();
+
+    public MethodTimingAspect(MeterRegistry meterRegistry, ApplicationProperties.MethodTiming properties) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = properties.getSampleRate();
+    }
+
+    /**
+     * A filter giving a latency histogram only to the timers of the methods the properties select, and no client-side
+     * percentiles to the others. It must be applied after the filter of the {@code management.metrics.distribution}
+     * properties, whose {@code percentiles-histogram.all} would otherwise give one to every method of every bean.
+     *
+     * @param properties the method timing properties.
+     * @return the filter.
+     */
+    public static MeterFilter histogramFilter(ApplicationProperties.MethodTiming properties) {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!METRIC_NAME.equals(id.getName())) {
+                    return config;
+                }
+                if (properties.isPercentileHistogram(id.getTag("class"), id.getTag("method"))) {
+                    return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+                }
+                return DistributionStatisticConfig.builder().percentilesHistogram(false).percentiles().build().merge(config);
+            }
+        };
+    }
+
+    /**
+     * Advice that times a method when its invocation is sampled.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable whatever the method throws.
+     */
+    @Around(
+        "(com.mattring.pharmascript.aop.logging.LoggingAspect.applicationPackagePointcut()" +
+        " && com.mattring.pharmascript.aop.logging.LoggingAspect.springBeanPointcut())" +
+        " || execution(public * org.springframework.data.repository.Repository+.*(..))"
+    )
+    public Object timeAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return joinPoint.proceed();
+        }
+        Timer timer = timer(joinPoint.getThis().getClass(), joinPoint);
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Class<?> beanClass, ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        ConcurrentMap<Method, Timer> beanTimers = timers.get(beanClass);
+        if (beanTimers == null) {
+            beanTimers = timers.computeIfAbsent(beanClass, key -> new ConcurrentHashMap<>());
+        }
+        Timer timer = beanTimers.get(signature.getMethod());
+        if (timer == null) {
+            timer =
+                beanTimers.computeIfAbsent(
+                    signature.getMethod(),
+                    key ->
+                        Timer
+                            .builder(METRIC_NAME)
+                            .description("Execution time of repository, service and REST methods")
+                            .tag("class", beanType(joinPoint.getThis(), signature.getDeclaringType()).getName())
+                            .tag("method", signature.getName())
+                            .register(meterRegistry)
+                );
+        }
+        return timer;
+    }
+
+    /**
+     * The type a bean is known by: its own class, or for an interface-based proxy such as a Spring Data repository,
+     * the first of its interfaces declaring the method.
+     */
+    static Class<?> beanType(Object bean, Class<?> declaringType) {
+        if (AopUtils.isJdkDynamicProxy(bean)) {
+            for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(bean)) {
+                if (declaringType.isAssignableFrom(type)) {
+                    return type;
+                }
+            }
+            return declaringType;
+        }
+        return ClassUtils.getUserClass(bean);
+    }
+}
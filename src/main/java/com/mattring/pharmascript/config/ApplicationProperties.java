@@ -1,6 +1,14 @@
 package com.mattring.pharmascript.config;
 
+import com.mattring.pharmascript.domain.enumeration.InteractionSeverity;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import tech.jhipster.config.JHipsterProperties;
 
 /**
  * Properties specific to Pharmascript.
@@ -10,7 +18,1041 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final PrescriptionImport prescriptionImport = new PrescriptionImport();
+
+    private final PrescriptionExport prescriptionExport = new PrescriptionExport();
+
+    private final PrescriptionChanges prescriptionChanges = new PrescriptionChanges();
+
+    private final PrescriptionEvents prescriptionEvents = new PrescriptionEvents();
+
+    private final Cache cache = new Cache();
+
+    private final MethodTiming methodTiming = new MethodTiming();
+
+    private final MailOutbox mailOutbox = new MailOutbox();
+
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    private final Login login = new Login();
+
+    private final UserPurge userPurge = new UserPurge();
+
+    private final DataGenerator dataGenerator = new DataGenerator();
+
+    private final DrugInteractions drugInteractions = new DrugInteractions();
+
+    private final DrugCatalog drugCatalog = new DrugCatalog();
+
     // jhipster-needle-application-properties-property
+
+    public PrescriptionImport getPrescriptionImport() {
+        return prescriptionImport;
+    }
+
+    public PrescriptionExport getPrescriptionExport() {
+        return prescriptionExport;
+    }
+
+    public PrescriptionChanges getPrescriptionChanges() {
+        return prescriptionChanges;
+    }
+
+    public PrescriptionEvents getPrescriptionEvents() {
+        return prescriptionEvents;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public MethodTiming getMethodTiming() {
+        return methodTiming;
+    }
+
+    public MailOutbox getMailOutbox() {
+        return mailOutbox;
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public Login getLogin() {
+        return login;
+    }
+
+    public UserPurge getUserPurge() {
+        return userPurge;
+    }
+
+    public DataGenerator getDataGenerator() {
+        return dataGenerator;
+    }
+
+    public DrugInteractions getDrugInteractions() {
+        return drugInteractions;
+    }
+
+    public DrugCatalog getDrugCatalog() {
+        return drugCatalog;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class PrescriptionImport {
+
+        /**
+         * Number of rows persisted per transaction by the bulk import.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Maximum number of row errors detailed in an import result; further errors are only counted.
+         */
+        private int maxReportedErrors = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxReportedErrors() {
+            return maxReportedErrors;
+        }
+
+        public void setMaxReportedErrors(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+    }
+
+    public static class PrescriptionExport {
+
+        /**
+         * Number of rows written between two clears of the persistence context and flushes of the response.
+         */
+        private int clearInterval = 500;
+
+        public int getClearInterval() {
+            return clearInterval;
+        }
+
+        public void setClearInterval(int clearInterval) {
+            this.clearInterval = clearInterval;
+        }
+    }
+
+    public static class PrescriptionChanges {
+
+        /**
+         * Time deleted prescriptions are kept as tombstones; older cursors must sync from scratch.
+         */
+        private Duration tombstoneRetention = Duration.ofDays(30);
+
+        public Duration getTombstoneRetention() {
+            return tombstoneRetention;
+        }
+
+        public void setTombstoneRetention(Duration tombstoneRetention) {
+            this.tombstoneRetention = tombstoneRetention;
+        }
+    }
+
+    public static class PrescriptionEvents {
+
+        /**
+         * What to do with the events of a subscriber whose buffer is full: {@code drop_oldest} drops the oldest waiting
+         * event, {@code coalesce} replaces the waiting event of the same prescription, if any, and drops the oldest
+         * waiting event otherwise.
+         */
+        public enum OverflowPolicy {
+            DROP_OLDEST,
+            COALESCE,
+        }
+
+        /**
+         * Maximum number of events waiting to be sent to one subscriber; beyond it the overflow policy applies.
+         */
+        private int bufferSize = 256;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE;
+
+        /**
+         * Interval between two heartbeats sent to idle subscribers, which also detects the closed connections.
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+        /**
+         * Time after which a subscription is closed, for the client to reconnect.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+
+        /**
+         * Number of threads writing the events to the subscribers.
+         */
+        private int dispatchThreads = 4;
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getDispatchThreads() {
+            return dispatchThreads;
+        }
+
+        public void setDispatchThreads(int dispatchThreads) {
+            this.dispatchThreads = dispatchThreads;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Settings of individual caches, by cache name. Unset settings fall back to {@code jhipster.cache.caffeine}.
+         */
+        private final Map<String, Region> regions = new HashMap<>();
+
+        private final Coherence coherence = new Coherence();
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public Coherence getCoherence() {
+            return coherence;
+        }
+
+        /**
+         * Get the settings of a cache.
+         *
+         * @param name the name of the cache.
+         * @return its settings, all unset if it has none.
+         */
+        public Region getRegion(String name) {
+            return regions.getOrDefault(name, new Region());
+        }
+
+        public static class Coherence {
+
+            /**
+             * How the caches of the nodes are kept coherent: {@code local} leaves every node's caches on their own,
+             * {@code jdbc} sends the invalidations to the other nodes through the {@code cache_invalidation} table.
+             */
+            public enum Mode {
+                LOCAL,
+                JDBC,
+            }
+
+            private Mode mode = Mode.LOCAL;
+
+            /**
+             * Delay during which the invalidations of a node are gathered before being sent together.
+             */
+            private long publishIntervalMs = 100;
+
+            /**
+             * Delay between two reads of the invalidations sent by the other nodes.
+             */
+            private long pollIntervalMs = 1000;
+
+            /**
+             * Age after which the sent invalidations are deleted.
+             */
+            private long retentionSeconds = 3600;
+
+            public Mode getMode() {
+                return mode;
+            }
+
+            public void setMode(Mode mode) {
+                this.mode = mode;
+            }
+
+            public long getPublishIntervalMs() {
+                return publishIntervalMs;
+            }
+
+            public void setPublishIntervalMs(long publishIntervalMs) {
+                this.publishIntervalMs = publishIntervalMs;
+            }
+
+            public long getPollIntervalMs() {
+                return pollIntervalMs;
+            }
+
+            public void setPollIntervalMs(long pollIntervalMs) {
+                this.pollIntervalMs = pollIntervalMs;
+            }
+
+            public long getRetentionSeconds() {
+                return retentionSeconds;
+            }
+
+            public void setRetentionSeconds(long retentionSeconds) {
+                this.retentionSeconds = retentionSeconds;
+            }
+        }
+
+        public static class Region {
+
+            /**
+             * How strongly the cached values are referenced. Only the caches which are not Hibernate regions support
+             * soft and weak values.
+             */
+            public enum Values {
+                STRONG,
+                SOFT,
+                WEAK,
+            }
+
+            /**
+             * Maximum number of entries. Exclusive with {@code maxWeight}.
+             */
+            private Long maxEntries;
+
+            /**
+             * Maximum total weight, where an entry weighs one plus the size of the collection it holds. Exclusive with
+             * {@code maxEntries}; suits regions of collections, whose entries vary widely in size.
+             */
+            private Long maxWeight;
+
+            /**
+             * Age after which an entry expires.
+             */
+            private Long timeToLiveSeconds;
+
+            /**
+             * Time since the last read after which an entry expires.
+             */
+            private Long expireAfterAccessSeconds;
+
+            /**
+             * Age after which an entry is reloaded in the background on its next read, while the old value is served.
+             */
+            private Long refreshAfterWriteSeconds;
+
+            private Values values;
+
+            /**
+             * Get these settings completed with the defaults, as they are applied.
+             * <p>
+             * Without a size bound, {@code maxEntries} defaults to {@code jhipster.cache.caffeine.max-entries}; without
+             * an expiry, {@code timeToLiveSeconds} defaults to {@code jhipster.cache.caffeine.time-to-live-seconds}.
+             *
+             * @param defaults the {@code jhipster.cache.caffeine} settings.
+             * @return the effective settings.
+             * @throws IllegalArgumentException if both a maximum size and a maximum weight are set.
+             */
+            public Region resolve(JHipsterProperties.Cache.Caffeine defaults) {
+                if (maxEntries != null && maxWeight != null) {
+                    throw new IllegalArgumentException("A cache cannot have both max-entries and max-weight");
+                }
+                Region region = new Region();
+                region.maxWeight = maxWeight;
+                region.maxEntries = maxEntries == null && maxWeight == null ? Long.valueOf(defaults.getMaxEntries()) : maxEntries;
+                region.expireAfterAccessSeconds = expireAfterAccessSeconds;
+                region.timeToLiveSeconds =
+                    timeToLiveSeconds == null && expireAfterAccessSeconds == null
+                        ? Long.valueOf(defaults.getTimeToLiveSeconds())
+                        : timeToLiveSeconds;
+                region.refreshAfterWriteSeconds = refreshAfterWriteSeconds;
+                region.values = values == null ? Values.STRONG : values;
+                return region;
+            }
+
+            public Long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Long getMaxWeight() {
+                return maxWeight;
+            }
+
+            public void setMaxWeight(Long maxWeight) {
+                this.maxWeight = maxWeight;
+            }
+
+            public Long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getExpireAfterAccessSeconds() {
+                return expireAfterAccessSeconds;
+            }
+
+            public void setExpireAfterAccessSeconds(Long expireAfterAccessSeconds) {
+                this.expireAfterAccessSeconds = expireAfterAccessSeconds;
+            }
+
+            public Long getRefreshAfterWriteSeconds() {
+                return refreshAfterWriteSeconds;
+            }
+
+            public void setRefreshAfterWriteSeconds(Long refreshAfterWriteSeconds) {
+                this.refreshAfterWriteSeconds = refreshAfterWriteSeconds;
+            }
+
+            public Values getValues() {
+                return values;
+            }
+
+            public void setValues(Values values) {
+                this.values = values;
+            }
+
+            // prettier-ignore
+            @Override
+            public String toString() {
+                return "Region{" +
+                    "maxEntries=" + maxEntries +
+                    ", maxWeight=" + maxWeight +
+                    ", timeToLiveSeconds=" + timeToLiveSeconds +
+                    ", expireAfterAccessSeconds=" + expireAfterAccessSeconds +
+                    ", refreshAfterWriteSeconds=" + refreshAfterWriteSeconds +
+                    ", values=" + values +
+                    "}";
+            }
+        }
+    }
+
+    public static class MethodTiming {
+
+        /**
+         * Whether to time the methods of repositories, services and REST controllers.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Fraction of the invocations which are timed, between 0 and 1.
+         */
+        private double sampleRate = 1.0;
+
+        /**
+         * Whether to publish a latency histogram of every method, from which percentiles can be aggregated. Off by
+         * default, as each histogram adds its buckets to every scrape, for every method of every bean.
+         */
+        private boolean percentileHistogram = false;
+
+        /**
+         * Methods publishing a latency histogram even when {@code percentileHistogram} is off, each given as a class
+         * name, for all its methods, or as a class name and a method name separated by {@code #}.
+         */
+        private Set<String> percentileHistogramMethods = new HashSet<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public boolean isPercentileHistogram() {
+            return percentileHistogram;
+        }
+
+        public void setPercentileHistogram(boolean percentileHistogram) {
+            this.percentileHistogram = percentileHistogram;
+        }
+
+        public Set<String> getPercentileHistogramMethods() {
+            return percentileHistogramMethods;
+        }
+
+        public void setPercentileHistogramMethods(Set<String> percentileHistogramMethods) {
+            this.percentileHistogramMethods = percentileHistogramMethods;
+        }
+
+        /**
+         * Whether a method publishes a latency histogram.
+         *
+         * @param className the name of the class of the method.
+         * @param methodName the name of the method.
+         * @return {@code true} if all the methods do, or if the method or its class is listed.
+         */
+        public boolean isPercentileHistogram(String className, String methodName) {
+            return (
+                percentileHistogram ||
+                percentileHistogramMethods.contains(className) ||
+                percentileHistogramMethods.contains(className + "#" + methodName)
+            );
+        }
+    }
+
+    public static class MailOutbox {
+
+        /**
+         * Maximum number of emails sent over one SMTP connection.
+         */
+        private int batchSize = 100;
+
+        /**
+         * Number of threads sending emails, hence of concurrent SMTP connections.
+         */
+        private int poolSize = 2;
+
+        /**
+         * Number of attempts after which an email is marked as failed.
+         */
+        private int maxAttempts = 8;
+
+        /**
+         * Delay before the first retry, doubled on each further retry.
+         */
+        private long initialBackoffSeconds = 30;
+
+        /**
+         * Maximum delay between two retries.
+         */
+        private long maxBackoffSeconds = 3600;
+
+        /**
+         * Time after which an email claimed by a dispatcher which did not report back is sent again.
+         */
+        private long leaseSeconds = 300;
+
+        /**
+         * Interval between two looks for emails due for a retry.
+         */
+        private long pollIntervalSeconds = 30;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoffSeconds() {
+            return initialBackoffSeconds;
+        }
+
+        public void setInitialBackoffSeconds(long initialBackoffSeconds) {
+            this.initialBackoffSeconds = initialBackoffSeconds;
+        }
+
+        public long getMaxBackoffSeconds() {
+            return maxBackoffSeconds;
+        }
+
+        public void setMaxBackoffSeconds(long maxBackoffSeconds) {
+            this.maxBackoffSeconds = maxBackoffSeconds;
+        }
+
+        public long getLeaseSeconds() {
+            return leaseSeconds;
+        }
+
+        public void setLeaseSeconds(long leaseSeconds) {
+            this.leaseSeconds = leaseSeconds;
+        }
+
+        public long getPollIntervalSeconds() {
+            return pollIntervalSeconds;
+        }
+
+        public void setPollIntervalSeconds(long pollIntervalSeconds) {
+            this.pollIntervalSeconds = pollIntervalSeconds;
+        }
+    }
+
+    public static class VirtualThreads {
+
+        /**
+         * Whether requests and async tasks run on virtual threads, which needs Java 21.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of database connections in use at once, defaults to the maximum size of the Hikari pool.
+         */
+        private Integer maxConcurrentConnections;
+
+        /**
+         * Time to wait for one of the concurrent database connections before failing.
+         */
+        private long connectionAcquireTimeoutMs = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMaxConcurrentConnections() {
+            return maxConcurrentConnections;
+        }
+
+        public void setMaxConcurrentConnections(Integer maxConcurrentConnections) {
+            this.maxConcurrentConnections = maxConcurrentConnections;
+        }
+
+        public long getConnectionAcquireTimeoutMs() {
+            return connectionAcquireTimeoutMs;
+        }
+
+        public void setConnectionAcquireTimeoutMs(long connectionAcquireTimeoutMs) {
+            this.connectionAcquireTimeoutMs = connectionAcquireTimeoutMs;
+        }
+    }
+
+    public static class Login {
+
+        /**
+         * Log2 of the number of BCrypt rounds of new password hashes. Passwords hashed with fewer rounds are hashed
+         * again on the next successful login.
+         */
+        private int bcryptStrength = 10;
+
+        /**
+         * Number of threads verifying passwords, hence of cores used by BCrypt; 0 uses half of the available cores.
+         */
+        private int verificationThreads = 0;
+
+        /**
+         * Number of password verifications waiting for a thread, beyond which logins are rejected.
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * Time a login waits for its password verification before being rejected.
+         */
+        private long timeoutMs = 10000;
+
+        /**
+         * Retry-After of the rejected logins.
+         */
+        private int retryAfterSeconds = 5;
+
+        public int getBcryptStrength() {
+            return bcryptStrength;
+        }
+
+        public void setBcryptStrength(int bcryptStrength) {
+            this.bcryptStrength = bcryptStrength;
+        }
+
+        public int getVerificationThreads() {
+            return verificationThreads;
+        }
+
+        public void setVerificationThreads(int verificationThreads) {
+            this.verificationThreads = verificationThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(int retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    public static class UserPurge {
+
+        /**
+         * Number of not activated users deleted per transaction.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Time after which the lock of a purge is released even if the node running it did not report back.
+         */
+        private Duration lockAtMostFor = Duration.ofHours(1);
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public Duration getLockAtMostFor() {
+            return lockAtMostFor;
+        }
+
+        public void setLockAtMostFor(Duration lockAtMostFor) {
+            this.lockAtMostFor = lockAtMostFor;
+        }
+    }
+
+    public static class DataGenerator {
+
+        /**
+         * Whether synthetic data is generated on startup; the {@code datagen} profile enables it.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Seed of the generated data: the same seed and volumes always generate the same rows.
+         */
+        private long seed = 42;
+
+        private int drugs = 5000;
+
+        private int doctors = 2000;
+
+        private int patients = 100000;
+
+        private int prescriptions = 1000000;
+
+        /**
+         * Zipf exponent of the number of patients per doctor; 0 spreads the patients evenly.
+         */
+        private double doctorSkew = 1.0;
+
+        /**
+         * Zipf exponent of the number of prescriptions per drug, which makes a few drugs hot.
+         */
+        private double drugSkew = 1.2;
+
+        /**
+         * Zipf exponent of the number of prescriptions per patient.
+         */
+        private double patientSkew = 0.5;
+
+        /**
+         * Share of the prescriptions of a patient written by their own doctor rather than by any doctor.
+         */
+        private double ownDoctorRatio = 0.9;
+
+        /**
+         * First id of each generated table, above the ids allocated by the {@code sequence_generator}.
+         */
+        private long firstId = 1_000_000_000L;
+
+        /**
+         * Creation date of the first prescription; the following ones are spread over {@code period}.
+         */
+        private Instant since = Instant.parse("2020-01-01T00:00:00Z");
+
+        private Duration period = Duration.ofDays(3 * 365);
+
+        /**
+         * Number of rows per JDBC batch.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Number of rows per transaction.
+         */
+        private int chunkSize = 50000;
+
+        /**
+         * Whether the application exits once the data is generated.
+         */
+        private boolean exit = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public void setSeed(long seed) {
+            this.seed = seed;
+        }
+
+        public int getDrugs() {
+            return drugs;
+        }
+
+        public void setDrugs(int drugs) {
+            this.drugs = drugs;
+        }
+
+        public int getDoctors() {
+            return doctors;
+        }
+
+        public void setDoctors(int doctors) {
+            this.doctors = doctors;
+        }
+
+        public int getPatients() {
+            return patients;
+        }
+
+        public void setPatients(int patients) {
+            this.patients = patients;
+        }
+
+        public int getPrescriptions() {
+            return prescriptions;
+        }
+
+        public void setPrescriptions(int prescriptions) {
+            this.prescriptions = prescriptions;
+        }
+
+        public double getDoctorSkew() {
+            return doctorSkew;
+        }
+
+        public void setDoctorSkew(double doctorSkew) {
+            this.doctorSkew = doctorSkew;
+        }
+
+        public double getDrugSkew() {
+            return drugSkew;
+        }
+
+        public void setDrugSkew(double drugSkew) {
+            this.drugSkew = drugSkew;
+        }
+
+        public double getPatientSkew() {
+            return patientSkew;
+        }
+
+        public void setPatientSkew(double patientSkew) {
+            this.patientSkew = patientSkew;
+        }
+
+        public double getOwnDoctorRatio() {
+            return ownDoctorRatio;
+        }
+
+        public void setOwnDoctorRatio(double ownDoctorRatio) {
+            this.ownDoctorRatio = ownDoctorRatio;
+        }
+
+        public long getFirstId() {
+            return firstId;
+        }
+
+        public void setFirstId(long firstId) {
+            this.firstId = firstId;
+        }
+
+        public Instant getSince() {
+            return since;
+        }
+
+        public void setSince(Instant since) {
+            this.since = since;
+        }
+
+        public Duration getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Duration period) {
+            this.period = period;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public boolean isExit() {
+            return exit;
+        }
+
+        public void setExit(boolean exit) {
+            this.exit = exit;
+        }
+    }
+
+    public static class DrugInteractions {
+
+        /**
+         * Lowest severity of an interaction or duplicate therapy which rejects a new prescription; none when not set.
+         */
+        private InteractionSeverity blockingSeverity = InteractionSeverity.MAJOR;
+
+        /**
+         * Severity given to the prescriptions of the same generic drug.
+         */
+        private InteractionSeverity duplicateTherapySeverity = InteractionSeverity.MODERATE;
+
+        /**
+         * Threads of the scans of all the patients (0: the number of cores).
+         */
+        private int scanParallelism = 0;
+
+        /**
+         * Patients checked by a scan task before it stops splitting.
+         */
+        private int scanTaskSize = 1024;
+
+        /**
+         * Maximum number of findings returned by a scan, which still counts all of them.
+         */
+        private int scanMaxFindings = 1000;
+
+        public InteractionSeverity getBlockingSeverity() {
+            return blockingSeverity;
+        }
+
+        public void setBlockingSeverity(InteractionSeverity blockingSeverity) {
+            this.blockingSeverity = blockingSeverity;
+        }
+
+        public InteractionSeverity getDuplicateTherapySeverity() {
+            return duplicateTherapySeverity;
+        }
+
+        public void setDuplicateTherapySeverity(InteractionSeverity duplicateTherapySeverity) {
+            this.duplicateTherapySeverity = duplicateTherapySeverity;
+        }
+
+        public int getScanParallelism() {
+            return scanParallelism;
+        }
+
+        public void setScanParallelism(int scanParallelism) {
+            this.scanParallelism = scanParallelism;
+        }
+
+        public int getScanTaskSize() {
+            return scanTaskSize;
+        }
+
+        public void setScanTaskSize(int scanTaskSize) {
+            this.scanTaskSize = scanTaskSize;
+        }
+
+        public int getScanMaxFindings() {
+            return scanMaxFindings;
+        }
+
+        public void setScanMaxFindings(int scanMaxFindings) {
+            this.scanMaxFindings = scanMaxFindings;
+        }
+    }
+
+    public static class DrugCatalog {
+
+        /**
+         * Interval between two checks of the drug table for changes made by the other nodes; only read at startup.
+         */
+        private Duration checkInterval = Duration.ofSeconds(30);
+
+        /**
+         * Age at which the catalog is reloaded even though the drug table looks unchanged.
+         */
+        private Duration maxStaleness = Duration.ofMinutes(10);
+
+        public Duration getCheckInterval() {
+            return checkInterval;
+        }
+
+        public void setCheckInterval(Duration checkInterval) {
+            this.checkInterval = checkInterval;
+        }
+
+        public Duration getMaxStaleness() {
+            return maxStaleness;
+        }
+
+        public void setMaxStaleness(Duration maxStaleness) {
+            this.maxStaleness = maxStaleness;
+        }
+    }
+
     // jhipster-needle-application-properties-property-class
 }
@@ -12,6 +12,7 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import tech.jhipster.async.ExceptionHandlingAsyncTaskExecutor;
 
@@ -25,13 +26,23 @@ public class AsyncConfiguration implements AsyncConfigurer {
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties, ApplicationProperties applicationProperties) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
+        if (applicationProperties.getVirtualThreads().isEnabled()) {
+            log.debug("Creating Async Task Executor on virtual threads");
+            ConcurrentTaskExecutor executor = new ConcurrentTaskExecutor(
+                VirtualThreads.newExecutor(taskExecutionProperties.getThreadNamePrefix())
+            );
+            return new ExceptionHandlingAsyncTaskExecutor(executor);
+        }
         log.debug("Creating Async Task Executor");
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(taskExecutionProperties.getPool().getCoreSize());
@@ -41,6 +52,31 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    @Bean(name = "mailExecutor")
+    public Executor mailExecutor() {
+        log.debug("Creating Mail Task Executor");
+        int poolSize = applicationProperties.getMailOutbox().getPoolSize();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        // Mail dispatch requests are coalesced, a single waiting one is enough
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("mail-");
+        return executor;
+    }
+
+    @Bean(name = "prescriptionEventsExecutor")
+    public Executor prescriptionEventsExecutor() {
+        log.debug("Creating Prescription Events Task Executor");
+        int poolSize = applicationProperties.getPrescriptionEvents().getDispatchThreads();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        // Each subscription queues at most one task, so the queue is bounded by the number of subscriptions
+        executor.setThreadNamePrefix("prescription-events-");
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
@@ -0,0 +1,214 @@
+package com.mattring.pharmascript.config;
+
+import com.mattring.pharmascript.service.NearCacheCoherence;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.cache.CacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the local caches of the nodes coherent: each node keeps its Caffeine caches as near caches, and sends the
+ * invalidations of their entries to the other nodes, which drop them.
+ * <p>
+ * Invalidations made in a transaction are sent once it completes, so that the other nodes do not load the old data
+ * again; they are gathered during the publish interval and sent together. Received invalidations are applied to the
+ * Caffeine caches directly, which does not send them back.
+ * <p>
+ * Caches living outside the JCache cache manager, such as the Caffeine caches built by the services, are
+ * {@link #register(String, Consumer) registered} with the listener applying their invalidations; the services do so
+ * through the {@link NearCacheCoherence} interface.
+ */
+public class CacheCoherence implements NearCacheCoherence, SmartLifecycle, DisposableBean {
+
+    static final int MAX_PENDING = 10000;
+
+    private final Logger log = LoggerFactory.getLogger(CacheCoherence.class);
+
+    private final CacheManager cacheManager;
+
+    private final CacheInvalidationTransport transport;
+
+    private final ScheduledExecutorService publisher;
+
+    private final ConcurrentMap<String, Consumer<CacheInvalidation>> listeners = new ConcurrentHashMap<>();
+
+    private Set<CacheInvalidation> pending = new LinkedHashSet<>();
+
+    private boolean running;
+
+    public CacheCoherence(CacheManager cacheManager, CacheInvalidationTransport transport, long publishIntervalMs) {
+        this.cacheManager = cacheManager;
+        this.transport = transport;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-invalidation-publish-");
+        threadFactory.setDaemon(true);
+        this.publisher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.publisher.scheduleWithFixedDelay(this::flush, publishIntervalMs, publishIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start applying the invalidations of the other nodes, once the database schema is up to date.
+     */
+    @Override
+    public synchronized void start() {
+        if (!running) {
+            transport.subscribe(this::apply);
+            running = true;
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Apply the invalidations of a cache which is not in the JCache cache manager with the given listener.
+     *
+     * @param cacheName the name of the cache, as sent in its invalidations.
+     * @param listener the listener applying the received invalidations of the cache.
+     */
+    public void register(String cacheName, Consumer<CacheInvalidation> listener) {
+        listeners.put(cacheName, listener);
+    }
+
+    @Override
+    public void register(String cacheName, Consumer<Object> keyListener, Runnable allListener) {
+        register(
+            cacheName,
+            (CacheInvalidation invalidation) -> {
+                if (invalidation.isAll()) {
+                    allListener.run();
+                } else {
+                    invalidation.getKeys().forEach(keyListener);
+                }
+            }
+        );
+    }
+
+    /**
+     * Drop the entries of a Caffeine cache which is not in the JCache cache manager when they are invalidated by
+     * another node.
+     *
+     * @param cacheName the name of the cache, as sent in its invalidations.
+     * @param cache the cache.
+     */
+    @Override
+    public void register(String cacheName, com.github.benmanes.caffeine.cache.Cache<?, ?> cache) {
+        register(cacheName, invalidation -> invalidate(cache, invalidation));
+    }
+
+    /**
+     * Send the invalidation of a local cache entry to the other nodes, once the current transaction completes.
+     *
+     * @param invalidation the invalidation.
+     */
+    public void invalidate(CacheInvalidation invalidation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(invalidation);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<CacheInvalidation> deferred = (Set<CacheInvalidation>) TransactionSynchronizationManager.getResource(this);
+        if (deferred == null) {
+            Set<CacheInvalidation> invalidations = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, invalidations);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResource(CacheCoherence.this);
+                        invalidations.forEach(CacheCoherence.this::enqueue);
+                    }
+                }
+            );
+            deferred = invalidations;
+        }
+        deferred.add(invalidation);
+    }
+
+    @Override
+    public void invalidate(String cacheName, Object key) {
+        invalidate(CacheInvalidation.of(cacheName, key));
+    }
+
+    private synchronized void enqueue(CacheInvalidation invalidation) {
+        pending.add(invalidation);
+        if (pending.size() > MAX_PENDING) {
+            // The other nodes are out of reach for a while: invalidate whole caches rather than keep every key
+            Set<CacheInvalidation> collapsed = new LinkedHashSet<>();
+            pending.forEach(pendingInvalidation -> collapsed.add(CacheInvalidation.all(pendingInvalidation.getCacheName())));
+            pending = collapsed;
+        }
+    }
+
+    private synchronized List<CacheInvalidation> drain() {
+        List<CacheInvalidation> invalidations = new ArrayList<>(pending);
+        pending = new LinkedHashSet<>();
+        return invalidations;
+    }
+
+    void flush() {
+        List<CacheInvalidation> invalidations = drain();
+        if (invalidations.isEmpty()) {
+            return;
+        }
+        try {
+            transport.publish(invalidations);
+        } catch (RuntimeException e) {
+            log.warn("Could not send {} cache invalidations to the other nodes, will retry: {}", invalidations.size(), e.getMessage());
+            invalidations.forEach(this::enqueue);
+        }
+    }
+
+    /**
+     * Drop a local cache entry invalidated by another node.
+     *
+     * @param invalidation the received invalidation.
+     */
+    void apply(CacheInvalidation invalidation) {
+        Consumer<CacheInvalidation> listener = listeners.get(invalidation.getCacheName());
+        if (listener != null) {
+            listener.accept(invalidation);
+            return;
+        }
+        javax.cache.Cache<Object, Object> cache = cacheManager.getCache(invalidation.getCacheName());
+        if (cache == null) {
+            return;
+        }
+        invalidate(cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class), invalidation);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void invalidate(com.github.benmanes.caffeine.cache.Cache<?, ?> cache, CacheInvalidation invalidation) {
+        if (invalidation.isAll()) {
+            cache.invalidateAll();
+        } else {
+            ((com.github.benmanes.caffeine.cache.Cache<Object, ?>) cache).invalidateAll(invalidation.getKeys());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        publisher.shutdown();
+        flush();
+    }
+}
@@ -0,0 +1,94 @@
+package com.mattring.pharmascript.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps the caches of the nodes coherent through the database, with {@code application.cache.coherence.mode=jdbc}.
+ * <p>
+ * The Hibernate regions send their invalidations through a {@link CoherentJCacheRegionFactory}, the Spring caches
+ * through a {@link CoherentCacheManager}; both are the regions of the one JCache cache manager, where the received
+ * invalidations are applied.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.cache.coherence", name = "mode", havingValue = "jdbc")
+public class CacheCoherenceConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(CacheCoherenceConfiguration.class);
+
+    @Bean
+    public CacheInvalidationTransport cacheInvalidationTransport(DataSource dataSource, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Cache.Coherence coherence = applicationProperties.getCache().getCoherence();
+        log.debug("Sending the cache invalidations through the database, read every {} ms", coherence.getPollIntervalMs());
+        return new JdbcCacheInvalidationTransport(
+            dataSource,
+            coherence.getPollIntervalMs(),
+            Duration.ofSeconds(coherence.getRetentionSeconds())
+        );
+    }
+
+    @Bean
+    public CacheCoherence cacheCoherence(
+        javax.cache.CacheManager cacheManager,
+        CacheInvalidationTransport cacheInvalidationTransport,
+        ApplicationProperties applicationProperties
+    ) {
+        return new CacheCoherence(
+            cacheManager,
+            cacheInvalidationTransport,
+            applicationProperties.getCache().getCoherence().getPublishIntervalMs()
+        );
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer coherentRegionFactoryCustomizer(CacheCoherence cacheCoherence) {
+        return hibernateProperties ->
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, new CoherentJCacheRegionFactory(cacheCoherence));
+    }
+
+    @Bean
+    public static BeanPostProcessor coherentCacheManagerPostProcessor(ObjectProvider<CacheCoherence> cacheCoherence) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CacheManager && !(bean instanceof CoherentCacheManager)) {
+                    return new CoherentCacheManager((CacheManager) bean, cacheCoherence.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public CoherentCacheMeterBinderProvider coherentCacheMeterBinderProvider() {
+        return new CoherentCacheMeterBinderProvider();
+    }
+
+    /**
+     * Binds the JCache caches behind the {@link CoherentCacheManager} to Micrometer, as Spring Boot does without it.
+     */
+    static class CoherentCacheMeterBinderProvider implements CacheMeterBinderProvider<CoherentCacheManager.CoherentCache> {
+
+        @Override
+        public MeterBinder getMeterBinder(CoherentCacheManager.CoherentCache cache, Iterable<Tag> tags) {
+            if (cache.getNativeCache() instanceof javax.cache.Cache) {
+                return new JCacheMetrics<>((javax.cache.Cache<?, ?>) cache.getNativeCache(), tags);
+            }
+            return null;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.mattring.pharmascript.config;
 
 import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.mattring.pharmascript.management.CacheRegionsService;
+import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.TimeUnit;
+import javax.cache.configuration.FactoryBuilder;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
@@ -15,22 +20,59 @@ import org.springframework.context.annotation.*;
 import tech.jhipster.config.JHipsterProperties;
 import tech.jhipster.config.cache.PrefixedKeyGenerator;
 
+/**
+ * Configures one Caffeine JCache region per cache, each with the {@code jhipster.cache.caffeine} settings overridden
+ * by its entry in {@code application.cache.regions}, keyed by region name.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
 
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final JHipsterProperties.Cache.Caffeine defaults;
+    private final ApplicationProperties.Cache cacheProperties;
+    private final CacheRegionsService cacheRegionsService;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Caffeine caffeine = jHipsterProperties.getCache().getCaffeine();
+    public CacheConfiguration(
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        CacheRegionsService cacheRegionsService
+    ) {
+        this.defaults = jHipsterProperties.getCache().getCaffeine();
+        this.cacheProperties = applicationProperties.getCache();
+        this.cacheRegionsService = cacheRegionsService;
+    }
 
+    private javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(
+        String cacheName,
+        ApplicationProperties.Cache.Region region
+    ) {
         CaffeineConfiguration<Object, Object> caffeineConfiguration = new CaffeineConfiguration<>();
-        caffeineConfiguration.setMaximumSize(OptionalLong.of(caffeine.getMaxEntries()));
-        caffeineConfiguration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(caffeine.getTimeToLiveSeconds())));
+        if (region.getMaxWeight() != null) {
+            caffeineConfiguration.setMaximumWeight(OptionalLong.of(region.getMaxWeight()));
+            caffeineConfiguration.setWeigherFactory(Optional.of(FactoryBuilder.factoryOf(CollectionSizeWeigher.class)));
+        } else {
+            caffeineConfiguration.setMaximumSize(OptionalLong.of(region.getMaxEntries()));
+        }
+        if (region.getTimeToLiveSeconds() != null) {
+            caffeineConfiguration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(region.getTimeToLiveSeconds())));
+        }
+        if (region.getExpireAfterAccessSeconds() != null) {
+            caffeineConfiguration.setExpireAfterAccess(OptionalLong.of(TimeUnit.SECONDS.toNanos(region.getExpireAfterAccessSeconds())));
+        }
+        // JCache regions have no loader to refresh from, and the JCache provider only holds values strongly
+        if (region.getRefreshAfterWriteSeconds() != null || region.getValues() != ApplicationProperties.Cache.Region.Values.STRONG) {
+            log.warn(
+                "Cache {} : refresh-after-write and soft or weak values are not supported by JCache regions, ignoring them",
+                cacheName
+            );
+        }
         caffeineConfiguration.setStatisticsEnabled(true);
-        jcacheConfiguration = caffeineConfiguration;
+        caffeineConfiguration.setNativeStatisticsEnabled(true);
+        return caffeineConfiguration;
     }
 
     @Bean
@@ -58,12 +100,14 @@ public class CacheConfiguration {
     }
 
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
+        ApplicationProperties.Cache.Region region = cacheProperties.getRegion(cacheName).resolve(defaults);
         javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cache = cm.createCache(cacheName, jcacheConfiguration(cacheName, region));
         }
+        cacheRegionsService.registerRegion(cacheName, cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class), region);
     }
 
     @Autowired(required = false)
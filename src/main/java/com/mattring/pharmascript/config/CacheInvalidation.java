@@ -0,0 +1,80 @@
+package com.mattring.pharmascript.config;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The invalidation of entries of a cache, or of the whole cache when it has no key.
+ */
+public final class CacheInvalidation {
+
+    private final String cacheName;
+
+    private final List<Object> keys;
+
+    private CacheInvalidation(String cacheName, List<Object> keys) {
+        this.cacheName = Objects.requireNonNull(cacheName);
+        this.keys = keys;
+    }
+
+    public static CacheInvalidation of(String cacheName, Object key) {
+        return new CacheInvalidation(cacheName, List.of(key));
+    }
+
+    /**
+     * Invalidate several entries of a cache at once, which the other nodes receive as one invalidation.
+     *
+     * @param cacheName the name of the cache.
+     * @param keys the keys of the entries, at least one.
+     * @return the invalidation.
+     * @throws IllegalArgumentException if there is no key.
+     */
+    public static CacheInvalidation ofKeys(String cacheName, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("No key to invalidate in " + cacheName);
+        }
+        return new CacheInvalidation(cacheName, List.<Object>copyOf(keys));
+    }
+
+    public static CacheInvalidation all(String cacheName) {
+        return new CacheInvalidation(cacheName, null);
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * @return the keys of the invalidated entries, {@code null} when the whole cache is invalidated.
+     */
+    public List<Object> getKeys() {
+        return keys;
+    }
+
+    public boolean isAll() {
+        return keys == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheInvalidation)) {
+            return false;
+        }
+        CacheInvalidation that = (CacheInvalidation) o;
+        return cacheName.equals(that.cacheName) && Objects.equals(keys, that.keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cacheName, keys);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidation{cacheName='" + cacheName + "', key=" + (isAll() ? "*" : key) + "}";
+    }
+}
@@ -0,0 +1,26 @@
+package com.mattring.pharmascript.config;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Carries the cache invalidations of a node to the other nodes.
+ * <p>
+ * A node never receives its own invalidations. Delivery is at least once, in no particular order: receivers only
+ * drop entries, which is idempotent.
+ */
+public interface CacheInvalidationTransport {
+    /**
+     * Send invalidations to the other nodes.
+     *
+     * @param invalidations the invalidations, made by this node.
+     */
+    void publish(Collection<CacheInvalidation> invalidations);
+
+    /**
+     * Start receiving the invalidations of the other nodes.
+     *
+     * @param receiver called with each received invalidation.
+     */
+    void subscribe(Consumer<CacheInvalidation> receiver);
+}
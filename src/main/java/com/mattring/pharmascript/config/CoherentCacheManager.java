@@ -0,0 +1,131 @@
+package com.mattring.pharmascript.config;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * A Spring {@link CacheManager} sending the evictions of its caches to the other nodes.
+ * <p>
+ * Puts are taken as read-through fills, which only concern the local cache, as with {@code @Cacheable}. Several
+ * entries evicted together with {@link CoherentCache#evictAll(Collection)} are sent as one invalidation.
+ */
+public class CoherentCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    private final CacheCoherence cacheCoherence;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public CoherentCacheManager(CacheManager delegate, CacheCoherence cacheCoherence) {
+        this.delegate = delegate;
+        this.cacheCoherence = cacheCoherence;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = delegate.getCache(name);
+        if (cache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new CoherentCache(cache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    public class CoherentCache implements Cache {
+
+        private final Cache delegate;
+
+        CoherentCache(Cache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return delegate.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return delegate.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return delegate.get(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            delegate.put(key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return delegate.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            delegate.evict(key);
+            cacheCoherence.invalidate(CacheInvalidation.of(getName(), key));
+        }
+
+        /**
+         * Evict several entries, sending a single invalidation with all their keys to the other nodes.
+         *
+         * @param keys the keys of the entries.
+         */
+        @SuppressWarnings("unchecked")
+        public void evictAll(Collection<?> keys) {
+            if (keys.isEmpty()) {
+                return;
+            }
+            if (delegate.getNativeCache() instanceof javax.cache.Cache) {
+                ((javax.cache.Cache<Object, Object>) delegate.getNativeCache()).removeAll(new HashSet<>(keys));
+            } else {
+                keys.forEach(delegate::evict);
+            }
+            cacheCoherence.invalidate(CacheInvalidation.ofKeys(getName(), keys));
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean present = delegate.evictIfPresent(key);
+            cacheCoherence.invalidate(CacheInvalidation.of(getName(), key));
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+            cacheCoherence.invalidate(CacheInvalidation.all(getName()));
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean present = delegate.invalidate();
+            cacheCoherence.invalidate(CacheInvalidation.all(getName()));
+            return present;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.mattring.pharmascript.config;
+
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.jcache.internal.JCacheAccessImpl;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * A {@link JCacheRegionFactory} sending the invalidations of the entity and collection regions to the other nodes.
+ * <p>
+ * Loads only fill the local region. Writes go through soft locks: a soft lock put over an entry, or an entry put over a
+ * soft lock, is a write which the other nodes must see, as are removals and evictions.
+ */
+public class CoherentJCacheRegionFactory extends JCacheRegionFactory {
+
+    private final CacheCoherence cacheCoherence;
+
+    public CoherentJCacheRegionFactory(CacheCoherence cacheCoherence) {
+        this.cacheCoherence = cacheCoherence;
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(
+        DomainDataRegionConfig regionConfig,
+        DomainDataRegionBuildingContext buildingContext
+    ) {
+        JCacheAccessImpl storageAccess = (JCacheAccessImpl) super.createDomainDataStorageAccess(regionConfig, buildingContext);
+        return new CoherentStorageAccess(storageAccess.getUnderlyingCache().getName(), storageAccess);
+    }
+
+    private class CoherentStorageAccess implements DomainDataStorageAccess {
+
+        private final String cacheName;
+
+        private final DomainDataStorageAccess delegate;
+
+        CoherentStorageAccess(String cacheName, DomainDataStorageAccess delegate) {
+            this.cacheName = cacheName;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return delegate.getFromCache(key, session);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            if (value instanceof SoftLock || delegate.getFromCache(key, session) instanceof SoftLock) {
+                cacheCoherence.invalidate(CacheInvalidation.of(cacheName, key));
+            }
+            delegate.putIntoCache(key, value, session);
+        }
+
+        @Override
+        public void putFromLoad(Object key, Object value, SharedSessionContractImplementor session) {
+            delegate.putFromLoad(key, value, session);
+        }
+
+        @Override
+        public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+            cacheCoherence.invalidate(CacheInvalidation.of(cacheName, key));
+            delegate.removeFromCache(key, session);
+        }
+
+        @Override
+        public void clearCache(SharedSessionContractImplementor session) {
+            cacheCoherence.invalidate(CacheInvalidation.all(cacheName));
+            delegate.clearCache(session);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return delegate.contains(key);
+        }
+
+        @Override
+        public void evictData() {
+            cacheCoherence.invalidate(CacheInvalidation.all(cacheName));
+            delegate.evictData();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            cacheCoherence.invalidate(CacheInvalidation.of(cacheName, key));
+            delegate.evictData(key);
+        }
+
+        @Override
+        public void release() {
+            delegate.release();
+        }
+    }
+}
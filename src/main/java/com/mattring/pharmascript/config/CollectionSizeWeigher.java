@@ -0,0 +1,29 @@
+package com.mattring.pharmascript.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import java.util.Collection;
+import org.hibernate.cache.spi.entry.CollectionCacheEntry;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+
+/**
+ * Weighs a cache entry as one plus the number of elements of the collection it holds, so that a weight-bounded
+ * region of {@code *.prescriptions} collections is bounded by the number of cached ids rather than of collections.
+ * <p>
+ * Understands the values stored by Hibernate in second-level cache regions, including read-write items.
+ */
+public class CollectionSizeWeigher implements Weigher<Object, Object> {
+
+    @Override
+    public int weigh(Object key, Object value) {
+        Object unwrapped = value instanceof AbstractReadWriteAccess.Lockable
+            ? ((AbstractReadWriteAccess.Lockable) value).getValue()
+            : value;
+        if (unwrapped instanceof CollectionCacheEntry) {
+            return 1 + ((CollectionCacheEntry) unwrapped).getState().length;
+        }
+        if (unwrapped instanceof Collection) {
+            return 1 + ((Collection<?>) unwrapped).size();
+        }
+        return 1;
+    }
+}
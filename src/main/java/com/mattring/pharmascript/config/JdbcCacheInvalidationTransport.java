@@ -0,0 +1,224 @@
+package com.mattring.pharmascript.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * A {@link CacheInvalidationTransport} through the {@code cache_invalidation} table, which every node polls for the
+ * invalidations of the others.
+ * <p>
+ * Keys are stored Java-serialized, the keys of an invalidation together, split over several rows when they do not fit
+ * in one; an invalidation with a key which is not serializable, or too long, invalidates the whole cache instead. Rows
+ * are read again during a short overlap after their creation date, so that rows committed out of order are not missed,
+ * and deleted after the retention. The dates come from the database clock.
+ * <p>
+ * The transport runs on its own threads, outside of any JPA transaction, with transactions of its own data source
+ * transaction manager.
+ */
+public class JdbcCacheInvalidationTransport implements CacheInvalidationTransport, DisposableBean {
+
+    static final int MAX_KEY_LENGTH = 2000;
+
+    private static final Duration OVERLAP = Duration.ofSeconds(10);
+
+    private static final ObjectInputFilter KEY_FILTER = ObjectInputFilter.Config.createFilter(
+        "maxdepth=20;java.**;org.hibernate.**;org.springframework.cache.**;com.mattring.pharmascript.**;!*"
+    );
+
+    private final Logger log = LoggerFactory.getLogger(JdbcCacheInvalidationTransport.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final long pollIntervalMs;
+
+    private final Duration retention;
+
+    private final ScheduledExecutorService poller;
+
+    private final Map<Long, Timestamp> received = new HashMap<>();
+
+    private boolean started;
+
+    private Timestamp watermark;
+
+    private Instant nextCleanup = Instant.now();
+
+    public JdbcCacheInvalidationTransport(DataSource dataSource, long pollIntervalMs, Duration retention) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.pollIntervalMs = pollIntervalMs;
+        this.retention = retention;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-invalidation-poll-");
+        threadFactory.setDaemon(true);
+        this.poller = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public void publish(Collection<CacheInvalidation> invalidations) {
+        List<Object[]> rows = new ArrayList<>(invalidations.size());
+        for (CacheInvalidation invalidation : invalidations) {
+            for (String key : serialize(invalidation)) {
+                rows.add(new Object[] { invalidation.getCacheName(), key, nodeId });
+            }
+        }
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.batchUpdate(
+                "insert into cache_invalidation (cache_name, cache_key, node_id, created_date) values (?, ?, ?, current_timestamp)",
+                rows
+            )
+        );
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> receiver) {
+        poller.scheduleWithFixedDelay(
+            () -> {
+                try {
+                    poll(receiver);
+                } catch (RuntimeException e) {
+                    if (started) {
+                        log.warn("Could not read the cache invalidations of the other nodes: {}", e.toString());
+                    } else {
+                        log.debug("Could not start reading the cache invalidations of the other nodes: {}", e.toString());
+                    }
+                }
+            },
+            pollIntervalMs,
+            pollIntervalMs,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    void poll(Consumer<CacheInvalidation> receiver) {
+        if (!started) {
+            // Invalidations sent before this node started have nothing to invalidate here
+            watermark =
+                transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject("select max(created_date) from cache_invalidation", Timestamp.class)
+                );
+            started = true;
+            return;
+        }
+        Timestamp from = watermark == null ? new Timestamp(0) : Timestamp.from(watermark.toInstant().minus(OVERLAP));
+        List<Object[]> rows = transactionTemplate.execute(status ->
+            jdbcTemplate.query(
+                "select id, cache_name, cache_key, created_date from cache_invalidation where created_date >= ? and node_id <> ? order by id",
+                (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getString(2), rs.getString(3), rs.getTimestamp(4) },
+                from,
+                nodeId
+            )
+        );
+        for (Object[] row : rows) {
+            Timestamp createdDate = (Timestamp) row[3];
+            if (received.putIfAbsent((Long) row[0], createdDate) == null) {
+                receiver.accept(deserialize((String) row[1], (String) row[2]));
+            }
+            if (watermark == null || createdDate.after(watermark)) {
+                watermark = createdDate;
+            }
+        }
+        received.values().removeIf(createdDate -> createdDate.before(from));
+        if (Instant.now().isAfter(nextCleanup)) {
+            Timestamp expired = Timestamp.from(Instant.now().minus(retention));
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("delete from cache_invalidation where created_date < ?", expired)
+            );
+            nextCleanup = Instant.now().plus(retention.dividedBy(10));
+        }
+    }
+
+    /**
+     * Serialize the keys of an invalidation, a single key as such and several keys as an array, halved until it fits.
+     *
+     * @param invalidation the invalidation.
+     * @return the serialized keys of the rows; a single {@code null} to invalidate the whole cache.
+     */
+    static List<String> serialize(CacheInvalidation invalidation) {
+        List<String> keys = new ArrayList<>();
+        if (invalidation.isAll() || !serialize(invalidation.getKeys(), keys)) {
+            return Collections.singletonList(null);
+        }
+        return keys;
+    }
+
+    private static boolean serialize(List<Object> keys, List<String> serialized) {
+        String key = serializeKey(keys.size() == 1 ? keys.get(0) : keys.toArray());
+        if (key != null) {
+            serialized.add(key);
+            return true;
+        }
+        if (keys.size() == 1) {
+            return false;
+        }
+        int half = keys.size() / 2;
+        return serialize(keys.subList(0, half), serialized) && serialize(keys.subList(half, keys.size()), serialized);
+    }
+
+    private static String serializeKey(Object key) {
+        if (!(key instanceof Serializable)) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(key);
+        } catch (IOException e) {
+            return null;
+        }
+        String serialized = Base64.getEncoder().encodeToString(bytes.toByteArray());
+        return serialized.length() <= MAX_KEY_LENGTH ? serialized : null;
+    }
+
+    static CacheInvalidation deserialize(String cacheName, String key) {
+        if (key == null) {
+            return CacheInvalidation.all(cacheName);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(key)))) {
+            in.setObjectInputFilter(KEY_FILTER);
+            Object deserialized = in.readObject();
+            if (deserialized instanceof Object[]) {
+                return CacheInvalidation.ofKeys(cacheName, Arrays.asList((Object[]) deserialized));
+            }
+            return CacheInvalidation.of(cacheName, deserialized);
+        } catch (IOException | ClassNotFoundException | IllegalArgumentException e) {
+            return CacheInvalidation.all(cacheName);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdownNow();
+    }
+}
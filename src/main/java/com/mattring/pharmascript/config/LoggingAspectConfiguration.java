@@ -1,7 +1,13 @@
 package com.mattring.pharmascript.config;
 
 import com.mattring.pharmascript.aop.logging.LoggingAspect;
+import com.mattring.pharmascript.aop.logging.MethodTimingAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.*;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.env.Environment;
 import tech.jhipster.config.JHipsterConstants;
 
@@ -14,4 +20,17 @@ public class LoggingAspectConfiguration {
     public LoggingAspect loggingAspect(Environment env) {
         return new LoggingAspect(env);
     }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.method-timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public MethodTimingAspect methodTimingAspect(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        return new MethodTimingAspect(meterRegistry, applicationProperties.getMethodTiming());
+    }
+
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @ConditionalOnProperty(prefix = "application.method-timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public MeterFilter methodTimingMeterFilter(ApplicationProperties applicationProperties) {
+        return MethodTimingAspect.histogramFilter(applicationProperties.getMethodTiming());
+    }
 }
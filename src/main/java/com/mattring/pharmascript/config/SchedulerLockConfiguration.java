@@ -0,0 +1,33 @@
+package com.mattring.pharmascript.config;
+
+import javax.sql.DataSource;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider;
+import net.javacrumbs.shedlock.spring.annotation.EnableSchedulerLock;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Locks of the scheduled tasks which must run on one node at a time, held in the {@code shedlock} table.
+ * <p>
+ * The lock times come from the database clock, so that the nodes' clocks do not need to agree. The locks are taken
+ * and released in their own transactions of the JPA transaction manager, apart from the transaction of the caller.
+ */
+@Configuration
+@EnableSchedulerLock(defaultLockAtMostFor = "PT30M")
+public class SchedulerLockConfiguration {
+
+    @Bean
+    public LockProvider lockProvider(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        return new JdbcTemplateLockProvider(
+            JdbcTemplateLockProvider.Configuration
+                .builder()
+                .withJdbcTemplate(new JdbcTemplate(dataSource))
+                .withTransactionManager(transactionManager)
+                .usingDbTime()
+                .build()
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package com.mattring.pharmascript.config;
 
+import com.mattring.pharmascript.management.SecurityMetersService;
 import com.mattring.pharmascript.security.*;
 import com.mattring.pharmascript.security.jwt.*;
 import org.springframework.context.annotation.Bean;
@@ -27,24 +28,40 @@ public class SecurityConfiguration {
 
     private final TokenProvider tokenProvider;
 
+    private final SecurityMetersService securityMetersService;
+
     private final CorsFilter corsFilter;
     private final SecurityProblemSupport problemSupport;
 
     public SecurityConfiguration(
         TokenProvider tokenProvider,
+        SecurityMetersService securityMetersService,
         CorsFilter corsFilter,
         JHipsterProperties jHipsterProperties,
         SecurityProblemSupport problemSupport
     ) {
         this.tokenProvider = tokenProvider;
+        this.securityMetersService = securityMetersService;
         this.corsFilter = corsFilter;
         this.problemSupport = problemSupport;
         this.jHipsterProperties = jHipsterProperties;
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Login login = applicationProperties.getLogin();
+        int threads = login.getVerificationThreads() > 0
+            ? login.getVerificationThreads()
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(
+            new BCryptPasswordEncoder(login.getBcryptStrength()),
+            threads,
+            login.getQueueCapacity(),
+            login.getTimeoutMs(),
+            securityMetersService
+        );
+        securityMetersService.registerLoginQueue(passwordEncoder::getQueueSize);
+        return passwordEncoder;
     }
 
     @Bean
@@ -100,6 +117,6 @@ public class SecurityConfiguration {
     }
 
     private JWTConfigurer securityConfigurerAdapter() {
-        return new JWTConfigurer(tokenProvider);
+        return new JWTConfigurer(tokenProvider, securityMetersService);
     }
 }
@@ -0,0 +1,50 @@
+package com.mattring.pharmascript.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates executors running each task on a new virtual thread.
+ * <p>
+ * The application is compiled for Java 11, so the Java 21 API is looked up by reflection.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    /**
+     * Whether the running JVM supports virtual threads.
+     *
+     * @return {@code true} on Java 21 and later.
+     */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create an executor starting a new virtual thread for each task.
+     *
+     * @param namePrefix the prefix of the thread names, followed by a counter.
+     * @return the executor.
+     * @throws IllegalStateException if the running JVM does not support virtual threads.
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on Java " + Runtime.version(), e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.mattring.pharmascript.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.concurrent.ExecutorService;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.embedded.undertow.UndertowDeploymentInfoCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs the servlet requests on virtual threads, and bounds the demand for database connections accordingly.
+ * <p>
+ * Enabled by {@code application.virtual-threads.enabled}, which the {@code virtual-threads} profile sets. The async
+ * tasks are moved to virtual threads by {@link AsyncConfiguration}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadsConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(VirtualThreadsConfiguration.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService requestExecutor() {
+        log.debug("Creating virtual thread request executor");
+        return VirtualThreads.newExecutor("http-virtual-");
+    }
+
+    @Bean
+    public UndertowDeploymentInfoCustomizer virtualThreadsDeploymentInfoCustomizer(ExecutorService requestExecutor) {
+        // Servlet invocations are dispatched to this executor instead of the Undertow worker pool
+        return deploymentInfo -> deploymentInfo.setExecutor(requestExecutor).setAsyncExecutor(requestExecutor);
+    }
+
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(ObjectProvider<ApplicationProperties> applicationProperties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof BoundedDataSource) {
+                    return bean;
+                }
+                ApplicationProperties.VirtualThreads properties = applicationProperties.getObject().getVirtualThreads();
+                Integer maxConcurrentConnections = properties.getMaxConcurrentConnections();
+                if (maxConcurrentConnections == null) {
+                    HikariDataSource hikariDataSource = DataSourceUnwrapper.unwrap(
+                        (DataSource) bean,
+                        HikariConfigMXBean.class,
+                        HikariDataSource.class
+                    );
+                    if (hikariDataSource == null) {
+                        return bean;
+                    }
+                    maxConcurrentConnections = hikariDataSource.getMaximumPoolSize();
+                }
+                LoggerFactory
+                    .getLogger(VirtualThreadsConfiguration.class)
+                    .debug("Bounding data source '{}' to {} concurrent connections", beanName, maxConcurrentConnections);
+                return new BoundedDataSource((DataSource) bean, maxConcurrentConnections, properties.getConnectionAcquireTimeoutMs());
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.mattring.pharmascript.domain;
+
+import com.mattring.pharmascript.domain.enumeration.InteractionSeverity;
+import java.io.Serializable;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * An interaction between two drugs, named by the {@code genericName} of the {@link Drug}s, ignoring case. A rule
+ * applies both ways.
+ */
+@Entity
+@Table(name = "drug_interaction_rule")
+public class DrugInteractionRule implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Size(max = 255)
+    @Column(name = "generic_name", length = 255, nullable = false)
+    private String genericName;
+
+    @NotNull
+    @Size(max = 255)
+    @Column(name = "interacting_generic_name", length = 255, nullable = false)
+    private String interactingGenericName;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "severity", length = 10, nullable = false)
+    private InteractionSeverity severity;
+
+    @Size(max = 1000)
+    @Column(name = "description", length = 1000)
+    private String description;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getGenericName() {
+        return genericName;
+    }
+
+    public void setGenericName(String genericName) {
+        this.genericName = genericName;
+    }
+
+    public String getInteractingGenericName() {
+        return interactingGenericName;
+    }
+
+    public void setInteractingGenericName(String interactingGenericName) {
+        this.interactingGenericName = interactingGenericName;
+    }
+
+    public InteractionSeverity getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(InteractionSeverity severity) {
+        this.severity = severity;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DrugInteractionRule)) {
+            return false;
+        }
+        return id != null && id.equals(((DrugInteractionRule) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "DrugInteractionRule{" +
+            "id=" + id +
+            ", genericName='" + genericName + "'" +
+            ", interactingGenericName='" + interactingGenericName + "'" +
+            ", severity='" + severity + "'" +
+            "}";
+    }
+}
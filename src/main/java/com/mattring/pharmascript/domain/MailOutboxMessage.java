@@ -0,0 +1,200 @@
+package com.mattring.pharmascript.domain;
+
+import com.mattring.pharmascript.domain.enumeration.MailOutboxStatus;
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+import org.hibernate.annotations.Type;
+
+/**
+ * An email waiting in the outbox. It is deleted once sent.
+ */
+@Entity
+@Table(name = "mail_outbox")
+public class MailOutboxMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int LAST_ERROR_MAX_LENGTH = 1000;
+
+    public static final int CLAIM_TOKEN_MAX_LENGTH = 36;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Size(max = 254)
+    @Column(name = "recipient", length = 254, nullable = false)
+    private String recipient;
+
+    @NotNull
+    @Size(max = 1000)
+    @Column(name = "subject", length = 1000, nullable = false)
+    private String subject;
+
+    @Lob
+    @Type(type = "org.hibernate.type.TextType")
+    @NotNull
+    @Column(name = "content", nullable = false)
+    private String content;
+
+    @Column(name = "multipart", nullable = false)
+    private boolean multipart;
+
+    @Column(name = "html", nullable = false)
+    private boolean html;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 10, nullable = false)
+    private MailOutboxStatus status = MailOutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @NotNull
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Size(max = LAST_ERROR_MAX_LENGTH)
+    @Column(name = "last_error", length = LAST_ERROR_MAX_LENGTH)
+    private String lastError;
+
+    @Size(max = CLAIM_TOKEN_MAX_LENGTH)
+    @Column(name = "claim_token", length = CLAIM_TOKEN_MAX_LENGTH)
+    private String claimToken;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public boolean isMultipart() {
+        return multipart;
+    }
+
+    public void setMultipart(boolean multipart) {
+        this.multipart = multipart;
+    }
+
+    public boolean isHtml() {
+        return html;
+    }
+
+    public void setHtml(boolean html) {
+        this.html = html;
+    }
+
+    public MailOutboxStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(MailOutboxStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MailOutboxMessage)) {
+            return false;
+        }
+        return id != null && id.equals(((MailOutboxMessage) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "MailOutboxMessage{" +
+            "id=" + id +
+            ", recipient='" + recipient + "'" +
+            ", subject='" + subject + "'" +
+            ", status='" + status + "'" +
+            ", attempts=" + attempts +
+            ", nextAttemptAt='" + nextAttemptAt + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,168 @@
+package com.mattring.pharmascript.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * The running totals of the {@link Prescription}s of a patient for a drug, maintained by every write to the
+ * prescriptions. The row of a drug the patient no longer takes is kept, with no prescription, to date its last change.
+ */
+@Entity
+@Table(name = "patient_drug_dosage")
+@IdClass(PatientDrugDosage.Key.class)
+public class PatientDrugDosage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Id
+    @Column(name = "drug_id")
+    private Long drugId;
+
+    @Column(name = "prescriptions", nullable = false)
+    private int prescriptions;
+
+    @NotNull
+    @Column(name = "daily_dosage", precision = 21, scale = 3, nullable = false)
+    private BigDecimal dailyDosage = BigDecimal.ZERO;
+
+    @NotNull
+    @Column(name = "last_changed_date", nullable = false)
+    private ZonedDateTime lastChangedDate;
+
+    public PatientDrugDosage() {}
+
+    public PatientDrugDosage(Long patientId, Long drugId) {
+        this.patientId = patientId;
+        this.drugId = drugId;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public void setDrugId(Long drugId) {
+        this.drugId = drugId;
+    }
+
+    public int getPrescriptions() {
+        return prescriptions;
+    }
+
+    public void setPrescriptions(int prescriptions) {
+        this.prescriptions = prescriptions;
+    }
+
+    public BigDecimal getDailyDosage() {
+        return dailyDosage;
+    }
+
+    public void setDailyDosage(BigDecimal dailyDosage) {
+        this.dailyDosage = dailyDosage;
+    }
+
+    public ZonedDateTime getLastChangedDate() {
+        return lastChangedDate;
+    }
+
+    public void setLastChangedDate(ZonedDateTime lastChangedDate) {
+        this.lastChangedDate = lastChangedDate;
+    }
+
+    public Key getKey() {
+        return new Key(patientId, drugId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PatientDrugDosage)) {
+            return false;
+        }
+        return patientId != null && drugId != null && getKey().equals(((PatientDrugDosage) o).getKey());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PatientDrugDosage{" +
+            "patientId=" + patientId +
+            ", drugId=" + drugId +
+            ", prescriptions=" + prescriptions +
+            ", dailyDosage=" + dailyDosage +
+            ", lastChangedDate='" + lastChangedDate + "'" +
+            "}";
+    }
+
+    /**
+     * The id of a {@link PatientDrugDosage}: the ids of its patient and drug.
+     */
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long patientId;
+
+        private Long drugId;
+
+        public Key() {}
+
+        public Key(Long patientId, Long drugId) {
+            this.patientId = patientId;
+            this.drugId = drugId;
+        }
+
+        public Long getPatientId() {
+            return patientId;
+        }
+
+        public Long getDrugId() {
+            return drugId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(patientId, key.patientId) && Objects.equals(drugId, key.drugId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(patientId, drugId);
+        }
+
+        @Override
+        public String toString() {
+            return patientId + ":" + drugId;
+        }
+    }
+}
@@ -41,6 +41,10 @@ public class Prescription implements Serializable {
     @Column(name = "updated_date", nullable = false)
     private ZonedDateTime updatedDate;
 
+    // Assigned when the transaction which writes the prescription commits, see ChangeSequenceService
+    @Column(name = "change_sequence", nullable = false, insertable = false, updatable = false)
+    private Long changeSequence;
+
     @ManyToOne
     @JsonIgnoreProperties(value = { "prescriptions" }, allowSetters = true)
     private Drug drug;
@@ -120,6 +124,10 @@ public class Prescription implements Serializable {
         this.updatedDate = updatedDate;
     }
 
+    public Long getChangeSequence() {
+        return this.changeSequence;
+    }
+
     public Drug getDrug() {
         return this.drug;
     }
@@ -0,0 +1,82 @@
+package com.mattring.pharmascript.domain;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * The trace of a deleted {@link Prescription}, for the clients syncing the prescriptions to learn about the deletion.
+ * It shares the id of the prescription, and is purged after the retention of the change feed.
+ */
+@Entity
+@Table(name = "prescription_tombstone")
+public class PrescriptionTombstone implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Column(name = "deleted_date", nullable = false)
+    private ZonedDateTime deletedDate;
+
+    // Assigned when the transaction which deletes the prescription commits, see ChangeSequenceService
+    @Column(name = "change_sequence", nullable = false, insertable = false, updatable = false)
+    private Long changeSequence;
+
+    public PrescriptionTombstone() {}
+
+    public PrescriptionTombstone(Long id, ZonedDateTime deletedDate) {
+        this.id = id;
+        this.deletedDate = deletedDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ZonedDateTime getDeletedDate() {
+        return deletedDate;
+    }
+
+    public void setDeletedDate(ZonedDateTime deletedDate) {
+        this.deletedDate = deletedDate;
+    }
+
+    public Long getChangeSequence() {
+        return changeSequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PrescriptionTombstone)) {
+            return false;
+        }
+        return id != null && id.equals(((PrescriptionTombstone) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PrescriptionTombstone{" +
+            "id=" + id +
+            ", deletedDate='" + deletedDate + "'" +
+            "}";
+    }
+}
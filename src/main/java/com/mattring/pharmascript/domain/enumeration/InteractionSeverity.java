@@ -0,0 +1,21 @@
+package com.mattring.pharmascript.domain.enumeration;
+
+/**
+ * The InteractionSeverity enumeration, from the least to the most severe.
+ */
+public enum InteractionSeverity {
+    /**
+     * To be known of, without changing the therapy.
+     */
+    MINOR,
+
+    /**
+     * To be monitored, or the dosage adjusted.
+     */
+    MODERATE,
+
+    /**
+     * The drugs should not be taken together.
+     */
+    MAJOR,
+}
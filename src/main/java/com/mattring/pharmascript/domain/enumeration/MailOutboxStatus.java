@@ -0,0 +1,16 @@
+package com.mattring.pharmascript.domain.enumeration;
+
+/**
+ * The MailOutboxStatus enumeration.
+ */
+public enum MailOutboxStatus {
+    /**
+     * Waiting to be sent, or to be retried.
+     */
+    PENDING,
+
+    /**
+     * Given up after the maximum number of attempts.
+     */
+    FAILED,
+}
@@ -0,0 +1,26 @@
+package com.mattring.pharmascript.management;
+
+import java.util.SortedMap;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint reporting the settings, hit rate, evictions and estimated memory of every cache, at
+ * {@code /management/cacheregions}.
+ */
+@Component
+@Endpoint(id = "cacheregions")
+public class CacheRegionsEndpoint {
+
+    private final CacheRegionsService cacheRegionsService;
+
+    public CacheRegionsEndpoint(CacheRegionsService cacheRegionsService) {
+        this.cacheRegionsService = cacheRegionsService;
+    }
+
+    @ReadOperation
+    public SortedMap<String, CacheRegionsService.CacheRegionStats> cacheRegions() {
+        return cacheRegionsService.getStats();
+    }
+}
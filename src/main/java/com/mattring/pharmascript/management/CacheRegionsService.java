@@ -0,0 +1,214 @@
+package com.mattring.pharmascript.management;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.jcache.Expirable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Registry of the Caffeine caches of the application, which reports their effective settings when they are
+ * registered and their statistics on demand.
+ * <p>
+ * JCache regions, including the Hibernate second-level cache, are bound to Micrometer by Spring Boot; the caches
+ * registered with {@link #registerNativeCache} are bound here with the same tag keys, as Prometheus requires.
+ */
+@Service
+public class CacheRegionsService {
+
+    public static final String NATIVE_CACHE_MANAGER = "caffeine";
+
+    private static final int MEMORY_SAMPLE_SIZE = 32;
+
+    private final Logger log = LoggerFactory.getLogger(CacheRegionsService.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, RegisteredCache> caches = new ConcurrentSkipListMap<>();
+
+    public CacheRegionsService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Register the Caffeine cache behind a JCache region.
+     *
+     * @param name the name of the region.
+     * @param cache the Caffeine cache unwrapped from the region.
+     * @param settings the effective settings of the region.
+     */
+    public void registerRegion(String name, Cache<?, ?> cache, Object settings) {
+        register(name, cache, settings);
+    }
+
+    /**
+     * Register a Caffeine cache which is not a JCache region, and bind it to Micrometer.
+     *
+     * @param name the name of the cache.
+     * @param cache the cache, which must record statistics.
+     * @param settings the effective settings of the cache.
+     */
+    public void registerNativeCache(String name, Cache<?, ?> cache, Object settings) {
+        register(name, cache, settings);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name, Tags.of("cache.manager", NATIVE_CACHE_MANAGER, "name", name));
+    }
+
+    private void register(String name, Cache<?, ?> cache, Object settings) {
+        log.info("Cache {} : {}", name, settings);
+        caches.put(name, new RegisteredCache(cache, settings.toString()));
+    }
+
+    /**
+     * Get the statistics of every registered cache.
+     *
+     * @return the statistics, by cache name.
+     */
+    public SortedMap<String, CacheRegionStats> getStats() {
+        SortedMap<String, CacheRegionStats> stats = new TreeMap<>();
+        caches.forEach((name, registeredCache) -> stats.put(name, registeredCache.stats()));
+        return stats;
+    }
+
+    /**
+     * Estimate the memory held by the values of a cache, from the serialized size of a sample of them.
+     *
+     * @return the estimate in bytes, or {@code -1} if no sampled value is serializable.
+     */
+    static long estimateMemory(Cache<?, ?> cache) {
+        long size = cache.estimatedSize();
+        if (size == 0) {
+            return 0;
+        }
+        long sampled = 0;
+        long sampledBytes = 0;
+        for (Object value : cache.asMap().values()) {
+            if (sampled == MEMORY_SAMPLE_SIZE) {
+                break;
+            }
+            Object unwrapped = value instanceof Expirable ? ((Expirable<?>) value).get() : value;
+            if (unwrapped instanceof Serializable) {
+                sampledBytes += serializedSize(unwrapped);
+                sampled++;
+            }
+        }
+        return sampled == 0 ? -1 : sampledBytes / sampled * size;
+    }
+
+    private static long serializedSize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            return 0;
+        }
+        return bytes.size();
+    }
+
+    private static final class RegisteredCache {
+
+        private final Cache<?, ?> cache;
+
+        private final String settings;
+
+        RegisteredCache(Cache<?, ?> cache, String settings) {
+            this.cache = cache;
+            this.settings = settings;
+        }
+
+        CacheRegionStats stats() {
+            CacheStats stats = cache.stats();
+            return new CacheRegionStats(
+                settings,
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                estimateMemory(cache)
+            );
+        }
+    }
+
+    /**
+     * The statistics of a cache, as reported by the {@code cacheregions} actuator endpoint.
+     */
+    public static final class CacheRegionStats {
+
+        private final String settings;
+
+        private final long estimatedSize;
+
+        private final long hitCount;
+
+        private final long missCount;
+
+        private final double hitRate;
+
+        private final long evictionCount;
+
+        private final long estimatedMemoryBytes;
+
+        CacheRegionStats(
+            String settings,
+            long estimatedSize,
+            long hitCount,
+            long missCount,
+            double hitRate,
+            long evictionCount,
+            long estimatedMemoryBytes
+        ) {
+            this.settings = settings;
+            this.estimatedSize = estimatedSize;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.hitRate = hitRate;
+            this.evictionCount = evictionCount;
+            this.estimatedMemoryBytes = estimatedMemoryBytes;
+        }
+
+        public String getSettings() {
+            return settings;
+        }
+
+        public long getEstimatedSize() {
+            return estimatedSize;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public double getHitRate() {
+            return hitRate;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * The number of entries times the mean serialized size of a sample of values; {@code -1} if not serializable.
+         *
+         * @return the estimate in bytes.
+         */
+        public long getEstimatedMemoryBytes() {
+            return estimatedMemoryBytes;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mattring.pharmascript.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MailMetersService {
+
+    public static final String PENDING_METER_NAME = "mail.outbox.pending";
+    public static final String PENDING_METER_DESCRIPTION = "Number of emails waiting in the outbox to be sent or retried.";
+
+    public static final String SEND_METER_NAME = "mail.outbox.send";
+    public static final String SEND_METER_DESCRIPTION = "Time to send a batch of emails over one SMTP connection.";
+
+    public static final String MESSAGES_METER_NAME = "mail.outbox.messages";
+    public static final String MESSAGES_METER_DESCRIPTION = "Outcome of the attempts to send an email.";
+    public static final String MESSAGES_METER_BASE_UNIT = "emails";
+    public static final String MESSAGES_METER_OUTCOME_DIMENSION = "outcome";
+
+    private final AtomicLong pending = new AtomicLong();
+    private final Timer sendTimer;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    public MailMetersService(MeterRegistry registry) {
+        Gauge.builder(PENDING_METER_NAME, pending, AtomicLong::get).description(PENDING_METER_DESCRIPTION).register(registry);
+        this.sendTimer = Timer.builder(SEND_METER_NAME).description(SEND_METER_DESCRIPTION).register(registry);
+        this.sentCounter = messagesCounterForOutcomeBuilder("sent").register(registry);
+        this.retriedCounter = messagesCounterForOutcomeBuilder("retried").register(registry);
+        this.failedCounter = messagesCounterForOutcomeBuilder("failed").register(registry);
+    }
+
+    private Counter.Builder messagesCounterForOutcomeBuilder(String outcome) {
+        return Counter
+            .builder(MESSAGES_METER_NAME)
+            .baseUnit(MESSAGES_METER_BASE_UNIT)
+            .description(MESSAGES_METER_DESCRIPTION)
+            .tag(MESSAGES_METER_OUTCOME_DIMENSION, outcome);
+    }
+
+    public void setPending(long count) {
+        this.pending.set(count);
+    }
+
+    public void recordSend(long durationNanos) {
+        this.sendTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void trackSent(int count) {
+        this.sentCounter.increment(count);
+    }
+
+    public void trackRetried(int count) {
+        this.retriedCounter.increment(count);
+    }
+
+    public void trackFailed(int count) {
+        this.failedCounter.increment(count);
+    }
+}
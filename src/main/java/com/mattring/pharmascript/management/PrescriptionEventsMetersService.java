@@ -0,0 +1,75 @@
+package com.mattring.pharmascript.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+
+@Service
+public class PrescriptionEventsMetersService {
+
+    public static final String SUBSCRIBERS_METER_NAME = "prescription.events.subscribers";
+    public static final String SUBSCRIBERS_METER_DESCRIPTION = "Number of clients subscribed to the prescription events.";
+
+    public static final String PUBLISHED_METER_NAME = "prescription.events.published";
+    public static final String PUBLISHED_METER_DESCRIPTION = "Number of prescription events published to the subscribers.";
+    public static final String PUBLISHED_METER_BASE_UNIT = "events";
+
+    public static final String LAG_METER_NAME = "prescription.events.lag";
+    public static final String LAG_METER_DESCRIPTION = "Time from the commit of a prescription change to its write to a subscriber.";
+
+    public static final String DROPPED_METER_NAME = "prescription.events.dropped";
+    public static final String DROPPED_METER_DESCRIPTION = "Number of prescription events not sent to a subscriber with a full buffer.";
+    public static final String DROPPED_METER_BASE_UNIT = "events";
+    public static final String DROPPED_METER_REASON_DIMENSION = "reason";
+
+    private final AtomicLong subscribers = new AtomicLong();
+    private final Counter publishedCounter;
+    private final Timer lagTimer;
+    private final Counter overflowCounter;
+    private final Counter coalescedCounter;
+
+    public PrescriptionEventsMetersService(MeterRegistry registry) {
+        Gauge.builder(SUBSCRIBERS_METER_NAME, subscribers, AtomicLong::get).description(SUBSCRIBERS_METER_DESCRIPTION).register(registry);
+        this.publishedCounter =
+            Counter
+                .builder(PUBLISHED_METER_NAME)
+                .baseUnit(PUBLISHED_METER_BASE_UNIT)
+                .description(PUBLISHED_METER_DESCRIPTION)
+                .register(registry);
+        this.lagTimer = Timer.builder(LAG_METER_NAME).description(LAG_METER_DESCRIPTION).publishPercentileHistogram().register(registry);
+        this.overflowCounter = droppedCounterForReasonBuilder("overflow").register(registry);
+        this.coalescedCounter = droppedCounterForReasonBuilder("coalesced").register(registry);
+    }
+
+    private Counter.Builder droppedCounterForReasonBuilder(String reason) {
+        return Counter
+            .builder(DROPPED_METER_NAME)
+            .baseUnit(DROPPED_METER_BASE_UNIT)
+            .description(DROPPED_METER_DESCRIPTION)
+            .tag(DROPPED_METER_REASON_DIMENSION, reason);
+    }
+
+    public void setSubscribers(long count) {
+        this.subscribers.set(count);
+    }
+
+    public void trackPublished() {
+        this.publishedCounter.increment();
+    }
+
+    public void recordLag(Duration lag) {
+        this.lagTimer.record(lag);
+    }
+
+    public void trackOverflow() {
+        this.overflowCounter.increment();
+    }
+
+    public void trackCoalesced() {
+        this.coalescedCounter.increment();
+    }
+}
@@ -1,7 +1,12 @@
 package com.mattring.pharmascript.management;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,16 +18,51 @@ public class SecurityMetersService {
     public static final String INVALID_TOKENS_METER_BASE_UNIT = "errors";
     public static final String INVALID_TOKENS_METER_CAUSE_DIMENSION = "cause";
 
+    public static final String STAGE_METER_NAME = "security.authentication.stage";
+    public static final String STAGE_METER_DESCRIPTION = "Time spent in each stage of the authentication of the requests and logins.";
+    public static final String STAGE_METER_STAGE_DIMENSION = "stage";
+
+    public static final String TOKEN_SIZE_METER_NAME = "security.authentication.token-size";
+    public static final String TOKEN_SIZE_METER_DESCRIPTION = "Size of the tokens presented by the clients.";
+    public static final String TOKEN_SIZE_METER_BASE_UNIT = "characters";
+
+    public static final String REJECTED_LOGINS_METER_NAME = "security.authentication.rejected-logins";
+    public static final String REJECTED_LOGINS_METER_DESCRIPTION =
+        "Indicates the count of logins rejected because the password verifications were saturated.";
+
+    public static final String LOGIN_QUEUE_METER_NAME = "security.authentication.login-queue";
+    public static final String LOGIN_QUEUE_METER_DESCRIPTION = "Number of password verifications waiting for a thread.";
+
+    private final MeterRegistry registry;
+
     private final Counter tokenInvalidSignatureCounter;
     private final Counter tokenExpiredCounter;
     private final Counter tokenUnsupportedCounter;
     private final Counter tokenMalformedCounter;
+    private final Timer jwtFilterTimer;
+    private final Timer tokenVerificationTimer;
+    private final Timer userDetailsTimer;
+    private final DistributionSummary tokenSizeSummary;
+    private final Counter rejectedLoginsCounter;
 
     public SecurityMetersService(MeterRegistry registry) {
+        this.registry = registry;
         this.tokenInvalidSignatureCounter = invalidTokensCounterForCauseBuilder("invalid-signature").register(registry);
         this.tokenExpiredCounter = invalidTokensCounterForCauseBuilder("expired").register(registry);
         this.tokenUnsupportedCounter = invalidTokensCounterForCauseBuilder("unsupported").register(registry);
         this.tokenMalformedCounter = invalidTokensCounterForCauseBuilder("malformed").register(registry);
+        this.jwtFilterTimer = stageTimerBuilder("jwt-filter").register(registry);
+        this.tokenVerificationTimer = stageTimerBuilder("token-verification").register(registry);
+        this.userDetailsTimer = stageTimerBuilder("user-details").register(registry);
+        this.tokenSizeSummary =
+            DistributionSummary
+                .builder(TOKEN_SIZE_METER_NAME)
+                .baseUnit(TOKEN_SIZE_METER_BASE_UNIT)
+                .description(TOKEN_SIZE_METER_DESCRIPTION)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejectedLoginsCounter =
+            Counter.builder(REJECTED_LOGINS_METER_NAME).description(REJECTED_LOGINS_METER_DESCRIPTION).register(registry);
     }
 
     private Counter.Builder invalidTokensCounterForCauseBuilder(String cause) {
@@ -33,6 +73,10 @@ public class SecurityMetersService {
             .tag(INVALID_TOKENS_METER_CAUSE_DIMENSION, cause);
     }
 
+    private Timer.Builder stageTimerBuilder(String stage) {
+        return Timer.builder(STAGE_METER_NAME).description(STAGE_METER_DESCRIPTION).tag(STAGE_METER_STAGE_DIMENSION, stage);
+    }
+
     public void trackTokenInvalidSignature() {
         this.tokenInvalidSignatureCounter.increment();
     }
@@ -48,4 +92,43 @@ public class SecurityMetersService {
     public void trackTokenMalformed() {
         this.tokenMalformedCounter.increment();
     }
+
+    /**
+     * Record the time {@code JWTFilter} spent authenticating a request, cache lookup included.
+     */
+    public void recordJwtFilter(long durationNanos) {
+        this.jwtFilterTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the time spent verifying the signature of a token and parsing its claims, on a miss of the cache of
+     * verified tokens.
+     */
+    public void recordTokenVerification(long durationNanos) {
+        this.tokenVerificationTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the time spent loading a user and its authorities during a login.
+     */
+    public void recordUserDetails(long durationNanos) {
+        this.userDetailsTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokenSize(int length) {
+        this.tokenSizeSummary.record(length);
+    }
+
+    public void trackLoginRejected() {
+        this.rejectedLoginsCounter.increment();
+    }
+
+    /**
+     * Register the gauge of the password verifications waiting for a thread.
+     *
+     * @param queueSize the supplier of the number of waiting verifications.
+     */
+    public void registerLoginQueue(Supplier<Number> queueSize) {
+        Gauge.builder(LOGIN_QUEUE_METER_NAME, queueSize).description(LOGIN_QUEUE_METER_DESCRIPTION).register(registry);
+    }
 }
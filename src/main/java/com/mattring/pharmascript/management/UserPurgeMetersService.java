@@ -0,0 +1,41 @@
+package com.mattring.pharmascript.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Service;
+
+@Service
+public class UserPurgeMetersService {
+
+    public static final String DELETED_METER_NAME = "users.purge.deleted";
+    public static final String DELETED_METER_DESCRIPTION = "Number of not activated users deleted by the purge.";
+    public static final String DELETED_METER_BASE_UNIT = "users";
+
+    public static final String CHUNK_METER_NAME = "users.purge.chunk";
+    public static final String CHUNK_METER_DESCRIPTION = "Time to delete one chunk of not activated users.";
+
+    public static final String DURATION_METER_NAME = "users.purge.duration";
+    public static final String DURATION_METER_DESCRIPTION = "Time to delete all the not activated users.";
+
+    private final Counter deletedCounter;
+    private final Timer chunkTimer;
+    private final Timer durationTimer;
+
+    public UserPurgeMetersService(MeterRegistry registry) {
+        this.deletedCounter =
+            Counter.builder(DELETED_METER_NAME).baseUnit(DELETED_METER_BASE_UNIT).description(DELETED_METER_DESCRIPTION).register(registry);
+        this.chunkTimer = Timer.builder(CHUNK_METER_NAME).description(CHUNK_METER_DESCRIPTION).register(registry);
+        this.durationTimer = Timer.builder(DURATION_METER_NAME).description(DURATION_METER_DESCRIPTION).register(registry);
+    }
+
+    public void recordChunk(int deleted, long durationNanos) {
+        this.deletedCounter.increment(deleted);
+        this.chunkTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPurge(long durationNanos) {
+        this.durationTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
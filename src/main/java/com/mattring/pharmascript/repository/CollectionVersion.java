@@ -0,0 +1,61 @@
+package com.mattring.pharmascript.repository;
+
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * The version of a collection of entities: how many there are, and when the last of them was updated.
+ * <p>
+ * Any insert, delete, or update moving an {@code updatedDate} forward changes the version, which is computed by one
+ * aggregate query instead of reading the entities.
+ */
+public final class CollectionVersion {
+
+    private final long count;
+
+    private final ZonedDateTime lastModifiedDate;
+
+    public CollectionVersion(long count, ZonedDateTime lastModifiedDate) {
+        this.count = count;
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the latest {@code updatedDate} of the collection.
+     *
+     * @return the date, or {@code null} if the collection is empty.
+     */
+    public ZonedDateTime getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CollectionVersion)) {
+            return false;
+        }
+        CollectionVersion that = (CollectionVersion) o;
+        return count == that.count && Objects.equals(lastModifiedDate, that.lastModifiedDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, lastModifiedDate);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CollectionVersion{" +
+            "count=" + count +
+            ", lastModifiedDate=" + lastModifiedDate +
+            "}";
+    }
+}
@@ -1,7 +1,11 @@
 package com.mattring.pharmascript.repository;
 
 import com.mattring.pharmascript.domain.Doctor;
+import java.time.ZonedDateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +13,20 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> {}
+public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+    @Query("select doctor from Doctor doctor order by doctor.updatedDate asc, doctor.id asc")
+    Slice<Doctor> findFirstKeysetPage(Pageable pageable);
+
+    @Query(
+        "select doctor from Doctor doctor" +
+        " where doctor.updatedDate >= :updatedDate and (doctor.updatedDate > :updatedDate or doctor.id > :id)" +
+        " order by doctor.updatedDate asc, doctor.id asc"
+    )
+    Slice<Doctor> findKeysetPageAfter(@Param("updatedDate") ZonedDateTime updatedDate, @Param("id") Long id, Pageable pageable);
+
+    @Query(
+        "select new com.mattring.pharmascript.repository.CollectionVersion(count(doctor), max(doctor.updatedDate))" +
+        " from Doctor doctor"
+    )
+    CollectionVersion findCollectionVersion();
+}
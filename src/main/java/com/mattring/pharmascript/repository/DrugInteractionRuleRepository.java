@@ -0,0 +1,11 @@
+package com.mattring.pharmascript.repository;
+
+import com.mattring.pharmascript.domain.DrugInteractionRule;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the DrugInteractionRule entity.
+ */
+@Repository
+public interface DrugInteractionRuleRepository extends JpaRepository<DrugInteractionRule, Long> {}
@@ -1,7 +1,11 @@
 package com.mattring.pharmascript.repository;
 
 import com.mattring.pharmascript.domain.Drug;
+import java.time.ZonedDateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +13,20 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface DrugRepository extends JpaRepository<Drug, Long> {}
+public interface DrugRepository extends JpaRepository<Drug, Long> {
+    @Query("select drug from Drug drug order by drug.updatedDate asc, drug.id asc")
+    Slice<Drug> findFirstKeysetPage(Pageable pageable);
+
+    @Query(
+        "select drug from Drug drug" +
+        " where drug.updatedDate >= :updatedDate and (drug.updatedDate > :updatedDate or drug.id > :id)" +
+        " order by drug.updatedDate asc, drug.id asc"
+    )
+    Slice<Drug> findKeysetPageAfter(@Param("updatedDate") ZonedDateTime updatedDate, @Param("id") Long id, Pageable pageable);
+
+    @Query(
+        "select new com.mattring.pharmascript.repository.CollectionVersion(count(drug), max(drug.updatedDate))" +
+        " from Drug drug"
+    )
+    CollectionVersion findCollectionVersion();
+}
@@ -0,0 +1,49 @@
+package com.mattring.pharmascript.repository;
+
+import com.mattring.pharmascript.domain.MailOutboxMessage;
+import com.mattring.pharmascript.domain.enumeration.MailOutboxStatus;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the MailOutboxMessage entity.
+ */
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutboxMessage, Long> {
+    @Query(
+        "select message.id from MailOutboxMessage message" +
+        " where message.status = :status and message.nextAttemptAt <= :now" +
+        " order by message.nextAttemptAt, message.id"
+    )
+    List<Long> findDueIds(@Param("status") MailOutboxStatus status, @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Claim the given messages which are still due, by moving their next attempt to the end of a lease and counting
+     * the attempt, so that no other dispatcher picks them up in the meantime. The claimed messages get the token of the
+     * claim, which no other claim shares.
+     *
+     * @return the number of claimed messages.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(
+        "update MailOutboxMessage message set message.attempts = message.attempts + 1, message.nextAttemptAt = :leaseEnd," +
+        " message.claimToken = :claimToken" +
+        " where message.id in :ids and message.status = :status and message.nextAttemptAt <= :now"
+    )
+    int claim(
+        @Param("ids") Collection<Long> ids,
+        @Param("status") MailOutboxStatus status,
+        @Param("now") Instant now,
+        @Param("leaseEnd") Instant leaseEnd,
+        @Param("claimToken") String claimToken
+    );
+
+    List<MailOutboxMessage> findAllByIdInAndClaimToken(Collection<Long> ids, String claimToken);
+
+    long countByStatus(MailOutboxStatus status);
+}
@@ -0,0 +1,21 @@
+package com.mattring.pharmascript.repository;
+
+import com.mattring.pharmascript.domain.PatientDrugDosage;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the PatientDrugDosage entity.
+ */
+@Repository
+public interface PatientDrugDosageRepository extends JpaRepository<PatientDrugDosage, PatientDrugDosage.Key> {
+    List<PatientDrugDosage> findAllByPatientIdOrderByLastChangedDateDescDrugIdAsc(Long patientId);
+
+    List<PatientDrugDosage> findAllByPatientIdIn(Collection<Long> patientIds);
+
+    @Query("select dosage.drugId from PatientDrugDosage dosage where dosage.patientId = :patientId and dosage.prescriptions > 0")
+    List<Long> findActiveDrugIdsByPatientId(@Param("patientId") Long patientId);
+}
@@ -1,7 +1,14 @@
 package com.mattring.pharmascript.repository;
 
 import com.mattring.pharmascript.domain.Patient;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +16,29 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {}
+public interface PatientRepository extends JpaRepository<Patient, Long> {
+    @Query("select patient from Patient patient order by patient.updatedDate asc, patient.id asc")
+    Slice<Patient> findFirstKeysetPage(Pageable pageable);
+
+    @Query(
+        "select patient from Patient patient" +
+        " where patient.updatedDate >= :updatedDate and (patient.updatedDate > :updatedDate or patient.id > :id)" +
+        " order by patient.updatedDate asc, patient.id asc"
+    )
+    Slice<Patient> findKeysetPageAfter(@Param("updatedDate") ZonedDateTime updatedDate, @Param("id") Long id, Pageable pageable);
+
+    @Query(
+        "select new com.mattring.pharmascript.repository.CollectionVersion(count(patient), max(patient.updatedDate))" +
+        " from Patient patient"
+    )
+    CollectionVersion findCollectionVersion();
+
+    /**
+     * Lock the given patients, in id order so that concurrent callers cannot deadlock, until the end of the transaction.
+     *
+     * @return the patients found.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select patient from Patient patient where patient.id in :ids order by patient.id")
+    List<Patient> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+}
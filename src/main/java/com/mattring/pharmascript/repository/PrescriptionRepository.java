@@ -1,12 +1,149 @@
 package com.mattring.pharmascript.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.mattring.pharmascript.domain.Prescription;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data JPA repository for the Prescription entity.
+ * <p>
+ * The {@code drug}, {@code patient} and {@code doctor} associations are fetch-joined by every read used by
+ * {@link com.mattring.pharmascript.service.PrescriptionService}, so that mapping a page to DTOs never triggers
+ * one extra select per association and row.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface PrescriptionRepository extends JpaRepository<Prescription, Long> {}
+public interface PrescriptionRepository extends JpaRepository<Prescription, Long>, JpaSpecificationExecutor<Prescription> {
+    /**
+     * Rows fetched per round trip by {@link #streamAllForExport}.
+     */
+    String EXPORT_FETCH_SIZE = "500";
+
+    String PRESCRIPTIONS_BY_PATIENT_CACHE = "prescriptionsByPatient";
+
+    default Optional<Prescription> findOneWithEagerRelationships(Long id) {
+        return this.findOneWithToOneRelationships(id);
+    }
+
+    default Page<Prescription> findAllWithEagerRelationships(Pageable pageable) {
+        return this.findAllWithToOneRelationships(pageable);
+    }
+
+    @Query(
+        value = "select prescription from Prescription prescription" +
+        " left join fetch prescription.drug left join fetch prescription.patient left join fetch prescription.doctor",
+        countQuery = "select count(prescription) from Prescription prescription"
+    )
+    Page<Prescription> findAllWithToOneRelationships(Pageable pageable);
+
+    @Query(
+        "select prescription from Prescription prescription" +
+        " left join fetch prescription.drug left join fetch prescription.patient left join fetch prescription.doctor" +
+        " where prescription.id = :id"
+    )
+    Optional<Prescription> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Query(
+        "select prescription from Prescription prescription" +
+        " left join fetch prescription.drug left join fetch prescription.patient left join fetch prescription.doctor" +
+        " order by prescription.updatedDate asc, prescription.id asc"
+    )
+    Slice<Prescription> findFirstKeysetPage(Pageable pageable);
+
+    @Query(
+        "select prescription from Prescription prescription" +
+        " left join fetch prescription.drug left join fetch prescription.patient left join fetch prescription.doctor" +
+        " where prescription.updatedDate >= :updatedDate and (prescription.updatedDate > :updatedDate or prescription.id > :id)" +
+        " order by prescription.updatedDate asc, prescription.id asc"
+    )
+    Slice<Prescription> findKeysetPageAfter(@Param("updatedDate") ZonedDateTime updatedDate, @Param("id") Long id, Pageable pageable);
+
+    @Query(
+        "select prescription from Prescription prescription" +
+        " left join fetch prescription.drug left join fetch prescription.patient left join fetch prescription.doctor" +
+        " where prescription.changeSequence >= :changeSequence" +
+        " and (prescription.changeSequence > :changeSequence or prescription.id > :id)" +
+        " and prescription.changeSequence <= :until" +
+        " order by prescription.changeSequence asc, prescription.id asc"
+    )
+    Slice<Prescription> findChangesAfter(
+        @Param("changeSequence") long changeSequence,
+        @Param("id") long id,
+        @Param("until") long until,
+        Pageable pageable
+    );
+
+    /**
+     * Get the lowest change sequence of the prescriptions updated since the given date.
+     *
+     * @return the sequence, or {@code null} if no prescription was updated since the date.
+     */
+    @Query("select min(prescription.changeSequence) from Prescription prescription where prescription.updatedDate >= :since")
+    Long findMinChangeSequenceUpdatedSince(@Param("since") ZonedDateTime since);
+
+    @Query(
+        "select prescription from Prescription prescription" +
+        " left join fetch prescription.drug left join fetch prescription.patient left join fetch prescription.doctor" +
+        " where prescription.patient.id = :patientId order by prescription.updatedDate desc, prescription.id desc"
+    )
+    List<Prescription> findAllWithToOneRelationshipsByPatientId(@Param("patientId") Long patientId);
+
+    @Query(
+        value = "select prescription from Prescription prescription" +
+        " left join fetch prescription.drug left join fetch prescription.patient left join fetch prescription.doctor" +
+        " where prescription.doctor.id = :doctorId order by prescription.updatedDate desc, prescription.id desc",
+        countQuery = "select count(prescription) from Prescription prescription where prescription.doctor.id = :doctorId"
+    )
+    Page<Prescription> findAllWithToOneRelationshipsByDoctorId(@Param("doctorId") Long doctorId, Pageable pageable);
+
+    @Query(
+        value = "select prescription from Prescription prescription" +
+        " left join fetch prescription.drug left join fetch prescription.patient left join fetch prescription.doctor" +
+        " where prescription.drug.id = :drugId order by prescription.updatedDate desc, prescription.id desc",
+        countQuery = "select count(prescription) from Prescription prescription where prescription.drug.id = :drugId"
+    )
+    Page<Prescription> findAllWithToOneRelationshipsByDrugId(@Param("drugId") Long drugId, Pageable pageable);
+
+    /**
+     * Stream the prescriptions matching the given filters, each of which is ignored when {@code null}.
+     * <p>
+     * The rows are read through a forward-only cursor and must be consumed inside a transaction.
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false"),
+        }
+    )
+    @Query(
+        "select prescription from Prescription prescription" +
+        " left join fetch prescription.drug left join fetch prescription.patient left join fetch prescription.doctor" +
+        " where (:patientId is null or prescription.patient.id = :patientId)" +
+        " and (:doctorId is null or prescription.doctor.id = :doctorId)" +
+        " and (:drugId is null or prescription.drug.id = :drugId)" +
+        " and (:updatedFrom is null or prescription.updatedDate >= :updatedFrom)" +
+        " and (:updatedTo is null or prescription.updatedDate < :updatedTo)" +
+        " order by prescription.updatedDate asc, prescription.id asc"
+    )
+    Stream<Prescription> streamAllForExport(
+        @Param("patientId") Long patientId,
+        @Param("doctorId") Long doctorId,
+        @Param("drugId") Long drugId,
+        @Param("updatedFrom") ZonedDateTime updatedFrom,
+        @Param("updatedTo") ZonedDateTime updatedTo
+    );
+}
@@ -0,0 +1,53 @@
+package com.mattring.pharmascript.repository;
+
+import com.mattring.pharmascript.domain.PrescriptionTombstone;
+import java.time.ZonedDateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the PrescriptionTombstone entity.
+ */
+@Repository
+public interface PrescriptionTombstoneRepository extends JpaRepository<PrescriptionTombstone, Long> {
+    @Query(
+        "select tombstone from PrescriptionTombstone tombstone" +
+        " where tombstone.changeSequence >= :changeSequence and (tombstone.changeSequence > :changeSequence or tombstone.id > :id)" +
+        " and tombstone.changeSequence <= :until" +
+        " order by tombstone.changeSequence asc, tombstone.id asc"
+    )
+    Slice<PrescriptionTombstone> findKeysetPageAfter(
+        @Param("changeSequence") long changeSequence,
+        @Param("id") long id,
+        @Param("until") long until,
+        Pageable pageable
+    );
+
+    /**
+     * Get the lowest change sequence of the tombstones of the prescriptions deleted since the given date.
+     *
+     * @return the sequence, or {@code null} if no prescription was deleted since the date.
+     */
+    @Query("select min(tombstone.changeSequence) from PrescriptionTombstone tombstone where tombstone.deletedDate >= :since")
+    Long findMinChangeSequenceDeletedSince(@Param("since") ZonedDateTime since);
+
+    /**
+     * Get the highest change sequence of the tombstones of the prescriptions deleted before the given date.
+     *
+     * @return the sequence, or {@code null} if no prescription was deleted before the date.
+     */
+    @Query("select max(tombstone.changeSequence) from PrescriptionTombstone tombstone where tombstone.deletedDate < :deletedDate")
+    Long findMaxChangeSequenceDeletedBefore(@Param("deletedDate") ZonedDateTime deletedDate);
+
+    /**
+     * Delete the tombstones up to the given change sequence.
+     *
+     * @return the number of deleted tombstones.
+     */
+    @Modifying
+    @Query("delete from PrescriptionTombstone tombstone where tombstone.changeSequence <= :changeSequence")
+    int deleteAllByChangeSequenceUpTo(@Param("changeSequence") long changeSequence);
+}
@@ -2,12 +2,16 @@ package com.mattring.pharmascript.repository;
 
 import com.mattring.pharmascript.domain.User;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -20,6 +24,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
     String USERS_BY_EMAIL_CACHE = "usersByEmail";
     Optional<User> findOneByActivationKey(String activationKey);
     List<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant dateTime);
+
+    /**
+     * Find the cache keys of the not activated users created before a date, by ascending id from the one after the given id.
+     */
+    @Query(
+        "select user.id as id, user.login as login, user.email as email from User user" +
+        " where user.activated = false and user.activationKey is not null and user.createdDate < :dateTime and user.id > :afterId" +
+        " order by user.id"
+    )
+    List<CacheKeys> findNotActivatedCacheKeys(@Param("dateTime") Instant dateTime, @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Delete the users with the given ids, along with their authorities, without loading them.
+     *
+     * @return the number of deleted users.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("delete from User user where user.id in :ids")
+    int deleteAllWithAuthoritiesByIdIn(@Param("ids") Collection<Long> ids);
     Optional<User> findOneByResetKey(String resetKey);
     Optional<User> findOneByEmailIgnoreCase(String email);
     Optional<User> findOneByLogin(String login);
@@ -33,4 +56,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
 
     Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
+
+    /**
+     * The keys of the {@link #USERS_BY_LOGIN_CACHE} and {@link #USERS_BY_EMAIL_CACHE} caches of a user.
+     */
+    interface CacheKeys {
+        Long getId();
+
+        String getLogin();
+
+        String getEmail();
+    }
 }
@@ -0,0 +1,106 @@
+package com.mattring.pharmascript.security;
+
+import com.mattring.pharmascript.management.SecurityMetersService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * A {@link PasswordEncoder} verifying the passwords on a bounded pool of threads.
+ * <p>
+ * Password hashes are slow on purpose, so a burst of logins would otherwise take every core. Verifications wait in a
+ * bounded queue, and fail with a {@link LoginCapacityExceededException} when the queue is full or the wait too long.
+ * Encoding, for new and changed passwords, stays on the calling thread.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMs;
+
+    private final SecurityMetersService securityMetersService;
+
+    public BoundedPasswordEncoder(
+        PasswordEncoder delegate,
+        int threads,
+        int queueCapacity,
+        long timeoutMs,
+        SecurityMetersService securityMetersService
+    ) {
+        this.delegate = delegate;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("login-verification-");
+        threadFactory.setDaemon(true);
+        this.executor =
+            new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+            );
+        this.timeoutMs = timeoutMs;
+        this.securityMetersService = securityMetersService;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Future<Boolean> verification;
+        try {
+            verification = executor.submit(() -> delegate.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            securityMetersService.trackLoginRejected();
+            throw new LoginCapacityExceededException("Too many logins waiting for their password verification", e);
+        }
+        try {
+            return verification.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            verification.cancel(true);
+            securityMetersService.trackLoginRejected();
+            throw new LoginCapacityExceededException("Password verification not done after " + timeoutMs + "ms", e);
+        } catch (InterruptedException e) {
+            verification.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoginCapacityExceededException("Interrupted while waiting for the password verification", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Get the number of password verifications waiting for a thread.
+     *
+     * @return the size of the queue.
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -2,15 +2,17 @@ package com.mattring.pharmascript.security;
 
 import com.mattring.pharmascript.domain.Authority;
 import com.mattring.pharmascript.domain.User;
+import com.mattring.pharmascript.management.SecurityMetersService;
 import com.mattring.pharmascript.repository.UserRepository;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.hibernate.validator.internal.constraintvalidators.hv.EmailValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
@@ -18,23 +20,55 @@ import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * Also stores the passwords hashed again on login, when their hash is weaker than the configured one.
  */
 @Component("userDetailsService")
-public class DomainUserDetailsService implements UserDetailsService {
+public class DomainUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final Logger log = LoggerFactory.getLogger(DomainUserDetailsService.class);
 
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final SecurityMetersService securityMetersService;
+
+    private final CacheManager cacheManager;
+
+    public DomainUserDetailsService(UserRepository userRepository, SecurityMetersService securityMetersService, CacheManager cacheManager) {
         this.userRepository = userRepository;
+        this.securityMetersService = securityMetersService;
+        this.cacheManager = cacheManager;
     }
 
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(final String login) {
         log.debug("Authenticating {}", login);
+        long start = System.nanoTime();
+        try {
+            return loadUser(login);
+        } finally {
+            securityMetersService.recordUserDetails(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository
+            .findOneByLogin(userDetails.getUsername())
+            .ifPresent(user -> {
+                log.debug("Rehashing the password of {}", user.getLogin());
+                user.setPassword(newPassword);
+                Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
+                if (user.getEmail() != null) {
+                    Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
+                }
+            });
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).password(newPassword).build();
+    }
 
+    private UserDetails loadUser(String login) {
         if (new EmailValidator().isValid(login, null)) {
             return userRepository
                 .findOneWithAuthoritiesByEmailIgnoreCase(login)
@@ -57,7 +91,7 @@ public class DomainUserDetailsService implements UserDetailsService {
             .getAuthorities()
             .stream()
             .map(Authority::getName)
-            .map(SimpleGrantedAuthority::new)
+            .map(GrantedAuthorities::of)
             .collect(Collectors.toList());
         return new org.springframework.security.core.userdetails.User(user.getLogin(), user.getPassword(), grantedAuthorities);
     }
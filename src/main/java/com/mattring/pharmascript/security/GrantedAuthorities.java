@@ -0,0 +1,55 @@
+package com.mattring.pharmascript.security;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Interned {@link GrantedAuthority} instances.
+ * <p>
+ * The authorities are a small set of roles, shared by every authentication instead of being allocated per request.
+ * The authorities claims of the tokens are interned as well, as most of them are one of a few role combinations.
+ * Only the authorities of users and of verified tokens are interned, which bounds the number of entries.
+ */
+public final class GrantedAuthorities {
+
+    private static final Map<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
+    private static final Map<String, List<GrantedAuthority>> CLAIMS = new ConcurrentHashMap<>();
+
+    private GrantedAuthorities() {}
+
+    /**
+     * Get the authority of a role.
+     *
+     * @param role the name of the role.
+     * @return the shared authority.
+     */
+    public static GrantedAuthority of(String role) {
+        return AUTHORITIES.computeIfAbsent(role, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * Get the authorities of a comma-separated authorities claim.
+     *
+     * @param claim the claim, blank roles are skipped.
+     * @return the shared, unmodifiable list of authorities.
+     */
+    public static List<GrantedAuthority> fromClaim(String claim) {
+        return CLAIMS.computeIfAbsent(claim, GrantedAuthorities::parseClaim);
+    }
+
+    private static List<GrantedAuthority> parseClaim(String claim) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String role : claim.split(",")) {
+            if (!role.trim().isEmpty()) {
+                authorities.add(of(role));
+            }
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+}
@@ -0,0 +1,17 @@
+package com.mattring.pharmascript.security;
+
+/**
+ * This exception is thrown when a password cannot be verified because the password verifications are saturated.
+ */
+public class LoginCapacityExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LoginCapacityExceededException(String message) {
+        super(message);
+    }
+
+    public LoginCapacityExceededException(String message, Throwable t) {
+        super(message, t);
+    }
+}
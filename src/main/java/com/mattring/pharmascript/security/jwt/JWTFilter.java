@@ -1,12 +1,12 @@
 package com.mattring.pharmascript.security.jwt;
 
+import com.mattring.pharmascript.management.SecurityMetersService;
 import java.io.IOException;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
@@ -21,18 +21,22 @@ public class JWTFilter extends GenericFilterBean {
 
     private final TokenProvider tokenProvider;
 
-    public JWTFilter(TokenProvider tokenProvider) {
+    private final SecurityMetersService securityMetersService;
+
+    public JWTFilter(TokenProvider tokenProvider, SecurityMetersService securityMetersService) {
         this.tokenProvider = tokenProvider;
+        this.securityMetersService = securityMetersService;
     }
 
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
         throws IOException, ServletException {
         HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
+        long start = System.nanoTime();
         String jwt = resolveToken(httpServletRequest);
-        if (StringUtils.hasText(jwt) && this.tokenProvider.validateToken(jwt)) {
-            Authentication authentication = this.tokenProvider.getAuthentication(jwt);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (StringUtils.hasText(jwt)) {
+            this.tokenProvider.getVerifiedAuthentication(jwt).ifPresent(SecurityContextHolder.getContext()::setAuthentication);
+            this.securityMetersService.recordJwtFilter(System.nanoTime() - start);
         }
         filterChain.doFilter(servletRequest, servletResponse);
     }
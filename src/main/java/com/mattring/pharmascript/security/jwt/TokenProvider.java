@@ -1,12 +1,21 @@
 package com.mattring.pharmascript.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.management.CacheRegionsService;
 import com.mattring.pharmascript.management.SecurityMetersService;
+import com.mattring.pharmascript.security.GrantedAuthorities;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -14,15 +23,23 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import tech.jhipster.config.JHipsterProperties;
 
+/**
+ * Creates and verifies the JWT tokens of the application.
+ * <p>
+ * The authentications of verified tokens are cached, keyed by a SHA-256 hash of the token, until the token expires
+ * or the {@value #VERIFIED_TOKENS_CACHE} cache region evicts them, so a token presented again is not parsed again.
+ * Invalid tokens are never cached, and are counted by the {@link SecurityMetersService} every time they are presented.
+ */
 @Component
 public class TokenProvider {
 
+    public static final String VERIFIED_TOKENS_CACHE = "verifiedTokens";
+
     private final Logger log = LoggerFactory.getLogger(TokenProvider.class);
 
     private static final String AUTHORITIES_KEY = "auth";
@@ -39,7 +56,14 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public TokenProvider(
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        SecurityMetersService securityMetersService,
+        CacheRegionsService cacheRegionsService
+    ) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -60,6 +84,23 @@ public class TokenProvider {
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+
+        ApplicationProperties.Cache.Region region = applicationProperties
+            .getCache()
+            .getRegion(VERIFIED_TOKENS_CACHE)
+            .resolve(jHipsterProperties.getCache().getCaffeine());
+        // Every token weighs one, so a max-weight is a max-entries
+        Caffeine<Object, Object> builder = Caffeine
+            .newBuilder()
+            .maximumSize(region.getMaxWeight() != null ? region.getMaxWeight() : region.getMaxEntries())
+            .recordStats();
+        if (region.getValues() == ApplicationProperties.Cache.Region.Values.SOFT) {
+            builder.softValues();
+        } else if (region.getValues() == ApplicationProperties.Cache.Region.Values.WEAK) {
+            builder.weakValues();
+        }
+        this.verifiedTokens = builder.expireAfter(new VerifiedTokenExpiry(region)).build();
+        cacheRegionsService.registerNativeCache(VERIFIED_TOKENS_CACHE, verifiedTokens, region);
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -82,25 +123,52 @@ public class TokenProvider {
             .compact();
     }
 
+    /**
+     * Verify a token and get its authentication, from the cache of verified tokens when it was already verified.
+     *
+     * @param token the token.
+     * @return the authentication, or empty if the token is not valid.
+     */
+    public Optional<Authentication> getVerifiedAuthentication(String token) {
+        securityMetersService.recordTokenSize(token.length());
+        String hash = hash(token);
+        VerifiedToken verifiedToken = verifiedTokens.getIfPresent(hash);
+        if (verifiedToken == null) {
+            long start = System.nanoTime();
+            Claims claims = parseValidClaims(token);
+            securityMetersService.recordTokenVerification(System.nanoTime() - start);
+            if (claims == null) {
+                return Optional.empty();
+            }
+            verifiedToken = new VerifiedToken(toAuthentication(claims, token), claims.getExpiration());
+            if (verifiedToken.expiration != null) {
+                verifiedTokens.put(hash, verifiedToken);
+            }
+        }
+        // Authentications are mutable, so each request gets its own
+        Authentication cached = verifiedToken.authentication;
+        return Optional.of(new UsernamePasswordAuthenticationToken(cached.getPrincipal(), token, cached.getAuthorities()));
+    }
+
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return toAuthentication(jwtParser.parseClaimsJws(token).getBody(), token);
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    public boolean validateToken(String authToken) {
+        return parseValidClaims(authToken) != null;
+    }
+
+    private Authentication toAuthentication(Claims claims, String token) {
+        Collection<? extends GrantedAuthority> authorities = GrantedAuthorities.fromClaim(claims.get(AUTHORITIES_KEY).toString());
 
         User principal = new User(claims.getSubject(), "", authorities);
 
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
-    public boolean validateToken(String authToken) {
+    private Claims parseValidClaims(String authToken) {
         try {
-            jwtParser.parseClaimsJws(authToken);
-
-            return true;
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +189,59 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class VerifiedToken {
+
+        private final Authentication authentication;
+
+        private final Date expiration;
+
+        VerifiedToken(Authentication authentication, Date expiration) {
+            this.authentication = authentication;
+            this.expiration = expiration;
+        }
+    }
+
+    /**
+     * Expires a verified token when the token expires, or earlier when its cache region sets a time-to-live or an
+     * expiry after access, both of which are counted from the verification.
+     */
+    private static final class VerifiedTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        private final long maxLifetimeNanos;
+
+        VerifiedTokenExpiry(ApplicationProperties.Cache.Region region) {
+            Long seconds = region.getTimeToLiveSeconds() != null
+                ? region.getTimeToLiveSeconds()
+                : region.getExpireAfterAccessSeconds();
+            this.maxLifetimeNanos = seconds == null ? Long.MAX_VALUE : Duration.ofSeconds(seconds).toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String hash, VerifiedToken verifiedToken, long currentTime) {
+            long untilExpiration = Duration.ofMillis(verifiedToken.expiration.getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(untilExpiration, maxLifetimeNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String hash, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return expireAfterCreate(hash, verifiedToken, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String hash, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,199 @@
+package com.mattring.pharmascript.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service counting the committed writes of each collection in the {@code change_sequence} table.
+ * <p>
+ * A write moves the sequence of its collection forward once, just before its transaction commits: the row of the
+ * sequence stays locked from then to the commit only, so that writes of a collection hardly ever wait for each other,
+ * and take their values in the order they commit. A reader seeing the value of a write therefore sees the write and
+ * all the writes before it. The sequences of a transaction are moved in name order, which cannot deadlock.
+ * <p>
+ * The value taken by a transaction can also be written to the {@code change_sequence} column of the rows it wrote,
+ * which orders them by commit whatever the clocks of the nodes, and the duration of the transactions.
+ */
+@Service
+@Transactional
+public class ChangeSequenceService {
+
+    public static final String DRUG = "drug";
+
+    public static final String PATIENT = "patient";
+
+    public static final String DOCTOR = "doctor";
+
+    public static final String PRESCRIPTION = "prescription";
+
+    /**
+     * Ids per {@code update} statement assigning the value of a sequence to rows.
+     */
+    private static final int ASSIGN_CHUNK_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(ChangeSequenceService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    public ChangeSequenceService(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Move the sequence of a collection forward once the current transaction is about to commit, however many times
+     * the transaction calls this method. Without transaction, the sequence is moved at once.
+     *
+     * @param name the name of the sequence.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void incrementOnCommit(String name) {
+        assignOnCommit(name, null, List.of());
+    }
+
+    /**
+     * Move the sequence of a collection forward once the current transaction is about to commit, like
+     * {@link #incrementOnCommit(String)}, and write its new value to the {@code change_sequence} column of rows the
+     * transaction wrote. The persistence context is flushed first, so that the rows exist.
+     *
+     * @param name the name of the sequence.
+     * @param table the table of the rows, one of the tables of the collection.
+     * @param ids the ids of the rows.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void assignOnCommit(String name, String table, Collection<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            long value = increment(name);
+            if (table != null) {
+                assign(name, value, Map.of(table, ids));
+            }
+            return;
+        }
+        Map<String, Map<String, Set<Long>>> pending = pendingSequences();
+        if (pending == null) {
+            Map<String, Map<String, Set<Long>>> sequences = new TreeMap<>();
+            TransactionSynchronizationManager.bindResource(this, sequences);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        if (sequences.values().stream().anyMatch(tables -> !tables.isEmpty())) {
+                            entityManager.flush();
+                        }
+                        sequences.forEach((sequence, tables) -> assign(sequence, increment(sequence), tables));
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResource(ChangeSequenceService.this);
+                    }
+                }
+            );
+            pending = sequences;
+        }
+        Map<String, Set<Long>> rows = pending.computeIfAbsent(name, key -> new TreeMap<>());
+        if (table != null) {
+            rows.computeIfAbsent(table, key -> new LinkedHashSet<>()).addAll(ids);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, Set<Long>>> pendingSequences() {
+        return (Map<String, Map<String, Set<Long>>>) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private long increment(String name) {
+        log.debug("Request to move the change sequence {} forward", name);
+        jdbcTemplate.update("update change_sequence set last_value = last_value + 1 where name = ?", name);
+        return jdbcTemplate.queryForObject("select last_value from change_sequence where name = ?", Long.class, name);
+    }
+
+    private void assign(String name, long value, Map<String, ? extends Collection<Long>> rows) {
+        rows.forEach((table, ids) -> {
+            log.debug("Request to assign the value {} of the change sequence {} to {} rows of {}", value, name, ids.size(), table);
+            List<Long> chunk = new ArrayList<>(ASSIGN_CHUNK_SIZE);
+            for (Long id : ids) {
+                chunk.add(id);
+                if (chunk.size() == ASSIGN_CHUNK_SIZE) {
+                    assignChunk(table, value, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                assignChunk(table, value, chunk);
+            }
+        });
+    }
+
+    private void assignChunk(String table, long value, List<Long> ids) {
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(value);
+        args.addAll(ids);
+        jdbcTemplate.update("update " + table + " set change_sequence = ? where id in (" + placeholders + ")", args.toArray());
+    }
+
+    /**
+     * Get the last committed values of sequences.
+     *
+     * @param names the names of the sequences.
+     * @return the values, in the order of the names.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findValues(String... names) {
+        Map<String, Long> values = new HashMap<>();
+        String placeholders = String.join(",", Collections.nCopies(names.length, "?"));
+        jdbcTemplate.query(
+            "select name, last_value from change_sequence where name in (" + placeholders + ")",
+            (RowCallbackHandler) rs -> values.put(rs.getString(1), rs.getLong(2)),
+            (Object[]) names
+        );
+        List<Long> result = new ArrayList<>(names.length);
+        for (String name : names) {
+            result.add(values.getOrDefault(name, 0L));
+        }
+        return result;
+    }
+
+    /**
+     * Get the value of a sequence below which rows may have been purged: a reader positioned before it may have
+     * missed some of them.
+     *
+     * @param name the name of the sequence.
+     * @return the value, {@code 0} if no row was purged.
+     */
+    @Transactional(readOnly = true)
+    public long findPurgedValue(String name) {
+        return jdbcTemplate.queryForObject("select purged_value from change_sequence where name = ?", Long.class, name);
+    }
+
+    /**
+     * Record that rows of a sequence have been purged, below a value.
+     *
+     * @param name the name of the sequence.
+     * @param value the value above the purged rows.
+     */
+    public void markPurged(String name, long value) {
+        log.debug("Request to mark the change sequence {} purged below {}", name, value);
+        jdbcTemplate.update("update change_sequence set purged_value = greatest(purged_value, ?) where name = ?", value, name);
+    }
+}
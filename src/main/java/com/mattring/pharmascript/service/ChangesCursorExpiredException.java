@@ -0,0 +1,14 @@
+package com.mattring.pharmascript.service;
+
+/**
+ * This exception is thrown when a change feed cursor points before the oldest retained deletion, so that the client
+ * may have missed deletions and must sync from scratch.
+ */
+public class ChangesCursorExpiredException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ChangesCursorExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,356 @@
+package com.mattring.pharmascript.service;
+
+import com.mattring.pharmascript.config.ApplicationProperties;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.SplittableRandom;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service generating synthetic drugs, doctors, patients and prescriptions, for load tests and benchmarks.
+ * <p>
+ * The rows are inserted with JDBC batches, bypassing Hibernate, and are a function of the seed and of the volumes
+ * only, so that runs on separately generated databases can be compared. Patients per doctor, prescriptions per drug
+ * and prescriptions per patient follow Zipf distributions. The prescription summaries are rebuilt at the end.
+ * <p>
+ * Enabled by {@code application.data-generator.enabled}, which the {@code datagen} profile sets.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.data-generator", name = "enabled", havingValue = "true")
+public class DataGeneratorService {
+
+    private static final String[] FIRST_NAMES = {
+        "Alice",
+        "Amir",
+        "Anna",
+        "Carlos",
+        "Chen",
+        "David",
+        "Elena",
+        "Fatima",
+        "Hiro",
+        "Ines",
+        "James",
+        "Julia",
+        "Kofi",
+        "Lena",
+        "Lucas",
+        "Maria",
+        "Noah",
+        "Olga",
+        "Priya",
+        "Sam",
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Garcia",
+        "Ivanova",
+        "Johnson",
+        "Kim",
+        "Kowalski",
+        "Martin",
+        "Mensah",
+        "Muller",
+        "Nguyen",
+        "Okafor",
+        "Patel",
+        "Rossi",
+        "Sato",
+        "Silva",
+        "Smith",
+        "Wang",
+    };
+
+    private static final String[] MAKERS = { "Apex Pharma", "Borealis Labs", "Cardinal Health", "Medivia", "Novaris", "Zentis" };
+
+    private static final String[] SYLLABLES = { "ca", "de", "lo", "mi", "na", "pra", "ro", "sen", "ta", "vi", "xo", "zu" };
+
+    private static final String[] GENERIC_STEMS = { "pril", "olol", "statin", "sartan", "mab", "cillin", "oxetine", "azole" };
+
+    private static final int[] DOSAGE_INTERVALS = { 4, 6, 8, 12, 24 };
+
+    private static final String INSERT_DRUG =
+        "insert into drug (id, maker, brand_name, generic_name, created_date, updated_date) values (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_DOCTOR =
+        "insert into doctor (id, first_name, last_name, license_number, created_date, updated_date) values (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PATIENT =
+        "insert into patient (id, first_name, last_name, birthdate, created_date, updated_date) values (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PRESCRIPTION =
+        "insert into prescription (id, dosage_amount, dosage_interval, created_date, updated_date, drug_id, patient_id, doctor_id)" +
+        " values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final Logger log = LoggerFactory.getLogger(DataGeneratorService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DrugCatalogService drugCatalogService;
+
+    private final PatientPrescriptionSummaryService patientPrescriptionSummaryService;
+
+    private final ChangeSequenceService changeSequenceService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public DataGeneratorService(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        DrugCatalogService drugCatalogService,
+        PatientPrescriptionSummaryService patientPrescriptionSummaryService,
+        ChangeSequenceService changeSequenceService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.drugCatalogService = drugCatalogService;
+        this.patientPrescriptionSummaryService = patientPrescriptionSummaryService;
+        this.changeSequenceService = changeSequenceService;
+        this.applicationProperties = applicationProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        generate();
+        if (applicationProperties.getDataGenerator().isExit()) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    /**
+     * Generate the configured volumes of data, unless they were already generated.
+     *
+     * @return {@code true} if the data was generated.
+     */
+    public boolean generate() {
+        ApplicationProperties.DataGenerator properties = applicationProperties.getDataGenerator();
+        long firstId = properties.getFirstId();
+        Integer existing = jdbcTemplate.queryForObject("select count(id) from drug where id = ?", Integer.class, firstId);
+        if (existing != null && existing > 0) {
+            log.warn("Not generating data: drug {} already exists", firstId);
+            return false;
+        }
+        long start = System.nanoTime();
+        // Each table has its own random sequence, so that changing one volume does not change the other tables
+        Generation generation = new Generation(properties);
+        generation.insertDrugs(new SplittableRandom(properties.getSeed()));
+        generation.insertDoctors(new SplittableRandom(properties.getSeed() + 1));
+        generation.insertPatients(new SplittableRandom(properties.getSeed() + 2));
+        generation.insertPrescriptions(new SplittableRandom(properties.getSeed() + 3));
+        patientPrescriptionSummaryService.rebuild();
+        drugCatalogService.reload();
+        // The rows did not go through the services, which move the sequences of their collections
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.DRUG);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.DOCTOR);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.PATIENT);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.PRESCRIPTION);
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        long rows = (long) properties.getDrugs() + properties.getDoctors() + properties.getPatients() + properties.getPrescriptions();
+        log.info("Generated {} rows in {} ms ({} rows per minute)", rows, millis, rows * 60_000 / millis);
+        return true;
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String word(SplittableRandom random, int syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            word.append(pick(random, SYLLABLES));
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+
+    /**
+     * The state of one generation: the distributions drawn from, and how the patients are assigned to their doctor.
+     */
+    private class Generation {
+
+        private final ApplicationProperties.DataGenerator properties;
+
+        // Dates are written in UTC, as Hibernate does with hibernate.jdbc.time_zone
+        private final Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+        private ZipfDistribution doctors;
+
+        private int[] doctorOfPatient;
+
+        Generation(ApplicationProperties.DataGenerator properties) {
+            this.properties = properties;
+        }
+
+        private void insertDrugs(SplittableRandom random) {
+            Timestamp date = Timestamp.from(properties.getSince());
+            insert(
+                "drug",
+                INSERT_DRUG,
+                properties.getDrugs(),
+                (statement, i) -> {
+                    String generic = word(random, 2).toLowerCase() + pick(random, GENERIC_STEMS);
+                    statement.setLong(1, properties.getFirstId() + i);
+                    statement.setString(2, pick(random, MAKERS));
+                    statement.setString(3, word(random, 3) + " " + (i + 1));
+                    statement.setString(4, generic);
+                    statement.setTimestamp(5, date, utc);
+                    statement.setTimestamp(6, date, utc);
+                }
+            );
+        }
+
+        private void insertDoctors(SplittableRandom random) {
+            Timestamp date = Timestamp.from(properties.getSince());
+            insert(
+                "doctor",
+                INSERT_DOCTOR,
+                properties.getDoctors(),
+                (statement, i) -> {
+                    statement.setLong(1, properties.getFirstId() + i);
+                    statement.setString(2, pick(random, FIRST_NAMES));
+                    statement.setString(3, pick(random, LAST_NAMES));
+                    statement.setString(4, String.format("LIC-%08d", i + 1));
+                    statement.setTimestamp(5, date, utc);
+                    statement.setTimestamp(6, date, utc);
+                }
+            );
+        }
+
+        private void insertPatients(SplittableRandom random) {
+            Timestamp date = Timestamp.from(properties.getSince());
+            doctors = new ZipfDistribution(properties.getDoctors(), properties.getDoctorSkew(), random);
+            doctorOfPatient = new int[properties.getPatients()];
+            LocalDate oldest = LocalDate.of(1930, 1, 1);
+            int birthdates = (int) (LocalDate.of(2020, 1, 1).toEpochDay() - oldest.toEpochDay());
+            insert(
+                "patient",
+                INSERT_PATIENT,
+                properties.getPatients(),
+                (statement, i) -> {
+                    doctorOfPatient[i] = doctors.sample(random);
+                    statement.setLong(1, properties.getFirstId() + i);
+                    statement.setString(2, pick(random, FIRST_NAMES));
+                    statement.setString(3, pick(random, LAST_NAMES));
+                    statement.setObject(4, oldest.plusDays(random.nextInt(birthdates)));
+                    statement.setTimestamp(5, date, utc);
+                    statement.setTimestamp(6, date, utc);
+                }
+            );
+        }
+
+        private void insertPrescriptions(SplittableRandom random) {
+            ZipfDistribution drugs = new ZipfDistribution(properties.getDrugs(), properties.getDrugSkew(), random);
+            ZipfDistribution patients = new ZipfDistribution(properties.getPatients(), properties.getPatientSkew(), random);
+            long since = properties.getSince().toEpochMilli();
+            double step = (double) properties.getPeriod().toMillis() / properties.getPrescriptions();
+            insert(
+                "prescription",
+                INSERT_PRESCRIPTION,
+                properties.getPrescriptions(),
+                (statement, i) -> {
+                    int patient = patients.sample(random);
+                    int doctor = random.nextDouble() < properties.getOwnDoctorRatio() ? doctorOfPatient[patient] : doctors.sample(random);
+                    // Prescriptions are created in id order, and about a third of them were updated since
+                    Instant createdDate = Instant.ofEpochMilli(since + (long) (step * i));
+                    Instant updatedDate = random.nextInt(3) == 0
+                        ? createdDate.plusSeconds(random.nextInt(30 * 24 * 3600))
+                        : createdDate;
+                    statement.setLong(1, properties.getFirstId() + i);
+                    statement.setInt(2, 1 + random.nextInt(4));
+                    statement.setInt(3, DOSAGE_INTERVALS[random.nextInt(DOSAGE_INTERVALS.length)]);
+                    statement.setTimestamp(4, Timestamp.from(createdDate), utc);
+                    statement.setTimestamp(5, Timestamp.from(updatedDate), utc);
+                    statement.setLong(6, properties.getFirstId() + drugs.sample(random));
+                    statement.setLong(7, properties.getFirstId() + patient);
+                    statement.setLong(8, properties.getFirstId() + doctor);
+                }
+            );
+        }
+
+        /**
+         * Insert {@code rows} rows, {@code chunkSize} per transaction and {@code batchSize} per JDBC batch.
+         */
+        private void insert(String table, String sql, int rows, RowSetter setter) {
+            long start = System.nanoTime();
+            int batchSize = properties.getBatchSize();
+            int chunkSize = Math.max(batchSize, properties.getChunkSize());
+            for (int chunkStart = 0; chunkStart < rows; chunkStart += chunkSize) {
+                int chunkEnd = Math.min(rows, chunkStart + chunkSize);
+                int first = chunkStart;
+                transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.execute(
+                        sql,
+                        (PreparedStatement statement) -> {
+                            for (int i = first; i < chunkEnd; i++) {
+                                setter.set(statement, i);
+                                statement.addBatch();
+                                if ((i - first + 1) % batchSize == 0 || i == chunkEnd - 1) {
+                                    statement.executeBatch();
+                                }
+                            }
+                            return null;
+                        }
+                    )
+                );
+                log.debug("Inserted {} rows out of {} in {}", chunkEnd, rows, table);
+            }
+            log.info("Inserted {} rows in {} in {} ms", rows, table, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private interface RowSetter {
+        void set(PreparedStatement statement, int i) throws SQLException;
+    }
+
+    /**
+     * Zipf distribution over the indexes {@code 0} to {@code n - 1}: the k-th most frequent index is drawn with a
+     * probability proportional to {@code 1 / k^exponent}. Ranks are shuffled over the indexes, so that the most
+     * frequent ones are not always the first ids.
+     */
+    static final class ZipfDistribution {
+
+        private final double[] cumulativeWeights;
+
+        private final int[] indexOfRank;
+
+        ZipfDistribution(int n, double exponent, SplittableRandom random) {
+            cumulativeWeights = new double[n];
+            double total = 0;
+            for (int rank = 0; rank < n; rank++) {
+                total += Math.pow(rank + 1, -exponent);
+                cumulativeWeights[rank] = total;
+            }
+            indexOfRank = new int[n];
+            for (int i = 0; i < n; i++) {
+                int j = random.nextInt(i + 1);
+                indexOfRank[i] = indexOfRank[j];
+                indexOfRank[j] = i;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double weight = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            int rank = Arrays.binarySearch(cumulativeWeights, weight);
+            return indexOfRank[rank >= 0 ? rank : Math.min(-rank - 1, indexOfRank.length - 1)];
+        }
+    }
+}
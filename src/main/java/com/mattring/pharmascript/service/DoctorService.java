@@ -1,19 +1,31 @@
 package com.mattring.pharmascript.service;
 
 import com.mattring.pharmascript.domain.Doctor;
+import com.mattring.pharmascript.repository.CollectionVersion;
 import com.mattring.pharmascript.repository.DoctorRepository;
 import com.mattring.pharmascript.service.dto.DoctorDTO;
+import com.mattring.pharmascript.service.dto.KeysetCursor;
 import com.mattring.pharmascript.service.mapper.DoctorMapper;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import javax.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service Implementation for managing {@link Doctor}.
+ * <p>
+ * Every write sets the {@code updatedDate} of the doctor to the time of the write, ignoring the one sent by the
+ * client, since the conditional GETs and the collection version are built from it, and moves the doctor sequence of the
+ * {@link ChangeSequenceService}, which versions the collection of the prescriptions.
  */
 @Service
 @Transactional
@@ -25,9 +37,20 @@ public class DoctorService {
 
     private final DoctorMapper doctorMapper;
 
-    public DoctorService(DoctorRepository doctorRepository, DoctorMapper doctorMapper) {
+    private final EntityManager entityManager;
+
+    private final ChangeSequenceService changeSequenceService;
+
+    public DoctorService(
+        DoctorRepository doctorRepository,
+        DoctorMapper doctorMapper,
+        EntityManager entityManager,
+        ChangeSequenceService changeSequenceService
+    ) {
         this.doctorRepository = doctorRepository;
         this.doctorMapper = doctorMapper;
+        this.entityManager = entityManager;
+        this.changeSequenceService = changeSequenceService;
     }
 
     /**
@@ -38,8 +61,9 @@ public class DoctorService {
      */
     public DoctorDTO save(DoctorDTO doctorDTO) {
         log.debug("Request to save Doctor : {}", doctorDTO);
-        Doctor doctor = doctorMapper.toEntity(doctorDTO);
+        Doctor doctor = doctorMapper.toEntity(doctorDTO).updatedDate(UpdatedDate.now());
         doctor = doctorRepository.save(doctor);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.DOCTOR);
         return doctorMapper.toDto(doctor);
     }
 
@@ -51,8 +75,9 @@ public class DoctorService {
      */
     public DoctorDTO update(DoctorDTO doctorDTO) {
         log.debug("Request to update Doctor : {}", doctorDTO);
-        Doctor doctor = doctorMapper.toEntity(doctorDTO);
+        Doctor doctor = doctorMapper.toEntity(doctorDTO).updatedDate(UpdatedDate.now());
         doctor = doctorRepository.save(doctor);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.DOCTOR);
         return doctorMapper.toDto(doctor);
     }
 
@@ -69,11 +94,15 @@ public class DoctorService {
             .findById(doctorDTO.getId())
             .map(existingDoctor -> {
                 doctorMapper.partialUpdate(existingDoctor, doctorDTO);
+                existingDoctor.setUpdatedDate(UpdatedDate.now());
 
                 return existingDoctor;
             })
             .map(doctorRepository::save)
-            .map(doctorMapper::toDto);
+            .map(savedDoctor -> {
+                changeSequenceService.incrementOnCommit(ChangeSequenceService.DOCTOR);
+                return doctorMapper.toDto(savedDoctor);
+            });
     }
 
     /**
@@ -88,6 +117,25 @@ public class DoctorService {
         return doctorRepository.findAll(pageable).map(doctorMapper::toDto);
     }
 
+    /**
+     * Get a keyset page of the doctors, ordered by {@code (updatedDate, id)}.
+     * <p>
+     * Unlike {@link #findAll(Pageable)} no count query is run, and the cost of a page does not grow with its depth.
+     *
+     * @param after the position to continue from, or {@code null} for the first page.
+     * @param pageable the pagination information; only the page size is used.
+     * @return the slice of entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<DoctorDTO> findAllAfter(KeysetCursor after, Pageable pageable) {
+        log.debug("Request to get Doctors after : {}", after);
+        Pageable limit = PageRequest.of(0, pageable.getPageSize());
+        Slice<Doctor> slice = after == null
+            ? doctorRepository.findFirstKeysetPage(limit)
+            : doctorRepository.findKeysetPageAfter(after.getUpdatedDate(), after.getId(), limit);
+        return slice.map(doctorMapper::toDto);
+    }
+
     /**
      * Get one doctor by id.
      *
@@ -100,6 +148,45 @@ public class DoctorService {
         return doctorRepository.findById(id).map(doctorMapper::toDto);
     }
 
+    /**
+     * Get the doctors of a set of ids.
+     * <p>
+     * The doctors held by the second-level cache are read from it, and the others with a single query.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities found, in the order of their ids.
+     */
+    @Transactional(readOnly = true)
+    public List<DoctorDTO> findAllById(Collection<Long> ids) {
+        log.debug("Request to get Doctors : {}", ids);
+        return doctorMapper.toDto(MultiGet.findAllById(entityManager, Doctor.class, ids, doctorRepository::findAllById, Doctor::getId));
+    }
+
+    /**
+     * Get the last modified date of one doctor, without mapping it.
+     * <p>
+     * The doctor is read from the second-level cache when it holds it.
+     *
+     * @param id the id of the entity.
+     * @return the {@code updatedDate} of the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ZonedDateTime> findLastModifiedDate(Long id) {
+        log.debug("Request to get the last modified date of Doctor : {}", id);
+        return doctorRepository.findById(id).map(Doctor::getUpdatedDate);
+    }
+
+    /**
+     * Get the version of all the doctors.
+     *
+     * @return the version of the entities.
+     */
+    @Transactional(readOnly = true)
+    public CollectionVersion findCollectionVersion() {
+        log.debug("Request to get the version of all Doctors");
+        return doctorRepository.findCollectionVersion();
+    }
+
     /**
      * Delete the doctor by id.
      *
@@ -108,5 +195,6 @@ public class DoctorService {
     public void delete(Long id) {
         log.debug("Request to delete Doctor : {}", id);
         doctorRepository.deleteById(id);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.DOCTOR);
     }
 }
@@ -0,0 +1,317 @@
+package com.mattring.pharmascript.service;
+
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.Drug;
+import com.mattring.pharmascript.repository.CollectionVersion;
+import com.mattring.pharmascript.repository.DrugRepository;
+import com.mattring.pharmascript.service.dto.DrugDTO;
+import com.mattring.pharmascript.service.mapper.DrugMapper;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory catalog of every {@link Drug}, indexed by id, generic name and brand name.
+ * <p>
+ * The catalog is an immutable snapshot which readers get without locking. It is loaded when the application is ready
+ * and replaced by a modified copy when a change made through {@link DrugService} commits. Changes made to the
+ * {@code drug} table by other means, such as by the other nodes, are seen by {@link #reloadIfChanged()}: it reloads the
+ * catalog when the {@link CollectionVersion} of the table moved, and in any case once the catalog is older than
+ * {@code application.drug-catalog.max-staleness}. When there is a {@link NearCacheCoherence}, the changes committed on a
+ * node are also sent to the other nodes, which read the changed drugs again at once.
+ * <p>
+ * The catalog keeps its own copies of the drugs, which are shared by all readers: the {@link DrugDTO}s it takes and
+ * returns are copied, so that callers may modify them.
+ */
+@Service
+public class DrugCatalogService {
+
+    /**
+     * The name of the catalog in the invalidations of the {@link NearCacheCoherence}, keyed by drug id.
+     */
+    public static final String CACHE_NAME = "drugCatalog";
+
+    private final Logger log = LoggerFactory.getLogger(DrugCatalogService.class);
+
+    private final DrugRepository drugRepository;
+
+    private final DrugMapper drugMapper;
+
+    private final ApplicationProperties.DrugCatalog properties;
+
+    private final NearCacheCoherence cacheCoherence;
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private volatile Catalog catalog;
+
+    public DrugCatalogService(
+        DrugRepository drugRepository,
+        DrugMapper drugMapper,
+        ApplicationProperties applicationProperties,
+        ObjectProvider<NearCacheCoherence> cacheCoherence
+    ) {
+        this.drugRepository = drugRepository;
+        this.drugMapper = drugMapper;
+        this.properties = applicationProperties.getDrugCatalog();
+        this.cacheCoherence = cacheCoherence.getIfAvailable();
+        if (this.cacheCoherence != null) {
+            this.cacheCoherence.register(CACHE_NAME, id -> reload((Long) id), this::reload);
+        }
+    }
+
+    /**
+     * Load the catalog from the database, replacing the current one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        // Read before the drugs: a change made in between is seen by the next check
+        CollectionVersion tableVersion = drugRepository.findCollectionVersion();
+        catalog = new Catalog(drugMapper.toDto(drugRepository.findAll()), versions.incrementAndGet(), tableVersion, Instant.now());
+        log.info("Loaded {} drugs in the catalog", catalog.byId.size());
+    }
+
+    /**
+     * Reload the catalog if the {@code drug} table changed since it was loaded, or if it is older than
+     * {@code application.drug-catalog.max-staleness}.
+     * <p>
+     * This is scheduled every {@code application.drug-catalog.check-interval}, on every node. The check is one aggregate
+     * query. {@link DrugService} moves the {@code updatedDate} of every drug it writes; a change made to the table by
+     * other means without moving it, such as a SQL script, is caught by the staleness bound.
+     */
+    @Scheduled(fixedDelayString = "${application.drug-catalog.check-interval:PT30S}")
+    public void reloadIfChanged() {
+        Catalog current = catalog;
+        if (current == null) {
+            // Not loaded yet
+            return;
+        }
+        if (current.loadedDate.plus(properties.getMaxStaleness()).isBefore(Instant.now())) {
+            log.debug("Reloading the drug catalog loaded at {}", current.loadedDate);
+            reload();
+            return;
+        }
+        CollectionVersion tableVersion = drugRepository.findCollectionVersion();
+        if (!tableVersion.equals(current.tableVersion)) {
+            log.debug("Reloading the drug catalog, the drug table moved from {} to {}", current.tableVersion, tableVersion);
+            reload();
+        }
+    }
+
+    /**
+     * Get one drug by id.
+     *
+     * @param id the id of the drug.
+     * @return a copy of the drug.
+     */
+    public Optional<DrugDTO> findOne(Long id) {
+        return Optional.ofNullable(getCatalog().byId.get(id)).map(DrugCatalogService::copyOf);
+    }
+
+    /**
+     * Get all the drugs.
+     *
+     * @return copies of the drugs of the current catalog.
+     */
+    public Collection<DrugDTO> findAll() {
+        return copiesOf(getCatalog().byId.values());
+    }
+
+    /**
+     * Get the version of the catalog, which changes with every change of the catalog. It is read before
+     * {@link #findAll()} by the callers deriving data from the drugs, to know when to derive it again.
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        return getCatalog().version;
+    }
+
+    /**
+     * Search the drugs whose generic or brand name starts with the given prefix, ignoring case.
+     * <p>
+     * Generic name matches come first, then brand name matches, each ordered by name.
+     *
+     * @param prefix the prefix of the names.
+     * @param limit the maximum number of drugs to return.
+     * @return copies of the matching drugs.
+     */
+    public List<DrugDTO> search(String prefix, int limit) {
+        Catalog current = getCatalog();
+        String key = normalize(prefix);
+        Map<Long, DrugDTO> matches = new LinkedHashMap<>();
+        for (NavigableMap<String, List<DrugDTO>> index : List.of(current.byGenericName, current.byBrandName)) {
+            for (List<DrugDTO> drugs : index.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+                for (DrugDTO drug : drugs) {
+                    if (matches.size() == limit) {
+                        return copiesOf(matches.values());
+                    }
+                    matches.putIfAbsent(drug.getId(), drug);
+                }
+            }
+        }
+        return copiesOf(matches.values());
+    }
+
+    /**
+     * Put a saved drug in the catalog once the current transaction commits, or immediately without a transaction.
+     *
+     * @param drugDTO the saved drug.
+     */
+    public void putAfterCommit(DrugDTO drugDTO) {
+        DrugDTO drug = copyOf(drugDTO);
+        afterCommit(() -> update(drugs -> drugs.put(drug.getId(), drug)));
+        invalidateOtherNodes(drug.getId());
+    }
+
+    /**
+     * Remove a deleted drug from the catalog once the current transaction commits, or immediately without a transaction.
+     *
+     * @param id the id of the deleted drug.
+     */
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> update(drugs -> drugs.remove(id)));
+        invalidateOtherNodes(id);
+    }
+
+    private void invalidateOtherNodes(Long id) {
+        if (cacheCoherence != null) {
+            cacheCoherence.invalidate(CACHE_NAME, id);
+        }
+    }
+
+    /**
+     * Read again a drug changed by another node.
+     *
+     * @param id the id of the drug.
+     */
+    void reload(Long id) {
+        Optional<DrugDTO> drug = drugRepository.findById(id).map(drugMapper::toDto);
+        update(drugs -> {
+            if (drug.isPresent()) {
+                drugs.put(id, drug.get());
+            } else {
+                drugs.remove(id);
+            }
+        });
+    }
+
+    private Catalog getCatalog() {
+        Catalog current = catalog;
+        if (current == null) {
+            synchronized (this) {
+                if (catalog == null) {
+                    reload();
+                }
+                current = catalog;
+            }
+        }
+        return current;
+    }
+
+    private synchronized void update(Consumer<Map<Long, DrugDTO>> change) {
+        if (catalog == null) {
+            // Not loaded yet, the change will be read with the rest of the table
+            return;
+        }
+        Map<Long, DrugDTO> drugs = new HashMap<>(catalog.byId);
+        change.accept(drugs);
+        // Keeps the version of the table it was loaded from, so that the next check reloads it
+        catalog = new Catalog(drugs.values(), versions.incrementAndGet(), catalog.tableVersion, catalog.loadedDate);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                }
+            );
+        } else {
+            action.run();
+        }
+    }
+
+    private static DrugDTO copyOf(DrugDTO drugDTO) {
+        DrugDTO copy = new DrugDTO();
+        copy.setId(drugDTO.getId());
+        copy.setMaker(drugDTO.getMaker());
+        copy.setBrandName(drugDTO.getBrandName());
+        copy.setGenericName(drugDTO.getGenericName());
+        copy.setCreatedDate(drugDTO.getCreatedDate());
+        copy.setUpdatedDate(drugDTO.getUpdatedDate());
+        return copy;
+    }
+
+    private static List<DrugDTO> copiesOf(Collection<DrugDTO> drugs) {
+        List<DrugDTO> copies = new ArrayList<>(drugs.size());
+        drugs.forEach(drug -> copies.add(copyOf(drug)));
+        return copies;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Catalog {
+
+        private final Map<Long, DrugDTO> byId;
+
+        private final NavigableMap<String, List<DrugDTO>> byGenericName;
+
+        private final NavigableMap<String, List<DrugDTO>> byBrandName;
+
+        private final long version;
+
+        private final CollectionVersion tableVersion;
+
+        private final Instant loadedDate;
+
+        Catalog(Collection<DrugDTO> drugs, long version, CollectionVersion tableVersion, Instant loadedDate) {
+            Map<Long, DrugDTO> ids = new HashMap<>();
+            drugs.forEach(drug -> ids.put(drug.getId(), drug));
+            this.byId = Collections.unmodifiableMap(ids);
+            this.byGenericName = index(drugs, DrugDTO::getGenericName);
+            this.byBrandName = index(drugs, DrugDTO::getBrandName);
+            this.version = version;
+            this.tableVersion = tableVersion;
+            this.loadedDate = loadedDate;
+        }
+
+        private static NavigableMap<String, List<DrugDTO>> index(Collection<DrugDTO> drugs, Function<DrugDTO, String> name) {
+            NavigableMap<String, List<DrugDTO>> index = new TreeMap<>();
+            for (DrugDTO drug : drugs) {
+                index.computeIfAbsent(normalize(name.apply(drug)), key -> new ArrayList<>()).add(drug);
+            }
+            index.replaceAll((key, sameName) -> {
+                sameName.sort((a, b) -> a.getId().compareTo(b.getId()));
+                return List.copyOf(sameName);
+            });
+            return Collections.unmodifiableNavigableMap(index);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.mattring.pharmascript.service;
+
+import com.mattring.pharmascript.service.dto.DrugInteractionDTO;
+import java.util.List;
+
+/**
+ * This exception is thrown when a prescription, new or moved to another patient or drug, interacts with, or duplicates,
+ * an active prescription of its patient at or above {@code application.drug-interactions.blocking-severity}.
+ */
+public class DrugInteractionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<DrugInteractionDTO> interactions;
+
+    public DrugInteractionException(List<DrugInteractionDTO> interactions) {
+        super("The prescription interacts with " + interactions.size() + " active prescription(s) of the patient");
+        this.interactions = List.copyOf(interactions);
+    }
+
+    public List<DrugInteractionDTO> getInteractions() {
+        return interactions;
+    }
+}
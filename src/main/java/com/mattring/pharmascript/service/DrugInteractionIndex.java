@@ -0,0 +1,228 @@
+package com.mattring.pharmascript.service;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.mattring.pharmascript.domain.DrugInteractionRule;
+import com.mattring.pharmascript.domain.enumeration.InteractionSeverity;
+import com.mattring.pharmascript.service.dto.DrugDTO;
+import com.mattring.pharmascript.service.dto.DrugInteractionDTO;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The drug interaction rules compiled against a version of the drug catalog.
+ * <p>
+ * Every generic name of the catalog and of the rules gets a rank, and every drug of the catalog the rank of its generic
+ * name. The generic names a rule names interact through a bitset of the ranks, so that checking two drugs takes two
+ * lookups in a primitive map and a bit test, without allocating; the rule itself is only looked up for the pairs which
+ * interact. Drugs missing from the catalog are checked by the rank of their generic name, see {@link #rankOf(String)}.
+ * <p>
+ * An index is immutable, and shared by the threads checking prescriptions.
+ */
+final class DrugInteractionIndex {
+
+    static final int UNKNOWN = -1;
+
+    private final long catalogVersion;
+
+    private final InteractionSeverity duplicateTherapySeverity;
+
+    private final ObjectIntHashMap<String> rankByGenericName;
+
+    private final LongIntHashMap rankByDrugId;
+
+    /**
+     * The bitset of the ranks each rank interacts with, or {@code null} for the generic names without rules.
+     */
+    private final long[][] interactions;
+
+    private final LongObjectHashMap<DrugInteractionRule> rulesByRanks;
+
+    private DrugInteractionIndex(
+        long catalogVersion,
+        InteractionSeverity duplicateTherapySeverity,
+        ObjectIntHashMap<String> rankByGenericName,
+        LongIntHashMap rankByDrugId,
+        long[][] interactions,
+        LongObjectHashMap<DrugInteractionRule> rulesByRanks
+    ) {
+        this.catalogVersion = catalogVersion;
+        this.duplicateTherapySeverity = duplicateTherapySeverity;
+        this.rankByGenericName = rankByGenericName;
+        this.rankByDrugId = rankByDrugId;
+        this.interactions = interactions;
+        this.rulesByRanks = rulesByRanks;
+    }
+
+    /**
+     * Compile the rules against the drugs of a catalog. Rules naming a generic name no drug of the catalog has are
+     * kept, for the drugs created since the catalog was read.
+     *
+     * @param catalogVersion the version of the catalog the drugs were read from.
+     * @param drugs the drugs of the catalog.
+     * @param rules the rules.
+     * @param duplicateTherapySeverity the severity of the drugs sharing their generic name.
+     * @return the index.
+     */
+    static DrugInteractionIndex build(
+        long catalogVersion,
+        Collection<DrugDTO> drugs,
+        List<DrugInteractionRule> rules,
+        InteractionSeverity duplicateTherapySeverity
+    ) {
+        ObjectIntHashMap<String> rankByGenericName = new ObjectIntHashMap<>();
+        LongIntHashMap rankByDrugId = new LongIntHashMap(drugs.size());
+        for (DrugDTO drug : drugs) {
+            if (drug.getId() == null || drug.getGenericName() == null) {
+                continue;
+            }
+            rankByDrugId.put(drug.getId(), rank(rankByGenericName, drug.getGenericName()));
+        }
+        for (DrugInteractionRule rule : rules) {
+            rank(rankByGenericName, rule.getGenericName());
+            rank(rankByGenericName, rule.getInteractingGenericName());
+        }
+
+        int ranks = rankByGenericName.size();
+        long[][] interactions = new long[ranks][];
+        LongObjectHashMap<DrugInteractionRule> rulesByRanks = new LongObjectHashMap<>();
+        for (DrugInteractionRule rule : rules) {
+            int rank = rankByGenericName.get(normalize(rule.getGenericName()));
+            int other = rankByGenericName.get(normalize(rule.getInteractingGenericName()));
+            set(interactions, rank, other, ranks);
+            set(interactions, other, rank, ranks);
+            // The most severe of the rules between the same generic names wins
+            DrugInteractionRule existing = rulesByRanks.get(key(rank, other));
+            if (existing == null || rule.getSeverity().compareTo(existing.getSeverity()) > 0) {
+                rulesByRanks.put(key(rank, other), rule);
+            }
+        }
+        return new DrugInteractionIndex(
+            catalogVersion,
+            duplicateTherapySeverity,
+            rankByGenericName,
+            rankByDrugId,
+            interactions,
+            rulesByRanks
+        );
+    }
+
+    private static int rank(ObjectIntHashMap<String> rankByGenericName, String genericName) {
+        String key = normalize(genericName);
+        int rank = rankByGenericName.getOrDefault(key, UNKNOWN);
+        if (rank == UNKNOWN) {
+            rank = rankByGenericName.size();
+            rankByGenericName.put(key, rank);
+        }
+        return rank;
+    }
+
+    private static void set(long[][] interactions, int rank, int other, int ranks) {
+        if (interactions[rank] == null) {
+            interactions[rank] = new long[(ranks + 63) >>> 6];
+        }
+        interactions[rank][other >>> 6] |= 1L << other;
+    }
+
+    private static long key(int rank, int other) {
+        return rank < other ? ((long) rank << 32) | other : ((long) other << 32) | rank;
+    }
+
+    static String normalize(String genericName) {
+        return genericName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * The number of pairs of generic names which interact.
+     */
+    int getRuleCount() {
+        return rulesByRanks.size();
+    }
+
+    /**
+     * The number of ranks of the index; the generic names it does not know can be given the ranks after them.
+     */
+    int getRankCount() {
+        return rankByGenericName.size();
+    }
+
+    /**
+     * The rank of a drug of the catalog.
+     *
+     * @param drugId the id of the drug.
+     * @return the rank, or {@link #UNKNOWN} if the drug was not in the catalog.
+     */
+    int rankOfDrug(long drugId) {
+        return rankByDrugId.getOrDefault(drugId, UNKNOWN);
+    }
+
+    /**
+     * The rank of a generic name, for the drugs missing from the catalog.
+     *
+     * @param genericName the generic name, in any case.
+     * @return the rank, or {@link #UNKNOWN} if no drug of the catalog and no rule has this generic name.
+     */
+    int rankOf(String genericName) {
+        return rankByGenericName.getOrDefault(normalize(genericName), UNKNOWN);
+    }
+
+    /**
+     * Find the interaction or duplicate therapy between two drugs of the catalog of a patient.
+     *
+     * @param patientId the id of the patient.
+     * @param drugId the drug checked.
+     * @param interactingDrugId the other drug; when it is the checked drug, the drug is prescribed twice.
+     * @return the interaction, or {@code null} if the drugs do not interact or are not in the index.
+     */
+    DrugInteractionDTO find(long patientId, long drugId, long interactingDrugId) {
+        return find(patientId, drugId, rankOfDrug(drugId), interactingDrugId, rankOfDrug(interactingDrugId));
+    }
+
+    /**
+     * Find the interaction or duplicate therapy between two drugs of a patient, by the ranks of their generic names.
+     *
+     * @param patientId the id of the patient.
+     * @param drugId the drug checked.
+     * @param rank the rank of the drug checked; a rank after {@link #getRankCount()} has no rules.
+     * @param interactingDrugId the other drug; when it is the checked drug, the drug is prescribed twice.
+     * @param other the rank of the other drug.
+     * @return the interaction, or {@code null} if the drugs do not interact or a rank is {@link #UNKNOWN}.
+     */
+    DrugInteractionDTO find(long patientId, long drugId, int rank, long interactingDrugId, int other) {
+        if (rank == UNKNOWN || other == UNKNOWN) {
+            return null;
+        }
+        if (rank == other) {
+            return new DrugInteractionDTO(
+                patientId,
+                drugId,
+                interactingDrugId,
+                DrugInteractionDTO.Type.DUPLICATE_THERAPY,
+                duplicateTherapySeverity,
+                null
+            );
+        }
+        if (rank >= interactions.length || other >= interactions.length) {
+            return null;
+        }
+        long[] words = interactions[rank];
+        if (words == null || (words[other >>> 6] & (1L << other)) == 0) {
+            return null;
+        }
+        DrugInteractionRule rule = rulesByRanks.get(key(rank, other));
+        return new DrugInteractionDTO(
+            patientId,
+            drugId,
+            interactingDrugId,
+            DrugInteractionDTO.Type.INTERACTION,
+            rule.getSeverity(),
+            rule.getDescription()
+        );
+    }
+}
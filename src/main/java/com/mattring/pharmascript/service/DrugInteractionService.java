@@ -0,0 +1,525 @@
+package com.mattring.pharmascript.service;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongContainer;
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.carrotsearch.hppc.cursors.LongCursor;
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.Drug;
+import com.mattring.pharmascript.domain.DrugInteractionRule;
+import com.mattring.pharmascript.domain.Patient;
+import com.mattring.pharmascript.domain.PatientDrugDosage;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.domain.enumeration.InteractionSeverity;
+import com.mattring.pharmascript.repository.DrugInteractionRuleRepository;
+import com.mattring.pharmascript.repository.DrugRepository;
+import com.mattring.pharmascript.repository.PatientDrugDosageRepository;
+import com.mattring.pharmascript.repository.PatientRepository;
+import com.mattring.pharmascript.service.dto.DrugInteractionDTO;
+import com.mattring.pharmascript.service.dto.DrugInteractionScanDTO;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service checking the prescriptions against the {@link DrugInteractionRule}s, and for duplicate therapies.
+ * <p>
+ * The rules are compiled into a {@link DrugInteractionIndex} against the {@link DrugCatalogService}, and compiled
+ * again when the catalog changes. The active drugs of a patient are read from the summaries of the
+ * {@link PatientPrescriptionSummaryService}, so a check costs one query on their key and a few bit tests, whatever the
+ * history of the patient. Drugs created since the catalog was read are checked by the generic name loaded from the
+ * database. Rules changed in the database are read by the next {@link #scan()}.
+ */
+@Service
+@Transactional
+public class DrugInteractionService {
+
+    /**
+     * The active drugs of every patient, in the order the scan splits them.
+     */
+    private static final String ACTIVE_DRUGS_SQL =
+        "select patient_id, drug_id, prescriptions from patient_drug_dosage where prescriptions > 0 order by patient_id, drug_id";
+
+    private static final Comparator<DrugInteractionDTO> MOST_SEVERE_FIRST = Comparator
+        .comparing(DrugInteractionDTO::getSeverity)
+        .reversed()
+        .thenComparing(DrugInteractionDTO::getPatientId)
+        .thenComparing(DrugInteractionDTO::getDrugId)
+        .thenComparing(DrugInteractionDTO::getInteractingDrugId);
+
+    private final Logger log = LoggerFactory.getLogger(DrugInteractionService.class);
+
+    private final DrugInteractionRuleRepository drugInteractionRuleRepository;
+
+    private final PatientDrugDosageRepository patientDrugDosageRepository;
+
+    private final PatientRepository patientRepository;
+
+    private final DrugRepository drugRepository;
+
+    private final DrugCatalogService drugCatalogService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationProperties.DrugInteractions properties;
+
+    private volatile List<DrugInteractionRule> rules;
+
+    private volatile DrugInteractionIndex index;
+
+    public DrugInteractionService(
+        DrugInteractionRuleRepository drugInteractionRuleRepository,
+        PatientDrugDosageRepository patientDrugDosageRepository,
+        PatientRepository patientRepository,
+        DrugRepository drugRepository,
+        DrugCatalogService drugCatalogService,
+        JdbcTemplate jdbcTemplate,
+        ApplicationProperties applicationProperties
+    ) {
+        this.drugInteractionRuleRepository = drugInteractionRuleRepository;
+        this.patientDrugDosageRepository = patientDrugDosageRepository;
+        this.patientRepository = patientRepository;
+        this.drugRepository = drugRepository;
+        this.drugCatalogService = drugCatalogService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = applicationProperties.getDrugInteractions();
+    }
+
+    /**
+     * Load the rules from the database, replacing the current ones.
+     */
+    public synchronized void reload() {
+        rules = List.copyOf(drugInteractionRuleRepository.findAll());
+        index = null;
+        log.debug("Loaded {} drug interaction rules", rules.size());
+    }
+
+    private DrugInteractionIndex getIndex() {
+        // Read before the drugs: an index built from newer drugs is only built again once more
+        long catalogVersion = drugCatalogService.getVersion();
+        DrugInteractionIndex current = index;
+        if (current == null || current.getCatalogVersion() != catalogVersion) {
+            synchronized (this) {
+                current = index;
+                if (current == null || current.getCatalogVersion() != catalogVersion) {
+                    if (rules == null) {
+                        reload();
+                    }
+                    current =
+                        DrugInteractionIndex.build(
+                            catalogVersion,
+                            drugCatalogService.findAll(),
+                            rules,
+                            properties.getDuplicateTherapySeverity()
+                        );
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Check a drug against the active prescriptions of a patient.
+     *
+     * @param patientId the id of the patient.
+     * @param drugId the id of the drug.
+     * @return the interactions and duplicate therapies, most severe first.
+     */
+    @Transactional(readOnly = true)
+    public List<DrugInteractionDTO> check(Long patientId, Long drugId) {
+        log.debug("Request to check Drug {} against the Prescriptions of Patient : {}", drugId, patientId);
+        LongArrayList activeDrugIds = new LongArrayList();
+        patientDrugDosageRepository.findActiveDrugIdsByPatientId(patientId).forEach(activeDrugIds::add);
+        return check(patientId, drugId, activeDrugIds);
+    }
+
+    private List<DrugInteractionDTO> check(long patientId, long drugId, LongArrayList activeDrugIds) {
+        LongArrayList drugIds = new LongArrayList(activeDrugIds);
+        drugIds.add(drugId);
+        return check(new DrugRanks(getIndex(), drugIds), patientId, drugId, activeDrugIds);
+    }
+
+    private static List<DrugInteractionDTO> check(DrugRanks ranks, long patientId, long drugId, LongArrayList activeDrugIds) {
+        int rank = ranks.rankOf(drugId);
+        List<DrugInteractionDTO> interactions = new ArrayList<>();
+        for (LongCursor activeDrugId : activeDrugIds) {
+            long other = activeDrugId.value;
+            DrugInteractionDTO interaction = ranks.index.find(patientId, drugId, rank, other, ranks.rankOf(other));
+            if (interaction != null) {
+                interactions.add(interaction);
+            }
+        }
+        interactions.sort(MOST_SEVERE_FIRST);
+        return interactions;
+    }
+
+    /**
+     * Check a new prescription against the active prescriptions of its patient, before saving it.
+     * <p>
+     * The patient is locked until the end of the transaction, so that two interacting prescriptions saved at the same
+     * time cannot both miss the other one.
+     *
+     * @param patientId the id of the patient of the prescription, or {@code null}.
+     * @param drugId the id of the drug of the prescription, or {@code null}.
+     * @return the interactions and duplicate therapies below {@code application.drug-interactions.blocking-severity}.
+     * @throws DrugInteractionException if there are interactions or duplicate therapies at the blocking severity.
+     * @see #checkPrescription(Patient, Long, Long)
+     */
+    public List<DrugInteractionDTO> checkNewPrescription(Long patientId, Long drugId) {
+        if (patientId == null) {
+            return List.of();
+        }
+        List<Patient> patients = patientRepository.findAllByIdForUpdate(List.of(patientId));
+        return checkPrescription(patients.isEmpty() ? null : patients.get(0), drugId, null);
+    }
+
+    /**
+     * Check a prescription moving to a patient or a drug against the active prescriptions of the patient, before
+     * saving it.
+     * <p>
+     * The patient must be locked by the caller until the end of the transaction, together with the patient the
+     * prescription moves from, see {@link PatientPrescriptionSummaryService#lockPatients}.
+     *
+     * @param patient the locked patient of the prescription, or {@code null}.
+     * @param drugId the id of the drug of the prescription, or {@code null}.
+     * @param replacedDrugId the drug the prescription had when it already was a prescription of this patient, which is
+     * not checked against; {@code null} for a new prescription, or one moved from another patient.
+     * @return the interactions and duplicate therapies below {@code application.drug-interactions.blocking-severity}.
+     * @throws DrugInteractionException if there are interactions or duplicate therapies at the blocking severity.
+     */
+    public List<DrugInteractionDTO> checkPrescription(Patient patient, Long drugId, Long replacedDrugId) {
+        if (patient == null || drugId == null) {
+            return List.of();
+        }
+        Long patientId = patient.getId();
+        LongArrayList activeDrugIds = new LongArrayList();
+        for (PatientDrugDosage dosage : patientDrugDosageRepository.findAllByPatientIdIn(List.of(patientId))) {
+            // The prescription being changed no longer counts for its previous drug
+            int prescriptions = dosage.getPrescriptions() - (dosage.getDrugId().equals(replacedDrugId) ? 1 : 0);
+            if (prescriptions > 0) {
+                activeDrugIds.add(dosage.getDrugId());
+            }
+        }
+        List<DrugInteractionDTO> interactions = check(patientId, drugId, activeDrugIds);
+        throwIfBlocking(interactions);
+        if (!interactions.isEmpty()) {
+            log.info("Prescription of Drug {} for Patient {} has interactions: {}", drugId, patientId, interactions);
+        }
+        return interactions;
+    }
+
+    /**
+     * Check new prescriptions against the active prescriptions of their patients, and against each other, before
+     * saving them.
+     * <p>
+     * The patients are locked until the end of the transaction, as by {@link #checkNewPrescription(Long, Long)}.
+     *
+     * @param prescriptions the new prescriptions.
+     * @throws DrugInteractionException if there are interactions or duplicate therapies at the blocking severity, for
+     * any of the prescriptions.
+     */
+    public void checkNewPrescriptions(List<Prescription> prescriptions) {
+        LongHashSet patientIds = new LongHashSet();
+        LongArrayList drugIds = new LongArrayList();
+        for (Prescription prescription : prescriptions) {
+            if (prescription.getPatient() != null && prescription.getDrug() != null) {
+                patientIds.add(prescription.getPatient().getId());
+                drugIds.add(prescription.getDrug().getId());
+            }
+        }
+        if (patientIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(patientIds.size());
+        for (LongCursor patientId : patientIds) {
+            ids.add(patientId.value);
+        }
+        patientRepository.findAllByIdForUpdate(ids);
+        LongObjectHashMap<LongArrayList> activeDrugIdsByPatientId = new LongObjectHashMap<>();
+        for (PatientDrugDosage dosage : patientDrugDosageRepository.findAllByPatientIdIn(ids)) {
+            if (dosage.getPrescriptions() > 0) {
+                activeDrugIds(activeDrugIdsByPatientId, dosage.getPatientId()).add(dosage.getDrugId());
+                drugIds.add(dosage.getDrugId());
+            }
+        }
+
+        DrugRanks ranks = new DrugRanks(getIndex(), drugIds);
+        List<DrugInteractionDTO> interactions = new ArrayList<>();
+        for (Prescription prescription : prescriptions) {
+            if (prescription.getPatient() != null && prescription.getDrug() != null) {
+                long patientId = prescription.getPatient().getId();
+                long drugId = prescription.getDrug().getId();
+                LongArrayList activeDrugIds = activeDrugIds(activeDrugIdsByPatientId, patientId);
+                interactions.addAll(check(ranks, patientId, drugId, activeDrugIds));
+                // The next prescriptions of the patient are checked against this one too
+                activeDrugIds.add(drugId);
+            }
+        }
+        interactions.sort(MOST_SEVERE_FIRST);
+        throwIfBlocking(interactions);
+        if (!interactions.isEmpty()) {
+            log.info("{} new prescriptions have interactions: {}", prescriptions.size(), interactions);
+        }
+    }
+
+    private static LongArrayList activeDrugIds(LongObjectHashMap<LongArrayList> activeDrugIdsByPatientId, long patientId) {
+        LongArrayList activeDrugIds = activeDrugIdsByPatientId.get(patientId);
+        if (activeDrugIds == null) {
+            activeDrugIds = new LongArrayList();
+            activeDrugIdsByPatientId.put(patientId, activeDrugIds);
+        }
+        return activeDrugIds;
+    }
+
+    private void throwIfBlocking(List<DrugInteractionDTO> interactions) {
+        InteractionSeverity blockingSeverity = properties.getBlockingSeverity();
+        if (blockingSeverity != null) {
+            List<DrugInteractionDTO> blocking = interactions
+                .stream()
+                .filter(interaction -> interaction.getSeverity().compareTo(blockingSeverity) >= 0)
+                .collect(Collectors.toList());
+            if (!blocking.isEmpty()) {
+                throw new DrugInteractionException(blocking);
+            }
+        }
+    }
+
+    /**
+     * Check the active prescriptions of all the patients, after reloading the rules.
+     * <p>
+     * The active drugs are read in one pass, into primitive arrays, and checked by a fork/join pool of
+     * {@code application.drug-interactions.scan-parallelism} threads, each task splitting its range of patients down
+     * to {@code scan-task-size} patients.
+     *
+     * @return the findings.
+     */
+    @Transactional(readOnly = true)
+    public DrugInteractionScanDTO scan() {
+        long start = System.nanoTime();
+        reload();
+        DrugInteractionIndex current = getIndex();
+        ActiveDrugs activeDrugs = new ActiveDrugs();
+        jdbcTemplate.query(ACTIVE_DRUGS_SQL, (RowCallbackHandler) rs -> activeDrugs.add(rs.getLong(1), rs.getLong(2), rs.getInt(3)));
+        activeDrugs.end(new DrugRanks(current, activeDrugs.drugIds));
+
+        ForkJoinPool pool = new ForkJoinPool(
+            properties.getScanParallelism() > 0 ? properties.getScanParallelism() : Runtime.getRuntime().availableProcessors()
+        );
+        Findings findings;
+        try {
+            findings =
+                pool.invoke(
+                    new ScanTask(
+                        current,
+                        activeDrugs,
+                        0,
+                        activeDrugs.patientCount(),
+                        Math.max(1, properties.getScanTaskSize()),
+                        properties.getScanMaxFindings()
+                    )
+                );
+        } finally {
+            pool.shutdown();
+        }
+
+        DrugInteractionScanDTO result = new DrugInteractionScanDTO();
+        result.setRules(current.getRuleCount());
+        result.setPatients(activeDrugs.patientCount());
+        result.setFindingCount(findings.count);
+        result.setFindings(findings.kept);
+        result.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Scanned the drug interactions: {}", result);
+        return result;
+    }
+
+    /**
+     * The active drugs of the patients, sorted by patient: the drugs of the i-th patient are at the indexes from
+     * {@code starts[i]} to {@code starts[i + 1]}.
+     */
+    private static final class ActiveDrugs {
+
+        private final LongArrayList patientIds = new LongArrayList();
+
+        private final IntArrayList starts = new IntArrayList();
+
+        private final LongArrayList drugIds = new LongArrayList();
+
+        private final IntArrayList prescriptions = new IntArrayList();
+
+        private int[] ranks;
+
+        void add(long patientId, long drugId, int count) {
+            if (patientIds.isEmpty() || patientIds.get(patientIds.size() - 1) != patientId) {
+                patientIds.add(patientId);
+                starts.add(drugIds.size());
+            }
+            drugIds.add(drugId);
+            prescriptions.add(count);
+        }
+
+        void end(DrugRanks drugRanks) {
+            starts.add(drugIds.size());
+            ranks = new int[drugIds.size()];
+            for (int i = 0; i < ranks.length; i++) {
+                ranks[i] = drugRanks.rankOf(drugIds.get(i));
+            }
+        }
+
+        int patientCount() {
+            return patientIds.size();
+        }
+    }
+
+    /**
+     * The ranks in an index of the drugs of a check. The drugs missing from the catalog of the index, created since it
+     * was read, are loaded from the database: their generic name gets its rank in the index if a drug of the catalog or
+     * a rule has it, and a rank of its own after them otherwise.
+     */
+    private final class DrugRanks {
+
+        private final DrugInteractionIndex index;
+
+        private final LongIntHashMap rankByMissingDrugId = new LongIntHashMap();
+
+        private final ObjectIntHashMap<String> rankByMissingGenericName = new ObjectIntHashMap<>();
+
+        DrugRanks(DrugInteractionIndex index, LongContainer drugIds) {
+            this.index = index;
+            LongHashSet missingDrugIds = new LongHashSet();
+            for (LongCursor drugId : drugIds) {
+                if (index.rankOfDrug(drugId.value) == DrugInteractionIndex.UNKNOWN) {
+                    missingDrugIds.add(drugId.value);
+                }
+            }
+            if (missingDrugIds.isEmpty()) {
+                return;
+            }
+            List<Long> ids = new ArrayList<>(missingDrugIds.size());
+            for (LongCursor drugId : missingDrugIds) {
+                ids.add(drugId.value);
+            }
+            log.debug("Loading {} Drugs missing from the catalog to check their interactions", ids.size());
+            for (Drug drug : drugRepository.findAllById(ids)) {
+                rankByMissingDrugId.put(drug.getId(), rankOf(drug.getGenericName()));
+            }
+        }
+
+        private int rankOf(String genericName) {
+            int rank = index.rankOf(genericName);
+            if (rank == DrugInteractionIndex.UNKNOWN) {
+                String key = DrugInteractionIndex.normalize(genericName);
+                rank = rankByMissingGenericName.getOrDefault(key, DrugInteractionIndex.UNKNOWN);
+                if (rank == DrugInteractionIndex.UNKNOWN) {
+                    rank = index.getRankCount() + rankByMissingGenericName.size();
+                    rankByMissingGenericName.put(key, rank);
+                }
+            }
+            return rank;
+        }
+
+        /**
+         * @return the rank of the drug, or {@link DrugInteractionIndex#UNKNOWN} if it does not exist.
+         */
+        int rankOf(long drugId) {
+            int rank = index.rankOfDrug(drugId);
+            return rank != DrugInteractionIndex.UNKNOWN ? rank : rankByMissingDrugId.getOrDefault(drugId, DrugInteractionIndex.UNKNOWN);
+        }
+    }
+
+    private static final class Findings {
+
+        private long count;
+
+        private List<DrugInteractionDTO> kept = new ArrayList<>();
+
+        Findings merge(Findings other, int maxFindings) {
+            count += other.count;
+            kept.addAll(other.kept);
+            if (kept.size() > maxFindings) {
+                kept.sort(MOST_SEVERE_FIRST);
+                kept = new ArrayList<>(kept.subList(0, maxFindings));
+            }
+            return this;
+        }
+    }
+
+    private static final class ScanTask extends RecursiveTask<Findings> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient DrugInteractionIndex index;
+
+        private final transient ActiveDrugs activeDrugs;
+
+        private final int from;
+
+        private final int to;
+
+        private final int taskSize;
+
+        private final int maxFindings;
+
+        ScanTask(DrugInteractionIndex index, ActiveDrugs activeDrugs, int from, int to, int taskSize, int maxFindings) {
+            this.index = index;
+            this.activeDrugs = activeDrugs;
+            this.from = from;
+            this.to = to;
+            this.taskSize = taskSize;
+            this.maxFindings = maxFindings;
+        }
+
+        @Override
+        protected Findings compute() {
+            if (to - from > taskSize) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(index, activeDrugs, from, middle, taskSize, maxFindings);
+                left.fork();
+                Findings right = new ScanTask(index, activeDrugs, middle, to, taskSize, maxFindings).compute();
+                return left.join().merge(right, maxFindings);
+            }
+            Findings findings = new Findings();
+            long[] drugIds = activeDrugs.drugIds.buffer;
+            int[] prescriptions = activeDrugs.prescriptions.buffer;
+            int[] ranks = activeDrugs.ranks;
+            for (int patient = from; patient < to; patient++) {
+                long patientId = activeDrugs.patientIds.get(patient);
+                int end = activeDrugs.starts.get(patient + 1);
+                for (int i = activeDrugs.starts.get(patient); i < end; i++) {
+                    // A drug prescribed twice duplicates itself
+                    if (prescriptions[i] > 1) {
+                        add(findings, index.find(patientId, drugIds[i], ranks[i], drugIds[i], ranks[i]));
+                    }
+                    for (int j = i + 1; j < end; j++) {
+                        add(findings, index.find(patientId, drugIds[i], ranks[i], drugIds[j], ranks[j]));
+                    }
+                }
+            }
+            return findings.merge(new Findings(), maxFindings);
+        }
+
+        private void add(Findings findings, DrugInteractionDTO interaction) {
+            if (interaction != null) {
+                findings.count++;
+                findings.kept.add(interaction);
+                if (findings.kept.size() > 2 * maxFindings) {
+                    findings.merge(new Findings(), maxFindings);
+                }
+            }
+        }
+    }
+}
@@ -1,19 +1,40 @@
 package com.mattring.pharmascript.service;
 
 import com.mattring.pharmascript.domain.Drug;
+import com.mattring.pharmascript.repository.CollectionVersion;
 import com.mattring.pharmascript.repository.DrugRepository;
 import com.mattring.pharmascript.service.dto.DrugDTO;
+import com.mattring.pharmascript.service.dto.KeysetCursor;
 import com.mattring.pharmascript.service.mapper.DrugMapper;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service Implementation for managing {@link Drug}.
+ * <p>
+ * Every committed change is applied to the {@link DrugCatalogService}. Every write sets the {@code updatedDate} of the
+ * drug to the time of the write, ignoring the one sent by the client, since the conditional GETs, the collection
+ * version and the catalog checks are built from it, and moves the drug sequence of the {@link ChangeSequenceService},
+ * which versions the collection of the prescriptions.
  */
 @Service
 @Transactional
@@ -25,9 +46,24 @@ public class DrugService {
 
     private final DrugMapper drugMapper;
 
-    public DrugService(DrugRepository drugRepository, DrugMapper drugMapper) {
+    private final DrugCatalogService drugCatalogService;
+
+    private final EntityManager entityManager;
+
+    private final ChangeSequenceService changeSequenceService;
+
+    public DrugService(
+        DrugRepository drugRepository,
+        DrugMapper drugMapper,
+        DrugCatalogService drugCatalogService,
+        EntityManager entityManager,
+        ChangeSequenceService changeSequenceService
+    ) {
         this.drugRepository = drugRepository;
         this.drugMapper = drugMapper;
+        this.drugCatalogService = drugCatalogService;
+        this.entityManager = entityManager;
+        this.changeSequenceService = changeSequenceService;
     }
 
     /**
@@ -38,9 +74,12 @@ public class DrugService {
      */
     public DrugDTO save(DrugDTO drugDTO) {
         log.debug("Request to save Drug : {}", drugDTO);
-        Drug drug = drugMapper.toEntity(drugDTO);
+        Drug drug = drugMapper.toEntity(drugDTO).updatedDate(UpdatedDate.now());
         drug = drugRepository.save(drug);
-        return drugMapper.toDto(drug);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.DRUG);
+        DrugDTO result = drugMapper.toDto(drug);
+        drugCatalogService.putAfterCommit(result);
+        return result;
     }
 
     /**
@@ -51,9 +90,12 @@ public class DrugService {
      */
     public DrugDTO update(DrugDTO drugDTO) {
         log.debug("Request to update Drug : {}", drugDTO);
-        Drug drug = drugMapper.toEntity(drugDTO);
+        Drug drug = drugMapper.toEntity(drugDTO).updatedDate(UpdatedDate.now());
         drug = drugRepository.save(drug);
-        return drugMapper.toDto(drug);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.DRUG);
+        DrugDTO result = drugMapper.toDto(drug);
+        drugCatalogService.putAfterCommit(result);
+        return result;
     }
 
     /**
@@ -69,11 +111,17 @@ public class DrugService {
             .findById(drugDTO.getId())
             .map(existingDrug -> {
                 drugMapper.partialUpdate(existingDrug, drugDTO);
+                existingDrug.setUpdatedDate(UpdatedDate.now());
 
                 return existingDrug;
             })
             .map(drugRepository::save)
-            .map(drugMapper::toDto);
+            .map(drugMapper::toDto)
+            .map(result -> {
+                changeSequenceService.incrementOnCommit(ChangeSequenceService.DRUG);
+                drugCatalogService.putAfterCommit(result);
+                return result;
+            });
     }
 
     /**
@@ -88,6 +136,25 @@ public class DrugService {
         return drugRepository.findAll(pageable).map(drugMapper::toDto);
     }
 
+    /**
+     * Get a keyset page of the drugs, ordered by {@code (updatedDate, id)}.
+     * <p>
+     * Unlike {@link #findAll(Pageable)} no count query is run, and the cost of a page does not grow with its depth.
+     *
+     * @param after the position to continue from, or {@code null} for the first page.
+     * @param pageable the pagination information; only the page size is used.
+     * @return the slice of entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<DrugDTO> findAllAfter(KeysetCursor after, Pageable pageable) {
+        log.debug("Request to get Drugs after : {}", after);
+        Pageable limit = PageRequest.of(0, pageable.getPageSize());
+        Slice<Drug> slice = after == null
+            ? drugRepository.findFirstKeysetPage(limit)
+            : drugRepository.findKeysetPageAfter(after.getUpdatedDate(), after.getId(), limit);
+        return slice.map(drugMapper::toDto);
+    }
+
     /**
      * Get one drug by id.
      *
@@ -100,6 +167,63 @@ public class DrugService {
         return drugRepository.findById(id).map(drugMapper::toDto);
     }
 
+    /**
+     * Get the drugs of a set of ids.
+     * <p>
+     * The drugs are read from the {@link DrugCatalogService}, without a transaction when it holds them all. The others,
+     * such as drugs created by another node since the catalog was loaded, are read from the second-level cache or with
+     * a single query.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities found, in the order of their ids.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<DrugDTO> findAllById(Collection<Long> ids) {
+        log.debug("Request to get Drugs : {}", ids);
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        Map<Long, DrugDTO> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : distinctIds) {
+            Optional<DrugDTO> drug = drugCatalogService.findOne(id);
+            if (drug.isPresent()) {
+                found.put(id, drug.get());
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (Drug drug : MultiGet.findAllById(entityManager, Drug.class, misses, drugRepository::findAllById, Drug::getId)) {
+                found.put(drug.getId(), drugMapper.toDto(drug));
+            }
+        }
+        return distinctIds.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the last modified date of one drug, without mapping it.
+     * <p>
+     * The drug is read from the second-level cache when it holds it.
+     *
+     * @param id the id of the entity.
+     * @return the {@code updatedDate} of the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ZonedDateTime> findLastModifiedDate(Long id) {
+        log.debug("Request to get the last modified date of Drug : {}", id);
+        return drugRepository.findById(id).map(Drug::getUpdatedDate);
+    }
+
+    /**
+     * Get the version of all the drugs.
+     *
+     * @return the version of the entities.
+     */
+    @Transactional(readOnly = true)
+    public CollectionVersion findCollectionVersion() {
+        log.debug("Request to get the version of all Drugs");
+        return drugRepository.findCollectionVersion();
+    }
+
     /**
      * Delete the drug by id.
      *
@@ -108,5 +232,7 @@ public class DrugService {
     public void delete(Long id) {
         log.debug("Request to delete Drug : {}", id);
         drugRepository.deleteById(id);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.DRUG);
+        drugCatalogService.removeAfterCommit(id);
     }
 }
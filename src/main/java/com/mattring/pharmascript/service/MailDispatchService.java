@@ -0,0 +1,208 @@
+package com.mattring.pharmascript.service;
+
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.MailOutboxMessage;
+import com.mattring.pharmascript.management.MailMetersService;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service sending the emails of the outbox managed by {@link MailOutboxService}.
+ * <p>
+ * Dispatches run on the {@code mailExecutor}, apart from the shared {@code taskExecutor}, so that a slow SMTP server
+ * only delays emails. A dispatch claims the due emails in batches and sends each batch over one SMTP connection, until
+ * none is due. Dispatches are requested when emails are queued, and periodically for the retries.
+ */
+@Service
+public class MailDispatchService {
+
+    private final Logger log = LoggerFactory.getLogger(MailDispatchService.class);
+
+    private final MailOutboxService mailOutboxService;
+
+    private final JavaMailSender javaMailSender;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final MailMetersService mailMetersService;
+
+    private final Executor mailExecutor;
+
+    private final ApplicationProperties.MailOutbox properties;
+
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+    public MailDispatchService(
+        MailOutboxService mailOutboxService,
+        JavaMailSender javaMailSender,
+        JHipsterProperties jHipsterProperties,
+        MailMetersService mailMetersService,
+        @Qualifier("mailExecutor") Executor mailExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.mailOutboxService = mailOutboxService;
+        this.javaMailSender = javaMailSender;
+        this.jHipsterProperties = jHipsterProperties;
+        this.mailMetersService = mailMetersService;
+        this.mailExecutor = mailExecutor;
+        this.properties = applicationProperties.getMailOutbox();
+    }
+
+    /**
+     * Request a dispatch once the current transaction commits, or immediately without a transaction.
+     * <p>
+     * A transaction requests at most one dispatch, however many emails it queues.
+     */
+    public void dispatchAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            requestDispatch();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestDispatch();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(MailDispatchService.this);
+                }
+            }
+        );
+    }
+
+    /**
+     * Start a dispatch, unless one is already waiting to start.
+     * <p>
+     * When the {@code mailExecutor} is saturated the request is dropped: the running dispatches send every due email.
+     */
+    public void requestDispatch() {
+        if (dispatchRequested.compareAndSet(false, true)) {
+            try {
+                mailExecutor.execute(this::dispatchDue);
+            } catch (TaskRejectedException e) {
+                dispatchRequested.set(false);
+                log.debug("Mail dispatch request rejected, the running dispatches will send the due emails");
+            }
+        }
+    }
+
+    /**
+     * Look for emails due for a retry, or left behind by a dispatch which did not complete.
+     */
+    @Scheduled(fixedDelayString = "${application.mail-outbox.poll-interval-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public void pollOutbox() {
+        mailMetersService.setPending(mailOutboxService.countPending());
+        requestDispatch();
+    }
+
+    /**
+     * Send the due emails, batch after batch, until none is due.
+     */
+    public void dispatchDue() {
+        // Requests made from now on start another dispatch, which may find emails queued after this one's last batch
+        dispatchRequested.set(false);
+        try {
+            List<MailOutboxMessage> batch;
+            while (!(batch = mailOutboxService.claimDue(properties.getBatchSize())).isEmpty()) {
+                send(batch);
+                mailMetersService.setPending(mailOutboxService.countPending());
+            }
+        } catch (RuntimeException e) {
+            // The claimed emails will be sent again at the end of their lease
+            log.error("Mail dispatch failed", e);
+        }
+    }
+
+    private void send(List<MailOutboxMessage> batch) {
+        Map<MimeMessage, MailOutboxMessage> messages = new IdentityHashMap<>();
+        Map<Long, String> errors = new HashMap<>();
+        for (MailOutboxMessage message : batch) {
+            try {
+                messages.put(toMimeMessage(message), message);
+            } catch (MessagingException e) {
+                errors.put(message.getId(), e.toString());
+            }
+        }
+        List<MimeMessage> mimeMessages = new ArrayList<>(messages.keySet());
+        if (!mimeMessages.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                if (mimeMessages.size() == 1) {
+                    javaMailSender.send(mimeMessages.get(0));
+                } else {
+                    javaMailSender.send(mimeMessages.toArray(new MimeMessage[0]));
+                }
+            } catch (MailSendException e) {
+                Map<Object, Exception> failedMessages = e.getFailedMessages();
+                if (failedMessages == null || failedMessages.isEmpty()) {
+                    messages.values().forEach(message -> errors.put(message.getId(), e.toString()));
+                } else {
+                    failedMessages.forEach((mimeMessage, error) -> {
+                        MailOutboxMessage message = messages.get(mimeMessage);
+                        if (message != null) {
+                            errors.put(message.getId(), error.toString());
+                        }
+                    });
+                }
+            } catch (MailException e) {
+                messages.values().forEach(message -> errors.put(message.getId(), e.toString()));
+            }
+            mailMetersService.recordSend(System.nanoTime() - start);
+        }
+
+        List<Long> sent = new ArrayList<>(batch.size());
+        for (MailOutboxMessage message : batch) {
+            if (!errors.containsKey(message.getId())) {
+                sent.add(message.getId());
+            }
+        }
+        mailOutboxService.recordSent(sent);
+        mailMetersService.trackSent(sent.size());
+        log.debug("Sent {} emails", sent.size());
+        if (!errors.isEmpty()) {
+            log.warn("{} emails could not be sent, first error: {}", errors.size(), errors.values().iterator().next());
+            int failed = mailOutboxService.recordFailures(errors);
+            mailMetersService.trackFailed(failed);
+            mailMetersService.trackRetried(errors.size() - failed);
+        }
+    }
+
+    private MimeMessage toMimeMessage(MailOutboxMessage message) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, message.isMultipart(), StandardCharsets.UTF_8.name());
+        helper.setTo(message.getRecipient());
+        helper.setFrom(jHipsterProperties.getMail().getFrom());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getContent(), message.isHtml());
+        return mimeMessage;
+    }
+}
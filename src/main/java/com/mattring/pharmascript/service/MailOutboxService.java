@@ -0,0 +1,147 @@
+package com.mattring.pharmascript.service;
+
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.MailOutboxMessage;
+import com.mattring.pharmascript.domain.enumeration.MailOutboxStatus;
+import com.mattring.pharmascript.repository.MailOutboxRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service managing the {@link MailOutboxMessage}s, the emails waiting to be sent by {@link MailDispatchService}.
+ * <p>
+ * Emails are queued in the transaction of the caller, if any. The methods used by the dispatcher run in transactions
+ * of their own, as the dispatcher may be started right after the commit of the transaction which queued the emails.
+ */
+@Service
+@Transactional
+public class MailOutboxService {
+
+    private final Logger log = LoggerFactory.getLogger(MailOutboxService.class);
+
+    private final MailOutboxRepository mailOutboxRepository;
+
+    private final ApplicationProperties.MailOutbox properties;
+
+    public MailOutboxService(MailOutboxRepository mailOutboxRepository, ApplicationProperties applicationProperties) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.properties = applicationProperties.getMailOutbox();
+    }
+
+    /**
+     * Queue an email, due immediately.
+     *
+     * @param to the recipient.
+     * @param subject the subject.
+     * @param content the content.
+     * @param isMultipart whether the email is multipart.
+     * @param isHtml whether the content is HTML.
+     * @return the queued email.
+     */
+    public MailOutboxMessage enqueue(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
+        MailOutboxMessage message = new MailOutboxMessage();
+        message.setRecipient(to);
+        message.setSubject(subject);
+        message.setContent(content);
+        message.setMultipart(isMultipart);
+        message.setHtml(isHtml);
+        message.setStatus(MailOutboxStatus.PENDING);
+        message.setAttempts(0);
+        // At the precision of claimDue, or an email claimed within the same millisecond would not be due yet
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        message.setNextAttemptAt(now);
+        message.setCreatedDate(now);
+        return mailOutboxRepository.save(message);
+    }
+
+    /**
+     * Claim the emails which are due, oldest first, for one attempt to send them.
+     * <p>
+     * Claimed emails are not due again before the end of a lease, when they are sent again if the attempt was not
+     * reported by {@link #recordSent} or {@link #recordFailures}. Each claim marks the emails it wins with a random
+     * token, so that dispatchers claiming the same emails within the same millisecond never both get them.
+     *
+     * @param limit the maximum number of emails to claim.
+     * @return the claimed emails, with their attempt counted.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<MailOutboxMessage> claimDue(int limit) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Long> ids = mailOutboxRepository.findDueIds(MailOutboxStatus.PENDING, now, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Instant leaseEnd = now.plusSeconds(properties.getLeaseSeconds());
+        String claimToken = UUID.randomUUID().toString();
+        mailOutboxRepository.claim(ids, MailOutboxStatus.PENDING, now, leaseEnd, claimToken);
+        // Another dispatcher may have claimed some of them first, those have its token
+        return mailOutboxRepository.findAllByIdInAndClaimToken(ids, claimToken);
+    }
+
+    /**
+     * Remove sent emails from the outbox.
+     *
+     * @param ids the ids of the sent emails.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordSent(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            mailOutboxRepository.deleteAllByIdInBatch(ids);
+        }
+    }
+
+    /**
+     * Schedule the retry of emails which could not be sent, with an exponential backoff, or mark them as failed once
+     * they reached the maximum number of attempts.
+     *
+     * @param errors the errors of the emails which could not be sent, by id.
+     * @return the number of emails marked as failed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int recordFailures(Map<Long, String> errors) {
+        Instant now = Instant.now();
+        int failed = 0;
+        for (MailOutboxMessage message : mailOutboxRepository.findAllById(errors.keySet())) {
+            String error = errors.get(message.getId());
+            message.setLastError(
+                error != null && error.length() > MailOutboxMessage.LAST_ERROR_MAX_LENGTH
+                    ? error.substring(0, MailOutboxMessage.LAST_ERROR_MAX_LENGTH)
+                    : error
+            );
+            if (message.getAttempts() >= properties.getMaxAttempts()) {
+                log.warn("Email to '{}' failed after {} attempts: {}", message.getRecipient(), message.getAttempts(), error);
+                message.setStatus(MailOutboxStatus.FAILED);
+                failed++;
+            } else {
+                message.setNextAttemptAt(now.plus(backoff(message.getAttempts())));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Count the emails waiting to be sent or retried.
+     *
+     * @return the number of pending emails.
+     */
+    @Transactional(readOnly = true)
+    public long countPending() {
+        return mailOutboxRepository.countByStatus(MailOutboxStatus.PENDING);
+    }
+
+    private Duration backoff(int attempts) {
+        long seconds = properties.getInitialBackoffSeconds() << Math.min(attempts - 1, 30);
+        return Duration.ofSeconds(Math.min(seconds, properties.getMaxBackoffSeconds()));
+    }
+}
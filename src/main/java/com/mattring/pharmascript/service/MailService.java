@@ -1,57 +1,42 @@
 package com.mattring.pharmascript.service;
 
 import com.mattring.pharmascript.domain.User;
-import java.nio.charset.StandardCharsets;
-import java.util.Locale;
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
+import com.mattring.pharmascript.service.MailTemplateService.RenderedEmail;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.MessageSource;
-import org.springframework.mail.MailException;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring5.SpringTemplateEngine;
-import tech.jhipster.config.JHipsterProperties;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for sending emails.
  * <p>
- * We use the {@link Async} annotation to send emails asynchronously.
+ * Emails are queued in the outbox of {@link MailOutboxService}, in the transaction of the caller if any, and sent
+ * asynchronously by {@link MailDispatchService}, which retries them on failure.
  */
 @Service
 public class MailService {
 
     private final Logger log = LoggerFactory.getLogger(MailService.class);
 
-    private static final String USER = "user";
+    private final MailOutboxService mailOutboxService;
 
-    private static final String BASE_URL = "baseUrl";
+    private final MailDispatchService mailDispatchService;
 
-    private final JHipsterProperties jHipsterProperties;
-
-    private final JavaMailSender javaMailSender;
-
-    private final MessageSource messageSource;
-
-    private final SpringTemplateEngine templateEngine;
+    private final MailTemplateService mailTemplateService;
 
     public MailService(
-        JHipsterProperties jHipsterProperties,
-        JavaMailSender javaMailSender,
-        MessageSource messageSource,
-        SpringTemplateEngine templateEngine
+        MailOutboxService mailOutboxService,
+        MailDispatchService mailDispatchService,
+        MailTemplateService mailTemplateService
     ) {
-        this.jHipsterProperties = jHipsterProperties;
-        this.javaMailSender = javaMailSender;
-        this.messageSource = messageSource;
-        this.templateEngine = templateEngine;
+        this.mailOutboxService = mailOutboxService;
+        this.mailDispatchService = mailDispatchService;
+        this.mailTemplateService = mailTemplateService;
     }
 
-    @Async
     public void sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
         log.debug(
             "Send email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
@@ -62,49 +47,48 @@ public class MailService {
             content
         );
 
-        // Prepare message using a Spring helper
-        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-        try {
-            MimeMessageHelper message = new MimeMessageHelper(mimeMessage, isMultipart, StandardCharsets.UTF_8.name());
-            message.setTo(to);
-            message.setFrom(jHipsterProperties.getMail().getFrom());
-            message.setSubject(subject);
-            message.setText(content, isHtml);
-            javaMailSender.send(mimeMessage);
-            log.debug("Sent email to User '{}'", to);
-        } catch (MailException | MessagingException e) {
-            log.warn("Email could not be sent to user '{}'", to, e);
-        }
+        mailOutboxService.enqueue(to, subject, content, isMultipart, isHtml);
+        mailDispatchService.dispatchAfterCommit();
     }
 
-    @Async
     public void sendEmailFromTemplate(User user, String templateName, String titleKey) {
         if (user.getEmail() == null) {
             log.debug("Email doesn't exist for user '{}'", user.getLogin());
             return;
         }
-        Locale locale = Locale.forLanguageTag(user.getLangKey());
-        Context context = new Context(locale);
-        context.setVariable(USER, user);
-        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
-        String content = templateEngine.process(templateName, context);
-        String subject = messageSource.getMessage(titleKey, null, locale);
-        sendEmail(user.getEmail(), subject, content, false, true);
+        RenderedEmail email = mailTemplateService.render(user, templateName, titleKey);
+        sendEmail(email.getTo(), email.getSubject(), email.getContent(), false, true);
+    }
+
+    /**
+     * Send an email rendered from a template to each user, for bulk notifications.
+     * <p>
+     * The emails are rendered as one batch and queued in one transaction, which starts a single dispatch.
+     *
+     * @param users the recipients, those without an email are skipped.
+     * @param templateName the name of the template.
+     * @param titleKey the message key of the subject.
+     */
+    @Transactional
+    public void sendEmailsFromTemplate(Collection<User> users, String templateName, String titleKey) {
+        List<User> recipients = users.stream().filter(user -> user.getEmail() != null).collect(Collectors.toList());
+        log.debug("Sending {} emails from template '{}'", recipients.size(), templateName);
+        for (RenderedEmail email : mailTemplateService.renderAll(recipients, templateName, titleKey)) {
+            mailOutboxService.enqueue(email.getTo(), email.getSubject(), email.getContent(), false, true);
+        }
+        mailDispatchService.dispatchAfterCommit();
     }
 
-    @Async
     public void sendActivationEmail(User user) {
         log.debug("Sending activation email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/activationEmail", "email.activation.title");
     }
 
-    @Async
     public void sendCreationEmail(User user) {
         log.debug("Sending creation email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/creationEmail", "email.activation.title");
     }
 
-    @Async
     public void sendPasswordResetMail(User user) {
         log.debug("Sending password reset email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/passwordResetEmail", "email.reset.title");
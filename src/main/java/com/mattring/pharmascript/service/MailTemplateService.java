@@ -0,0 +1,152 @@
+package com.mattring.pharmascript.service;
+
+import com.mattring.pharmascript.domain.User;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service rendering the email templates.
+ * <p>
+ * Parsed templates are kept in the template cache of Thymeleaf, enabled by {@code spring.thymeleaf.cache}. Locales
+ * and subjects are resolved once per language key and per (title key, locale). A batch of recipients is rendered with
+ * a single {@link Context} and into a single buffer.
+ */
+@Service
+public class MailTemplateService {
+
+    private static final String USER = "user";
+
+    private static final String BASE_URL = "baseUrl";
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final MessageSource messageSource;
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final Map<String, Locale> locales = new ConcurrentHashMap<>();
+
+    private final Map<SubjectKey, String> subjects = new ConcurrentHashMap<>();
+
+    public MailTemplateService(JHipsterProperties jHipsterProperties, MessageSource messageSource, SpringTemplateEngine templateEngine) {
+        this.jHipsterProperties = jHipsterProperties;
+        this.messageSource = messageSource;
+        this.templateEngine = templateEngine;
+    }
+
+    /**
+     * Render an email for a user, in the user's language.
+     *
+     * @param user the recipient.
+     * @param templateName the name of the template.
+     * @param titleKey the message key of the subject.
+     * @return the rendered email.
+     */
+    public RenderedEmail render(User user, String templateName, String titleKey) {
+        return renderAll(List.of(user), templateName, titleKey).get(0);
+    }
+
+    /**
+     * Render an email for each user, in the user's language.
+     *
+     * @param users the recipients.
+     * @param templateName the name of the template.
+     * @param titleKey the message key of the subject.
+     * @return the rendered emails, in the order of the users.
+     */
+    public List<RenderedEmail> renderAll(Collection<User> users, String templateName, String titleKey) {
+        List<RenderedEmail> emails = new ArrayList<>(users.size());
+        StringWriter buffer = new StringWriter(INITIAL_BUFFER_SIZE);
+        Context context = new Context();
+        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
+        for (User user : users) {
+            Locale locale = getLocale(user.getLangKey());
+            context.setLocale(locale);
+            context.setVariable(USER, user);
+            buffer.getBuffer().setLength(0);
+            templateEngine.process(templateName, context, buffer);
+            emails.add(new RenderedEmail(user.getEmail(), getSubject(titleKey, locale), buffer.toString()));
+        }
+        return emails;
+    }
+
+    private Locale getLocale(String langKey) {
+        return locales.computeIfAbsent(langKey, Locale::forLanguageTag);
+    }
+
+    private String getSubject(String titleKey, Locale locale) {
+        return subjects.computeIfAbsent(new SubjectKey(titleKey, locale), key -> messageSource.getMessage(titleKey, null, locale));
+    }
+
+    /**
+     * An email rendered from a template.
+     */
+    public static final class RenderedEmail {
+
+        private final String to;
+
+        private final String subject;
+
+        private final String content;
+
+        public RenderedEmail(String to, String subject, String content) {
+            this.to = to;
+            this.subject = subject;
+            this.content = content;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+
+    private static final class SubjectKey {
+
+        private final String titleKey;
+
+        private final Locale locale;
+
+        private SubjectKey(String titleKey, Locale locale) {
+            this.titleKey = titleKey;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SubjectKey)) {
+                return false;
+            }
+            SubjectKey other = (SubjectKey) o;
+            return titleKey.equals(other.titleKey) && locale.equals(other.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(titleKey, locale);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.mattring.pharmascript.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+
+/**
+ * Loads entities by a set of ids: the ones held by the second-level cache are read from it, and the others with a
+ * single query, whose {@code in} list is padded by {@code hibernate.query.in_clause_parameter_padding} so that
+ * requests of similar sizes share their statement.
+ */
+final class MultiGet {
+
+    private MultiGet() {}
+
+    /**
+     * Find the entities of the given ids.
+     *
+     * @param entityManager the entity manager of the current transaction.
+     * @param entityClass the class of the entities, cached in the second-level cache.
+     * @param ids the ids of the entities; duplicates are ignored.
+     * @param findAllById the query of the entities missing from the cache, such as the {@code findAllById} of their repository.
+     * @param idOf the id of an entity.
+     * @param <T> the type of the entities.
+     * @return the entities found, in the order of their ids.
+     */
+    static <T> List<T> findAllById(
+        EntityManager entityManager,
+        Class<T> entityClass,
+        Collection<Long> ids,
+        Function<List<Long>, List<T>> findAllById,
+        Function<T, Long> idOf
+    ) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        Map<Long, T> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : distinctIds) {
+            // An entity evicted between the two calls is loaded by find() itself, with a query of its own
+            T entity = cache.contains(entityClass, id) ? entityManager.find(entityClass, id) : null;
+            if (entity != null) {
+                found.put(id, entity);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (T entity : findAllById.apply(misses)) {
+                found.put(idOf.apply(entity), entity);
+            }
+        }
+        List<T> entities = new ArrayList<>(found.size());
+        for (Long id : distinctIds) {
+            T entity = found.get(id);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+}
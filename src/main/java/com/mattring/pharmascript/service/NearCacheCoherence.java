@@ -0,0 +1,37 @@
+package com.mattring.pharmascript.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the caches the services build themselves coherent across the nodes: each node sends the invalidations of its
+ * entries to the other nodes, which drop or read again their own.
+ * <p>
+ * Implemented by the configuration when the caches of the nodes are kept coherent, and absent otherwise.
+ */
+public interface NearCacheCoherence {
+    /**
+     * Apply the invalidations of a cache received from the other nodes with the given listeners.
+     *
+     * @param cacheName the name of the cache, as sent in its invalidations.
+     * @param keyListener the listener applying the invalidation of one key.
+     * @param allListener the listener applying the invalidation of the whole cache.
+     */
+    void register(String cacheName, Consumer<Object> keyListener, Runnable allListener);
+
+    /**
+     * Drop the entries of a Caffeine cache when they are invalidated by another node.
+     *
+     * @param cacheName the name of the cache, as sent in its invalidations.
+     * @param cache the cache.
+     */
+    void register(String cacheName, Cache<?, ?> cache);
+
+    /**
+     * Send the invalidation of a cache entry to the other nodes, once the current transaction completes.
+     *
+     * @param cacheName the name of the cache.
+     * @param key the key of the entry.
+     */
+    void invalidate(String cacheName, Object key);
+}
@@ -0,0 +1,278 @@
+package com.mattring.pharmascript.service;
+
+import com.mattring.pharmascript.domain.Patient;
+import com.mattring.pharmascript.domain.PatientDrugDosage;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.repository.PatientDrugDosageRepository;
+import com.mattring.pharmascript.repository.PatientRepository;
+import com.mattring.pharmascript.service.dto.DrugDTO;
+import com.mattring.pharmascript.service.dto.DrugDosageDTO;
+import com.mattring.pharmascript.service.dto.PatientPrescriptionSummaryDTO;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service maintaining the summary of the prescriptions of each patient, per drug, in the {@link PatientDrugDosage}
+ * table.
+ * <p>
+ * The {@link PrescriptionService} applies the changes of each write in its own transaction, so a summary is read with
+ * a single query on the key of the table, whatever the number of prescriptions of the patient. The summary rows of a
+ * patient are updated under a lock of the patient, taken in id order. A write which also checks the patients before
+ * changing them takes all their locks at once with {@link #lockPatients}, and passes the locked patients on.
+ */
+@Service
+@Transactional
+public class PatientPrescriptionSummaryService {
+
+    /**
+     * The scale of the daily dosages, to which the dosage of each prescription is rounded before being added, so that
+     * removing it gives back the exact previous total.
+     */
+    static final int DAILY_DOSAGE_SCALE = 3;
+
+    private static final BigDecimal HOURS_PER_DAY = BigDecimal.valueOf(24);
+
+    /**
+     * Recompute the summaries from the prescriptions, as done by the changelog which added the table.
+     */
+    private static final String REBUILD_SQL =
+        "insert into patient_drug_dosage (patient_id, drug_id, prescriptions, daily_dosage, last_changed_date)" +
+        " select patient_id, drug_id, count(id)," +
+        " sum(case when dosage_interval > 0 then round(dosage_amount * 24.0 / dosage_interval, 3) else 0 end), max(updated_date)" +
+        " from prescription where patient_id is not null and drug_id is not null group by patient_id, drug_id";
+
+    private final Logger log = LoggerFactory.getLogger(PatientPrescriptionSummaryService.class);
+
+    private final PatientDrugDosageRepository patientDrugDosageRepository;
+
+    private final PatientRepository patientRepository;
+
+    private final DrugCatalogService drugCatalogService;
+
+    private final EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PatientPrescriptionSummaryService(
+        PatientDrugDosageRepository patientDrugDosageRepository,
+        PatientRepository patientRepository,
+        DrugCatalogService drugCatalogService,
+        EntityManager entityManager,
+        JdbcTemplate jdbcTemplate
+    ) {
+        this.patientDrugDosageRepository = patientDrugDosageRepository;
+        this.patientRepository = patientRepository;
+        this.drugCatalogService = drugCatalogService;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The daily dosage of a prescription, its interval being in hours.
+     *
+     * @param dosageAmount the amount taken at each interval.
+     * @param dosageInterval the interval, in hours; a prescription without a positive interval counts for nothing.
+     * @return the amount taken per day, rounded to {@value #DAILY_DOSAGE_SCALE} decimals.
+     */
+    public static BigDecimal dailyDosage(Integer dosageAmount, Integer dosageInterval) {
+        if (dosageAmount == null || dosageInterval == null || dosageInterval <= 0) {
+            return BigDecimal.ZERO.setScale(DAILY_DOSAGE_SCALE);
+        }
+        return BigDecimal
+            .valueOf(dosageAmount)
+            .multiply(HOURS_PER_DAY)
+            .divide(BigDecimal.valueOf(dosageInterval), DAILY_DOSAGE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * The changes of a write to the prescriptions. The state of a prescription is copied when it is recorded, so a
+     * prescription can be recorded as removed before being updated in place.
+     * <p>
+     * Prescriptions without a patient or a drug are not summarized.
+     */
+    public static final class Changes {
+
+        private final Map<PatientDrugDosage.Key, Delta> deltas = new LinkedHashMap<>();
+
+        /**
+         * Record a prescription as created, or as the new state of an updated prescription.
+         *
+         * @param prescription the prescription.
+         * @return this.
+         */
+        public Changes add(Prescription prescription) {
+            return record(prescription, 1);
+        }
+
+        /**
+         * Record a prescription as deleted, or as the previous state of an updated prescription.
+         *
+         * @param prescription the prescription.
+         * @return this.
+         */
+        public Changes remove(Prescription prescription) {
+            return record(prescription, -1);
+        }
+
+        private Changes record(Prescription prescription, int sign) {
+            if (prescription.getPatient() == null || prescription.getDrug() == null) {
+                return this;
+            }
+            Delta delta = deltas.computeIfAbsent(
+                new PatientDrugDosage.Key(prescription.getPatient().getId(), prescription.getDrug().getId()),
+                key -> new Delta()
+            );
+            delta.prescriptions += sign;
+            BigDecimal dailyDosage = dailyDosage(prescription.getDosageAmount(), prescription.getDosageInterval());
+            delta.dailyDosage = sign > 0 ? delta.dailyDosage.add(dailyDosage) : delta.dailyDosage.subtract(dailyDosage);
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return deltas.isEmpty();
+        }
+    }
+
+    private static final class Delta {
+
+        private int prescriptions;
+
+        private BigDecimal dailyDosage = BigDecimal.ZERO;
+    }
+
+    /**
+     * Lock patients until the end of the transaction, in id order.
+     * <p>
+     * A write moving a prescription from a patient to another must lock both before checking the new one: locking the
+     * new patient first and the previous one later would deadlock with a write moving a prescription the other way.
+     *
+     * @param patientIds the ids of the patients; {@code null} ids are ignored.
+     * @return the locked patients, in id order.
+     */
+    public List<Patient> lockPatients(Long... patientIds) {
+        Set<Long> ids = Arrays.stream(patientIds).filter(Objects::nonNull).collect(Collectors.toCollection(TreeSet::new));
+        return ids.isEmpty() ? List.of() : patientRepository.findAllByIdForUpdate(ids);
+    }
+
+    /**
+     * Apply the changes of a write to the summaries of its patients, in the transaction of the write.
+     * <p>
+     * A drug whose prescriptions changed without changing the totals, such as an update of the dates, still has its
+     * last change moved to now.
+     *
+     * @param changes the changes.
+     */
+    public void apply(Changes changes) {
+        apply(changes, List.of());
+    }
+
+    /**
+     * Apply the changes of a write to the summaries of its patients, in the transaction of the write, some of the
+     * patients being already locked.
+     *
+     * @param changes the changes.
+     * @param lockedPatients the patients locked by {@link #lockPatients} in the transaction; the other patients of the
+     * changes are locked here.
+     */
+    public void apply(Changes changes, Collection<Patient> lockedPatients) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Set<Long> patientIds = changes.deltas
+            .keySet()
+            .stream()
+            .map(PatientDrugDosage.Key::getPatientId)
+            .collect(Collectors.toCollection(TreeSet::new));
+        log.debug("Request to update the prescription summaries of Patients : {}", patientIds);
+        Set<Long> unlockedPatientIds = new TreeSet<>(patientIds);
+        lockedPatients.forEach(patient -> unlockedPatientIds.remove(patient.getId()));
+        if (!unlockedPatientIds.isEmpty()) {
+            patientRepository.findAllByIdForUpdate(unlockedPatientIds);
+        }
+        Map<PatientDrugDosage.Key, PatientDrugDosage> dosages = patientDrugDosageRepository
+            .findAllByPatientIdIn(patientIds)
+            .stream()
+            .collect(Collectors.toMap(PatientDrugDosage::getKey, Function.identity()));
+        ZonedDateTime now = ZonedDateTime.now();
+        for (Map.Entry<PatientDrugDosage.Key, Delta> entry : changes.deltas.entrySet()) {
+            PatientDrugDosage.Key key = entry.getKey();
+            Delta delta = entry.getValue();
+            PatientDrugDosage dosage = dosages.get(key);
+            boolean created = dosage == null;
+            if (created) {
+                dosage = new PatientDrugDosage(key.getPatientId(), key.getDrugId());
+            }
+            dosage.setPrescriptions(dosage.getPrescriptions() + delta.prescriptions);
+            dosage.setDailyDosage(dosage.getDailyDosage().add(delta.dailyDosage));
+            dosage.setLastChangedDate(now);
+            if (created) {
+                entityManager.persist(dosage);
+            }
+        }
+    }
+
+    /**
+     * Get the summary of the prescriptions of a patient.
+     *
+     * @param patientId the id of the patient.
+     * @return the summary, empty if the patient never had a prescription or does not exist.
+     */
+    @Transactional(readOnly = true)
+    public PatientPrescriptionSummaryDTO findByPatient(Long patientId) {
+        log.debug("Request to get the prescription summary of Patient : {}", patientId);
+        List<PatientDrugDosage> dosages = patientDrugDosageRepository.findAllByPatientIdOrderByLastChangedDateDescDrugIdAsc(patientId);
+        PatientPrescriptionSummaryDTO summary = new PatientPrescriptionSummaryDTO();
+        summary.setPatientId(patientId);
+        for (PatientDrugDosage dosage : dosages) {
+            DrugDosageDTO drugDosage = new DrugDosageDTO();
+            drugDosage.setDrug(drugCatalogService.findOne(dosage.getDrugId()).orElseGet(() -> drugOf(dosage.getDrugId())));
+            drugDosage.setPrescriptions(dosage.getPrescriptions());
+            drugDosage.setDailyDosage(dosage.getDailyDosage());
+            drugDosage.setLastChangedDate(dosage.getLastChangedDate());
+            summary.getDrugs().add(drugDosage);
+            summary.setActivePrescriptions(summary.getActivePrescriptions() + dosage.getPrescriptions());
+        }
+        if (!dosages.isEmpty()) {
+            summary.setLastChangedDate(dosages.get(0).getLastChangedDate());
+        }
+        return summary;
+    }
+
+    /**
+     * The drug of a summary row missing from the catalog, as when it was created by a transaction not committed yet.
+     */
+    private static DrugDTO drugOf(Long drugId) {
+        DrugDTO drug = new DrugDTO();
+        drug.setId(drugId);
+        return drug;
+    }
+
+    /**
+     * Recompute all the summaries from the prescriptions, after they were written without going through the
+     * {@link PrescriptionService}.
+     *
+     * @return the number of summary rows.
+     */
+    public int rebuild() {
+        log.debug("Request to rebuild the prescription summaries");
+        jdbcTemplate.update("delete from patient_drug_dosage");
+        return jdbcTemplate.update(REBUILD_SQL);
+    }
+}
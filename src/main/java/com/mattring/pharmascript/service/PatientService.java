@@ -1,19 +1,31 @@
 package com.mattring.pharmascript.service;
 
 import com.mattring.pharmascript.domain.Patient;
+import com.mattring.pharmascript.repository.CollectionVersion;
 import com.mattring.pharmascript.repository.PatientRepository;
+import com.mattring.pharmascript.service.dto.KeysetCursor;
 import com.mattring.pharmascript.service.dto.PatientDTO;
 import com.mattring.pharmascript.service.mapper.PatientMapper;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import javax.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service Implementation for managing {@link Patient}.
+ * <p>
+ * Every write sets the {@code updatedDate} of the patient to the time of the write, ignoring the one sent by the
+ * client, since the conditional GETs and the collection version are built from it, and moves the patient sequence of the
+ * {@link ChangeSequenceService}, which versions the collection of the prescriptions.
  */
 @Service
 @Transactional
@@ -25,9 +37,20 @@ public class PatientService {
 
     private final PatientMapper patientMapper;
 
-    public PatientService(PatientRepository patientRepository, PatientMapper patientMapper) {
+    private final EntityManager entityManager;
+
+    private final ChangeSequenceService changeSequenceService;
+
+    public PatientService(
+        PatientRepository patientRepository,
+        PatientMapper patientMapper,
+        EntityManager entityManager,
+        ChangeSequenceService changeSequenceService
+    ) {
         this.patientRepository = patientRepository;
         this.patientMapper = patientMapper;
+        this.entityManager = entityManager;
+        this.changeSequenceService = changeSequenceService;
     }
 
     /**
@@ -38,8 +61,9 @@ public class PatientService {
      */
     public PatientDTO save(PatientDTO patientDTO) {
         log.debug("Request to save Patient : {}", patientDTO);
-        Patient patient = patientMapper.toEntity(patientDTO);
+        Patient patient = patientMapper.toEntity(patientDTO).updatedDate(UpdatedDate.now());
         patient = patientRepository.save(patient);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.PATIENT);
         return patientMapper.toDto(patient);
     }
 
@@ -51,8 +75,9 @@ public class PatientService {
      */
     public PatientDTO update(PatientDTO patientDTO) {
         log.debug("Request to update Patient : {}", patientDTO);
-        Patient patient = patientMapper.toEntity(patientDTO);
+        Patient patient = patientMapper.toEntity(patientDTO).updatedDate(UpdatedDate.now());
         patient = patientRepository.save(patient);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.PATIENT);
         return patientMapper.toDto(patient);
     }
 
@@ -69,11 +94,15 @@ public class PatientService {
             .findById(patientDTO.getId())
             .map(existingPatient -> {
                 patientMapper.partialUpdate(existingPatient, patientDTO);
+                existingPatient.setUpdatedDate(UpdatedDate.now());
 
                 return existingPatient;
             })
             .map(patientRepository::save)
-            .map(patientMapper::toDto);
+            .map(savedPatient -> {
+                changeSequenceService.incrementOnCommit(ChangeSequenceService.PATIENT);
+                return patientMapper.toDto(savedPatient);
+            });
     }
 
     /**
@@ -88,6 +117,25 @@ public class PatientService {
         return patientRepository.findAll(pageable).map(patientMapper::toDto);
     }
 
+    /**
+     * Get a keyset page of the patients, ordered by {@code (updatedDate, id)}.
+     * <p>
+     * Unlike {@link #findAll(Pageable)} no count query is run, and the cost of a page does not grow with its depth.
+     *
+     * @param after the position to continue from, or {@code null} for the first page.
+     * @param pageable the pagination information; only the page size is used.
+     * @return the slice of entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<PatientDTO> findAllAfter(KeysetCursor after, Pageable pageable) {
+        log.debug("Request to get Patients after : {}", after);
+        Pageable limit = PageRequest.of(0, pageable.getPageSize());
+        Slice<Patient> slice = after == null
+            ? patientRepository.findFirstKeysetPage(limit)
+            : patientRepository.findKeysetPageAfter(after.getUpdatedDate(), after.getId(), limit);
+        return slice.map(patientMapper::toDto);
+    }
+
     /**
      * Get one patient by id.
      *
@@ -100,6 +148,45 @@ public class PatientService {
         return patientRepository.findById(id).map(patientMapper::toDto);
     }
 
+    /**
+     * Get the patients of a set of ids.
+     * <p>
+     * The patients held by the second-level cache are read from it, and the others with a single query.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities found, in the order of their ids.
+     */
+    @Transactional(readOnly = true)
+    public List<PatientDTO> findAllById(Collection<Long> ids) {
+        log.debug("Request to get Patients : {}", ids);
+        return patientMapper.toDto(MultiGet.findAllById(entityManager, Patient.class, ids, patientRepository::findAllById, Patient::getId));
+    }
+
+    /**
+     * Get the last modified date of one patient, without mapping it.
+     * <p>
+     * The patient is read from the second-level cache when it holds it.
+     *
+     * @param id the id of the entity.
+     * @return the {@code updatedDate} of the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ZonedDateTime> findLastModifiedDate(Long id) {
+        log.debug("Request to get the last modified date of Patient : {}", id);
+        return patientRepository.findById(id).map(Patient::getUpdatedDate);
+    }
+
+    /**
+     * Get the version of all the patients.
+     *
+     * @return the version of the entities.
+     */
+    @Transactional(readOnly = true)
+    public CollectionVersion findCollectionVersion() {
+        log.debug("Request to get the version of all Patients");
+        return patientRepository.findCollectionVersion();
+    }
+
     /**
      * Delete the patient by id.
      *
@@ -108,5 +195,6 @@ public class PatientService {
     public void delete(Long id) {
         log.debug("Request to delete Patient : {}", id);
         patientRepository.deleteById(id);
+        changeSequenceService.incrementOnCommit(ChangeSequenceService.PATIENT);
     }
 }
@@ -0,0 +1,405 @@
+package com.mattring.pharmascript.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.management.PrescriptionEventsMetersService;
+import com.mattring.pharmascript.service.dto.PrescriptionEventDTO;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service pushing the committed changes of the prescriptions to the subscribed clients.
+ * <p>
+ * Publishing never waits for a client: each event is serialized once, and queued in the buffer of each subscription,
+ * of at most {@code application.prescription-events.buffer-size} events, written to the client by the
+ * {@code prescriptionEventsExecutor}, one task at a time per subscription. When the buffer of a slow client is full,
+ * the {@code application.prescription-events.overflow-policy} applies; a client which lost events is sent an
+ * {@code overflow} notice, to catch up with the change feed. Only the clients connected to this node are notified.
+ */
+@Service
+public class PrescriptionEventService {
+
+    private final Logger log = LoggerFactory.getLogger(PrescriptionEventService.class);
+
+    private final PrescriptionEventsMetersService prescriptionEventsMetersService;
+
+    private final Executor prescriptionEventsExecutor;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.PrescriptionEvents properties;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final Set<Subscription> unfilteredSubscriptions = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, Set<Subscription>> subscriptionsByPatient = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Subscription>> subscriptionsByDoctor = new ConcurrentHashMap<>();
+
+    public PrescriptionEventService(
+        PrescriptionEventsMetersService prescriptionEventsMetersService,
+        @Qualifier("prescriptionEventsExecutor") Executor prescriptionEventsExecutor,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.prescriptionEventsMetersService = prescriptionEventsMetersService;
+        this.prescriptionEventsExecutor = prescriptionEventsExecutor;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getPrescriptionEvents();
+    }
+
+    /**
+     * The connection of a subscriber, written to by one thread at a time.
+     */
+    public interface Sink {
+        /**
+         * Write an event.
+         *
+         * @param event the event.
+         * @param json the event serialized as JSON, once for all the subscribers.
+         * @throws IOException if the write fails.
+         */
+        void send(PrescriptionEventDTO event, String json) throws IOException;
+
+        void sendOverflow(long dropped) throws IOException;
+
+        void sendHeartbeat() throws IOException;
+
+        /**
+         * Close the connection after a failed write.
+         */
+        void close();
+    }
+
+    /**
+     * The patients and doctors whose subscribers are told about a change: those of the prescription before and after
+     * the change.
+     */
+    public static final class Audience {
+
+        private final Set<Long> patientIds = new HashSet<>(2);
+
+        private final Set<Long> doctorIds = new HashSet<>(2);
+
+        /**
+         * Add the patient and doctor of a prescription, to be called before the change moves them.
+         *
+         * @param prescription the prescription.
+         * @return this audience.
+         */
+        public Audience add(Prescription prescription) {
+            if (prescription.getPatient() != null) {
+                patientIds.add(prescription.getPatient().getId());
+            }
+            if (prescription.getDoctor() != null) {
+                doctorIds.add(prescription.getDoctor().getId());
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Get the time after which the subscriptions are closed.
+     *
+     * @return the timeout.
+     */
+    public Duration getTimeout() {
+        return properties.getTimeout();
+    }
+
+    /**
+     * Check whether any client is subscribed, to skip building events nobody receives.
+     *
+     * @return {@code true} if a client is subscribed.
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Subscribe a client to the prescription events.
+     *
+     * @param patientId the patient to receive the events of, if any.
+     * @param doctorId the doctor to receive the events of, if any; combined with {@code patientId} if both are given.
+     * @param sink the connection of the client.
+     * @return the subscription, to be cancelled when the connection closes.
+     */
+    public Subscription subscribe(Long patientId, Long doctorId, Sink sink) {
+        log.debug("Request to subscribe to the Prescription events of Patient : {}, Doctor : {}", patientId, doctorId);
+        Subscription subscription = new Subscription(patientId, doctorId, sink);
+        if (patientId != null) {
+            addTo(subscriptionsByPatient, patientId, subscription);
+        } else if (doctorId != null) {
+            addTo(subscriptionsByDoctor, doctorId, subscription);
+        } else {
+            unfilteredSubscriptions.add(subscription);
+        }
+        subscriptions.add(subscription);
+        prescriptionEventsMetersService.setSubscribers(subscriptions.size());
+        return subscription;
+    }
+
+    private static void addTo(Map<Long, Set<Subscription>> index, Long id, Subscription subscription) {
+        index.compute(
+            id,
+            (key, set) -> {
+                Set<Subscription> result = set == null ? ConcurrentHashMap.newKeySet() : set;
+                result.add(subscription);
+                return result;
+            }
+        );
+    }
+
+    private static void removeFrom(Map<Long, Set<Subscription>> index, Long id, Subscription subscription) {
+        index.computeIfPresent(
+            id,
+            (key, set) -> {
+                set.remove(subscription);
+                return set.isEmpty() ? null : set;
+            }
+        );
+    }
+
+    /**
+     * Publish an event once the current transaction commits, or immediately without a transaction.
+     *
+     * @param event the event, dated when published.
+     * @param audience the patients and doctors concerned.
+     */
+    public void publishAfterCommit(PrescriptionEventDTO event, Audience audience) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event, audience);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event, audience);
+                }
+            }
+        );
+    }
+
+    void publish(PrescriptionEventDTO event, Audience audience) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        event.setDate(Instant.now());
+        PublishedEvent published;
+        try {
+            published = new PublishedEvent(event, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize the Prescription event {}: {}", event, e.getMessage());
+            return;
+        }
+        prescriptionEventsMetersService.trackPublished();
+        unfilteredSubscriptions.forEach(subscription -> subscription.offer(published));
+        // Subscriptions are indexed by their patient, or else by their doctor, so that each is reached once
+        for (Long patientId : audience.patientIds) {
+            subscriptionsByPatient
+                .getOrDefault(patientId, Set.of())
+                .forEach(subscription -> {
+                    if (subscription.doctorId == null || audience.doctorIds.contains(subscription.doctorId)) {
+                        subscription.offer(published);
+                    }
+                });
+        }
+        for (Long doctorId : audience.doctorIds) {
+            subscriptionsByDoctor.getOrDefault(doctorId, Set.of()).forEach(subscription -> subscription.offer(published));
+        }
+    }
+
+    /**
+     * Send a heartbeat to the subscribers which were not written to during the last heartbeat interval.
+     * <p>
+     * This keeps the idle connections open through proxies, and detects the ones closed by the clients.
+     */
+    @Scheduled(fixedDelayString = "${application.prescription-events.heartbeat-interval:PT15S}")
+    public void sendHeartbeats() {
+        long idleSince = System.nanoTime() - properties.getHeartbeatInterval().toNanos();
+        subscriptions.forEach(subscription -> subscription.offerHeartbeat(idleSince));
+    }
+
+    private static final class PublishedEvent {
+
+        private final PrescriptionEventDTO event;
+
+        private final String json;
+
+        private PublishedEvent(PrescriptionEventDTO event, String json) {
+            this.event = event;
+            this.json = json;
+        }
+    }
+
+    /**
+     * A subscribed client, with the events waiting to be written to it.
+     */
+    public final class Subscription {
+
+        private final Long patientId;
+
+        private final Long doctorId;
+
+        private final Sink sink;
+
+        // Waiting events, by prescription id when coalescing and by arrival otherwise; guarded by this
+        private final LinkedHashMap<Object, PublishedEvent> pending = new LinkedHashMap<>();
+
+        private long sequence;
+
+        private long dropped;
+
+        private boolean heartbeatRequested;
+
+        private boolean drainScheduled;
+
+        private volatile long lastWriteNanos = System.nanoTime();
+
+        private volatile boolean cancelled;
+
+        private Subscription(Long patientId, Long doctorId, Sink sink) {
+            this.patientId = patientId;
+            this.doctorId = doctorId;
+            this.sink = sink;
+        }
+
+        private void offer(PublishedEvent published) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                Object key;
+                if (properties.getOverflowPolicy() == ApplicationProperties.PrescriptionEvents.OverflowPolicy.COALESCE) {
+                    key = published.event.getPrescriptionId();
+                    // Removed then put back, so that the events stay in publication order
+                    if (pending.remove(key) != null) {
+                        prescriptionEventsMetersService.trackCoalesced();
+                    }
+                } else {
+                    key = sequence++;
+                }
+                if (pending.size() >= properties.getBufferSize()) {
+                    Iterator<PublishedEvent> oldest = pending.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped++;
+                    prescriptionEventsMetersService.trackOverflow();
+                }
+                pending.put(key, published);
+            }
+            scheduleDrain();
+        }
+
+        private void offerHeartbeat(long idleSince) {
+            if (lastWriteNanos - idleSince > 0) {
+                return;
+            }
+            synchronized (this) {
+                heartbeatRequested = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            synchronized (this) {
+                if (drainScheduled || cancelled) {
+                    return;
+                }
+                drainScheduled = true;
+            }
+            try {
+                prescriptionEventsExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                log.warn("Prescription events dispatch rejected, closing the subscription: {}", e.getMessage());
+                fail();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<PublishedEvent> events;
+                long droppedEvents;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (cancelled || (pending.isEmpty() && dropped == 0 && !heartbeatRequested)) {
+                        drainScheduled = false;
+                        return;
+                    }
+                    events = new ArrayList<>(pending.values());
+                    pending.clear();
+                    droppedEvents = dropped;
+                    dropped = 0;
+                    heartbeat = heartbeatRequested;
+                    heartbeatRequested = false;
+                }
+                try {
+                    if (droppedEvents > 0) {
+                        sink.sendOverflow(droppedEvents);
+                    }
+                    for (PublishedEvent published : events) {
+                        sink.send(published.event, published.json);
+                        prescriptionEventsMetersService.recordLag(Duration.between(published.event.getDate(), Instant.now()));
+                    }
+                    if (heartbeat && events.isEmpty() && droppedEvents == 0) {
+                        sink.sendHeartbeat();
+                    }
+                    lastWriteNanos = System.nanoTime();
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Closing the subscription to the Prescription events after a failed write: {}", e.getMessage());
+                    fail();
+                    return;
+                }
+            }
+        }
+
+        private void fail() {
+            cancel();
+            sink.close();
+        }
+
+        /**
+         * Cancel the subscription; events are no longer written to its sink.
+         */
+        public void cancel() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                pending.clear();
+            }
+            if (patientId != null) {
+                removeFrom(subscriptionsByPatient, patientId, this);
+            } else if (doctorId != null) {
+                removeFrom(subscriptionsByDoctor, doctorId, this);
+            } else {
+                unfilteredSubscriptions.remove(this);
+            }
+            subscriptions.remove(this);
+            prescriptionEventsMetersService.setSubscribers(subscriptions.size());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.mattring.pharmascript.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.repository.PrescriptionRepository;
+import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import com.mattring.pharmascript.service.mapper.PrescriptionMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for exporting {@link Prescription} entities as NDJSON or CSV streams.
+ * <p>
+ * Rows are read through a database cursor and written as they arrive, and the persistence context is cleared every
+ * {@code application.prescription-export.clear-interval} rows, so heap use does not grow with the table.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PrescriptionExportService {
+
+    private final Logger log = LoggerFactory.getLogger(PrescriptionExportService.class);
+
+    private final PrescriptionRepository prescriptionRepository;
+
+    private final PrescriptionMapper prescriptionMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationProperties.PrescriptionExport properties;
+
+    public PrescriptionExportService(
+        PrescriptionRepository prescriptionRepository,
+        PrescriptionMapper prescriptionMapper,
+        ObjectMapper objectMapper,
+        EntityManager entityManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.prescriptionRepository = prescriptionRepository;
+        this.prescriptionMapper = prescriptionMapper;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.properties = applicationProperties.getPrescriptionExport();
+    }
+
+    /**
+     * Export the prescriptions matching the given filters, ordered by {@code (updatedDate, id)}.
+     * <p>
+     * The persistence context is cleared while exporting, so callers must not have unflushed changes.
+     *
+     * @param patientId the patient to export the prescriptions of, or {@code null} for all.
+     * @param doctorId the doctor to export the prescriptions of, or {@code null} for all.
+     * @param drugId the drug to export the prescriptions of, or {@code null} for all.
+     * @param updatedFrom the inclusive lower bound of {@code updatedDate}, or {@code null}.
+     * @param updatedTo the exclusive upper bound of {@code updatedDate}, or {@code null}.
+     * @param format the format to write.
+     * @param out the output, which is flushed but not closed.
+     * @return the number of exported prescriptions.
+     * @throws IOException if the output cannot be written.
+     */
+    public long exportPrescriptions(
+        Long patientId,
+        Long doctorId,
+        Long drugId,
+        ZonedDateTime updatedFrom,
+        ZonedDateTime updatedTo,
+        PrescriptionFileFormat format,
+        OutputStream out
+    ) throws IOException {
+        log.debug("Request to export Prescriptions as {}", format);
+        RowWriter rowWriter = format == PrescriptionFileFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        long count = 0;
+        try (Stream<Prescription> prescriptions = prescriptionRepository.streamAllForExport(
+                patientId,
+                doctorId,
+                drugId,
+                updatedFrom,
+                updatedTo
+            )) {
+            Iterator<Prescription> iterator = prescriptions.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(prescriptionMapper.toDto(iterator.next()));
+                if (++count % properties.getClearInterval() == 0) {
+                    entityManager.clear();
+                    rowWriter.flush();
+                }
+            }
+        }
+        rowWriter.flush();
+        log.debug("Exported {} Prescriptions", count);
+        return count;
+    }
+
+    private interface RowWriter {
+        void write(PrescriptionDTO prescriptionDTO) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(PrescriptionDTO prescriptionDTO) throws IOException {
+            generator.writeObject(prescriptionDTO);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * Writes an {@code id} column followed by {@link PrescriptionImportService#CSV_COLUMNS}, so that an export
+     * without its first column can be imported again.
+     */
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id," + String.join(",", PrescriptionImportService.CSV_COLUMNS) + '\n');
+        }
+
+        @Override
+        public void write(PrescriptionDTO prescriptionDTO) throws IOException {
+            writer.write(
+                String.join(
+                    ",",
+                    format(prescriptionDTO.getId()),
+                    format(prescriptionDTO.getDosageAmount()),
+                    format(prescriptionDTO.getDosageInterval()),
+                    format(prescriptionDTO.getCreatedDate()),
+                    format(prescriptionDTO.getUpdatedDate()),
+                    format(prescriptionDTO.getDrug() == null ? null : prescriptionDTO.getDrug().getId()),
+                    format(prescriptionDTO.getPatient() == null ? null : prescriptionDTO.getPatient().getId()),
+                    format(prescriptionDTO.getDoctor() == null ? null : prescriptionDTO.getDoctor().getId())
+                )
+            );
+            writer.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private static String format(Object value) {
+            return value == null ? "" : value.toString();
+        }
+
+        private static String format(ZonedDateTime value) {
+            return value == null ? "" : DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(value);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.mattring.pharmascript.service;
+
+/**
+ * The file formats of bulk prescription imports and exports.
+ */
+public enum PrescriptionFileFormat {
+    /** One JSON {@link com.mattring.pharmascript.service.dto.PrescriptionDTO} per line. */
+    NDJSON,
+    /** A header line naming the columns, then one prescription per line. */
+    CSV,
+}
@@ -0,0 +1,276 @@
+package com.mattring.pharmascript.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.service.dto.DoctorDTO;
+import com.mattring.pharmascript.service.dto.DrugDTO;
+import com.mattring.pharmascript.service.dto.PatientDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionImportErrorDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionImportResultDTO;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for bulk importing {@link Prescription} entities from NDJSON or CSV streams.
+ * <p>
+ * The input is read line by line, so memory use does not depend on its size. Valid rows are persisted by
+ * {@link PrescriptionService#saveAll(List)} in chunks of {@code application.prescription-import.chunk-size}, one
+ * transaction per chunk. Rows which cannot be parsed, are invalid, interact with the active prescriptions of their
+ * patient or are rejected by the database are reported in the result and do not abort the import.
+ * <p>
+ * The {@code updatedDate} of a row is ignored, and may be left out: {@code saveAll} sets it, like every write.
+ */
+@Service
+public class PrescriptionImportService {
+
+    /**
+     * The columns of a CSV import, which the header line names in any order, except that it may leave out the
+     * {@link #IGNORED_COLUMNS}.
+     */
+    public static final List<String> CSV_COLUMNS = List.of(
+        "dosageAmount",
+        "dosageInterval",
+        "createdDate",
+        "updatedDate",
+        "drugId",
+        "patientId",
+        "doctorId"
+    );
+
+    /**
+     * The properties of a row which an import ignores, in NDJSON and CSV alike.
+     */
+    public static final Set<String> IGNORED_COLUMNS = Set.of("updatedDate");
+
+    private static final char CSV_SEPARATOR = ',';
+
+    private final Logger log = LoggerFactory.getLogger(PrescriptionImportService.class);
+
+    private final PrescriptionService prescriptionService;
+
+    private final ObjectReader prescriptionReader;
+
+    private final Validator validator;
+
+    private final ApplicationProperties.PrescriptionImport properties;
+
+    public PrescriptionImportService(
+        PrescriptionService prescriptionService,
+        ObjectMapper objectMapper,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
+        this.prescriptionService = prescriptionService;
+        this.prescriptionReader = objectMapper.readerFor(PrescriptionDTO.class);
+        this.validator = validator;
+        this.properties = applicationProperties.getPrescriptionImport();
+    }
+
+    /**
+     * Import new prescriptions.
+     * <p>
+     * Never joins a surrounding transaction: every chunk commits on its own, so a failing chunk cannot roll back
+     * the ones already imported.
+     *
+     * @param reader the input, which is not closed.
+     * @param format the format of the input.
+     * @return the number of imported and rejected rows, and the first row errors.
+     * @throws IOException if the input cannot be read.
+     * @throws IllegalArgumentException if the CSV header is missing or invalid.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PrescriptionImportResultDTO importPrescriptions(Reader reader, PrescriptionFileFormat format) throws IOException {
+        log.debug("Request to import Prescriptions from {}", format);
+        BufferedReader lines = new BufferedReader(reader);
+        Import currentImport = new Import();
+        long lineNumber = 0;
+        RowParser parser;
+        if (format == PrescriptionFileFormat.CSV) {
+            lineNumber++;
+            parser = csvRowParser(lines.readLine());
+        } else {
+            parser = prescriptionReader::readValue;
+        }
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                currentImport.add(lineNumber, line, parser);
+            }
+        }
+        currentImport.flush();
+        log.debug("Imported Prescriptions : {}", currentImport.result);
+        return currentImport.result;
+    }
+
+    private RowParser csvRowParser(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("Missing CSV header");
+        }
+        List<String> columns = Arrays
+            .stream(header.split(String.valueOf(CSV_SEPARATOR), -1))
+            .map(String::trim)
+            .collect(Collectors.toList());
+        List<String> requiredColumns = CSV_COLUMNS
+            .stream()
+            .filter(column -> !IGNORED_COLUMNS.contains(column))
+            .collect(Collectors.toList());
+        if (new HashSet<>(columns).size() != columns.size() || !CSV_COLUMNS.containsAll(columns) || !columns.containsAll(requiredColumns)) {
+            throw new IllegalArgumentException(
+                "Invalid CSV header, expected the columns " +
+                String.join(",", requiredColumns) +
+                ", and optionally " +
+                String.join(",", IGNORED_COLUMNS)
+            );
+        }
+        int columnCount = columns.size();
+        int[] index = CSV_COLUMNS.stream().mapToInt(columns::indexOf).toArray();
+        return line -> {
+            String[] values = line.split(String.valueOf(CSV_SEPARATOR), -1);
+            if (values.length != columnCount) {
+                throw new IllegalArgumentException("Expected " + columnCount + " columns but found " + values.length);
+            }
+            PrescriptionDTO prescriptionDTO = new PrescriptionDTO();
+            prescriptionDTO.setDosageAmount(parseInteger(values[index[0]]));
+            prescriptionDTO.setDosageInterval(parseInteger(values[index[1]]));
+            prescriptionDTO.setCreatedDate(parseDate(values[index[2]]));
+            Long drugId = parseLong(values[index[4]]);
+            if (drugId != null) {
+                DrugDTO drug = new DrugDTO();
+                drug.setId(drugId);
+                prescriptionDTO.setDrug(drug);
+            }
+            Long patientId = parseLong(values[index[5]]);
+            if (patientId != null) {
+                PatientDTO patient = new PatientDTO();
+                patient.setId(patientId);
+                prescriptionDTO.setPatient(patient);
+            }
+            Long doctorId = parseLong(values[index[6]]);
+            if (doctorId != null) {
+                DoctorDTO doctor = new DoctorDTO();
+                doctor.setId(doctorId);
+                prescriptionDTO.setDoctor(doctor);
+            }
+            return prescriptionDTO;
+        };
+    }
+
+    private static Integer parseInteger(String value) {
+        return value.isBlank() ? null : Integer.valueOf(value.trim());
+    }
+
+    private static Long parseLong(String value) {
+        return value.isBlank() ? null : Long.valueOf(value.trim());
+    }
+
+    private static ZonedDateTime parseDate(String value) {
+        return value.isBlank() ? null : ZonedDateTime.parse(value.trim());
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        PrescriptionDTO parse(String line) throws IOException;
+    }
+
+    /**
+     * The state of one running import: the pending chunk and the result so far.
+     */
+    private class Import {
+
+        private final PrescriptionImportResultDTO result = new PrescriptionImportResultDTO();
+
+        private final List<PrescriptionDTO> chunk = new ArrayList<>(properties.getChunkSize());
+
+        private final List<Long> chunkLines = new ArrayList<>(properties.getChunkSize());
+
+        void add(long lineNumber, String line, RowParser parser) {
+            PrescriptionDTO prescriptionDTO;
+            try {
+                prescriptionDTO = parser.parse(line);
+            } catch (JsonProcessingException e) {
+                reject(lineNumber, e.getOriginalMessage());
+                return;
+            } catch (IOException | IllegalArgumentException | DateTimeParseException e) {
+                reject(lineNumber, e.getMessage());
+                return;
+            }
+            if (prescriptionDTO.getId() != null) {
+                reject(lineNumber, "A new prescription cannot already have an ID");
+                return;
+            }
+            prescriptionDTO.setUpdatedDate(null);
+            List<String> violations = validator
+                .validate(prescriptionDTO)
+                .stream()
+                .filter(violation -> !IGNORED_COLUMNS.contains(violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+            if (!violations.isEmpty()) {
+                reject(lineNumber, String.join("; ", violations));
+                return;
+            }
+            chunk.add(prescriptionDTO);
+            chunkLines.add(lineNumber);
+            if (chunk.size() >= properties.getChunkSize()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                prescriptionService.saveAll(chunk);
+                result.setImported(result.getImported() + chunk.size());
+            } catch (DataAccessException | DrugInteractionException e) {
+                // The whole chunk was rolled back: retry its rows one by one to find the offending ones
+                log.debug("Prescription import chunk ending at line {} failed, retrying row by row", chunkLines.get(chunkLines.size() - 1));
+                for (int i = 0; i < chunk.size(); i++) {
+                    try {
+                        prescriptionService.saveAll(List.of(chunk.get(i)));
+                        result.setImported(result.getImported() + 1);
+                    } catch (DrugInteractionException rowException) {
+                        reject(chunkLines.get(i), "Interacts with an active prescription of the patient");
+                    } catch (DataIntegrityViolationException rowException) {
+                        reject(chunkLines.get(i), "Violates a database constraint, check the drug, patient and doctor ids");
+                    } catch (DataAccessException rowException) {
+                        reject(chunkLines.get(i), "Could not be persisted");
+                    }
+                }
+            }
+            chunk.clear();
+            chunkLines.clear();
+        }
+
+        private void reject(long lineNumber, String message) {
+            result.setRejected(result.getRejected() + 1);
+            if (result.getErrors().size() < properties.getMaxReportedErrors()) {
+                result.getErrors().add(new PrescriptionImportErrorDTO(lineNumber, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.mattring.pharmascript.service;
+
+import com.mattring.pharmascript.domain.*; // for static metamodels
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.repository.PrescriptionRepository;
+import com.mattring.pharmascript.service.criteria.PrescriptionCriteria;
+import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import com.mattring.pharmascript.service.mapper.PrescriptionMapper;
+import java.util.List;
+import javax.persistence.criteria.JoinType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.QueryService;
+
+/**
+ * Service for executing complex queries for {@link Prescription} entities in the database.
+ * The main input is a {@link PrescriptionCriteria} which gets converted to {@link Specification},
+ * in a way that all the filters must apply.
+ * It returns a {@link List} of {@link PrescriptionDTO} or a {@link Page} of {@link PrescriptionDTO} which fulfills the criteria.
+ * <p>
+ * The drug, patient and doctor filters compare the foreign key columns without joining the referenced tables, so
+ * that they can use the {@code (patient_id, updated_date)}, {@code (doctor_id, updated_date)} and
+ * {@code (drug_id, updated_date)} indexes.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PrescriptionQueryService extends QueryService<Prescription> {
+
+    private final Logger log = LoggerFactory.getLogger(PrescriptionQueryService.class);
+
+    private final PrescriptionRepository prescriptionRepository;
+
+    private final PrescriptionMapper prescriptionMapper;
+
+    public PrescriptionQueryService(PrescriptionRepository prescriptionRepository, PrescriptionMapper prescriptionMapper) {
+        this.prescriptionRepository = prescriptionRepository;
+        this.prescriptionMapper = prescriptionMapper;
+    }
+
+    /**
+     * Return a {@link List} of {@link PrescriptionDTO} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<PrescriptionDTO> findByCriteria(PrescriptionCriteria criteria) {
+        log.debug("find by criteria : {}", criteria);
+        final Specification<Prescription> specification = createSpecification(criteria).and(fetchToOneRelationships());
+        return prescriptionMapper.toDto(prescriptionRepository.findAll(specification));
+    }
+
+    /**
+     * Return a {@link Page} of {@link PrescriptionDTO} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<PrescriptionDTO> findByCriteria(PrescriptionCriteria criteria, Pageable page) {
+        log.debug("find by criteria : {}, page: {}", criteria, page);
+        final Specification<Prescription> specification = createSpecification(criteria).and(fetchToOneRelationships());
+        return prescriptionRepository.findAll(specification, page).map(prescriptionMapper::toDto);
+    }
+
+    /**
+     * Return the number of matching entities in the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long countByCriteria(PrescriptionCriteria criteria) {
+        log.debug("count by criteria : {}", criteria);
+        final Specification<Prescription> specification = createSpecification(criteria);
+        return prescriptionRepository.count(specification);
+    }
+
+    /**
+     * Function to convert {@link PrescriptionCriteria} to a {@link Specification}
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching {@link Specification} of the entity.
+     */
+    protected Specification<Prescription> createSpecification(PrescriptionCriteria criteria) {
+        Specification<Prescription> specification = Specification.where(null);
+        if (criteria != null) {
+            // This has to be called first, because the distinct method returns null
+            if (criteria.getDistinct() != null) {
+                specification = specification.and(distinct(criteria.getDistinct()));
+            }
+            if (criteria.getId() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getId(), Prescription_.id));
+            }
+            if (criteria.getDosageAmount() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getDosageAmount(), Prescription_.dosageAmount));
+            }
+            if (criteria.getDosageInterval() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getDosageInterval(), Prescription_.dosageInterval));
+            }
+            if (criteria.getCreatedDate() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getCreatedDate(), Prescription_.createdDate));
+            }
+            if (criteria.getUpdatedDate() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getUpdatedDate(), Prescription_.updatedDate));
+            }
+            if (criteria.getDrugId() != null) {
+                specification =
+                    specification.and(buildSpecification(criteria.getDrugId(), root -> root.get(Prescription_.drug).get(Drug_.id)));
+            }
+            if (criteria.getPatientId() != null) {
+                specification =
+                    specification.and(
+                        buildSpecification(criteria.getPatientId(), root -> root.get(Prescription_.patient).get(Patient_.id))
+                    );
+            }
+            if (criteria.getDoctorId() != null) {
+                specification =
+                    specification.and(buildSpecification(criteria.getDoctorId(), root -> root.get(Prescription_.doctor).get(Doctor_.id)));
+            }
+        }
+        return specification;
+    }
+
+    /**
+     * Fetch-join the drug, patient and doctor of the selected prescriptions, as the other reads of
+     * {@link PrescriptionRepository} do; count queries are left alone.
+     */
+    private static Specification<Prescription> fetchToOneRelationships() {
+        return (root, query, builder) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch(Prescription_.drug, JoinType.LEFT);
+                root.fetch(Prescription_.patient, JoinType.LEFT);
+                root.fetch(Prescription_.doctor, JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
@@ -1,33 +1,165 @@
 package com.mattring.pharmascript.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.Patient;
 import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.domain.PrescriptionTombstone;
+import com.mattring.pharmascript.management.CacheRegionsService;
 import com.mattring.pharmascript.repository.PrescriptionRepository;
+import com.mattring.pharmascript.repository.PrescriptionTombstoneRepository;
+import com.mattring.pharmascript.service.dto.KeysetCursor;
+import com.mattring.pharmascript.service.dto.PrescriptionChangesCursor;
+import com.mattring.pharmascript.service.dto.PrescriptionChangesCursor.Position;
+import com.mattring.pharmascript.service.dto.PrescriptionChangesDTO;
 import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionEventDTO;
 import com.mattring.pharmascript.service.mapper.PrescriptionMapper;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.jhipster.config.JHipsterProperties;
 
 /**
  * Service Implementation for managing {@link Prescription}.
+ * <p>
+ * The prescriptions of a patient are cached in a Caffeine cache configured under {@code application.cache.regions},
+ * and registered with the {@link CacheRegionsService}; those of a doctor or a drug, which grow without bound, are read
+ * by page and not cached. Every write evicts the lookups of the patients it moves a prescription from or to, on the
+ * other nodes too when there is a {@link NearCacheCoherence}, and is pushed to the subscribers of the
+ * {@link PrescriptionEventService} once committed. Every write also updates the summaries of the
+ * {@link PatientPrescriptionSummaryService} in its transaction, and a prescription which is new or moves to another
+ * patient or drug is first checked by the {@link DrugInteractionService}.
+ * <p>
+ * Every write sets the {@code updatedDate} of the prescriptions it saves, ignoring the one sent by the client. It also
+ * moves the prescription sequence of the {@link ChangeSequenceService}, which versions the collection, and whose value
+ * is given to the prescriptions and tombstones it writes when it commits: the change feed of {@link #findChanges}
+ * reads them in that order, which is the order of the commits whatever the clocks of the nodes.
  */
 @Service
 @Transactional
 public class PrescriptionService {
 
+    private static final String PRESCRIPTION_TABLE = "prescription";
+
+    private static final String TOMBSTONE_TABLE = "prescription_tombstone";
+
     private final Logger log = LoggerFactory.getLogger(PrescriptionService.class);
 
     private final PrescriptionRepository prescriptionRepository;
 
     private final PrescriptionMapper prescriptionMapper;
 
-    public PrescriptionService(PrescriptionRepository prescriptionRepository, PrescriptionMapper prescriptionMapper) {
+    private final PrescriptionTombstoneRepository prescriptionTombstoneRepository;
+
+    private final PrescriptionEventService prescriptionEventService;
+
+    private final PatientPrescriptionSummaryService patientPrescriptionSummaryService;
+
+    private final DrugInteractionService drugInteractionService;
+
+    private final ApplicationProperties.PrescriptionChanges changesProperties;
+
+    private final ChangeSequenceService changeSequenceService;
+
+    private final NearCacheCoherence cacheCoherence;
+
+    private final LoadingCache<Long, List<PrescriptionDTO>> prescriptionsByPatient;
+
+    public PrescriptionService(
+        PrescriptionRepository prescriptionRepository,
+        PrescriptionMapper prescriptionMapper,
+        PrescriptionTombstoneRepository prescriptionTombstoneRepository,
+        PrescriptionEventService prescriptionEventService,
+        PatientPrescriptionSummaryService patientPrescriptionSummaryService,
+        DrugInteractionService drugInteractionService,
+        ChangeSequenceService changeSequenceService,
+        ApplicationProperties applicationProperties,
+        JHipsterProperties jHipsterProperties,
+        CacheRegionsService cacheRegionsService,
+        ObjectProvider<NearCacheCoherence> cacheCoherence
+    ) {
         this.prescriptionRepository = prescriptionRepository;
         this.prescriptionMapper = prescriptionMapper;
+        this.prescriptionTombstoneRepository = prescriptionTombstoneRepository;
+        this.prescriptionEventService = prescriptionEventService;
+        this.patientPrescriptionSummaryService = patientPrescriptionSummaryService;
+        this.drugInteractionService = drugInteractionService;
+        this.changeSequenceService = changeSequenceService;
+        this.changesProperties = applicationProperties.getPrescriptionChanges();
+        this.cacheCoherence = cacheCoherence.getIfAvailable();
+        this.prescriptionsByPatient =
+            buildLookupCache(
+                PrescriptionRepository.PRESCRIPTIONS_BY_PATIENT_CACHE,
+                prescriptionRepository::findAllWithToOneRelationshipsByPatientId,
+                applicationProperties,
+                jHipsterProperties,
+                cacheRegionsService
+            );
+    }
+
+    private LoadingCache<Long, List<PrescriptionDTO>> buildLookupCache(
+        String cacheName,
+        Function<Long, List<Prescription>> query,
+        ApplicationProperties applicationProperties,
+        JHipsterProperties jHipsterProperties,
+        CacheRegionsService cacheRegionsService
+    ) {
+        ApplicationProperties.Cache.Region region = applicationProperties
+            .getCache()
+            .getRegion(cacheName)
+            .resolve(jHipsterProperties.getCache().getCaffeine());
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (region.getMaxWeight() != null) {
+            builder
+                .maximumWeight(region.getMaxWeight())
+                .weigher((Long id, List<PrescriptionDTO> prescriptions) -> 1 + prescriptions.size());
+        } else {
+            builder.maximumSize(region.getMaxEntries());
+        }
+        if (region.getTimeToLiveSeconds() != null) {
+            builder.expireAfterWrite(Duration.ofSeconds(region.getTimeToLiveSeconds()));
+        }
+        if (region.getExpireAfterAccessSeconds() != null) {
+            builder.expireAfterAccess(Duration.ofSeconds(region.getExpireAfterAccessSeconds()));
+        }
+        if (region.getRefreshAfterWriteSeconds() != null) {
+            builder.refreshAfterWrite(Duration.ofSeconds(region.getRefreshAfterWriteSeconds()));
+        }
+        if (region.getValues() == ApplicationProperties.Cache.Region.Values.SOFT) {
+            builder.softValues();
+        } else if (region.getValues() == ApplicationProperties.Cache.Region.Values.WEAK) {
+            builder.weakValues();
+        }
+        LoadingCache<Long, List<PrescriptionDTO>> cache = builder.build(id -> List.copyOf(prescriptionMapper.toDto(query.apply(id))));
+        cacheRegionsService.registerNativeCache(cacheName, cache, region);
+        if (cacheCoherence != null) {
+            cacheCoherence.register(cacheName, cache);
+        }
+        return cache;
     }
 
     /**
@@ -35,12 +167,70 @@ public class PrescriptionService {
      *
      * @param prescriptionDTO the entity to save.
      * @return the persisted entity.
+     * @throws DrugInteractionException if the prescription is new and interacts with the active prescriptions of its
+     * patient at the blocking severity.
      */
     public PrescriptionDTO save(PrescriptionDTO prescriptionDTO) {
         log.debug("Request to save Prescription : {}", prescriptionDTO);
-        Prescription prescription = prescriptionMapper.toEntity(prescriptionDTO);
+        Prescription prescription = prescriptionMapper.toEntity(prescriptionDTO).updatedDate(UpdatedDate.now());
+        PrescriptionEventDTO.Type type = prescription.getId() == null
+            ? PrescriptionEventDTO.Type.CREATED
+            : PrescriptionEventDTO.Type.UPDATED;
+        PatientPrescriptionSummaryService.Changes changes = new PatientPrescriptionSummaryService.Changes();
+        Optional<Prescription> existingPrescription = prescription.getId() != null
+            ? prescriptionRepository.findById(prescription.getId())
+            : Optional.empty();
+        existingPrescription.ifPresent(changes::remove);
+        List<Patient> lockedPatients = lockAndCheckInteractions(
+            existingPrescription.map(PrescriptionService::patientId).orElse(null),
+            existingPrescription.map(PrescriptionService::drugId).orElse(null),
+            prescription
+        );
         prescription = prescriptionRepository.save(prescription);
-        return prescriptionMapper.toDto(prescription);
+        changeSequenceService.assignOnCommit(ChangeSequenceService.PRESCRIPTION, PRESCRIPTION_TABLE, List.of(prescription.getId()));
+        evictLookups(List.of(prescription));
+        patientPrescriptionSummaryService.apply(changes.add(prescription), lockedPatients);
+        PrescriptionDTO result = prescriptionMapper.toDto(prescription);
+        prescriptionEventService.publishAfterCommit(
+            new PrescriptionEventDTO(type, result.getId(), result),
+            new PrescriptionEventService.Audience().add(prescription)
+        );
+        return result;
+    }
+
+    /**
+     * Save a chunk of new prescriptions in a single transaction.
+     * <p>
+     * The chunk is flushed before returning, so the inserts go out in JDBC batches and any constraint violation is
+     * raised here rather than at commit.
+     *
+     * @param prescriptionDTOs the entities to save.
+     */
+    public void saveAll(List<PrescriptionDTO> prescriptionDTOs) {
+        log.debug("Request to save {} Prescriptions", prescriptionDTOs.size());
+        ZonedDateTime now = UpdatedDate.now();
+        List<Prescription> prescriptions = prescriptionMapper.toEntity(prescriptionDTOs);
+        prescriptions.forEach(prescription -> prescription.setUpdatedDate(now));
+        drugInteractionService.checkNewPrescriptions(prescriptions);
+        prescriptions = prescriptionRepository.saveAllAndFlush(prescriptions);
+        changeSequenceService.assignOnCommit(
+            ChangeSequenceService.PRESCRIPTION,
+            PRESCRIPTION_TABLE,
+            prescriptions.stream().map(Prescription::getId).collect(Collectors.toList())
+        );
+        evictLookups(prescriptions);
+        PatientPrescriptionSummaryService.Changes changes = new PatientPrescriptionSummaryService.Changes();
+        prescriptions.forEach(changes::add);
+        patientPrescriptionSummaryService.apply(changes);
+        if (prescriptionEventService.hasSubscribers()) {
+            for (Prescription prescription : prescriptions) {
+                PrescriptionDTO result = prescriptionMapper.toDto(prescription);
+                prescriptionEventService.publishAfterCommit(
+                    new PrescriptionEventDTO(PrescriptionEventDTO.Type.CREATED, result.getId(), result),
+                    new PrescriptionEventService.Audience().add(prescription)
+                );
+            }
+        }
     }
 
     /**
@@ -51,9 +241,31 @@ public class PrescriptionService {
      */
     public PrescriptionDTO update(PrescriptionDTO prescriptionDTO) {
         log.debug("Request to update Prescription : {}", prescriptionDTO);
-        Prescription prescription = prescriptionMapper.toEntity(prescriptionDTO);
+        PrescriptionEventService.Audience audience = new PrescriptionEventService.Audience();
+        PatientPrescriptionSummaryService.Changes changes = new PatientPrescriptionSummaryService.Changes();
+        // Loads the current state, which the merge below would otherwise load anyway
+        Optional<Prescription> existingPrescription = prescriptionRepository.findById(prescriptionDTO.getId());
+        existingPrescription.ifPresent(previous -> {
+            evictLookups(List.of(previous));
+            audience.add(previous);
+            changes.remove(previous);
+        });
+        Prescription prescription = prescriptionMapper.toEntity(prescriptionDTO).updatedDate(UpdatedDate.now());
+        List<Patient> lockedPatients = lockAndCheckInteractions(
+            existingPrescription.map(PrescriptionService::patientId).orElse(null),
+            existingPrescription.map(PrescriptionService::drugId).orElse(null),
+            prescription
+        );
         prescription = prescriptionRepository.save(prescription);
-        return prescriptionMapper.toDto(prescription);
+        changeSequenceService.assignOnCommit(ChangeSequenceService.PRESCRIPTION, PRESCRIPTION_TABLE, List.of(prescription.getId()));
+        evictLookups(List.of(prescription));
+        patientPrescriptionSummaryService.apply(changes.add(prescription), lockedPatients);
+        PrescriptionDTO result = prescriptionMapper.toDto(prescription);
+        prescriptionEventService.publishAfterCommit(
+            new PrescriptionEventDTO(PrescriptionEventDTO.Type.UPDATED, result.getId(), result),
+            audience.add(prescription)
+        );
+        return result;
     }
 
     /**
@@ -65,15 +277,67 @@ public class PrescriptionService {
     public Optional<PrescriptionDTO> partialUpdate(PrescriptionDTO prescriptionDTO) {
         log.debug("Request to partially update Prescription : {}", prescriptionDTO);
 
+        PrescriptionEventService.Audience audience = new PrescriptionEventService.Audience();
+        PatientPrescriptionSummaryService.Changes changes = new PatientPrescriptionSummaryService.Changes();
+        List<Patient> lockedPatients = new ArrayList<>();
         return prescriptionRepository
             .findById(prescriptionDTO.getId())
             .map(existingPrescription -> {
+                evictLookups(List.of(existingPrescription));
+                audience.add(existingPrescription);
+                changes.remove(existingPrescription);
+                Long previousPatientId = patientId(existingPrescription);
+                Long previousDrugId = drugId(existingPrescription);
                 prescriptionMapper.partialUpdate(existingPrescription, prescriptionDTO);
+                existingPrescription.setUpdatedDate(UpdatedDate.now());
+                lockedPatients.addAll(lockAndCheckInteractions(previousPatientId, previousDrugId, existingPrescription));
 
                 return existingPrescription;
             })
             .map(prescriptionRepository::save)
-            .map(prescriptionMapper::toDto);
+            .map(prescription -> {
+                changeSequenceService.assignOnCommit(ChangeSequenceService.PRESCRIPTION, PRESCRIPTION_TABLE, List.of(prescription.getId()));
+                evictLookups(List.of(prescription));
+                patientPrescriptionSummaryService.apply(changes.add(prescription), lockedPatients);
+                PrescriptionDTO result = prescriptionMapper.toDto(prescription);
+                prescriptionEventService.publishAfterCommit(
+                    new PrescriptionEventDTO(PrescriptionEventDTO.Type.UPDATED, result.getId(), result),
+                    audience.add(prescription)
+                );
+                return result;
+            });
+    }
+
+    /**
+     * Lock the patients a prescription moves from and to, then check the prescription against the active prescriptions
+     * of its patient, unless it keeps its patient and drug.
+     * <p>
+     * Both patients are locked at once, in id order, for the check and for the update of their summaries: two writes
+     * moving prescriptions between the same patients in opposite directions would otherwise deadlock.
+     *
+     * @param previousPatientId the patient the prescription had, or {@code null} for a new prescription.
+     * @param previousDrugId the drug the prescription had, or {@code null} for a new prescription.
+     * @param prescription the prescription about to be saved.
+     * @return the locked patients, to pass to {@link PatientPrescriptionSummaryService#apply}.
+     */
+    private List<Patient> lockAndCheckInteractions(Long previousPatientId, Long previousDrugId, Prescription prescription) {
+        Long patientId = patientId(prescription);
+        Long drugId = drugId(prescription);
+        List<Patient> lockedPatients = patientPrescriptionSummaryService.lockPatients(previousPatientId, patientId);
+        if (previousPatientId != null && previousPatientId.equals(patientId) && Objects.equals(previousDrugId, drugId)) {
+            return lockedPatients;
+        }
+        Patient patient = lockedPatients.stream().filter(locked -> locked.getId().equals(patientId)).findFirst().orElse(null);
+        drugInteractionService.checkPrescription(patient, drugId, Objects.equals(previousPatientId, patientId) ? previousDrugId : null);
+        return lockedPatients;
+    }
+
+    private static Long patientId(Prescription prescription) {
+        return prescription.getPatient() != null ? prescription.getPatient().getId() : null;
+    }
+
+    private static Long drugId(Prescription prescription) {
+        return prescription.getDrug() != null ? prescription.getDrug().getId() : null;
     }
 
     /**
@@ -85,7 +349,66 @@ public class PrescriptionService {
     @Transactional(readOnly = true)
     public Page<PrescriptionDTO> findAll(Pageable pageable) {
         log.debug("Request to get all Prescriptions");
-        return prescriptionRepository.findAll(pageable).map(prescriptionMapper::toDto);
+        return prescriptionRepository.findAllWithEagerRelationships(pageable).map(prescriptionMapper::toDto);
+    }
+
+    /**
+     * Get a keyset page of the prescriptions, ordered by {@code (updatedDate, id)}.
+     * <p>
+     * Unlike {@link #findAll(Pageable)} no count query is run, and the cost of a page does not grow with its depth.
+     *
+     * @param after the position to continue from, or {@code null} for the first page.
+     * @param pageable the pagination information; only the page size is used.
+     * @return the slice of entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<PrescriptionDTO> findAllAfter(KeysetCursor after, Pageable pageable) {
+        log.debug("Request to get Prescriptions after : {}", after);
+        Pageable limit = PageRequest.of(0, pageable.getPageSize());
+        Slice<Prescription> slice = after == null
+            ? prescriptionRepository.findFirstKeysetPage(limit)
+            : prescriptionRepository.findKeysetPageAfter(after.getUpdatedDate(), after.getId(), limit);
+        return slice.map(prescriptionMapper::toDto);
+    }
+
+    /**
+     * Get all the prescriptions of a patient, most recently updated first.
+     * <p>
+     * Served from the {@code prescriptionsByPatient} cache, without a transaction on hits.
+     *
+     * @param patientId the id of the patient.
+     * @return the list of entities.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<PrescriptionDTO> findAllByPatient(Long patientId) {
+        log.debug("Request to get all Prescriptions of Patient : {}", patientId);
+        return prescriptionsByPatient.get(patientId);
+    }
+
+    /**
+     * Get a page of the prescriptions of a doctor, most recently updated first unless the page is sorted otherwise.
+     *
+     * @param doctorId the id of the doctor.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<PrescriptionDTO> findAllByDoctor(Long doctorId, Pageable pageable) {
+        log.debug("Request to get all Prescriptions of Doctor : {}", doctorId);
+        return prescriptionRepository.findAllWithToOneRelationshipsByDoctorId(doctorId, pageable).map(prescriptionMapper::toDto);
+    }
+
+    /**
+     * Get a page of the prescriptions of a drug, most recently updated first unless the page is sorted otherwise.
+     *
+     * @param drugId the id of the drug.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<PrescriptionDTO> findAllByDrug(Long drugId, Pageable pageable) {
+        log.debug("Request to get all Prescriptions of Drug : {}", drugId);
+        return prescriptionRepository.findAllWithToOneRelationshipsByDrugId(drugId, pageable).map(prescriptionMapper::toDto);
     }
 
     /**
@@ -97,7 +420,56 @@ public class PrescriptionService {
     @Transactional(readOnly = true)
     public Optional<PrescriptionDTO> findOne(Long id) {
         log.debug("Request to get Prescription : {}", id);
-        return prescriptionRepository.findById(id).map(prescriptionMapper::toDto);
+        return prescriptionRepository.findOneWithEagerRelationships(id).map(prescriptionMapper::toDto);
+    }
+
+    /**
+     * Get the last modified date of one prescription, without mapping it.
+     * <p>
+     * The representation of a prescription includes its drug, patient and doctor, so the latest of their
+     * {@code updatedDate} is returned. They are read from the second-level cache when it holds them.
+     *
+     * @param id the id of the entity.
+     * @return the latest {@code updatedDate} of the entity and of the entities it refers to.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ZonedDateTime> findLastModifiedDate(Long id) {
+        log.debug("Request to get the last modified date of Prescription : {}", id);
+        return prescriptionRepository
+            .findById(id)
+            .map(prescription -> {
+                ZonedDateTime lastModifiedDate = prescription.getUpdatedDate();
+                if (prescription.getDrug() != null) {
+                    lastModifiedDate = latest(lastModifiedDate, prescription.getDrug().getUpdatedDate());
+                }
+                if (prescription.getPatient() != null) {
+                    lastModifiedDate = latest(lastModifiedDate, prescription.getPatient().getUpdatedDate());
+                }
+                if (prescription.getDoctor() != null) {
+                    lastModifiedDate = latest(lastModifiedDate, prescription.getDoctor().getUpdatedDate());
+                }
+                return lastModifiedDate;
+            });
+    }
+
+    /**
+     * Get the version of the collection of the prescriptions: the sequences of the prescriptions, and of the drugs,
+     * patients and doctors which their representation includes.
+     * <p>
+     * Every write moves one of them forward, so the version is read from a few rows whatever the number of
+     * prescriptions, and changes on any write, even one which does not touch the page it guards.
+     *
+     * @return the values of the sequences.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findCollectionVersion() {
+        log.debug("Request to get the version of all Prescriptions");
+        return changeSequenceService.findValues(
+            ChangeSequenceService.PRESCRIPTION,
+            ChangeSequenceService.DRUG,
+            ChangeSequenceService.PATIENT,
+            ChangeSequenceService.DOCTOR
+        );
     }
 
     /**
@@ -107,6 +479,166 @@ public class PrescriptionService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Prescription : {}", id);
+        PrescriptionEventService.Audience audience = new PrescriptionEventService.Audience();
+        PatientPrescriptionSummaryService.Changes changes = new PatientPrescriptionSummaryService.Changes();
+        prescriptionRepository
+            .findById(id)
+            .ifPresent(prescription -> {
+                evictLookups(List.of(prescription));
+                audience.add(prescription);
+                changes.remove(prescription);
+            });
         prescriptionRepository.deleteById(id);
+        patientPrescriptionSummaryService.apply(changes);
+        prescriptionTombstoneRepository.save(new PrescriptionTombstone(id, UpdatedDate.now()));
+        changeSequenceService.assignOnCommit(ChangeSequenceService.PRESCRIPTION, TOMBSTONE_TABLE, List.of(id));
+        prescriptionEventService.publishAfterCommit(new PrescriptionEventDTO(PrescriptionEventDTO.Type.DELETED, id, null), audience);
+    }
+
+    /**
+     * Get the prescriptions created, updated or deleted after a cursor.
+     * <p>
+     * Changes and deletions are read in {@code (changeSequence, id)} order, through their index, so a poll costs the
+     * number of changes rather than the size of the table. The sequence is taken by each write as it commits, so a
+     * write committing after a poll always comes after the cursor of the poll, however long it ran.
+     *
+     * @param after the cursor of the last poll, or {@code null} to read every prescription.
+     * @param size the maximum number of changes, and of deletions, to return.
+     * @return the changes and deletions, with the cursor of the next poll.
+     * @throws ChangesCursorExpiredException if deletions after the cursor are no longer retained.
+     */
+    @Transactional(readOnly = true)
+    public PrescriptionChangesDTO findChanges(PrescriptionChangesCursor after, int size) {
+        log.debug("Request to get the changes of Prescriptions after : {}", after);
+        // Every write up to this value is committed, and none after it is read
+        long until = changeSequenceService.findValues(ChangeSequenceService.PRESCRIPTION).get(0);
+        if (after == null) {
+            // Reading every prescription covers the deletions up to now
+            after = PrescriptionChangesCursor.of(Position.before(0L), Position.before(until + 1));
+        }
+        Position lastChange = after.getLastChange();
+        Position lastDeletion = after.getLastDeletion();
+        if (lastDeletion.getSequence() < changeSequenceService.findPurgedValue(ChangeSequenceService.PRESCRIPTION)) {
+            throw new ChangesCursorExpiredException("The deletions after " + lastDeletion.getSequence() + " are no longer retained");
+        }
+
+        Pageable limit = PageRequest.of(0, size);
+        Slice<Prescription> changes = prescriptionRepository.findChangesAfter(lastChange.getSequence(), lastChange.getId(), until, limit);
+        Slice<PrescriptionTombstone> deletions = prescriptionTombstoneRepository.findKeysetPageAfter(
+            lastDeletion.getSequence(),
+            lastDeletion.getId(),
+            until,
+            limit
+        );
+
+        PrescriptionChangesDTO result = new PrescriptionChangesDTO();
+        result.setUpdated(prescriptionMapper.toDto(changes.getContent()));
+        result.setDeleted(deletions.getContent().stream().map(PrescriptionTombstone::getId).collect(Collectors.toList()));
+        result.setHasMore(changes.hasNext() || deletions.hasNext());
+        // A position read to its end moves up to the sequence read, so that idle clients keep recent cursors
+        result.setCursor(
+            PrescriptionChangesCursor
+                .of(
+                    nextPosition(changes, lastChange, p -> Position.of(p.getChangeSequence(), p.getId()), until),
+                    nextPosition(deletions, lastDeletion, t -> Position.of(t.getChangeSequence(), t.getId()), until)
+                )
+                .encode()
+        );
+        return result;
+    }
+
+    private static <T> Position nextPosition(Slice<T> slice, Position position, Function<T, Position> positionOf, long until) {
+        if (!slice.hasNext()) {
+            return position.getSequence() > until ? position : Position.before(until + 1);
+        }
+        List<T> content = slice.getContent();
+        return positionOf.apply(content.get(content.size() - 1));
+    }
+
+    /**
+     * Get the cursor of a client holding every prescription as of the given date.
+     * <p>
+     * The cursor starts at the first write which updated or deleted a prescription from the date on, so the first poll
+     * may return changes the client already holds, but none it misses.
+     *
+     * @param since the date of the last change and deletion the client knows about.
+     * @return the cursor of the changes and deletions after the date.
+     * @throws ChangesCursorExpiredException if the date is older than the retention of the deletions.
+     */
+    @Transactional(readOnly = true)
+    public PrescriptionChangesCursor findChangesCursorSince(ZonedDateTime since) {
+        log.debug("Request to get the cursor of the changes of Prescriptions since : {}", since);
+        if (since.isBefore(ZonedDateTime.now().minus(changesProperties.getTombstoneRetention()))) {
+            throw new ChangesCursorExpiredException("The deletions after " + since + " are no longer retained");
+        }
+        long until = changeSequenceService.findValues(ChangeSequenceService.PRESCRIPTION).get(0);
+        long first = until + 1;
+        Long firstChange = prescriptionRepository.findMinChangeSequenceUpdatedSince(since);
+        if (firstChange != null) {
+            first = Math.min(first, firstChange);
+        }
+        Long firstDeletion = prescriptionTombstoneRepository.findMinChangeSequenceDeletedSince(since);
+        if (firstDeletion != null) {
+            first = Math.min(first, firstDeletion);
+        }
+        return PrescriptionChangesCursor.of(Position.before(first), Position.before(first));
+    }
+
+    /**
+     * Purge the tombstones of the prescriptions deleted before the retention of the change feed.
+     * <p>
+     * This is scheduled to get fired every day, at 03:00 (am), on one node at a time.
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    @SchedulerLock(name = "removeExpiredPrescriptionTombstones")
+    public void removeExpiredTombstones() {
+        ZonedDateTime deletedBefore = ZonedDateTime.now().minus(changesProperties.getTombstoneRetention());
+        Long purged = prescriptionTombstoneRepository.findMaxChangeSequenceDeletedBefore(deletedBefore);
+        if (purged == null) {
+            return;
+        }
+        // Whole writes are purged, so that a cursor within the last one cannot miss the rest of it
+        changeSequenceService.markPurged(ChangeSequenceService.PRESCRIPTION, purged + 1);
+        int removed = prescriptionTombstoneRepository.deleteAllByChangeSequenceUpTo(purged);
+        log.debug("Removed {} prescription tombstones older than {}", removed, deletedBefore);
+    }
+
+    private static ZonedDateTime latest(ZonedDateTime date, ZonedDateTime other) {
+        return other != null && other.isAfter(date) ? other : date;
+    }
+
+    /**
+     * Evict the cached lookups of the patients of the given prescriptions.
+     * <p>
+     * They are evicted at once, so the current transaction reads its own writes, and again once it completes, so
+     * that a lookup loaded by another transaction in between cannot outlive the commit. The other nodes evict them
+     * once it completes.
+     */
+    private void evictLookups(Collection<Prescription> prescriptions) {
+        Set<Long> patientIds = new HashSet<>();
+        for (Prescription prescription : prescriptions) {
+            if (prescription.getPatient() != null) {
+                patientIds.add(prescription.getPatient().getId());
+            }
+        }
+        Runnable eviction = () -> prescriptionsByPatient.invalidateAll(patientIds);
+        eviction.run();
+        if (cacheCoherence != null) {
+            invalidateOtherNodes(PrescriptionRepository.PRESCRIPTIONS_BY_PATIENT_CACHE, patientIds);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        eviction.run();
+                    }
+                }
+            );
+        }
+    }
+
+    private void invalidateOtherNodes(String cacheName, Set<Long> ids) {
+        ids.forEach(id -> cacheCoherence.invalidate(cacheName, id));
     }
 }
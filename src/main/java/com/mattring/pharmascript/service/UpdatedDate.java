@@ -0,0 +1,23 @@
+package com.mattring.pharmascript.service;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The {@code updatedDate} the services set on the entities they save, ignoring the one sent by the client: the
+ * conditional GETs, the collection versions and the keyset cursors are built from it.
+ */
+final class UpdatedDate {
+
+    private UpdatedDate() {}
+
+    /**
+     * The date of a write, at the precision of the database, so that the cursors and validators built from the saved
+     * entities match their rows.
+     *
+     * @return the current date, truncated to milliseconds.
+     */
+    static ZonedDateTime now() {
+        return ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+}
@@ -1,8 +1,11 @@
 package com.mattring.pharmascript.service;
 
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.config.CoherentCacheManager;
 import com.mattring.pharmascript.config.Constants;
 import com.mattring.pharmascript.domain.Authority;
 import com.mattring.pharmascript.domain.User;
+import com.mattring.pharmascript.management.UserPurgeMetersService;
 import com.mattring.pharmascript.repository.AuthorityRepository;
 import com.mattring.pharmascript.repository.UserRepository;
 import com.mattring.pharmascript.security.AuthoritiesConstants;
@@ -12,16 +15,23 @@ import com.mattring.pharmascript.service.dto.UserDTO;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import tech.jhipster.security.RandomUtil;
 
 /**
@@ -41,16 +51,28 @@ public class UserService {
 
     private final CacheManager cacheManager;
 
+    private final UserPurgeMetersService userPurgeMetersService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionTemplate transactionTemplate;
+
     public UserService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
         AuthorityRepository authorityRepository,
-        CacheManager cacheManager
+        CacheManager cacheManager,
+        UserPurgeMetersService userPurgeMetersService,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
+        this.userPurgeMetersService = userPurgeMetersService;
+        this.applicationProperties = applicationProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -294,17 +316,48 @@ public class UserService {
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
-     * This is scheduled to get fired everyday, at 01:00 (am).
+     * This is scheduled to get fired everyday, at 01:00 (am), on one node at a time. The users are deleted by chunks,
+     * each chunk in its own transaction, unless called within a transaction.
      */
     @Scheduled(cron = "0 0 1 * * ?")
+    @SchedulerLock(name = "removeNotActivatedUsers", lockAtMostFor = "${application.user-purge.lock-at-most-for:PT1H}")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(user -> {
-                log.debug("Deleting not activated user {}", user.getLogin());
-                userRepository.delete(user);
-                this.clearUserCaches(user);
-            });
+        long start = System.nanoTime();
+        Instant createdBefore = Instant.now().minus(3, ChronoUnit.DAYS);
+        int chunkSize = applicationProperties.getUserPurge().getChunkSize();
+        long afterId = Long.MIN_VALUE;
+        long deleted = 0;
+        List<UserRepository.CacheKeys> chunk;
+        do {
+            long chunkStart = System.nanoTime();
+            chunk = removeNotActivatedUsers(createdBefore, afterId, chunkSize);
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+                deleted += chunk.size();
+                userPurgeMetersService.recordChunk(chunk.size(), System.nanoTime() - chunkStart);
+                log.debug("Deleted {} not activated users, {} so far", chunk.size(), deleted);
+            }
+        } while (chunk.size() == chunkSize);
+        userPurgeMetersService.recordPurge(System.nanoTime() - start);
+        log.info("Deleted {} not activated users in {} ms", deleted, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private List<UserRepository.CacheKeys> removeNotActivatedUsers(Instant createdBefore, long afterId, int chunkSize) {
+        List<UserRepository.CacheKeys> chunk = transactionTemplate.execute(status -> {
+            List<UserRepository.CacheKeys> users = userRepository.findNotActivatedCacheKeys(
+                createdBefore,
+                afterId,
+                PageRequest.of(0, chunkSize)
+            );
+            if (!users.isEmpty()) {
+                List<Long> ids = users.stream().map(UserRepository.CacheKeys::getId).collect(Collectors.toList());
+                userRepository.deleteAllWithAuthoritiesByIdIn(ids);
+            }
+            return users;
+        });
+        clearUserCaches(Objects.requireNonNull(chunk));
+        return chunk;
     }
 
     /**
@@ -316,6 +369,34 @@ public class UserService {
         return authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toList());
     }
 
+    private void clearUserCaches(List<UserRepository.CacheKeys> users) {
+        Set<String> logins = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (UserRepository.CacheKeys user : users) {
+            logins.add(user.getLogin());
+            if (user.getEmail() != null) {
+                emails.add(user.getEmail());
+            }
+        }
+        evictAll(Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)), logins);
+        evictAll(Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)), emails);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void evictAll(Cache cache, Set<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (cache instanceof CoherentCacheManager.CoherentCache) {
+            // One invalidation with all the keys for the other nodes
+            ((CoherentCacheManager.CoherentCache) cache).evictAll(keys);
+        } else if (cache.getNativeCache() instanceof javax.cache.Cache) {
+            ((javax.cache.Cache<Object, Object>) cache.getNativeCache()).removeAll(keys);
+        } else {
+            keys.forEach(cache::evict);
+        }
+    }
+
     private void clearUserCaches(User user) {
         Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
         if (user.getEmail() != null) {
@@ -0,0 +1,231 @@
+package com.mattring.pharmascript.service.criteria;
+
+import java.io.Serializable;
+import java.util.Objects;
+import org.springdoc.api.annotations.ParameterObject;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.*;
+
+/**
+ * Criteria class for the {@link com.mattring.pharmascript.domain.Prescription} entity. This class is used
+ * in {@link com.mattring.pharmascript.web.rest.PrescriptionResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /prescriptions?patientId.equals=5&updatedDate.greaterThanOrEqual=2023-03-01T00:00:00Z&dosageAmount.lessThan=10}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+@ParameterObject
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class PrescriptionCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private IntegerFilter dosageAmount;
+
+    private IntegerFilter dosageInterval;
+
+    private ZonedDateTimeFilter createdDate;
+
+    private ZonedDateTimeFilter updatedDate;
+
+    private LongFilter drugId;
+
+    private LongFilter patientId;
+
+    private LongFilter doctorId;
+
+    private Boolean distinct;
+
+    public PrescriptionCriteria() {}
+
+    public PrescriptionCriteria(PrescriptionCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.dosageAmount = other.dosageAmount == null ? null : other.dosageAmount.copy();
+        this.dosageInterval = other.dosageInterval == null ? null : other.dosageInterval.copy();
+        this.createdDate = other.createdDate == null ? null : other.createdDate.copy();
+        this.updatedDate = other.updatedDate == null ? null : other.updatedDate.copy();
+        this.drugId = other.drugId == null ? null : other.drugId.copy();
+        this.patientId = other.patientId == null ? null : other.patientId.copy();
+        this.doctorId = other.doctorId == null ? null : other.doctorId.copy();
+        this.distinct = other.distinct;
+    }
+
+    @Override
+    public PrescriptionCriteria copy() {
+        return new PrescriptionCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public IntegerFilter getDosageAmount() {
+        return dosageAmount;
+    }
+
+    public IntegerFilter dosageAmount() {
+        if (dosageAmount == null) {
+            dosageAmount = new IntegerFilter();
+        }
+        return dosageAmount;
+    }
+
+    public void setDosageAmount(IntegerFilter dosageAmount) {
+        this.dosageAmount = dosageAmount;
+    }
+
+    public IntegerFilter getDosageInterval() {
+        return dosageInterval;
+    }
+
+    public IntegerFilter dosageInterval() {
+        if (dosageInterval == null) {
+            dosageInterval = new IntegerFilter();
+        }
+        return dosageInterval;
+    }
+
+    public void setDosageInterval(IntegerFilter dosageInterval) {
+        this.dosageInterval = dosageInterval;
+    }
+
+    public ZonedDateTimeFilter getCreatedDate() {
+        return createdDate;
+    }
+
+    public ZonedDateTimeFilter createdDate() {
+        if (createdDate == null) {
+            createdDate = new ZonedDateTimeFilter();
+        }
+        return createdDate;
+    }
+
+    public void setCreatedDate(ZonedDateTimeFilter createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public ZonedDateTimeFilter getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public ZonedDateTimeFilter updatedDate() {
+        if (updatedDate == null) {
+            updatedDate = new ZonedDateTimeFilter();
+        }
+        return updatedDate;
+    }
+
+    public void setUpdatedDate(ZonedDateTimeFilter updatedDate) {
+        this.updatedDate = updatedDate;
+    }
+
+    public LongFilter getDrugId() {
+        return drugId;
+    }
+
+    public LongFilter drugId() {
+        if (drugId == null) {
+            drugId = new LongFilter();
+        }
+        return drugId;
+    }
+
+    public void setDrugId(LongFilter drugId) {
+        this.drugId = drugId;
+    }
+
+    public LongFilter getPatientId() {
+        return patientId;
+    }
+
+    public LongFilter patientId() {
+        if (patientId == null) {
+            patientId = new LongFilter();
+        }
+        return patientId;
+    }
+
+    public void setPatientId(LongFilter patientId) {
+        this.patientId = patientId;
+    }
+
+    public LongFilter getDoctorId() {
+        return doctorId;
+    }
+
+    public LongFilter doctorId() {
+        if (doctorId == null) {
+            doctorId = new LongFilter();
+        }
+        return doctorId;
+    }
+
+    public void setDoctorId(LongFilter doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public Boolean getDistinct() {
+        return distinct;
+    }
+
+    public void setDistinct(Boolean distinct) {
+        this.distinct = distinct;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final PrescriptionCriteria that = (PrescriptionCriteria) o;
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(dosageAmount, that.dosageAmount) &&
+            Objects.equals(dosageInterval, that.dosageInterval) &&
+            Objects.equals(createdDate, that.createdDate) &&
+            Objects.equals(updatedDate, that.updatedDate) &&
+            Objects.equals(drugId, that.drugId) &&
+            Objects.equals(patientId, that.patientId) &&
+            Objects.equals(doctorId, that.doctorId) &&
+            Objects.equals(distinct, that.distinct)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, dosageAmount, dosageInterval, createdDate, updatedDate, drugId, patientId, doctorId, distinct);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PrescriptionCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (dosageAmount != null ? "dosageAmount=" + dosageAmount + ", " : "") +
+            (dosageInterval != null ? "dosageInterval=" + dosageInterval + ", " : "") +
+            (createdDate != null ? "createdDate=" + createdDate + ", " : "") +
+            (updatedDate != null ? "updatedDate=" + updatedDate + ", " : "") +
+            (drugId != null ? "drugId=" + drugId + ", " : "") +
+            (patientId != null ? "patientId=" + patientId + ", " : "") +
+            (doctorId != null ? "doctorId=" + doctorId + ", " : "") +
+            (distinct != null ? "distinct=" + distinct + ", " : "") +
+            "}";
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Criteria beans, used by the query services to filter entities from HTTP request parameters.
+ */
+package com.mattring.pharmascript.service.criteria;
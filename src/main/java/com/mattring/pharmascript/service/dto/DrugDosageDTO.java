@@ -0,0 +1,80 @@
+package com.mattring.pharmascript.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+/**
+ * The prescriptions of a patient for one drug, in a {@link PatientPrescriptionSummaryDTO}.
+ */
+public class DrugDosageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private DrugDTO drug;
+
+    private int prescriptions;
+
+    private BigDecimal dailyDosage;
+
+    private ZonedDateTime lastChangedDate;
+
+    public DrugDTO getDrug() {
+        return drug;
+    }
+
+    public void setDrug(DrugDTO drug) {
+        this.drug = drug;
+    }
+
+    /**
+     * The number of active prescriptions of the drug, {@code 0} once they are all deleted.
+     *
+     * @return the number of prescriptions.
+     */
+    public int getPrescriptions() {
+        return prescriptions;
+    }
+
+    public void setPrescriptions(int prescriptions) {
+        this.prescriptions = prescriptions;
+    }
+
+    /**
+     * The total of {@code dosageAmount * 24 / dosageInterval} over the active prescriptions, the interval being in
+     * hours, each rounded to 3 decimals.
+     *
+     * @return the amount taken per day.
+     */
+    public BigDecimal getDailyDosage() {
+        return dailyDosage;
+    }
+
+    public void setDailyDosage(BigDecimal dailyDosage) {
+        this.dailyDosage = dailyDosage;
+    }
+
+    /**
+     * The time of the last creation, update or deletion of a prescription of the drug.
+     *
+     * @return the date.
+     */
+    public ZonedDateTime getLastChangedDate() {
+        return lastChangedDate;
+    }
+
+    public void setLastChangedDate(ZonedDateTime lastChangedDate) {
+        this.lastChangedDate = lastChangedDate;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "DrugDosageDTO{" +
+            "drug=" + (drug == null ? null : drug.getId()) +
+            ", prescriptions=" + prescriptions +
+            ", dailyDosage=" + dailyDosage +
+            ", lastChangedDate='" + lastChangedDate + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,124 @@
+package com.mattring.pharmascript.service.dto;
+
+import com.mattring.pharmascript.domain.enumeration.InteractionSeverity;
+import java.io.Serializable;
+
+/**
+ * An interaction, or a duplicate therapy, between two drugs prescribed to a patient.
+ */
+public class DrugInteractionDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        /**
+         * The drugs interact, according to a {@link com.mattring.pharmascript.domain.DrugInteractionRule}.
+         */
+        INTERACTION,
+
+        /**
+         * The drugs share their generic name, or are the same drug prescribed twice.
+         */
+        DUPLICATE_THERAPY,
+    }
+
+    private Long patientId;
+
+    private Long drugId;
+
+    private Long interactingDrugId;
+
+    private Type type;
+
+    private InteractionSeverity severity;
+
+    private String description;
+
+    public DrugInteractionDTO() {}
+
+    public DrugInteractionDTO(
+        Long patientId,
+        Long drugId,
+        Long interactingDrugId,
+        Type type,
+        InteractionSeverity severity,
+        String description
+    ) {
+        this.patientId = patientId;
+        this.drugId = drugId;
+        this.interactingDrugId = interactingDrugId;
+        this.type = type;
+        this.severity = severity;
+        this.description = description;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    /**
+     * The drug checked, such as the drug of a new prescription.
+     *
+     * @return the id of the drug.
+     */
+    public Long getDrugId() {
+        return drugId;
+    }
+
+    public void setDrugId(Long drugId) {
+        this.drugId = drugId;
+    }
+
+    /**
+     * The drug of an active prescription of the patient which the checked drug interacts with or duplicates.
+     *
+     * @return the id of the drug.
+     */
+    public Long getInteractingDrugId() {
+        return interactingDrugId;
+    }
+
+    public void setInteractingDrugId(Long interactingDrugId) {
+        this.interactingDrugId = interactingDrugId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public InteractionSeverity getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(InteractionSeverity severity) {
+        this.severity = severity;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "DrugInteractionDTO{" +
+            "patientId=" + patientId +
+            ", drugId=" + drugId +
+            ", interactingDrugId=" + interactingDrugId +
+            ", type='" + type + "'" +
+            ", severity='" + severity + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,94 @@
+package com.mattring.pharmascript.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of a scan of the active prescriptions of all the patients for drug interactions.
+ */
+public class DrugInteractionScanDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int rules;
+
+    private int patients;
+
+    private long findingCount;
+
+    private List<DrugInteractionDTO> findings = new ArrayList<>();
+
+    private long durationMs;
+
+    /**
+     * The number of rules applied, those naming a generic name of the catalog.
+     *
+     * @return the number of rules.
+     */
+    public int getRules() {
+        return rules;
+    }
+
+    public void setRules(int rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * The number of patients with active prescriptions.
+     *
+     * @return the number of patients.
+     */
+    public int getPatients() {
+        return patients;
+    }
+
+    public void setPatients(int patients) {
+        this.patients = patients;
+    }
+
+    /**
+     * The number of interactions and duplicate therapies found, each pair of drugs of a patient counting once.
+     *
+     * @return the number of findings.
+     */
+    public long getFindingCount() {
+        return findingCount;
+    }
+
+    public void setFindingCount(long findingCount) {
+        this.findingCount = findingCount;
+    }
+
+    /**
+     * The findings, most severe first, up to {@code application.drug-interactions.scan-max-findings}.
+     *
+     * @return the findings.
+     */
+    public List<DrugInteractionDTO> getFindings() {
+        return findings;
+    }
+
+    public void setFindings(List<DrugInteractionDTO> findings) {
+        this.findings = findings;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "DrugInteractionScanDTO{" +
+            "rules=" + rules +
+            ", patients=" + patients +
+            ", findingCount=" + findingCount +
+            ", durationMs=" + durationMs +
+            "}";
+    }
+}
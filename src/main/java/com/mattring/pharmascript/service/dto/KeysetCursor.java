@@ -0,0 +1,99 @@
+package com.mattring.pharmascript.service.dto;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position of a row in the {@code (updatedDate, id)} ordering used by keyset pagination.
+ * <p>
+ * Clients only ever see the opaque token produced by {@link #encode()}.
+ */
+public final class KeysetCursor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final char SEPARATOR = '_';
+
+    private final Instant updatedDate;
+
+    private final Long id;
+
+    private KeysetCursor(Instant updatedDate, Long id) {
+        this.updatedDate = Objects.requireNonNull(updatedDate, "updatedDate");
+        this.id = Objects.requireNonNull(id, "id");
+    }
+
+    public static KeysetCursor of(ZonedDateTime updatedDate, Long id) {
+        return new KeysetCursor(updatedDate.toInstant(), id);
+    }
+
+    /**
+     * Decode a token previously produced by {@link #encode()}.
+     *
+     * @param token the opaque cursor token.
+     * @return the decoded cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static KeysetCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+        int separator = raw.lastIndexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        try {
+            return new KeysetCursor(Instant.parse(raw.substring(0, separator)), Long.valueOf(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = updatedDate.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ZonedDateTime getUpdatedDate() {
+        return ZonedDateTime.ofInstant(updatedDate, ZoneOffset.UTC);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeysetCursor)) {
+            return false;
+        }
+        KeysetCursor that = (KeysetCursor) o;
+        return updatedDate.equals(that.updatedDate) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(updatedDate, id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+            "updatedDate='" + updatedDate + "'" +
+            ", id=" + id +
+            "}";
+    }
+}
@@ -0,0 +1,80 @@
+package com.mattring.pharmascript.service.dto;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The summary of the {@link com.mattring.pharmascript.domain.Prescription}s of a patient.
+ */
+public class PatientPrescriptionSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long patientId;
+
+    private int activePrescriptions;
+
+    private ZonedDateTime lastChangedDate;
+
+    private List<DrugDosageDTO> drugs = new ArrayList<>();
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    /**
+     * The number of prescriptions of the patient.
+     *
+     * @return the number of prescriptions.
+     */
+    public int getActivePrescriptions() {
+        return activePrescriptions;
+    }
+
+    public void setActivePrescriptions(int activePrescriptions) {
+        this.activePrescriptions = activePrescriptions;
+    }
+
+    /**
+     * The time of the last creation, update or deletion of a prescription of the patient.
+     *
+     * @return the date, or {@code null} if the patient never had a prescription.
+     */
+    public ZonedDateTime getLastChangedDate() {
+        return lastChangedDate;
+    }
+
+    public void setLastChangedDate(ZonedDateTime lastChangedDate) {
+        this.lastChangedDate = lastChangedDate;
+    }
+
+    /**
+     * The drugs the patient has or had prescriptions of, most recently changed first.
+     *
+     * @return the timeline of the drugs.
+     */
+    public List<DrugDosageDTO> getDrugs() {
+        return drugs;
+    }
+
+    public void setDrugs(List<DrugDosageDTO> drugs) {
+        this.drugs = drugs;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PatientPrescriptionSummaryDTO{" +
+            "patientId=" + patientId +
+            ", activePrescriptions=" + activePrescriptions +
+            ", lastChangedDate='" + lastChangedDate + "'" +
+            ", drugs=" + drugs.size() +
+            "}";
+    }
+}
@@ -0,0 +1,189 @@
+package com.mattring.pharmascript.service.dto;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position of a client in the prescription change feed: the last change read and the last deletion read, both in
+ * {@code (changeSequence, id)} order.
+ * <p>
+ * Both positions only move forward. Clients only ever see the opaque token produced by {@link #encode()}.
+ */
+public final class PrescriptionChangesCursor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final char SEPARATOR = '.';
+
+    private final Position lastChange;
+
+    private final Position lastDeletion;
+
+    private PrescriptionChangesCursor(Position lastChange, Position lastDeletion) {
+        this.lastChange = Objects.requireNonNull(lastChange, "lastChange");
+        this.lastDeletion = Objects.requireNonNull(lastDeletion, "lastDeletion");
+    }
+
+    public static PrescriptionChangesCursor of(Position lastChange, Position lastDeletion) {
+        return new PrescriptionChangesCursor(lastChange, lastDeletion);
+    }
+
+    /**
+     * Decode a token previously produced by {@link #encode()}.
+     *
+     * @param token the opaque cursor token.
+     * @return the decoded cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static PrescriptionChangesCursor decode(String token) {
+        int separator = token.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        return new PrescriptionChangesCursor(
+            Position.decode(token, token.substring(0, separator)),
+            Position.decode(token, token.substring(separator + 1))
+        );
+    }
+
+    public String encode() {
+        return lastChange.encode() + SEPARATOR + lastDeletion.encode();
+    }
+
+    /**
+     * Get the position of the last change read.
+     *
+     * @return the position.
+     */
+    public Position getLastChange() {
+        return lastChange;
+    }
+
+    /**
+     * Get the position of the last deletion read.
+     *
+     * @return the position.
+     */
+    public Position getLastDeletion() {
+        return lastDeletion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PrescriptionChangesCursor)) {
+            return false;
+        }
+        PrescriptionChangesCursor that = (PrescriptionChangesCursor) o;
+        return lastChange.equals(that.lastChange) && lastDeletion.equals(that.lastDeletion);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastChange, lastDeletion);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PrescriptionChangesCursor{" +
+            "lastChange=" + lastChange +
+            ", lastDeletion=" + lastDeletion +
+            "}";
+    }
+
+    /**
+     * Position of a row in the {@code (changeSequence, id)} order of the change feed. The position
+     * {@code (sequence, 0)} comes before all the rows written by the transaction which took {@code sequence}.
+     */
+    public static final class Position implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final char SEPARATOR = '_';
+
+        private final long sequence;
+
+        private final long id;
+
+        private Position(long sequence, long id) {
+            this.sequence = sequence;
+            this.id = id;
+        }
+
+        public static Position of(long sequence, long id) {
+            return new Position(sequence, id);
+        }
+
+        /**
+         * Get the position before all the rows written from the given sequence value on.
+         *
+         * @param sequence the value of the sequence.
+         * @return the position.
+         */
+        public static Position before(long sequence) {
+            return new Position(sequence, 0L);
+        }
+
+        private static Position decode(String token, String position) {
+            String raw;
+            try {
+                raw = new String(Base64.getUrlDecoder().decode(position), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + token, e);
+            }
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            try {
+                return new Position(Long.parseLong(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + token, e);
+            }
+        }
+
+        private String encode() {
+            String raw = Long.toString(sequence) + SEPARATOR + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Position)) {
+                return false;
+            }
+            Position that = (Position) o;
+            return sequence == that.sequence && id == that.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sequence, id);
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Position{" +
+                "sequence=" + sequence +
+                ", id=" + id +
+                "}";
+        }
+    }
+}
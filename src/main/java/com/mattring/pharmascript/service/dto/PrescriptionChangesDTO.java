@@ -0,0 +1,84 @@
+package com.mattring.pharmascript.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the {@link com.mattring.pharmascript.domain.Prescription} change feed.
+ */
+public class PrescriptionChangesDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<PrescriptionDTO> updated = new ArrayList<>();
+
+    private List<Long> deleted = new ArrayList<>();
+
+    private String cursor;
+
+    private boolean hasMore;
+
+    /**
+     * The prescriptions created or updated after the cursor, in the order their writes committed.
+     *
+     * @return the prescriptions.
+     */
+    public List<PrescriptionDTO> getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(List<PrescriptionDTO> updated) {
+        this.updated = updated;
+    }
+
+    /**
+     * The ids of the prescriptions deleted after the cursor, in the order their deletions committed.
+     *
+     * @return the ids.
+     */
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    /**
+     * The cursor to send on the next poll.
+     *
+     * @return the opaque cursor token.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Whether more changes or deletions are ready, to be read right away with the new cursor.
+     *
+     * @return {@code true} if the page is full.
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PrescriptionChangesDTO{" +
+            "updated=" + updated.size() +
+            ", deleted=" + deleted.size() +
+            ", cursor='" + cursor + "'" +
+            ", hasMore=" + hasMore +
+            "}";
+    }
+}
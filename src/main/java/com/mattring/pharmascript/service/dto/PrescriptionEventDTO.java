@@ -0,0 +1,86 @@
+package com.mattring.pharmascript.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A change of a {@link com.mattring.pharmascript.domain.Prescription}, pushed to the subscribers once committed.
+ */
+public class PrescriptionEventDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+    }
+
+    private Type type;
+
+    private Long prescriptionId;
+
+    private PrescriptionDTO prescription;
+
+    private Instant date;
+
+    public PrescriptionEventDTO() {}
+
+    public PrescriptionEventDTO(Type type, Long prescriptionId, PrescriptionDTO prescription) {
+        this.type = type;
+        this.prescriptionId = prescriptionId;
+        this.prescription = prescription;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getPrescriptionId() {
+        return prescriptionId;
+    }
+
+    public void setPrescriptionId(Long prescriptionId) {
+        this.prescriptionId = prescriptionId;
+    }
+
+    /**
+     * The prescription as committed.
+     *
+     * @return the prescription, or {@code null} for a deletion.
+     */
+    public PrescriptionDTO getPrescription() {
+        return prescription;
+    }
+
+    public void setPrescription(PrescriptionDTO prescription) {
+        this.prescription = prescription;
+    }
+
+    /**
+     * The date the change was committed and published at.
+     *
+     * @return the date.
+     */
+    public Instant getDate() {
+        return date;
+    }
+
+    public void setDate(Instant date) {
+        this.date = date;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PrescriptionEventDTO{" +
+            "type=" + type +
+            ", prescriptionId=" + prescriptionId +
+            ", date='" + date + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,49 @@
+package com.mattring.pharmascript.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A row rejected by a bulk import of {@link com.mattring.pharmascript.domain.Prescription} entities.
+ */
+public class PrescriptionImportErrorDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long line;
+
+    private String message;
+
+    public PrescriptionImportErrorDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PrescriptionImportErrorDTO(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PrescriptionImportErrorDTO{" +
+            "line=" + line +
+            ", message='" + message + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,58 @@
+package com.mattring.pharmascript.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a bulk import of {@link com.mattring.pharmascript.domain.Prescription} entities.
+ */
+public class PrescriptionImportResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long imported;
+
+    private long rejected;
+
+    private List<PrescriptionImportErrorDTO> errors = new ArrayList<>();
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    /**
+     * The first rejected rows, up to {@code application.prescription-import.max-reported-errors}.
+     *
+     * @return the row errors.
+     */
+    public List<PrescriptionImportErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<PrescriptionImportErrorDTO> errors) {
+        this.errors = errors;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PrescriptionImportResultDTO{" +
+            "imported=" + imported +
+            ", rejected=" + rejected +
+            ", errors=" + errors.size() +
+            "}";
+    }
+}
@@ -0,0 +1,35 @@
+package com.mattring.pharmascript.service.mapper;
+
+import com.mattring.pharmascript.domain.Drug;
+import com.mattring.pharmascript.service.DrugCatalogService;
+import com.mattring.pharmascript.service.dto.DrugDTO;
+import org.mapstruct.Named;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps the {@link Drug} of other entities from the {@link DrugCatalogService}, so that a lazy drug is not loaded
+ * and a loaded one is not copied.
+ * <p>
+ * Drugs which are not in the catalog yet, such as the ones created by the current transaction, are mapped by the
+ * {@link DrugMapper}.
+ */
+@Component
+public class DrugCatalogMapper {
+
+    private final DrugCatalogService drugCatalogService;
+
+    private final DrugMapper drugMapper;
+
+    public DrugCatalogMapper(DrugCatalogService drugCatalogService, DrugMapper drugMapper) {
+        this.drugCatalogService = drugCatalogService;
+        this.drugMapper = drugMapper;
+    }
+
+    @Named("drugId")
+    public DrugDTO toDtoDrugId(Drug drug) {
+        if (drug == null) {
+            return null;
+        }
+        return drugCatalogService.findOne(drug.getId()).orElseGet(() -> drugMapper.toDto(drug));
+    }
+}
@@ -0,0 +1,56 @@
+package com.mattring.pharmascript.web.rest;
+
+import com.mattring.pharmascript.security.AuthoritiesConstants;
+import com.mattring.pharmascript.service.DrugInteractionService;
+import com.mattring.pharmascript.service.dto.DrugInteractionDTO;
+import com.mattring.pharmascript.service.dto.DrugInteractionScanDTO;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for checking prescriptions against the {@link com.mattring.pharmascript.domain.DrugInteractionRule}s.
+ */
+@RestController
+@RequestMapping("/api")
+public class DrugInteractionResource {
+
+    private final Logger log = LoggerFactory.getLogger(DrugInteractionResource.class);
+
+    private final DrugInteractionService drugInteractionService;
+
+    public DrugInteractionResource(DrugInteractionService drugInteractionService) {
+        this.drugInteractionService = drugInteractionService;
+    }
+
+    /**
+     * {@code GET  /patients/:patientId/drug-interactions?drugId=} : check a drug against the active prescriptions of the
+     * "patientId" patient, without prescribing it.
+     *
+     * @param patientId the id of the patient.
+     * @param drugId the id of the drug.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the interactions and duplicate therapies in body, most
+     * severe first.
+     */
+    @GetMapping("/patients/{patientId}/drug-interactions")
+    public ResponseEntity<List<DrugInteractionDTO>> checkDrugInteractions(@PathVariable Long patientId, @RequestParam Long drugId) {
+        log.debug("REST request to check Drug {} against the Prescriptions of Patient : {}", drugId, patientId);
+        return ResponseEntity.ok().body(drugInteractionService.check(patientId, drugId));
+    }
+
+    /**
+     * {@code POST  /admin/drug-interactions/scan} : reload the rules and check the active prescriptions of all the patients,
+     * as after a change of the rules.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the findings in body.
+     */
+    @PostMapping("/admin/drug-interactions/scan")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<DrugInteractionScanDTO> scanDrugInteractions() {
+        log.debug("REST request to scan the drug interactions of all Patients");
+        return ResponseEntity.ok().body(drugInteractionService.scan());
+    }
+}
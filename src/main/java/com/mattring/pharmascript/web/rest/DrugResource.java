@@ -1,11 +1,17 @@
 package com.mattring.pharmascript.web.rest;
 
 import com.mattring.pharmascript.repository.DrugRepository;
+import com.mattring.pharmascript.service.DrugCatalogService;
 import com.mattring.pharmascript.service.DrugService;
 import com.mattring.pharmascript.service.dto.DrugDTO;
+import com.mattring.pharmascript.service.dto.KeysetCursor;
 import com.mattring.pharmascript.web.rest.errors.BadRequestAlertException;
+import com.mattring.pharmascript.web.rest.util.ConditionalRequestUtil;
+import com.mattring.pharmascript.web.rest.util.KeysetPaginationUtil;
+import com.mattring.pharmascript.web.rest.util.MultiGetUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -16,10 +22,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -36,6 +44,8 @@ public class DrugResource {
 
     private static final String ENTITY_NAME = "drug";
 
+    private static final int MAX_SEARCH_SIZE = 100;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -43,9 +53,12 @@ public class DrugResource {
 
     private final DrugRepository drugRepository;
 
-    public DrugResource(DrugService drugService, DrugRepository drugRepository) {
+    private final DrugCatalogService drugCatalogService;
+
+    public DrugResource(DrugService drugService, DrugRepository drugRepository, DrugCatalogService drugCatalogService) {
         this.drugService = drugService;
         this.drugRepository = drugRepository;
+        this.drugCatalogService = drugCatalogService;
     }
 
     /**
@@ -140,29 +153,107 @@ public class DrugResource {
 
     /**
      * {@code GET  /drugs} : get all the drugs.
+     * <p>
+     * The page is tagged with the version of all the drugs, and not read when the client already holds it.
      *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drugs in body.
+     * @param request the request, checked for conditional headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drugs in body,
+     * or with status {@code 304 (Not Modified)} if no drug changed since the client got the page.
      */
     @GetMapping("/drugs")
-    public ResponseEntity<List<DrugDTO>> getAllDrugs(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<List<DrugDTO>> getAllDrugs(
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        WebRequest request
+    ) {
         log.debug("REST request to get a page of Drugs");
+        if (ConditionalRequestUtil.checkNotModified(request, drugService.findCollectionVersion())) {
+            return ConditionalRequestUtil.notModified();
+        }
         Page<DrugDTO> page = drugService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return ResponseEntity.ok().headers(headers).body(page.getContent());
+        return ResponseEntity.ok().headers(headers).cacheControl(ConditionalRequestUtil.CACHE_CONTROL).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /drugs?after=:cursor} : get a keyset page of the drugs.
+     * <p>
+     * Pages are ordered by {@code (updatedDate, id)} and the {@code sort} parameter is ignored. An empty cursor
+     * requests the first page; the cursor of the next page is returned in the {@code Link} header.
+     *
+     * @param after the opaque cursor of the last drug already read.
+     * @param pageable the pagination information; only the page size is used.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drugs in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid.
+     */
+    @GetMapping(value = "/drugs", params = { KeysetPaginationUtil.AFTER_PARAMETER, "!" + MultiGetUtil.IDS_PARAMETER })
+    public ResponseEntity<List<DrugDTO>> getAllDrugsAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER_PARAMETER) String after,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a keyset page of Drugs after : {}", after);
+        KeysetCursor cursor = KeysetPaginationUtil.parseCursor(after, ENTITY_NAME);
+        Slice<DrugDTO> slice = drugService.findAllAfter(cursor, pageable);
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            dto -> KeysetCursor.of(dto.getUpdatedDate(), dto.getId())
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /drugs/search?prefix=:prefix} : search the drugs by the start of their generic or brand name.
+     * <p>
+     * Served from the drug catalog, for autocompletion. Generic name matches come before brand name matches.
+     *
+     * @param prefix the start of the names, ignoring case.
+     * @param size the maximum number of drugs to return, at most {@value #MAX_SEARCH_SIZE}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drugs in body.
+     */
+    @GetMapping("/drugs/search")
+    public ResponseEntity<List<DrugDTO>> searchDrugs(@RequestParam String prefix, @RequestParam(defaultValue = "10") int size) {
+        log.debug("REST request to search Drugs : {}", prefix);
+        return ResponseEntity.ok().body(drugCatalogService.search(prefix, Math.max(0, Math.min(size, MAX_SEARCH_SIZE))));
+    }
+
+    /**
+     * {@code GET  /drugs?ids=:ids} : get the drugs of a set of ids, in one request.
+     * <p>
+     * Unknown ids are skipped, and the drugs are returned in the order of their ids.
+     *
+     * @param ids the ids of the drugs, at most {@value MultiGetUtil#MAX_IDS}.
+     * @param after a keyset cursor, which cannot be combined with the ids.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of drugs in body,
+     * or with status {@code 400 (Bad Request)} if there are too many ids or a keyset cursor.
+     */
+    @GetMapping(value = "/drugs", params = MultiGetUtil.IDS_PARAMETER)
+    public ResponseEntity<List<DrugDTO>> getDrugsById(
+        @RequestParam(MultiGetUtil.IDS_PARAMETER) List<Long> ids,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
+    ) {
+        log.debug("REST request to get Drugs : {}", ids);
+        MultiGetUtil.checkIds(ids, after, ENTITY_NAME);
+        return ResponseEntity.ok().body(drugService.findAllById(ids));
     }
 
     /**
      * {@code GET  /drugs/:id} : get the "id" drug.
      *
      * @param id the id of the drugDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the drugDTO, or with status {@code 404 (Not Found)}.
+     * @param request the request, checked for conditional headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the drugDTO,
+     * or with status {@code 304 (Not Modified)} if the client holds the current drugDTO, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/drugs/{id}")
-    public ResponseEntity<DrugDTO> getDrug(@PathVariable Long id) {
+    public ResponseEntity<DrugDTO> getDrug(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Drug : {}", id);
+        Optional<ZonedDateTime> lastModifiedDate = drugService.findLastModifiedDate(id);
+        if (lastModifiedDate.isPresent() && ConditionalRequestUtil.checkNotModified(request, id, lastModifiedDate.get())) {
+            return ConditionalRequestUtil.notModified();
+        }
         Optional<DrugDTO> drugDTO = drugService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(drugDTO);
+        return ResponseUtil.wrapOrNotFound(drugDTO, ConditionalRequestUtil.generateCacheControlHttpHeaders());
     }
 
     /**
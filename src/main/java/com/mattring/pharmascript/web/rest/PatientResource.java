@@ -2,10 +2,15 @@ package com.mattring.pharmascript.web.rest;
 
 import com.mattring.pharmascript.repository.PatientRepository;
 import com.mattring.pharmascript.service.PatientService;
+import com.mattring.pharmascript.service.dto.KeysetCursor;
 import com.mattring.pharmascript.service.dto.PatientDTO;
 import com.mattring.pharmascript.web.rest.errors.BadRequestAlertException;
+import com.mattring.pharmascript.web.rest.util.ConditionalRequestUtil;
+import com.mattring.pharmascript.web.rest.util.KeysetPaginationUtil;
+import com.mattring.pharmascript.web.rest.util.MultiGetUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -16,10 +21,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -140,29 +147,92 @@ public class PatientResource {
 
     /**
      * {@code GET  /patients} : get all the patients.
+     * <p>
+     * The page is tagged with the version of all the patients, and not read when the client already holds it.
      *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of patients in body.
+     * @param request the request, checked for conditional headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of patients in body,
+     * or with status {@code 304 (Not Modified)} if no patient changed since the client got the page.
      */
     @GetMapping("/patients")
-    public ResponseEntity<List<PatientDTO>> getAllPatients(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<List<PatientDTO>> getAllPatients(
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        WebRequest request
+    ) {
         log.debug("REST request to get a page of Patients");
+        if (ConditionalRequestUtil.checkNotModified(request, patientService.findCollectionVersion())) {
+            return ConditionalRequestUtil.notModified();
+        }
         Page<PatientDTO> page = patientService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return ResponseEntity.ok().headers(headers).body(page.getContent());
+        return ResponseEntity.ok().headers(headers).cacheControl(ConditionalRequestUtil.CACHE_CONTROL).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /patients?after=:cursor} : get a keyset page of the patients.
+     * <p>
+     * Pages are ordered by {@code (updatedDate, id)} and the {@code sort} parameter is ignored. An empty cursor
+     * requests the first page; the cursor of the next page is returned in the {@code Link} header.
+     *
+     * @param after the opaque cursor of the last patient already read.
+     * @param pageable the pagination information; only the page size is used.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of patients in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid.
+     */
+    @GetMapping(value = "/patients", params = { KeysetPaginationUtil.AFTER_PARAMETER, "!" + MultiGetUtil.IDS_PARAMETER })
+    public ResponseEntity<List<PatientDTO>> getAllPatientsAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER_PARAMETER) String after,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a keyset page of Patients after : {}", after);
+        KeysetCursor cursor = KeysetPaginationUtil.parseCursor(after, ENTITY_NAME);
+        Slice<PatientDTO> slice = patientService.findAllAfter(cursor, pageable);
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            dto -> KeysetCursor.of(dto.getUpdatedDate(), dto.getId())
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /patients?ids=:ids} : get the patients of a set of ids, in one request.
+     * <p>
+     * Unknown ids are skipped, and the patients are returned in the order of their ids.
+     *
+     * @param ids the ids of the patients, at most {@value MultiGetUtil#MAX_IDS}.
+     * @param after a keyset cursor, which cannot be combined with the ids.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of patients in body,
+     * or with status {@code 400 (Bad Request)} if there are too many ids or a keyset cursor.
+     */
+    @GetMapping(value = "/patients", params = MultiGetUtil.IDS_PARAMETER)
+    public ResponseEntity<List<PatientDTO>> getPatientsById(
+        @RequestParam(MultiGetUtil.IDS_PARAMETER) List<Long> ids,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
+    ) {
+        log.debug("REST request to get Patients : {}", ids);
+        MultiGetUtil.checkIds(ids, after, ENTITY_NAME);
+        return ResponseEntity.ok().body(patientService.findAllById(ids));
     }
 
     /**
      * {@code GET  /patients/:id} : get the "id" patient.
      *
      * @param id the id of the patientDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the patientDTO, or with status {@code 404 (Not Found)}.
+     * @param request the request, checked for conditional headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the patientDTO,
+     * or with status {@code 304 (Not Modified)} if the client holds the current patientDTO, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/patients/{id}")
-    public ResponseEntity<PatientDTO> getPatient(@PathVariable Long id) {
+    public ResponseEntity<PatientDTO> getPatient(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Patient : {}", id);
+        Optional<ZonedDateTime> lastModifiedDate = patientService.findLastModifiedDate(id);
+        if (lastModifiedDate.isPresent() && ConditionalRequestUtil.checkNotModified(request, id, lastModifiedDate.get())) {
+            return ConditionalRequestUtil.notModified();
+        }
         Optional<PatientDTO> patientDTO = patientService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(patientDTO);
+        return ResponseUtil.wrapOrNotFound(patientDTO, ConditionalRequestUtil.generateCacheControlHttpHeaders());
     }
 
     /**
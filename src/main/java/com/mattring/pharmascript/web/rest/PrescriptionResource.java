@@ -1,14 +1,38 @@
 package com.mattring.pharmascript.web.rest;
 
 import com.mattring.pharmascript.repository.PrescriptionRepository;
+import com.mattring.pharmascript.service.PatientPrescriptionSummaryService;
+import com.mattring.pharmascript.service.PrescriptionEventService;
+import com.mattring.pharmascript.service.PrescriptionExportService;
+import com.mattring.pharmascript.service.PrescriptionFileFormat;
+import com.mattring.pharmascript.service.PrescriptionImportService;
+import com.mattring.pharmascript.service.PrescriptionQueryService;
 import com.mattring.pharmascript.service.PrescriptionService;
+import com.mattring.pharmascript.service.criteria.PrescriptionCriteria;
+import com.mattring.pharmascript.service.dto.KeysetCursor;
+import com.mattring.pharmascript.service.dto.PatientPrescriptionSummaryDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionChangesCursor;
+import com.mattring.pharmascript.service.dto.PrescriptionChangesDTO;
 import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionEventDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionImportResultDTO;
 import com.mattring.pharmascript.web.rest.errors.BadRequestAlertException;
+import com.mattring.pharmascript.web.rest.util.ConditionalRequestUtil;
+import com.mattring.pharmascript.web.rest.util.KeysetPaginationUtil;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -16,10 +40,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -41,11 +71,34 @@ public class PrescriptionResource {
 
     private final PrescriptionService prescriptionService;
 
+    private final PrescriptionImportService prescriptionImportService;
+
+    private final PrescriptionExportService prescriptionExportService;
+
     private final PrescriptionRepository prescriptionRepository;
 
-    public PrescriptionResource(PrescriptionService prescriptionService, PrescriptionRepository prescriptionRepository) {
+    private final PrescriptionQueryService prescriptionQueryService;
+
+    private final PrescriptionEventService prescriptionEventService;
+
+    private final PatientPrescriptionSummaryService patientPrescriptionSummaryService;
+
+    public PrescriptionResource(
+        PrescriptionService prescriptionService,
+        PrescriptionImportService prescriptionImportService,
+        PrescriptionExportService prescriptionExportService,
+        PrescriptionRepository prescriptionRepository,
+        PrescriptionQueryService prescriptionQueryService,
+        PrescriptionEventService prescriptionEventService,
+        PatientPrescriptionSummaryService patientPrescriptionSummaryService
+    ) {
         this.prescriptionService = prescriptionService;
+        this.prescriptionImportService = prescriptionImportService;
+        this.prescriptionExportService = prescriptionExportService;
         this.prescriptionRepository = prescriptionRepository;
+        this.prescriptionQueryService = prescriptionQueryService;
+        this.prescriptionEventService = prescriptionEventService;
+        this.patientPrescriptionSummaryService = patientPrescriptionSummaryService;
     }
 
     /**
@@ -69,6 +122,37 @@ public class PrescriptionResource {
             .body(result);
     }
 
+    /**
+     * {@code POST  /prescriptions/bulk} : Import new prescriptions in bulk.
+     * <p>
+     * The body is either NDJSON, one prescription per line, or CSV with a header line naming the columns
+     * {@code dosageAmount,dosageInterval,createdDate,drugId,patientId,doctorId}, and optionally {@code updatedDate}.
+     * The {@code updatedDate} of the rows is ignored: the imported prescriptions are stamped when they are saved.
+     * Invalid rows are skipped and reported by line number; valid ones are imported.
+     *
+     * @param contentType the content type of the body.
+     * @param body the prescriptions to import.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the import result,
+     * or with status {@code 400 (Bad Request)} if the CSV header is not valid.
+     * @throws IOException if the body cannot be read.
+     */
+    @PostMapping(value = "/prescriptions/bulk", consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" })
+    public ResponseEntity<PrescriptionImportResultDTO> importPrescriptions(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+        InputStream body
+    ) throws IOException {
+        log.debug("REST request to import Prescriptions : {}", contentType);
+        PrescriptionFileFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+            ? PrescriptionFileFormat.NDJSON
+            : PrescriptionFileFormat.CSV;
+        Charset charset = Optional.ofNullable(contentType.getCharset()).orElse(StandardCharsets.UTF_8);
+        try (Reader reader = new InputStreamReader(body, charset)) {
+            return ResponseEntity.ok().body(prescriptionImportService.importPrescriptions(reader, format));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "importinvalid");
+        }
+    }
+
     /**
      * {@code PUT  /prescriptions/:id} : Updates an existing prescription.
      *
@@ -142,28 +226,293 @@ public class PrescriptionResource {
     /**
      * {@code GET  /prescriptions} : get all the prescriptions.
      *
+     * <p>
+     * The page is tagged with the version of the collection of the prescriptions, and not read when the client already
+     * holds it. Any write to the prescriptions, or to the drugs, patients and doctors, changes the version.
+     *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of prescriptions in body.
+     * @param criteria the criteria which the requested entities should match.
+     * @param request the request, checked for conditional headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of prescriptions in body,
+     * or with status {@code 304 (Not Modified)} if no matching prescription changed since the client got the page.
      */
     @GetMapping("/prescriptions")
-    public ResponseEntity<List<PrescriptionDTO>> getAllPrescriptions(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
-        log.debug("REST request to get a page of Prescriptions");
-        Page<PrescriptionDTO> page = prescriptionService.findAll(pageable);
+    public ResponseEntity<List<PrescriptionDTO>> getAllPrescriptions(
+        PrescriptionCriteria criteria,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        WebRequest request
+    ) {
+        log.debug("REST request to get Prescriptions by criteria: {}", criteria);
+        if (ConditionalRequestUtil.checkNotModified(request, prescriptionService.findCollectionVersion())) {
+            return ConditionalRequestUtil.notModified();
+        }
+        Page<PrescriptionDTO> page = prescriptionQueryService.findByCriteria(criteria, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).cacheControl(ConditionalRequestUtil.CACHE_CONTROL).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /prescriptions/count} : count all the prescriptions.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/prescriptions/count")
+    public ResponseEntity<Long> countPrescriptions(PrescriptionCriteria criteria) {
+        log.debug("REST request to count Prescriptions by criteria: {}", criteria);
+        return ResponseEntity.ok().body(prescriptionQueryService.countByCriteria(criteria));
+    }
+
+    /**
+     * {@code GET  /prescriptions?after=:cursor} : get a keyset page of the prescriptions.
+     * <p>
+     * Pages are ordered by {@code (updatedDate, id)} and the {@code sort} parameter is ignored. An empty cursor
+     * requests the first page; the cursor of the next page is returned in the {@code Link} header.
+     *
+     * @param after the opaque cursor of the last prescription already read.
+     * @param pageable the pagination information; only the page size is used.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of prescriptions in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid.
+     */
+    @GetMapping(value = "/prescriptions", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<PrescriptionDTO>> getAllPrescriptionsAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER_PARAMETER) String after,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a keyset page of Prescriptions after : {}", after);
+        KeysetCursor cursor = KeysetPaginationUtil.parseCursor(after, ENTITY_NAME);
+        Slice<PrescriptionDTO> slice = prescriptionService.findAllAfter(cursor, pageable);
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            dto -> KeysetCursor.of(dto.getUpdatedDate(), dto.getId())
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /prescriptions/changes} : get the prescriptions created, updated or deleted since the last poll.
+     * <p>
+     * Without cursor, the first poll returns every prescription, or the ones updated after {@code since} for a client
+     * already holding the prescriptions as of that date, possibly with a few it already holds. Each response carries
+     * the cursor of the next poll, to be sent right away while {@code hasMore} is {@code true}.
+     *
+     * @param after the opaque cursor returned by the last poll, if any.
+     * @param since the date the client holds the prescriptions as of, when no cursor is given.
+     * @param pageable the pagination information; only the page size is used.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the changes in body,
+     * or with status {@code 400 (Bad Request)} if the cursor is not valid,
+     * or with status {@code 410 (Gone)} if the deletions after the cursor are no longer retained.
+     */
+    @GetMapping("/prescriptions/changes")
+    public ResponseEntity<PrescriptionChangesDTO> getPrescriptionChanges(
+        @RequestParam(required = false) String after,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime since,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get the changes of Prescriptions after : {}, since : {}", after, since);
+        PrescriptionChangesCursor cursor = null;
+        if (after != null && !after.isEmpty()) {
+            try {
+                cursor = PrescriptionChangesCursor.decode(after);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+            }
+        } else if (since != null) {
+            cursor = prescriptionService.findChangesCursorSince(since);
+        }
+        return ResponseEntity.ok().body(prescriptionService.findChanges(cursor, pageable.getPageSize()));
+    }
+
+    /**
+     * {@code GET  /prescriptions/events} : stream the changes of the prescriptions as Server-Sent Events.
+     * <p>
+     * Each committed change is pushed as a {@code created}, {@code updated} or {@code deleted} event, whose data is a
+     * {@link PrescriptionEventDTO}; with coalescing, a {@code created} event may be merged into the {@code updated} event
+     * following it. An {@code overflow} event tells a client too slow to keep up that it lost events, to catch up with
+     * {@code GET /prescriptions/changes}. The request holds no servlet thread while waiting for events.
+     *
+     * @param patientId the patient to receive the events of, if any.
+     * @param doctorId the doctor to receive the events of, if any.
+     * @return the event stream, closed after {@code application.prescription-events.timeout}.
+     * @throws IOException if the stream cannot be opened.
+     */
+    @GetMapping(value = "/prescriptions/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPrescriptionEvents(
+        @RequestParam(required = false) Long patientId,
+        @RequestParam(required = false) Long doctorId
+    ) throws IOException {
+        log.debug("REST request to stream the events of Prescriptions of Patient : {}, Doctor : {}", patientId, doctorId);
+        SseEmitter emitter = new SseEmitter(prescriptionEventService.getTimeout().toMillis());
+        // The response is only committed on the first write, which tells the client the stream is open
+        emitter.send(SseEmitter.event().comment("subscribed"));
+        PrescriptionEventService.Subscription subscription = prescriptionEventService.subscribe(
+            patientId,
+            doctorId,
+            new SseEmitterSink(emitter)
+        );
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
+    /**
+     * Writes the events of a subscription to its {@link SseEmitter}.
+     */
+    private static final class SseEmitterSink implements PrescriptionEventService.Sink {
+
+        private final SseEmitter emitter;
+
+        private SseEmitterSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void send(PrescriptionEventDTO event, String json) throws IOException {
+            emitter.send(SseEmitter.event().name(event.getType().name().toLowerCase(Locale.ROOT)).data(json));
+        }
+
+        @Override
+        public void sendOverflow(long dropped) throws IOException {
+            emitter.send(SseEmitter.event().name("overflow").data(dropped));
+        }
+
+        @Override
+        public void sendHeartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment(""));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+
+    /**
+     * {@code GET  /patients/:patientId/prescriptions} : get all the prescriptions of the "patientId" patient.
+     *
+     * @param patientId the id of the patient.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of prescriptions in body, most recently updated first.
+     */
+    @GetMapping("/patients/{patientId}/prescriptions")
+    public ResponseEntity<List<PrescriptionDTO>> getAllPrescriptionsOfPatient(@PathVariable Long patientId) {
+        log.debug("REST request to get all Prescriptions of Patient : {}", patientId);
+        return ResponseEntity.ok().body(prescriptionService.findAllByPatient(patientId));
+    }
+
+    /**
+     * {@code GET  /patients/:patientId/prescriptions/summary} : get the summary of the prescriptions of the "patientId" patient.
+     * <p>
+     * The summary is maintained on every write to the prescriptions, so it is read without loading them.
+     *
+     * @param patientId the id of the patient.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the summary in body: the number of active prescriptions, the
+     * daily dosage of each drug, most recently changed first, and the time of the last change.
+     */
+    @GetMapping("/patients/{patientId}/prescriptions/summary")
+    public ResponseEntity<PatientPrescriptionSummaryDTO> getPrescriptionSummaryOfPatient(@PathVariable Long patientId) {
+        log.debug("REST request to get the Prescription summary of Patient : {}", patientId);
+        return ResponseEntity.ok().body(patientPrescriptionSummaryService.findByPatient(patientId));
+    }
+
+    /**
+     * {@code GET  /doctors/:doctorId/prescriptions} : get a page of the prescriptions of the "doctorId" doctor.
+     *
+     * @param doctorId the id of the doctor.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of prescriptions in body, most recently updated first.
+     */
+    @GetMapping("/doctors/{doctorId}/prescriptions")
+    public ResponseEntity<List<PrescriptionDTO>> getAllPrescriptionsOfDoctor(
+        @PathVariable Long doctorId,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a page of Prescriptions of Doctor : {}", doctorId);
+        Page<PrescriptionDTO> page = prescriptionService.findAllByDoctor(doctorId, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /drugs/:drugId/prescriptions} : get a page of the prescriptions of the "drugId" drug.
+     *
+     * @param drugId the id of the drug.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of prescriptions in body, most recently updated first.
+     */
+    @GetMapping("/drugs/{drugId}/prescriptions")
+    public ResponseEntity<List<PrescriptionDTO>> getAllPrescriptionsOfDrug(
+        @PathVariable Long drugId,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a page of Prescriptions of Drug : {}", drugId);
+        Page<PrescriptionDTO> page = prescriptionService.findAllByDrug(drugId, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /prescriptions/export} : stream all the prescriptions matching the given filters.
+     * <p>
+     * The prescriptions are ordered by {@code (updatedDate, id)} and written as they are read, without paging or
+     * counting. CSV exports have an {@code id} column followed by the columns accepted by
+     * {@code POST /prescriptions/bulk}.
+     *
+     * @param patientId the patient to export the prescriptions of, if any.
+     * @param doctorId the doctor to export the prescriptions of, if any.
+     * @param drugId the drug to export the prescriptions of, if any.
+     * @param updatedFrom the inclusive lower bound of {@code updatedDate}, if any.
+     * @param updatedTo the exclusive upper bound of {@code updatedDate}, if any.
+     * @param format the format of the export, {@code NDJSON} by default.
+     * @param response the response to stream the prescriptions to, with status {@code 200 (OK)}.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/prescriptions/export")
+    public void exportPrescriptions(
+        @RequestParam(required = false) Long patientId,
+        @RequestParam(required = false) Long doctorId,
+        @RequestParam(required = false) Long drugId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime updatedFrom,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime updatedTo,
+        @RequestParam(defaultValue = "NDJSON") PrescriptionFileFormat format,
+        HttpServletResponse response
+    ) throws IOException {
+        log.debug("REST request to export Prescriptions as {}", format);
+        String extension = format == PrescriptionFileFormat.CSV ? "csv" : "ndjson";
+        response.setContentType(format == PrescriptionFileFormat.CSV ? "text/csv;charset=UTF-8" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename("prescriptions." + extension).build().toString()
+        );
+        prescriptionExportService.exportPrescriptions(
+            patientId,
+            doctorId,
+            drugId,
+            updatedFrom,
+            updatedTo,
+            format,
+            response.getOutputStream()
+        );
+    }
+
     /**
      * {@code GET  /prescriptions/:id} : get the "id" prescription.
      *
      * @param id the id of the prescriptionDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the prescriptionDTO, or with status {@code 404 (Not Found)}.
+     * @param request the request, checked for conditional headers.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the prescriptionDTO,
+     * or with status {@code 304 (Not Modified)} if the client holds the current prescriptionDTO, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/prescriptions/{id}")
-    public ResponseEntity<PrescriptionDTO> getPrescription(@PathVariable Long id) {
+    public ResponseEntity<PrescriptionDTO> getPrescription(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Prescription : {}", id);
+        Optional<ZonedDateTime> lastModifiedDate = prescriptionService.findLastModifiedDate(id);
+        if (lastModifiedDate.isPresent() && ConditionalRequestUtil.checkNotModified(request, id, lastModifiedDate.get())) {
+            return ConditionalRequestUtil.notModified();
+        }
         Optional<PrescriptionDTO> prescriptionDTO = prescriptionService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(prescriptionDTO);
+        return ResponseUtil.wrapOrNotFound(prescriptionDTO, ConditionalRequestUtil.generateCacheControlHttpHeaders());
     }
 
     /**
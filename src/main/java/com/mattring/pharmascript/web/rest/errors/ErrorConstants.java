@@ -6,6 +6,9 @@ public final class ErrorConstants {
 
     public static final String ERR_CONCURRENCY_FAILURE = "error.concurrencyFailure";
     public static final String ERR_VALIDATION = "error.validation";
+    public static final String ERR_LOGIN_CAPACITY_EXCEEDED = "error.loginCapacityExceeded";
+    public static final String ERR_CHANGES_CURSOR_EXPIRED = "error.changesCursorExpired";
+    public static final String ERR_DRUG_INTERACTION = "error.drugInteraction";
     public static final String PROBLEM_BASE_URL = "https://www.jhipster.tech/problem";
     public static final URI DEFAULT_TYPE = URI.create(PROBLEM_BASE_URL + "/problem-with-message");
     public static final URI CONSTRAINT_VIOLATION_TYPE = URI.create(PROBLEM_BASE_URL + "/constraint-violation");
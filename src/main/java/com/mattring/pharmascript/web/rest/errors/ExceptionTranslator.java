@@ -1,5 +1,6 @@
 package com.mattring.pharmascript.web.rest.errors;
 
+import com.mattring.pharmascript.config.ApplicationProperties;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
@@ -14,6 +15,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.validation.BindingResult;
@@ -49,8 +51,11 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
 
     private final Environment env;
 
-    public ExceptionTranslator(Environment env) {
+    private final ApplicationProperties applicationProperties;
+
+    public ExceptionTranslator(Environment env, ApplicationProperties applicationProperties) {
         this.env = env;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -158,6 +163,51 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         );
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleLoginCapacityExceededException(
+        com.mattring.pharmascript.security.LoginCapacityExceededException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.SERVICE_UNAVAILABLE)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_LOGIN_CAPACITY_EXCEEDED)
+            .build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(applicationProperties.getLogin().getRetryAfterSeconds()));
+        return create(ex, problem, request, headers);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleChangesCursorExpiredException(
+        com.mattring.pharmascript.service.ChangesCursorExpiredException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.GONE)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_CHANGES_CURSOR_EXPIRED)
+            .build();
+        return create(ex, problem, request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleDrugInteractionException(
+        com.mattring.pharmascript.service.DrugInteractionException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.CONFLICT)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_DRUG_INTERACTION)
+            .with("interactions", ex.getInteractions())
+            .build();
+        return create(ex, problem, request);
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleConcurrencyFailure(ConcurrencyFailureException ex, NativeWebRequest request) {
         Problem problem = Problem.builder().withStatus(Status.CONFLICT).with(MESSAGE_KEY, ErrorConstants.ERR_CONCURRENCY_FAILURE).build();
@@ -0,0 +1,122 @@
+package com.mattring.pharmascript.web.rest.util;
+
+import com.mattring.pharmascript.repository.CollectionVersion;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Utility class for handling conditional {@code GET} requests.
+ * <p>
+ * Entities are tagged by their id and {@code updatedDate}, and collections by their {@link CollectionVersion}, to the
+ * millisecond, which every database keeps whether the entity is read from it or from the second-level cache. Large
+ * collections are tagged by the change sequences their writes move forward instead. The version is checked against
+ * the {@code If-None-Match} and {@code If-Modified-Since} headers before the entities are read, so that a
+ * {@code 304 (Not Modified)} response never runs a mapper nor serializes a body. The responses may be stored by the
+ * client only, which must revalidate them before each use.
+ */
+public final class ConditionalRequestUtil {
+
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ConditionalRequestUtil() {}
+
+    /**
+     * Build the strong entity tag of an entity.
+     *
+     * @param id the id of the entity.
+     * @param lastModifiedDate the last modified date of the entity.
+     * @return the quoted entity tag.
+     */
+    public static String entityTag(Object id, ZonedDateTime lastModifiedDate) {
+        return "\"" + id + "-" + lastModifiedDate.toInstant().toEpochMilli() + "\"";
+    }
+
+    /**
+     * Build the strong entity tag of a collection.
+     *
+     * @param version the version of the collection.
+     * @return the quoted entity tag.
+     */
+    public static String collectionTag(CollectionVersion version) {
+        long lastModified = version.getLastModifiedDate() == null ? 0 : version.getLastModifiedDate().toInstant().toEpochMilli();
+        return "\"" + version.getCount() + "-" + lastModified + "\"";
+    }
+
+    /**
+     * Build the strong entity tag of a collection versioned by change sequences.
+     *
+     * @param sequences the values of the change sequences of the collection.
+     * @return the quoted entity tag.
+     */
+    public static String sequenceTag(List<Long> sequences) {
+        return sequences.stream().map(String::valueOf).collect(Collectors.joining("-", "\"s", "\""));
+    }
+
+    /**
+     * Check whether the client holds the current version of an entity.
+     * <p>
+     * The {@code ETag} and {@code Last-Modified} headers are added to the response either way.
+     *
+     * @param request the request.
+     * @param id the id of the entity.
+     * @param lastModifiedDate the last modified date of the entity.
+     * @return {@code true} if the response must be a {@code 304 (Not Modified)}.
+     */
+    public static boolean checkNotModified(WebRequest request, Object id, ZonedDateTime lastModifiedDate) {
+        return request.checkNotModified(entityTag(id, lastModifiedDate), lastModifiedDate.toInstant().toEpochMilli());
+    }
+
+    /**
+     * Check whether the client holds the current version of a collection.
+     * <p>
+     * The {@code ETag} header is added to the response either way. No {@code Last-Modified} header is, since deleting
+     * an entity does not move the last modified date of its collection.
+     *
+     * @param request the request.
+     * @param version the version of the collection.
+     * @return {@code true} if the response must be a {@code 304 (Not Modified)}.
+     */
+    public static boolean checkNotModified(WebRequest request, CollectionVersion version) {
+        return request.checkNotModified(collectionTag(version));
+    }
+
+    /**
+     * Check whether the client holds the current version of a collection versioned by change sequences.
+     * <p>
+     * The {@code ETag} header is added to the response either way.
+     *
+     * @param request the request.
+     * @param sequences the values of the change sequences of the collection.
+     * @return {@code true} if the response must be a {@code 304 (Not Modified)}.
+     */
+    public static boolean checkNotModified(WebRequest request, List<Long> sequences) {
+        return request.checkNotModified(sequenceTag(sequences));
+    }
+
+    /**
+     * Build a {@code 304 (Not Modified)} response.
+     *
+     * @param <T> the type of the body.
+     * @return the response, without body.
+     */
+    public static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CACHE_CONTROL).build();
+    }
+
+    /**
+     * Generate the headers of a full response to a conditional request.
+     *
+     * @return http header.
+     */
+    public static HttpHeaders generateCacheControlHttpHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CACHE_CONTROL);
+        return headers;
+    }
+}
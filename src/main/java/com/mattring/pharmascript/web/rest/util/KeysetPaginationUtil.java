@@ -0,0 +1,86 @@
+package com.mattring.pharmascript.web.rest.util;
+
+import com.mattring.pharmascript.service.dto.KeysetCursor;
+import com.mattring.pharmascript.web.rest.errors.BadRequestAlertException;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (cursor based) pagination.
+ * <p>
+ * This is the counterpart of {@link tech.jhipster.web.util.PaginationUtil} for the {@code after} query parameter:
+ * the {@code Link} header carries {@code next} and {@code first} relations, and no {@code X-Total-Count} header is
+ * written, since keyset pages never run a count query.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Parse the value of the {@code after} query parameter.
+     *
+     * @param after the raw parameter value; an empty value requests the first page.
+     * @param entityName the name of the entity, used for the error response.
+     * @return the cursor, or {@code null} for the first page.
+     * @throws BadRequestAlertException if the cursor is malformed.
+     */
+    public static KeysetCursor parseCursor(String after, String entityName) {
+        if (after == null || after.isEmpty()) {
+            return null;
+        }
+        try {
+            return KeysetCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+        }
+    }
+
+    /**
+     * Generate keyset pagination headers for a Spring Data {@link org.springframework.data.domain.Slice} object.
+     *
+     * @param uriBuilder The URI builder.
+     * @param slice The slice.
+     * @param cursorOf Function building the cursor of an element of the slice.
+     * @param <T> The type of object.
+     * @return http header.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        Slice<T> slice,
+        Function<T, KeysetCursor> cursorOf
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        int pageSize = slice.getSize();
+        StringBuilder link = new StringBuilder();
+        List<T> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            String next = cursorOf.apply(content.get(content.size() - 1)).encode();
+            link.append(prepareLink(uriBuilder, next, pageSize, "next")).append(",");
+        }
+        link.append(prepareLink(uriBuilder, "", pageSize, "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, String after, int pageSize, String relType) {
+        return MessageFormat.format(HEADER_LINK_FORMAT, preparePageUri(uriBuilder, after, pageSize), relType);
+    }
+
+    private static String preparePageUri(UriComponentsBuilder uriBuilder, String after, int pageSize) {
+        return uriBuilder
+            .replaceQueryParam("page")
+            .replaceQueryParam(AFTER_PARAMETER, after)
+            .replaceQueryParam("size", Integer.toString(pageSize))
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+    }
+}
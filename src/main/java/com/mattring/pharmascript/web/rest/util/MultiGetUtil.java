@@ -0,0 +1,45 @@
+package com.mattring.pharmascript.web.rest.util;
+
+import com.mattring.pharmascript.web.rest.errors.BadRequestAlertException;
+import java.util.List;
+
+/**
+ * Utility class for the multi-get requests, which read several entities by id at once with the {@code ids} query
+ * parameter, for example {@code GET /api/patients?ids=1,2,3}.
+ */
+public final class MultiGetUtil {
+
+    public static final String IDS_PARAMETER = "ids";
+
+    /**
+     * Maximum number of ids of one request, which keeps the {@code in} list of the query within the database limits.
+     */
+    public static final int MAX_IDS = 1000;
+
+    private MultiGetUtil() {}
+
+    /**
+     * Check the ids of a multi-get request.
+     * <p>
+     * The keyset page requests exclude the {@code ids} parameter from their mapping, so that a request with both
+     * parameters reaches the multi-get mapping and is rejected here.
+     *
+     * @param ids the requested ids.
+     * @param after the {@value KeysetPaginationUtil#AFTER_PARAMETER} parameter of the request, if any.
+     * @param entityName the name of the entity, used for the error response.
+     * @throws BadRequestAlertException if there are more than {@value #MAX_IDS} ids, or if the request also has a
+     * keyset cursor.
+     */
+    public static void checkIds(List<Long> ids, String after, String entityName) {
+        if (after != null) {
+            throw new BadRequestAlertException(
+                "The " + IDS_PARAMETER + " and " + KeysetPaginationUtil.AFTER_PARAMETER + " parameters cannot be combined",
+                entityName,
+                "idswithcursor"
+            );
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new BadRequestAlertException("At most " + MAX_IDS + " ids can be requested at once", entityName, "toomanyids");
+        }
+    }
+}
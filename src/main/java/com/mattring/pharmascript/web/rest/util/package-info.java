@@ -0,0 +1,4 @@
+/**
+ * Utilities for the Spring MVC REST controllers.
+ */
+package com.mattring.pharmascript.web.rest.util;
@@ -0,0 +1,47 @@
+package com.mattring.pharmascript.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.repository.DoctorRepository;
+import com.mattring.pharmascript.repository.DrugRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.CrudRepository;
+
+/**
+ * Integration tests for the {@link MethodTimingAspect}, on the beans of the application.
+ */
+@IntegrationTest
+class MethodTimingAspectIT {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DrugRepository drugRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    private long count(Class<?> type, String method) {
+        Timer timer = meterRegistry.find(MethodTimingAspect.METRIC_NAME).tag("class", type.getName()).tag("method", method).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void shouldTimeInheritedRepositoryMethodsPerRepository() {
+        long drugCounts = count(DrugRepository.class, "count");
+        long doctorCounts = count(DoctorRepository.class, "count");
+
+        drugRepository.count();
+        drugRepository.count();
+        doctorRepository.count();
+
+        assertThat(count(DrugRepository.class, "count")).isEqualTo(drugCounts + 2);
+        assertThat(count(DoctorRepository.class, "count")).isEqualTo(doctorCounts + 1);
+        assertThat(meterRegistry.find(MethodTimingAspect.METRIC_NAME).tag("class", CrudRepository.class.getName()).timer()).isNull();
+    }
+}
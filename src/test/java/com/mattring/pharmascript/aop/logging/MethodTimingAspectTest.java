@@ -0,0 +1,119 @@
+package com.mattring.pharmascript.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mattring.pharmascript.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.util.Map;
+import java.util.Set;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsProperties;
+import org.springframework.boot.actuate.autoconfigure.metrics.PropertiesMeterFilter;
+
+class MethodTimingAspectTest {
+
+    private MeterRegistry meterRegistry;
+
+    private ProceedingJoinPoint joinPoint;
+
+    @BeforeEach
+    void setup() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(String.class.getMethod("trim"));
+        when(signature.getDeclaringType()).thenReturn(String.class);
+        when(signature.getName()).thenReturn("trim");
+        joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getThis()).thenReturn("bean");
+    }
+
+    @Test
+    void shouldTimeEveryInvocation() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("result");
+        MethodTimingAspect aspect = new MethodTimingAspect(meterRegistry, new ApplicationProperties.MethodTiming());
+
+        assertThat(aspect.timeAround(joinPoint)).isEqualTo("result");
+        assertThat(aspect.timeAround(joinPoint)).isEqualTo("result");
+
+        Timer timer = meterRegistry.get(MethodTimingAspect.METRIC_NAME).tag("class", "java.lang.String").tag("method", "trim").timer();
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTimeFailedInvocations() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("failure"));
+        MethodTimingAspect aspect = new MethodTimingAspect(meterRegistry, new ApplicationProperties.MethodTiming());
+
+        assertThatThrownBy(() -> aspect.timeAround(joinPoint)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(meterRegistry.get(MethodTimingAspect.METRIC_NAME).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotTimeUnsampledInvocations() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("result");
+        ApplicationProperties.MethodTiming properties = new ApplicationProperties.MethodTiming();
+        properties.setSampleRate(0);
+        MethodTimingAspect aspect = new MethodTimingAspect(meterRegistry, properties);
+
+        assertThat(aspect.timeAround(joinPoint)).isEqualTo("result");
+
+        assertThat(meterRegistry.find(MethodTimingAspect.METRIC_NAME).timer()).isNull();
+    }
+
+    @Test
+    void shouldNotPublishHistogramByDefault() throws Throwable {
+        ApplicationProperties.MethodTiming properties = new ApplicationProperties.MethodTiming();
+
+        Timer timer = timeOnceWithHistogramsForAllMeters(properties);
+
+        assertThat(timer.takeSnapshot().histogramCounts()).isEmpty();
+        assertThat(timer.takeSnapshot().percentileValues()).isEmpty();
+    }
+
+    @Test
+    void shouldPublishHistogramOfListedMethod() throws Throwable {
+        ApplicationProperties.MethodTiming properties = new ApplicationProperties.MethodTiming();
+        properties.setPercentileHistogramMethods(Set.of("java.lang.String#trim"));
+
+        Timer timer = timeOnceWithHistogramsForAllMeters(properties);
+
+        assertThat(timer.takeSnapshot().histogramCounts()).isNotEmpty();
+    }
+
+    @Test
+    void shouldPublishHistogramOfListedClass() throws Throwable {
+        ApplicationProperties.MethodTiming properties = new ApplicationProperties.MethodTiming();
+        properties.setPercentileHistogramMethods(Set.of("java.lang.String"));
+
+        Timer timer = timeOnceWithHistogramsForAllMeters(properties);
+
+        assertThat(timer.takeSnapshot().histogramCounts()).isNotEmpty();
+    }
+
+    private Timer timeOnceWithHistogramsForAllMeters(ApplicationProperties.MethodTiming properties) throws Throwable {
+        meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        MetricsProperties metricsProperties = new MetricsProperties();
+        metricsProperties.getDistribution().getPercentilesHistogram().putAll(Map.of("all", true));
+        metricsProperties.getDistribution().getPercentiles().putAll(Map.of("all", new double[] { 0.5, 0.99 }));
+        meterRegistry.config().meterFilter(new PropertiesMeterFilter(metricsProperties));
+        meterRegistry.config().meterFilter(MethodTimingAspect.histogramFilter(properties));
+        MethodTimingAspect aspect = new MethodTimingAspect(meterRegistry, properties);
+
+        aspect.timeAround(joinPoint);
+
+        return meterRegistry.get(MethodTimingAspect.METRIC_NAME).timer();
+    }
+}
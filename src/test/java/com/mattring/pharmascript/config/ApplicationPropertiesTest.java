@@ -0,0 +1,59 @@
+package com.mattring.pharmascript.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Unit tests for the {@link ApplicationProperties} class.
+ */
+class ApplicationPropertiesTest {
+
+    private JHipsterProperties.Cache.Caffeine defaults;
+
+    @BeforeEach
+    public void setup() {
+        defaults = new JHipsterProperties().getCache().getCaffeine();
+        defaults.setMaxEntries(100);
+        defaults.setTimeToLiveSeconds(3600);
+    }
+
+    @Test
+    void testUnsetRegionGetsTheDefaults() {
+        ApplicationProperties.Cache.Region region = new ApplicationProperties().getCache().getRegion("unknown").resolve(defaults);
+
+        assertThat(region.getMaxEntries()).isEqualTo(100);
+        assertThat(region.getMaxWeight()).isNull();
+        assertThat(region.getTimeToLiveSeconds()).isEqualTo(3600);
+        assertThat(region.getExpireAfterAccessSeconds()).isNull();
+        assertThat(region.getValues()).isEqualTo(ApplicationProperties.Cache.Region.Values.STRONG);
+    }
+
+    @Test
+    void testWeightAndAccessExpiryReplaceTheDefaults() {
+        ApplicationProperties.Cache.Region settings = new ApplicationProperties.Cache.Region();
+        settings.setMaxWeight(1000L);
+        settings.setExpireAfterAccessSeconds(60L);
+        settings.setValues(ApplicationProperties.Cache.Region.Values.SOFT);
+
+        ApplicationProperties.Cache.Region region = settings.resolve(defaults);
+
+        assertThat(region.getMaxEntries()).isNull();
+        assertThat(region.getMaxWeight()).isEqualTo(1000);
+        assertThat(region.getTimeToLiveSeconds()).isNull();
+        assertThat(region.getExpireAfterAccessSeconds()).isEqualTo(60);
+        assertThat(region.getValues()).isEqualTo(ApplicationProperties.Cache.Region.Values.SOFT);
+    }
+
+    @Test
+    void testSizeAndWeightAreExclusive() {
+        ApplicationProperties.Cache.Region settings = new ApplicationProperties.Cache.Region();
+        settings.setMaxEntries(10L);
+        settings.setMaxWeight(1000L);
+
+        assertThatThrownBy(() -> settings.resolve(defaults)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
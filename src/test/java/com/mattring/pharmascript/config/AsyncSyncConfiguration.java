@@ -13,4 +13,14 @@ public class AsyncSyncConfiguration {
     public Executor taskExecutor() {
         return new SyncTaskExecutor();
     }
+
+    @Bean(name = "mailExecutor")
+    public Executor mailExecutor() {
+        return new SyncTaskExecutor();
+    }
+
+    @Bean(name = "prescriptionEventsExecutor")
+    public Executor prescriptionEventsExecutor() {
+        return new SyncTaskExecutor();
+    }
 }
@@ -0,0 +1,67 @@
+package com.mattring.pharmascript.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link BoundedDataSource} class.
+ */
+class BoundedDataSourceTest {
+
+    private DataSource target;
+
+    private Connection connection;
+
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    public void setup() throws SQLException {
+        target = mock(DataSource.class);
+        connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new BoundedDataSource(target, 2, 10);
+    }
+
+    @Test
+    void testConnectionsBeyondTheLimitTimeOut() throws SQLException {
+        dataSource.getConnection();
+        dataSource.getConnection();
+        assertThat(dataSource.getAvailableConnections()).isZero();
+
+        assertThatThrownBy(() -> dataSource.getConnection()).isInstanceOf(SQLTransientConnectionException.class);
+        verify(target, times(2)).getConnection();
+    }
+
+    @Test
+    void testClosingAConnectionReleasesItOnce() throws SQLException {
+        Connection bounded = dataSource.getConnection();
+        bounded.close();
+        bounded.close();
+
+        assertThat(dataSource.getAvailableConnections()).isEqualTo(2);
+        verify(connection).close();
+    }
+
+    @Test
+    void testFailedConnectionIsReleased() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("Database unavailable"));
+
+        assertThatThrownBy(() -> dataSource.getConnection()).hasMessage("Database unavailable");
+        assertThat(dataSource.getAvailableConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void testOtherCallsAreDelegated() throws SQLException {
+        dataSource.getConnection().commit();
+
+        verify(connection).commit();
+    }
+}
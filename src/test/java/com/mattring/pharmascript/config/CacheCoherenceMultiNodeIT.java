@@ -0,0 +1,291 @@
+package com.mattring.pharmascript.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mattring.pharmascript.PharmascriptApp;
+import com.mattring.pharmascript.security.AuthoritiesConstants;
+import com.mattring.pharmascript.security.jwt.TokenProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Integration tests of the cache coherence between two nodes in two JVMs, with their second-level and user caches on,
+ * sharing an H2 database served by the first node.
+ * <p>
+ * Each test first changes the database behind the nodes' backs, to check that the second node serves its cache, then
+ * makes a change through the first node, which the second node must see.
+ */
+@Timeout(value = 1, unit = TimeUnit.MINUTES)
+class CacheCoherenceMultiNodeIT {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private static final Duration INVALIDATION_TIMEOUT = Duration.ofSeconds(15);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    private static String databaseUrl;
+
+    private static ConfigurableApplicationContext nodeA;
+
+    private static Process nodeB;
+
+    private static String urlA;
+
+    private static String urlB;
+
+    private static String adminToken;
+
+    @BeforeAll
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    static void startNodes() throws Exception {
+        File database = Paths.get("target", "h2db", "cache-coherence-" + UUID.randomUUID()).toAbsolutePath().toFile();
+        databaseUrl = "jdbc:h2:file:" + database + ";AUTO_SERVER=TRUE;DB_CLOSE_DELAY=-1;MODE=LEGACY";
+        int portA = freePort();
+        int portB = freePort();
+        urlA = "http://localhost:" + portA;
+        urlB = "http://localhost:" + portB;
+
+        nodeA =
+            new SpringApplicationBuilder(PharmascriptApp.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("testdev")
+                .run(nodeProperties(portA).stream().map(property -> "--" + property).toArray(String[]::new));
+        adminToken =
+            nodeA
+                .getBean(TokenProvider.class)
+                .createToken(
+                    new UsernamePasswordAuthenticationToken(
+                        "admin",
+                        "admin",
+                        Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN))
+                    ),
+                    false
+                );
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx512m");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PharmascriptApp.class.getName());
+        command.add("--spring.profiles.active=testdev");
+        nodeProperties(portB).forEach(property -> command.add("--" + property));
+        nodeB =
+            new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(Paths.get("target", "cache-coherence-node-b.log").toFile())
+                .start();
+        awaitStarted(urlB);
+    }
+
+    @AfterAll
+    static void stopNodes() throws InterruptedException {
+        if (nodeB != null) {
+            nodeB.destroy();
+            if (!nodeB.waitFor(30, TimeUnit.SECONDS)) {
+                nodeB.destroyForcibly();
+            }
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    private static List<String> nodeProperties(int port) {
+        return List.of(
+            "server.port=" + port,
+            "logging.level.root=WARN",
+            "spring.datasource.url=" + databaseUrl,
+            "spring.datasource.username=pharmascript",
+            "spring.datasource.password=",
+            "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+            "application.cache.coherence.mode=jdbc",
+            "application.cache.coherence.publish-interval-ms=50",
+            "application.cache.coherence.poll-interval-ms=200",
+            // Left to the invalidations rather than to the periodic check of the drug table
+            "application.drug-catalog.check-interval=PT1H"
+        );
+    }
+
+    @Test
+    void testEntityUpdatedOnOneNodeIsReadOnTheOther() throws Exception {
+        ObjectNode drug = objectMapper.createObjectNode();
+        drug.put("maker", "Coherent Labs");
+        drug.put("brandName", "Cohera");
+        drug.put("genericName", "coherensine");
+        drug.put("createdDate", "2023-04-24T00:00:00Z");
+        drug.put("updatedDate", "2023-04-24T00:00:00Z");
+        JsonNode created = objectMapper.readTree(send(urlA, "POST", "/api/drugs", drug, 201).body());
+        long id = created.get("id").asLong();
+        assertThat(getJson(urlB, "/api/drugs/" + id).get("brandName").asText()).isEqualTo("Cohera");
+
+        updateDatabase("update drug set brand_name = 'Behind the cache' where id = ?", id);
+        assertThat(getJson(urlB, "/api/drugs/" + id).get("brandName").asText()).isEqualTo("Cohera");
+
+        ObjectNode update = (ObjectNode) created;
+        update.put("brandName", "Cohera Forte");
+        send(urlA, "PUT", "/api/drugs/" + id, update, 200);
+        awaitUntil(() -> getJson(urlB, "/api/drugs/" + id), body -> "Cohera Forte".equals(body.get("brandName").asText()));
+    }
+
+    @Test
+    void testDrugCatalogAndPrescriptionLookupsChangedOnOneNodeAreReadOnTheOther() throws Exception {
+        assertThat(getJson(urlB, "/api/drugs/search?prefix=coherol")).isEmpty();
+        ObjectNode drug = objectMapper.createObjectNode();
+        drug.put("maker", "Coherent Labs");
+        drug.put("brandName", "Coherol");
+        drug.put("genericName", "coherolimus");
+        drug.put("createdDate", "2023-04-24T00:00:00Z");
+        drug.put("updatedDate", "2023-04-24T00:00:00Z");
+        long drugId = objectMapper.readTree(send(urlA, "POST", "/api/drugs", drug, 201).body()).get("id").asLong();
+        awaitUntil(() -> getJson(urlB, "/api/drugs/search?prefix=coherol"), body -> body.size() == 1);
+
+        ObjectNode patient = objectMapper.createObjectNode();
+        patient.put("firstName", "Cora");
+        patient.put("lastName", "Herent");
+        patient.put("birthdate", "1970-01-01");
+        patient.put("createdDate", "2023-04-24T00:00:00Z");
+        patient.put("updatedDate", "2023-04-24T00:00:00Z");
+        long patientId = objectMapper.readTree(send(urlA, "POST", "/api/patients", patient, 201).body()).get("id").asLong();
+        String lookup = "/api/patients/" + patientId + "/prescriptions";
+        assertThat(getJson(urlB, lookup)).isEmpty();
+
+        ObjectNode prescription = objectMapper.createObjectNode();
+        prescription.put("dosageAmount", 1);
+        prescription.put("dosageInterval", 24);
+        prescription.put("createdDate", "2023-04-24T00:00:00Z");
+        prescription.put("updatedDate", "2023-04-24T00:00:00Z");
+        prescription.putObject("patient").put("id", patientId);
+        prescription.putObject("drug").put("id", drugId);
+        send(urlA, "POST", "/api/prescriptions", prescription, 201);
+        awaitUntil(() -> getJson(urlB, lookup), body -> body.size() == 1);
+    }
+
+    @Test
+    void testUserDeactivatedOnOneNodeCannotLogInOnTheOther() throws Exception {
+        assertThat(authenticate(urlB, "user")).isEqualTo(200);
+
+        updateDatabase("update jhi_user set activated = false where login = ?", "user");
+        assertThat(authenticate(urlB, "user")).isEqualTo(200);
+
+        ObjectNode user = (ObjectNode) getJson(urlA, "/api/admin/users/user");
+        user.put("activated", false);
+        send(urlA, "PUT", "/api/admin/users", user, 200);
+        awaitUntil(() -> authenticate(urlB, "user"), status -> status == 401);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitStarted(String url) throws Exception {
+        Instant deadline = Instant.now().plus(STARTUP_TIMEOUT);
+        while (Instant.now().isBefore(deadline)) {
+            if (!nodeB.isAlive()) {
+                throw new IllegalStateException("Node B exited with " + nodeB.exitValue() + ", see target/cache-coherence-node-b.log");
+            }
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/management/health")).build();
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Node B not started after " + STARTUP_TIMEOUT + ", see target/cache-coherence-node-b.log");
+    }
+
+    private static void updateDatabase(String sql, Object parameter) throws SQLException {
+        try (
+            Connection connection = DriverManager.getConnection(databaseUrl, "pharmascript", "");
+            PreparedStatement statement = connection.prepareStatement(sql)
+        ) {
+            statement.setObject(1, parameter);
+            assertThat(statement.executeUpdate()).isEqualTo(1);
+        }
+    }
+
+    private static HttpResponse<String> send(String url, String method, String path, JsonNode body, int expectedStatus)
+        throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest
+            .newBuilder(URI.create(url + path))
+            .header("Authorization", "Bearer " + adminToken)
+            .header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("%s %s%s: %s", method, url, path, response.body()).isEqualTo(expectedStatus);
+        return response;
+    }
+
+    private static JsonNode getJson(String url, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path)).header("Authorization", "Bearer " + adminToken).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as("GET %s%s: %s", url, path, response.body()).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+
+    private static int authenticate(String url, String login) throws IOException, InterruptedException {
+        ObjectNode credentials = objectMapper.createObjectNode();
+        credentials.put("username", login);
+        credentials.put("password", login);
+        HttpRequest request = HttpRequest
+            .newBuilder(URI.create(url + "/api/authenticate"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(credentials)))
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static <T> void awaitUntil(Request<T> request, Predicate<T> condition) throws Exception {
+        Instant deadline = Instant.now().plus(INVALIDATION_TIMEOUT);
+        T last = request.send();
+        while (!condition.test(last) && Instant.now().isBefore(deadline)) {
+            Thread.sleep(100);
+            last = request.send();
+        }
+        assertThat(condition.test(last)).as("Node B still answers %s after %s", last, INVALIDATION_TIMEOUT).isTrue();
+    }
+
+    @FunctionalInterface
+    private interface Request<T> {
+        T send() throws Exception;
+    }
+}
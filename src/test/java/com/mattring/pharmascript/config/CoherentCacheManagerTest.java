@@ -0,0 +1,49 @@
+package com.mattring.pharmascript.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+/**
+ * Unit tests for the {@link CoherentCacheManager} class.
+ */
+class CoherentCacheManagerTest {
+
+    private CacheCoherence cacheCoherence;
+
+    private CoherentCacheManager.CoherentCache cache;
+
+    @BeforeEach
+    public void setup() {
+        cacheCoherence = mock(CacheCoherence.class);
+        Cache users = new CoherentCacheManager(new ConcurrentMapCacheManager("users"), cacheCoherence).getCache("users");
+        cache = (CoherentCacheManager.CoherentCache) users;
+    }
+
+    @Test
+    void testEvictAllSendsOneInvalidationWithAllTheKeys() {
+        cache.put("alice", 1);
+        cache.put("bob", 2);
+        cache.put("carol", 3);
+
+        cache.evictAll(List.of("alice", "bob"));
+
+        assertThat(cache.get("alice")).isNull();
+        assertThat(cache.get("bob")).isNull();
+        assertThat(cache.get("carol")).isNotNull();
+        verify(cacheCoherence).invalidate(CacheInvalidation.ofKeys("users", List.of("alice", "bob")));
+        verifyNoMoreInteractions(cacheCoherence);
+    }
+
+    @Test
+    void testEvictAllWithoutKeysSendsNothing() {
+        cache.evictAll(List.of());
+
+        verifyNoInteractions(cacheCoherence);
+    }
+}
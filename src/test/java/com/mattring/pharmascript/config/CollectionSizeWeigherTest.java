@@ -0,0 +1,26 @@
+package com.mattring.pharmascript.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link CollectionSizeWeigher} class.
+ */
+class CollectionSizeWeigherTest {
+
+    private final CollectionSizeWeigher weigher = new CollectionSizeWeigher();
+
+    @Test
+    void testCollectionsWeighTheirSizePlusOne() {
+        assertThat(weigher.weigh(1L, List.of(1L, 2L, 3L))).isEqualTo(4);
+        assertThat(weigher.weigh(1L, List.of())).isEqualTo(1);
+    }
+
+    @Test
+    void testOtherValuesWeighOne() {
+        assertThat(weigher.weigh(1L, "value")).isEqualTo(1);
+        assertThat(weigher.weigh(1L, null)).isEqualTo(1);
+    }
+}
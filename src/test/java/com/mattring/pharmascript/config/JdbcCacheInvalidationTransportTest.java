@@ -0,0 +1,55 @@
+package com.mattring.pharmascript.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the serialization of the keys of the {@link JdbcCacheInvalidationTransport} class.
+ */
+class JdbcCacheInvalidationTransportTest {
+
+    @Test
+    void testSingleKeyRoundTrip() {
+        CacheInvalidation invalidation = CacheInvalidation.of("users", "alice");
+
+        List<String> keys = JdbcCacheInvalidationTransport.serialize(invalidation);
+
+        assertThat(keys).hasSize(1);
+        assertThat(JdbcCacheInvalidationTransport.deserialize("users", keys.get(0))).isEqualTo(invalidation);
+    }
+
+    @Test
+    void testSeveralKeysRoundTripInOneRow() {
+        CacheInvalidation invalidation = CacheInvalidation.ofKeys("users", List.of("alice", "bob"));
+
+        List<String> keys = JdbcCacheInvalidationTransport.serialize(invalidation);
+
+        assertThat(keys).hasSize(1);
+        assertThat(JdbcCacheInvalidationTransport.deserialize("users", keys.get(0))).isEqualTo(invalidation);
+    }
+
+    @Test
+    void testKeysTooLongForOneRowAreSplit() {
+        List<String> logins = IntStream.range(0, 1000).mapToObj(i -> "user-" + i).collect(Collectors.toList());
+
+        List<String> keys = JdbcCacheInvalidationTransport.serialize(CacheInvalidation.ofKeys("users", logins));
+
+        assertThat(keys).hasSizeGreaterThan(1).allSatisfy(key -> assertThat(key).hasSizeLessThanOrEqualTo(JdbcCacheInvalidationTransport.MAX_KEY_LENGTH));
+        List<Object> received = new ArrayList<>();
+        keys.forEach(key -> received.addAll(JdbcCacheInvalidationTransport.deserialize("users", key).getKeys()));
+        assertThat(received).containsExactlyElementsOf(logins);
+    }
+
+    @Test
+    void testKeyWhichIsNotSerializableInvalidatesTheWholeCache() {
+        List<String> keys = JdbcCacheInvalidationTransport.serialize(CacheInvalidation.ofKeys("users", List.of("alice", new Object())));
+
+        assertThat(keys).containsExactly((String) null);
+        assertThat(JdbcCacheInvalidationTransport.deserialize("users", null).isAll()).isTrue();
+    }
+}
@@ -0,0 +1,31 @@
+package com.mattring.pharmascript.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.domain.Patient;
+import com.mattring.pharmascript.repository.PrescriptionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for the {@link CacheRegionsEndpoint}.
+ */
+@IntegrationTest
+class CacheRegionsEndpointIT {
+
+    @Autowired
+    private CacheRegionsEndpoint cacheRegionsEndpoint;
+
+    @Test
+    void reportsHibernateRegionsAndLookupCaches() {
+        assertThat(cacheRegionsEndpoint.cacheRegions())
+            .containsKeys(
+                Patient.class.getName(),
+                Patient.class.getName() + ".prescriptions",
+                PrescriptionRepository.PRESCRIPTIONS_BY_PATIENT_CACHE
+            );
+        assertThat(cacheRegionsEndpoint.cacheRegions().get(Patient.class.getName() + ".prescriptions").getSettings())
+            .contains("maxWeight");
+    }
+}
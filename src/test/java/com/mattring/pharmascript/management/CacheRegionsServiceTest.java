@@ -0,0 +1,79 @@
+package com.mattring.pharmascript.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link CacheRegionsService} class.
+ */
+class CacheRegionsServiceTest {
+
+    private MeterRegistry meterRegistry;
+
+    private CacheRegionsService cacheRegionsService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cacheRegionsService = new CacheRegionsService(meterRegistry);
+    }
+
+    @Test
+    void testStatsOfANativeCache() {
+        Cache<Long, List<String>> cache = Caffeine.newBuilder().maximumSize(10).recordStats().executor(Runnable::run).build();
+        cacheRegionsService.registerNativeCache("test", cache, "maxEntries=10");
+
+        cache.put(1L, List.of("a", "b"));
+        cache.getIfPresent(1L);
+        cache.getIfPresent(2L);
+
+        CacheRegionsService.CacheRegionStats stats = cacheRegionsService.getStats().get("test");
+        assertThat(stats.getSettings()).isEqualTo("maxEntries=10");
+        assertThat(stats.getEstimatedSize()).isEqualTo(1);
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+        assertThat(stats.getEvictionCount()).isZero();
+        assertThat(stats.getEstimatedMemoryBytes()).isPositive();
+    }
+
+    @Test
+    void testNativeCachesUseTheTagKeysOfJCacheRegions() {
+        Cache<Long, String> cache = Caffeine.newBuilder().recordStats().build();
+        cacheRegionsService.registerNativeCache("test", cache, "");
+
+        cache.getIfPresent(1L);
+
+        assertThat(
+            meterRegistry
+                .get("cache.gets")
+                .tag("cache", "test")
+                .tag("cache.manager", CacheRegionsService.NATIVE_CACHE_MANAGER)
+                .tag("name", "test")
+                .tag("result", "miss")
+                .functionCounter()
+                .count()
+        )
+            .isEqualTo(1);
+    }
+
+    @Test
+    void testRegionsAreNotBoundTwice() {
+        cacheRegionsService.registerRegion("region", Caffeine.newBuilder().recordStats().build(), "");
+
+        assertThat(cacheRegionsService.getStats()).containsKey("region");
+        assertThat(meterRegistry.find("cache.gets").tag("cache", "region").meters()).isEmpty();
+    }
+
+    @Test
+    void testMemoryOfAnEmptyCache() {
+        assertThat(CacheRegionsService.estimateMemory(Caffeine.newBuilder().build())).isZero();
+    }
+}
@@ -3,9 +3,11 @@ package com.mattring.pharmascript.management;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -13,6 +15,8 @@ class SecurityMetersServiceTests {
 
     private static final String INVALID_TOKENS_METER_EXPECTED_NAME = "security.authentication.invalid-tokens";
 
+    private static final String STAGE_METER_EXPECTED_NAME = "security.authentication.stage";
+
     private MeterRegistry meterRegistry;
 
     private SecurityMetersService securityMetersService;
@@ -67,4 +71,31 @@ class SecurityMetersServiceTests {
 
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter().count()).isEqualTo(1);
     }
+
+    @Test
+    void testStageTimersAreBoundToCorrectStages() {
+        securityMetersService.recordJwtFilter(1_000_000);
+        securityMetersService.recordTokenVerification(2_000_000);
+        securityMetersService.recordUserDetails(3_000_000);
+
+        assertThat(meterRegistry.get(STAGE_METER_EXPECTED_NAME).timers()).hasSize(3);
+        assertThat(meterRegistry.get(STAGE_METER_EXPECTED_NAME).tag("stage", "jwt-filter").timer().totalTime(TimeUnit.MILLISECONDS))
+            .isEqualTo(1);
+        assertThat(
+            meterRegistry.get(STAGE_METER_EXPECTED_NAME).tag("stage", "token-verification").timer().totalTime(TimeUnit.MILLISECONDS)
+        )
+            .isEqualTo(2);
+        assertThat(meterRegistry.get(STAGE_METER_EXPECTED_NAME).tag("stage", "user-details").timer().totalTime(TimeUnit.MILLISECONDS))
+            .isEqualTo(3);
+    }
+
+    @Test
+    void testTokenSizesAreRecorded() {
+        securityMetersService.recordTokenSize(180);
+        securityMetersService.recordTokenSize(220);
+
+        DistributionSummary tokenSize = meterRegistry.get("security.authentication.token-size").summary();
+        assertThat(tokenSize.count()).isEqualTo(2);
+        assertThat(tokenSize.max()).isEqualTo(220);
+    }
 }
@@ -0,0 +1,162 @@
+package com.mattring.pharmascript.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.service.PrescriptionQueryService;
+import com.mattring.pharmascript.service.PrescriptionService;
+import com.mattring.pharmascript.service.criteria.PrescriptionCriteria;
+import com.mattring.pharmascript.service.dto.KeysetCursor;
+import com.mattring.pharmascript.service.dto.PrescriptionChangesCursor;
+import com.mattring.pharmascript.service.dto.PrescriptionChangesCursor.Position;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Checks with H2's {@code EXPLAIN} that the reads of {@link PrescriptionQueryService} and {@link PrescriptionService}
+ * are served by the indexes of the {@code prescription} and {@code prescription_tombstone} tables.
+ * <p>
+ * The statements are the ones Hibernate sends, captured by a {@link StatementInspector}, and explained with their
+ * parameters unset, which H2 plans without. Skipped on other databases, whose plan output differs.
+ */
+@IntegrationTest
+@Transactional
+@TestPropertySource(
+    properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+    "com.mattring.pharmascript.repository.PrescriptionIndexesIT$CapturedStatements"
+)
+class PrescriptionIndexesIT {
+
+    @Autowired
+    private PrescriptionQueryService prescriptionQueryService;
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void assumeH2() throws Exception {
+        String databaseProductName = JdbcUtils.extractDatabaseMetaData(
+            jdbcTemplate.getDataSource(),
+            DatabaseMetaData::getDatabaseProductName
+        );
+        assumeThat(databaseProductName).isEqualTo("H2");
+        CapturedStatements.STATEMENTS.clear();
+    }
+
+    @Test
+    void patientFilterUsesThePatientIdUpdatedDateIndex() {
+        PrescriptionCriteria criteria = new PrescriptionCriteria();
+        criteria.patientId().setEquals(1L);
+        criteria.updatedDate().setGreaterThanOrEqual(ZonedDateTime.now());
+
+        prescriptionQueryService.findByCriteria(criteria, PageRequest.of(0, 20));
+
+        assertThat(explainCaptured("from prescription "))
+            .allSatisfy(plan -> assertThat(plan).contains("IDX_PRESCRIPTION__PATIENT_ID_UPDATED_DATE"));
+    }
+
+    @Test
+    void doctorFilterUsesTheDoctorIdUpdatedDateIndex() {
+        PrescriptionCriteria criteria = new PrescriptionCriteria();
+        criteria.doctorId().setEquals(1L);
+        criteria.updatedDate().setGreaterThanOrEqual(ZonedDateTime.now());
+
+        prescriptionQueryService.findByCriteria(criteria, PageRequest.of(0, 20));
+
+        assertThat(explainCaptured("from prescription "))
+            .allSatisfy(plan -> assertThat(plan).contains("IDX_PRESCRIPTION__DOCTOR_ID_UPDATED_DATE"));
+    }
+
+    @Test
+    void drugFilterUsesTheDrugIdUpdatedDateIndex() {
+        PrescriptionCriteria criteria = new PrescriptionCriteria();
+        criteria.drugId().setEquals(1L);
+        criteria.updatedDate().setGreaterThanOrEqual(ZonedDateTime.now());
+
+        prescriptionQueryService.findByCriteria(criteria, PageRequest.of(0, 20));
+
+        assertThat(explainCaptured("from prescription "))
+            .allSatisfy(plan -> assertThat(plan).contains("IDX_PRESCRIPTION__DRUG_ID_UPDATED_DATE"));
+    }
+
+    @Test
+    void keysetPageUsesTheUpdatedDateIdIndex() {
+        prescriptionService.findAllAfter(KeysetCursor.of(ZonedDateTime.now(), 0L), PageRequest.of(0, 20));
+
+        assertThat(explainCaptured("from prescription "))
+            .allSatisfy(plan -> assertThat(plan).contains("IDX_PRESCRIPTION__UPDATED_DATE_ID"));
+    }
+
+    @Test
+    void changeFeedUsesTheChangeSequenceIdIndexes() {
+        prescriptionService.findChanges(PrescriptionChangesCursor.of(Position.before(0L), Position.before(0L)), 20);
+
+        assertThat(explainCaptured("from prescription "))
+            .allSatisfy(plan -> assertThat(plan).contains("IDX_PRESCRIPTION__CHANGE_SEQUENCE_ID"));
+        assertThat(explainCaptured("from prescription_tombstone "))
+            .allSatisfy(plan -> assertThat(plan).contains("IDX_PRESCRIPTION_TOMBSTONE__CHANGE_SEQUENCE_ID"));
+    }
+
+    /**
+     * Explain the captured statements reading the given table.
+     *
+     * @param from the {@code from} clause of the statements, which tells the table they read.
+     * @return the plans, at least one.
+     */
+    private List<String> explainCaptured(String from) {
+        List<String> statements = CapturedStatements.STATEMENTS
+            .stream()
+            .filter(sql -> sql.startsWith("select") && sql.contains(from))
+            .collect(Collectors.toList());
+        assertThat(statements).as("statements %s", from).isNotEmpty();
+        return statements.stream().map(this::explain).collect(Collectors.toList());
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute(
+            connection -> connection.prepareStatement("explain " + sql),
+            (PreparedStatement statement) -> {
+                int parameterCount = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameterCount; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        );
+    }
+
+    /**
+     * Records the statements Hibernate prepares, unchanged.
+     */
+    public static class CapturedStatements implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mattring.pharmascript.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mattring.pharmascript.management.SecurityMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Test class for the {@link BoundedPasswordEncoder} class.
+ */
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService callers;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void testMatchesAndUpgradeAreDelegated() {
+        BoundedPasswordEncoder encoder = encoder(new BCryptPasswordEncoder(5), 1, 1, 10000);
+        String encoded = encoder.encode("password");
+
+        assertThat(encoder.matches("password", encoded)).isTrue();
+        assertThat(encoder.matches("wrong", encoded)).isFalse();
+        assertThat(encoder.upgradeEncoding(encoded)).isFalse();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+    }
+
+    @Test
+    void testVerificationsBeyondTheQueueAreRejected() throws Exception {
+        BoundedPasswordEncoder encoder = encoder(new BlockingPasswordEncoder(), 1, 1, 10000);
+        callers.submit(() -> encoder.matches("first", "first"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        callers.submit(() -> encoder.matches("queued", "queued"));
+        waitForQueueSize(encoder, 1);
+
+        assertThatThrownBy(() -> encoder.matches("rejected", "rejected")).isInstanceOf(LoginCapacityExceededException.class);
+        assertThat(meterRegistry.get(SecurityMetersService.REJECTED_LOGINS_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(SecurityMetersService.LOGIN_QUEUE_METER_NAME).gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void testVerificationsWaitingTooLongAreRejected() {
+        BoundedPasswordEncoder encoder = encoder(new BlockingPasswordEncoder(), 1, 1, 50);
+
+        assertThatThrownBy(() -> encoder.matches("slow", "slow")).isInstanceOf(LoginCapacityExceededException.class);
+        assertThat(meterRegistry.get(SecurityMetersService.REJECTED_LOGINS_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    private BoundedPasswordEncoder encoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMs) {
+        SecurityMetersService securityMetersService = new SecurityMetersService(meterRegistry);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, threads, queueCapacity, timeoutMs, securityMetersService);
+        securityMetersService.registerLoginQueue(encoder::getQueueSize);
+        return encoder;
+    }
+
+    private static void waitForQueueSize(BoundedPasswordEncoder encoder, int size) throws InterruptedException {
+        for (int i = 0; i < 500 && encoder.getQueueSize() < size; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(encoder.getQueueSize()).isEqualTo(size);
+    }
+
+    private class BlockingPasswordEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.mattring.pharmascript.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Test class for the {@link GrantedAuthorities} utility class.
+ */
+class GrantedAuthoritiesTest {
+
+    @Test
+    void testAuthoritiesAreInterned() {
+        assertThat(GrantedAuthorities.of(AuthoritiesConstants.ADMIN)).isSameAs(GrantedAuthorities.of(AuthoritiesConstants.ADMIN));
+        assertThat(GrantedAuthorities.of(AuthoritiesConstants.ADMIN)).isEqualTo(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN));
+    }
+
+    @Test
+    void testClaimsAreSplitIntoInternedAuthorities() {
+        List<GrantedAuthority> authorities = GrantedAuthorities.fromClaim(AuthoritiesConstants.ADMIN + ",," + AuthoritiesConstants.USER);
+
+        assertThat(authorities)
+            .containsExactly(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN), new SimpleGrantedAuthority(AuthoritiesConstants.USER));
+        assertThat(authorities.get(0)).isSameAs(GrantedAuthorities.of(AuthoritiesConstants.ADMIN));
+        assertThat(GrantedAuthorities.fromClaim(AuthoritiesConstants.ADMIN + ",," + AuthoritiesConstants.USER)).isSameAs(authorities);
+    }
+
+    @Test
+    void testEmptyClaimHasNoAuthorities() {
+        assertThat(GrantedAuthorities.fromClaim("")).isEmpty();
+    }
+}
@@ -2,6 +2,8 @@ package com.mattring.pharmascript.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.management.CacheRegionsService;
 import com.mattring.pharmascript.management.SecurityMetersService;
 import com.mattring.pharmascript.security.AuthoritiesConstants;
 import io.jsonwebtoken.io.Decoders;
@@ -34,11 +36,16 @@ class JWTFilterTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            new ApplicationProperties(),
+            securityMetersService,
+            new CacheRegionsService(new SimpleMeterRegistry())
+        );
         ReflectionTestUtils.setField(tokenProvider, "key", Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
 
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
-        jwtFilter = new JWTFilter(tokenProvider);
+        jwtFilter = new JWTFilter(tokenProvider, securityMetersService);
         SecurityContextHolder.getContext().setAuthentication(null);
     }
 
@@ -2,6 +2,8 @@ package com.mattring.pharmascript.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.management.CacheRegionsService;
 import com.mattring.pharmascript.management.SecurityMetersService;
 import com.mattring.pharmascript.security.AuthoritiesConstants;
 import io.jsonwebtoken.Jwts;
@@ -43,7 +45,12 @@ class TokenProviderSecurityMetersTests {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(meterRegistry);
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            new ApplicationProperties(),
+            securityMetersService,
+            new CacheRegionsService(new SimpleMeterRegistry())
+        );
         Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -74,6 +81,28 @@ class TokenProviderSecurityMetersTests {
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "expired").counter().count()).isEqualTo(1);
     }
 
+    @Test
+    void testTokenExpiredIsCountedEveryTimeItIsPresented() {
+        String expiredToken = createExpiredToken();
+
+        tokenProvider.getVerifiedAuthentication(expiredToken);
+        tokenProvider.getVerifiedAuthentication(expiredToken);
+
+        assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "expired").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testCachedValidTokenShouldNotCountAnything() {
+        Collection<Counter> counters = meterRegistry.find(INVALID_TOKENS_METER_EXPECTED_NAME).counters();
+
+        String validToken = createValidToken();
+
+        tokenProvider.getVerifiedAuthentication(validToken);
+        tokenProvider.getVerifiedAuthentication(validToken);
+
+        assertThat(aggregate(counters)).isZero();
+    }
+
     @Test
     void testTokenUnsupportedCount() {
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "unsupported").counter().count()).isZero();
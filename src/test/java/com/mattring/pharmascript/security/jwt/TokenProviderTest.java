@@ -2,6 +2,8 @@ package com.mattring.pharmascript.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.management.CacheRegionsService;
 import com.mattring.pharmascript.management.SecurityMetersService;
 import com.mattring.pharmascript.security.AuthoritiesConstants;
 import io.jsonwebtoken.Jwts;
@@ -27,6 +29,7 @@ class TokenProviderTest {
 
     private Key key;
     private TokenProvider tokenProvider;
+    private CacheRegionsService cacheRegionsService;
 
     @BeforeEach
     public void setup() {
@@ -36,7 +39,9 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        cacheRegionsService = new CacheRegionsService(new SimpleMeterRegistry());
+
+        tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(), securityMetersService, cacheRegionsService);
         key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -88,6 +93,31 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testVerifiedAuthenticationIsCached() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication first = tokenProvider.getVerifiedAuthentication(token).orElseThrow();
+        Authentication second = tokenProvider.getVerifiedAuthentication(token).orElseThrow();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getName()).isEqualTo("anonymous");
+        assertThat(second.getAuthorities()).isEqualTo(first.getAuthorities());
+        assertThat(second.getCredentials()).isEqualTo(token);
+        CacheRegionsService.CacheRegionStats stats = cacheRegionsService.getStats().get(TokenProvider.VERIFIED_TOKENS_CACHE);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidTokensAreNotCached() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.getVerifiedAuthentication(token.substring(1))).isEmpty();
+        assertThat(tokenProvider.getVerifiedAuthentication(createTokenWithDifferentSignature())).isEmpty();
+        assertThat(cacheRegionsService.getStats().get(TokenProvider.VERIFIED_TOKENS_CACHE).getEstimatedSize()).isZero();
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
@@ -96,7 +126,12 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            new ApplicationProperties(),
+            securityMetersService,
+            new CacheRegionsService(new SimpleMeterRegistry())
+        );
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
@@ -110,7 +145,12 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            new ApplicationProperties(),
+            securityMetersService,
+            new CacheRegionsService(new SimpleMeterRegistry())
+        );
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
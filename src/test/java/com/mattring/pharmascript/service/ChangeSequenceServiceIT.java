@@ -0,0 +1,92 @@
+package com.mattring.pharmascript.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.domain.PrescriptionTombstone;
+import com.mattring.pharmascript.repository.PrescriptionTombstoneRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link ChangeSequenceService}.
+ * <p>
+ * The sequences only move when a transaction commits, so the tests commit their transactions.
+ */
+@IntegrationTest
+class ChangeSequenceServiceIT {
+
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+
+    @Autowired
+    private PrescriptionTombstoneRepository prescriptionTombstoneRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private long value(String name) {
+        return changeSequenceService.findValues(name).get(0);
+    }
+
+    @Test
+    void incrementOnCommitMovesEachSequenceOncePerTransaction() {
+        long drug = value(ChangeSequenceService.DRUG);
+        long patient = value(ChangeSequenceService.PATIENT);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            changeSequenceService.incrementOnCommit(ChangeSequenceService.PATIENT);
+            changeSequenceService.incrementOnCommit(ChangeSequenceService.DRUG);
+            changeSequenceService.incrementOnCommit(ChangeSequenceService.PATIENT);
+            // Not moved before the commit
+            assertThat(value(ChangeSequenceService.PATIENT)).isEqualTo(patient);
+        });
+
+        assertThat(changeSequenceService.findValues(ChangeSequenceService.PATIENT, ChangeSequenceService.DRUG))
+            .containsExactly(patient + 1, drug + 1);
+    }
+
+    @Test
+    void incrementOnCommitLeavesTheSequenceOfARollback() {
+        long doctor = value(ChangeSequenceService.DOCTOR);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            changeSequenceService.incrementOnCommit(ChangeSequenceService.DOCTOR);
+            status.setRollbackOnly();
+        });
+
+        assertThat(value(ChangeSequenceService.DOCTOR)).isEqualTo(doctor);
+    }
+
+    @Test
+    void assignOnCommitGivesTheNewValueToTheRowsOfTheTransaction() {
+        long prescription = value(ChangeSequenceService.PRESCRIPTION);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                prescriptionTombstoneRepository.save(new PrescriptionTombstone(Long.MAX_VALUE, ZonedDateTime.now()));
+                changeSequenceService.assignOnCommit(ChangeSequenceService.PRESCRIPTION, "prescription_tombstone", List.of(Long.MAX_VALUE));
+            });
+
+            assertThat(value(ChangeSequenceService.PRESCRIPTION)).isEqualTo(prescription + 1);
+            assertThat(prescriptionTombstoneRepository.findById(Long.MAX_VALUE))
+                .get()
+                .extracting(PrescriptionTombstone::getChangeSequence)
+                .isEqualTo(prescription + 1);
+        } finally {
+            prescriptionTombstoneRepository.deleteById(Long.MAX_VALUE);
+        }
+    }
+}
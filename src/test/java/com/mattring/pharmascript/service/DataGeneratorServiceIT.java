@@ -0,0 +1,167 @@
+package com.mattring.pharmascript.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.config.ApplicationProperties;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link DataGeneratorService}.
+ * <p>
+ * The generated rows are inserted in the test transaction, and rolled back with it.
+ */
+@IntegrationTest
+@Transactional
+class DataGeneratorServiceIT {
+
+    private static final long FIRST_ID = 1_000_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DrugCatalogService drugCatalogService;
+
+    @Autowired
+    private PatientPrescriptionSummaryService patientPrescriptionSummaryService;
+
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+
+    private ApplicationProperties applicationProperties;
+
+    private DataGeneratorService dataGeneratorService;
+
+    @BeforeEach
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.DataGenerator properties = applicationProperties.getDataGenerator();
+        properties.setDrugs(100);
+        properties.setDoctors(50);
+        properties.setPatients(1000);
+        properties.setPrescriptions(10000);
+        properties.setBatchSize(100);
+        properties.setChunkSize(3000);
+        dataGeneratorService =
+            new DataGeneratorService(
+                jdbcTemplate,
+                transactionManager,
+                drugCatalogService,
+                patientPrescriptionSummaryService,
+                changeSequenceService,
+                applicationProperties
+            );
+    }
+
+    @AfterTransaction
+    public void reloadDrugCatalog() {
+        drugCatalogService.reload();
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("select count(id) from " + table + " where id >= ?", Long.class, FIRST_ID);
+    }
+
+    private List<String> prescriptions() {
+        return jdbcTemplate.queryForList(
+            "select concat(id, ':', dosage_amount, ':', dosage_interval, ':', drug_id, ':', patient_id, ':', doctor_id, ':'," +
+            " updated_date) from prescription where id >= ? order by id",
+            String.class,
+            FIRST_ID
+        );
+    }
+
+    private void deleteGenerated() {
+        for (String table : new String[] { "prescription", "patient", "doctor", "drug" }) {
+            jdbcTemplate.update("delete from " + table + " where id >= ?", FIRST_ID);
+        }
+    }
+
+    @Test
+    void testGenerateTheConfiguredVolumes() {
+        assertThat(dataGeneratorService.generate()).isTrue();
+
+        assertThat(count("drug")).isEqualTo(100);
+        assertThat(count("doctor")).isEqualTo(50);
+        assertThat(count("patient")).isEqualTo(1000);
+        assertThat(count("prescription")).isEqualTo(10000);
+        assertThat(drugCatalogService.findOne(FIRST_ID)).isPresent();
+        assertThat(
+            jdbcTemplate.queryForObject("select sum(prescriptions) from patient_drug_dosage where patient_id >= ?", Long.class, FIRST_ID)
+        )
+            .isEqualTo(10000);
+    }
+
+    @Test
+    void testGenerateNothingWhenAlreadyGenerated() {
+        assertThat(dataGeneratorService.generate()).isTrue();
+
+        assertThat(dataGeneratorService.generate()).isFalse();
+        assertThat(count("prescription")).isEqualTo(10000);
+    }
+
+    @Test
+    void testSameSeedGeneratesTheSameRows() {
+        dataGeneratorService.generate();
+        List<String> generated = prescriptions();
+        deleteGenerated();
+
+        dataGeneratorService.generate();
+        assertThat(prescriptions()).isEqualTo(generated);
+        deleteGenerated();
+
+        applicationProperties.getDataGenerator().setSeed(43);
+        dataGeneratorService.generate();
+        assertThat(prescriptions()).isNotEqualTo(generated);
+    }
+
+    @Test
+    void testPrescriptionsAreSkewedTowardsHotDrugsAndDoctors() {
+        dataGeneratorService.generate();
+
+        // With a uniform distribution, each drug would have 1% of the prescriptions, and each doctor 2% of the patients
+        Long hottestDrug = jdbcTemplate.queryForObject(
+            "select max(c) from (select count(id) c from prescription where id >= ? group by drug_id) t",
+            Long.class,
+            FIRST_ID
+        );
+        assertThat(hottestDrug).isGreaterThan(1000);
+        Long busiestDoctor = jdbcTemplate.queryForObject(
+            "select max(c) from (select count(distinct patient_id) c from prescription where id >= ? group by doctor_id) t",
+            Long.class,
+            FIRST_ID
+        );
+        assertThat(busiestDoctor).isGreaterThan(100);
+    }
+
+    @Test
+    void testZipfDistributionFavorsTheFirstRanks() {
+        SplittableRandom random = new SplittableRandom(1);
+        DataGeneratorService.ZipfDistribution skewed = new DataGeneratorService.ZipfDistribution(10, 1.0, random);
+        DataGeneratorService.ZipfDistribution uniform = new DataGeneratorService.ZipfDistribution(10, 0.0, random);
+        int[] skewedCounts = new int[10];
+        int[] uniformCounts = new int[10];
+        for (int i = 0; i < 100000; i++) {
+            skewedCounts[skewed.sample(random)]++;
+            uniformCounts[uniform.sample(random)]++;
+        }
+
+        // The most frequent index gets 1 / H(10) = 34% of the draws
+        assertThat(Arrays.stream(skewedCounts).max().getAsInt()).isBetween(33000, 35500);
+        assertThat(Arrays.stream(uniformCounts).min().getAsInt()).isGreaterThan(9500);
+        assertThat(Arrays.stream(uniformCounts).max().getAsInt()).isLessThan(10500);
+    }
+}
@@ -0,0 +1,287 @@
+package com.mattring.pharmascript.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.domain.Drug;
+import com.mattring.pharmascript.domain.DrugInteractionRule;
+import com.mattring.pharmascript.domain.Patient;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.domain.enumeration.InteractionSeverity;
+import com.mattring.pharmascript.service.dto.DrugDTO;
+import com.mattring.pharmascript.service.dto.DrugInteractionDTO;
+import com.mattring.pharmascript.service.dto.DrugInteractionScanDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import com.mattring.pharmascript.service.mapper.PrescriptionMapper;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link DrugInteractionService}.
+ */
+@IntegrationTest
+@Transactional
+class DrugInteractionServiceIT {
+
+    private static final ZonedDateTime DEFAULT_DATE = ZonedDateTime.of(2023, 5, 15, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private DrugInteractionService drugInteractionService;
+
+    @Autowired
+    private DrugCatalogService drugCatalogService;
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private PrescriptionMapper prescriptionMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @AfterTransaction
+    void reloadCatalog() {
+        // Forget the drugs of the rolled back transaction
+        drugCatalogService.reload();
+    }
+
+    private static DrugDTO drugDTO(long id, String genericName) {
+        DrugDTO drug = new DrugDTO();
+        drug.setId(id);
+        drug.setGenericName(genericName);
+        return drug;
+    }
+
+    private static DrugInteractionRule rule(String genericName, String interactingGenericName, InteractionSeverity severity) {
+        DrugInteractionRule rule = new DrugInteractionRule();
+        rule.setGenericName(genericName);
+        rule.setInteractingGenericName(interactingGenericName);
+        rule.setSeverity(severity);
+        rule.setDescription(genericName + " and " + interactingGenericName);
+        return rule;
+    }
+
+    private Patient createPatient() {
+        Patient patient = new Patient()
+            .firstName("AAAAAAAAAA")
+            .lastName("AAAAAAAAAA")
+            .birthdate(LocalDate.ofEpochDay(0L))
+            .createdDate(DEFAULT_DATE)
+            .updatedDate(DEFAULT_DATE);
+        em.persist(patient);
+        return patient;
+    }
+
+    private Drug createDrug(String genericName) {
+        Drug drug = new Drug()
+            .maker("AAAAAAAAAA")
+            .brandName("AAAAAAAAAA")
+            .genericName(genericName)
+            .createdDate(DEFAULT_DATE)
+            .updatedDate(DEFAULT_DATE);
+        em.persist(drug);
+        return drug;
+    }
+
+    private PrescriptionDTO prescription(Patient patient, Drug drug) {
+        Prescription prescription = new Prescription()
+            .createdDate(DEFAULT_DATE)
+            .updatedDate(DEFAULT_DATE)
+            .patient(patient)
+            .drug(drug)
+            .dosageAmount(1)
+            .dosageInterval(24);
+        return prescriptionMapper.toDto(prescription);
+    }
+
+    private PrescriptionDTO prescribe(Patient patient, Drug drug) {
+        return prescriptionService.save(prescription(patient, drug));
+    }
+
+    @Test
+    void testIndexFindsInteractionsBothWaysAndDuplicateTherapies() {
+        DrugInteractionIndex index = DrugInteractionIndex.build(
+            1L,
+            List.of(drugDTO(1L, "Warfarin"), drugDTO(2L, "aspirin"), drugDTO(3L, "warfarin"), drugDTO(4L, "paracetamol")),
+            List.of(
+                rule("warfarin", "aspirin", InteractionSeverity.MODERATE),
+                rule("aspirin", "warfarin", InteractionSeverity.MAJOR),
+                rule("warfarin", "unknown", InteractionSeverity.MAJOR)
+            ),
+            InteractionSeverity.MINOR
+        );
+
+        // A rule naming a generic name no drug has yet is kept, for the drugs created later
+        assertThat(index.getRuleCount()).isEqualTo(2);
+        assertThat(index.rankOf("Unknown")).isNotEqualTo(DrugInteractionIndex.UNKNOWN);
+        DrugInteractionDTO interaction = index.find(10L, 2L, 1L);
+        assertThat(interaction.getType()).isEqualTo(DrugInteractionDTO.Type.INTERACTION);
+        // The most severe of the rules wins
+        assertThat(interaction.getSeverity()).isEqualTo(InteractionSeverity.MAJOR);
+        assertThat(index.find(10L, 1L, 2L).getSeverity()).isEqualTo(InteractionSeverity.MAJOR);
+        DrugInteractionDTO duplicate = index.find(10L, 1L, 3L);
+        assertThat(duplicate.getType()).isEqualTo(DrugInteractionDTO.Type.DUPLICATE_THERAPY);
+        assertThat(duplicate.getSeverity()).isEqualTo(InteractionSeverity.MINOR);
+        assertThat(index.find(10L, 1L, 4L)).isNull();
+        assertThat(index.find(10L, 1L, 5L)).isNull();
+    }
+
+    @Test
+    void testNewPrescriptionIsRejectedOnlyAtTheBlockingSeverity() {
+        Patient patient = createPatient();
+        Drug warfarin = createDrug("warfarin");
+        Drug aspirin = createDrug("aspirin");
+        Drug lisinopril = createDrug("lisinopril");
+        Drug spironolactone = createDrug("spironolactone");
+        em.flush();
+        drugCatalogService.reload();
+
+        prescribe(patient, warfarin);
+        prescribe(patient, lisinopril);
+        // A moderate interaction is only reported
+        prescribe(patient, spironolactone);
+
+        assertThatThrownBy(() -> prescribe(patient, aspirin))
+            .isInstanceOfSatisfying(
+                DrugInteractionException.class,
+                ex -> {
+                    assertThat(ex.getInteractions()).hasSize(1);
+                    assertThat(ex.getInteractions().get(0).getInteractingDrugId()).isEqualTo(warfarin.getId());
+                    assertThat(ex.getInteractions().get(0).getSeverity()).isEqualTo(InteractionSeverity.MAJOR);
+                }
+            );
+        List<DrugInteractionDTO> interactions = drugInteractionService.check(patient.getId(), lisinopril.getId());
+        assertThat(interactions).extracting(DrugInteractionDTO::getInteractingDrugId).containsExactlyInAnyOrder(
+            lisinopril.getId(),
+            spironolactone.getId()
+        );
+    }
+
+    @Test
+    void testScanFindsTheInteractionsOfAllPatients() {
+        Patient patient = createPatient();
+        Patient otherPatient = createPatient();
+        Drug lisinopril = createDrug("lisinopril");
+        Drug spironolactone = createDrug("spironolactone");
+        Drug levothyroxine = createDrug("levothyroxine");
+        em.flush();
+        drugCatalogService.reload();
+        prescribe(patient, lisinopril);
+        prescribe(patient, spironolactone);
+        prescribe(patient, levothyroxine);
+        prescribe(otherPatient, levothyroxine);
+        prescribe(otherPatient, levothyroxine);
+        em.flush();
+
+        DrugInteractionScanDTO scan = drugInteractionService.scan();
+
+        assertThat(scan.getRules()).isPositive();
+        assertThat(scan.getPatients()).isGreaterThanOrEqualTo(2);
+        assertThat(scan.getFindingCount()).isGreaterThanOrEqualTo(2);
+        List<String> findings = scan
+            .getFindings()
+            .stream()
+            .filter(finding -> finding.getPatientId().equals(patient.getId()) || finding.getPatientId().equals(otherPatient.getId()))
+            .map(finding -> finding.getPatientId() + ":" + finding.getType() + ":" + finding.getSeverity())
+            .collect(Collectors.toList());
+        assertThat(findings).containsExactlyInAnyOrder(
+            patient.getId() + ":INTERACTION:MODERATE",
+            otherPatient.getId() + ":DUPLICATE_THERAPY:MODERATE"
+        );
+    }
+
+    @Test
+    void testPrescriptionOfADrugMissingFromTheCatalogIsChecked() {
+        Patient patient = createPatient();
+        Drug warfarin = createDrug("warfarin");
+        em.flush();
+        drugCatalogService.reload();
+        prescribe(patient, warfarin);
+        // Created behind the back of the catalog
+        Drug aspirin = createDrug("Aspirin");
+        Drug newDrug = createDrug("newdrugamab");
+        em.flush();
+
+        assertThatThrownBy(() -> prescribe(patient, aspirin)).isInstanceOf(DrugInteractionException.class);
+        prescribe(patient, newDrug);
+        assertThat(drugInteractionService.check(patient.getId(), newDrug.getId()))
+            .extracting(DrugInteractionDTO::getType)
+            .containsExactly(DrugInteractionDTO.Type.DUPLICATE_THERAPY);
+    }
+
+    @Test
+    void testPrescriptionMovedToAnInteractingDrugOrPatientIsRejected() {
+        Patient patient = createPatient();
+        Patient otherPatient = createPatient();
+        Drug warfarin = createDrug("warfarin");
+        Drug aspirin = createDrug("aspirin");
+        Drug levothyroxine = createDrug("levothyroxine");
+        em.flush();
+        drugCatalogService.reload();
+        prescribe(patient, warfarin);
+        PrescriptionDTO prescription = prescribe(patient, levothyroxine);
+        PrescriptionDTO otherPrescription = prescribe(otherPatient, aspirin);
+
+        PrescriptionDTO toAspirin = prescription(patient, aspirin);
+        toAspirin.setId(prescription.getId());
+        assertThatThrownBy(() -> prescriptionService.update(toAspirin)).isInstanceOf(DrugInteractionException.class);
+        PrescriptionDTO toPatient = new PrescriptionDTO();
+        toPatient.setId(otherPrescription.getId());
+        toPatient.setPatient(prescription.getPatient());
+        assertThatThrownBy(() -> prescriptionService.partialUpdate(toPatient)).isInstanceOf(DrugInteractionException.class);
+        PrescriptionDTO saved = prescription(patient, aspirin);
+        saved.setId(prescription.getId());
+        assertThatThrownBy(() -> prescriptionService.save(saved)).isInstanceOf(DrugInteractionException.class);
+    }
+
+    @Test
+    void testPrescriptionChangingItsDrugIsNotCheckedAgainstItself() {
+        Patient patient = createPatient();
+        Drug warfarin = createDrug("warfarin");
+        Drug aspirin = createDrug("aspirin");
+        em.flush();
+        drugCatalogService.reload();
+        PrescriptionDTO prescription = prescribe(patient, warfarin);
+
+        PrescriptionDTO toAspirin = new PrescriptionDTO();
+        toAspirin.setId(prescription.getId());
+        toAspirin.setDrug(prescription(patient, aspirin).getDrug());
+        assertThat(prescriptionService.partialUpdate(toAspirin)).isPresent();
+        em.flush();
+
+        assertThat(drugInteractionService.check(patient.getId(), warfarin.getId()))
+            .extracting(DrugInteractionDTO::getInteractingDrugId)
+            .containsExactly(aspirin.getId());
+    }
+
+    @Test
+    void testNewPrescriptionsSavedTogetherAreCheckedAgainstEachOther() {
+        Patient patient = createPatient();
+        Patient otherPatient = createPatient();
+        Drug warfarin = createDrug("warfarin");
+        Drug aspirin = createDrug("aspirin");
+        em.flush();
+        drugCatalogService.reload();
+
+        prescriptionService.saveAll(List.of(prescription(patient, warfarin), prescription(otherPatient, aspirin)));
+        assertThatThrownBy(() -> prescriptionService.saveAll(List.of(prescription(otherPatient, warfarin))))
+            .isInstanceOf(DrugInteractionException.class);
+        Patient newPatient = createPatient();
+        List<PrescriptionDTO> interacting = List.of(prescription(newPatient, warfarin), prescription(newPatient, aspirin));
+        assertThatThrownBy(() -> prescriptionService.saveAll(interacting))
+            .isInstanceOfSatisfying(
+                DrugInteractionException.class,
+                ex -> assertThat(ex.getInteractions()).extracting(DrugInteractionDTO::getDrugId).containsExactly(aspirin.getId())
+            );
+    }
+}
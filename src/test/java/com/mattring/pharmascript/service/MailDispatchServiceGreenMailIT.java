@@ -0,0 +1,113 @@
+package com.mattring.pharmascript.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.config.Constants;
+import com.mattring.pharmascript.domain.User;
+import com.mattring.pharmascript.management.MailMetersService;
+import com.mattring.pharmascript.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link MailDispatchService} against a local SMTP server.
+ */
+@IntegrationTest
+class MailDispatchServiceGreenMailIT {
+
+    /**
+     * Enough emails for several batches of {@link #BATCH_SIZE}, raised with {@code -Dgreenmail.activation-emails} for a load
+     * run.
+     */
+    private static final int ACTIVATION_EMAILS = Integer.getInteger("greenmail.activation-emails", 30);
+
+    private static final int BATCH_SIZE = 10;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort()).withPerMethodLifecycle(false);
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", () -> greenMail.getSmtp().getPort());
+        registry.add("application.mail-outbox.batch-size", () -> BATCH_SIZE);
+    }
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setup() {
+        mailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void testSendActivationEmails() throws Exception {
+        double sent = meterRegistry
+            .get(MailMetersService.MESSAGES_METER_NAME)
+            .tag(MailMetersService.MESSAGES_METER_OUTCOME_DIMENSION, "sent")
+            .counter()
+            .count();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < ACTIVATION_EMAILS; i++) {
+                User user = new User();
+                user.setLogin("user-" + i);
+                user.setEmail("user-" + i + "@example.com");
+                user.setLangKey(Constants.DEFAULT_LANGUAGE);
+                user.setActivationKey("key-" + i);
+                mailService.sendActivationEmail(user);
+            }
+        });
+
+        assertThat(greenMail.waitForIncomingEmail(10_000, ACTIVATION_EMAILS)).isTrue();
+        MimeMessage[] messages = greenMail.getReceivedMessages();
+        assertThat(messages).hasSize(ACTIVATION_EMAILS);
+        // The batches are sent concurrently, in no particular order
+        assertThat(Arrays.stream(messages).map(MailDispatchServiceGreenMailIT::recipient))
+            .containsExactlyInAnyOrderElementsOf(
+                IntStream.range(0, ACTIVATION_EMAILS).mapToObj(i -> "user-" + i + "@example.com").collect(Collectors.toList())
+            );
+        assertThat(mailOutboxRepository.count()).isZero();
+        assertThat(
+            meterRegistry
+                .get(MailMetersService.MESSAGES_METER_NAME)
+                .tag(MailMetersService.MESSAGES_METER_OUTCOME_DIMENSION, "sent")
+                .counter()
+                .count()
+        )
+            .isEqualTo(sent + ACTIVATION_EMAILS);
+    }
+
+    private static String recipient(MimeMessage message) {
+        try {
+            return message.getAllRecipients()[0].toString();
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
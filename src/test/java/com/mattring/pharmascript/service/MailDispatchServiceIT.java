@@ -0,0 +1,202 @@
+package com.mattring.pharmascript.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalMatchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.MailOutboxMessage;
+import com.mattring.pharmascript.domain.enumeration.MailOutboxStatus;
+import com.mattring.pharmascript.management.MailMetersService;
+import com.mattring.pharmascript.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link MailDispatchService}.
+ */
+@IntegrationTest
+class MailDispatchServiceIT {
+
+    @MockBean
+    private JavaMailSender javaMailSender;
+
+    @Captor
+    private ArgumentCaptor<MimeMessage> messageCaptor;
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private MailDispatchService mailDispatchService;
+
+    @SpyBean
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private MailOutboxService mailOutboxService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setup() {
+        mailOutboxRepository.deleteAll();
+        when(javaMailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+    }
+
+    @Test
+    void testEmailsQueuedInATransactionAreSentInOneBatch() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            mailService.sendEmail("john.doe@example.com", "first", "testContent", false, false);
+            mailService.sendEmail("jane.doe@example.com", "second", "testContent", false, false);
+            mailService.sendEmail("jim.doe@example.com", "third", "testContent", false, false);
+            assertThat(mailOutboxRepository.count()).isEqualTo(3);
+            verifyNoMoreInteractionsWithSend();
+        });
+
+        // The varargs of the batch are captured one by one
+        verify(javaMailSender).send(messageCaptor.capture(), messageCaptor.capture(), messageCaptor.capture());
+        assertThat(messageCaptor.getAllValues()).extracting(MimeMessage::getSubject).containsExactlyInAnyOrder("first", "second", "third");
+        assertThat(mailOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void testEmailsOfARolledBackTransactionAreNotSent() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+            status.setRollbackOnly();
+        });
+
+        verifyNoMoreInteractionsWithSend();
+        assertThat(mailOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void testFailedEmailIsRetriedWithBackoff() {
+        doThrow(new MailSendException("Mail server connection failed")).when(javaMailSender).send(any(MimeMessage.class));
+        double retried = messagesCount("retried");
+
+        Instant before = Instant.now();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+
+        List<MailOutboxMessage> messages = mailOutboxRepository.findAll();
+        assertThat(messages).hasSize(1);
+        MailOutboxMessage message = messages.get(0);
+        assertThat(message.getStatus()).isEqualTo(MailOutboxStatus.PENDING);
+        assertThat(message.getAttempts()).isEqualTo(1);
+        assertThat(message.getLastError()).contains("Mail server connection failed");
+        assertThat(message.getNextAttemptAt())
+            .isAfterOrEqualTo(before.plusSeconds(applicationProperties.getMailOutbox().getInitialBackoffSeconds()));
+        assertThat(messagesCount("retried")).isEqualTo(retried + 1);
+    }
+
+    @Test
+    void testEmailIsMarkedAsFailedAfterTheLastAttempt() {
+        doThrow(new MailSendException("Mail server connection failed")).when(javaMailSender).send(any(MimeMessage.class));
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+        MailOutboxMessage message = mailOutboxRepository.findAll().get(0);
+        message.setAttempts(applicationProperties.getMailOutbox().getMaxAttempts() - 1);
+        message.setNextAttemptAt(Instant.now().minusSeconds(1));
+        mailOutboxRepository.saveAndFlush(message);
+        double failed = messagesCount("failed");
+
+        mailDispatchService.dispatchDue();
+
+        message = mailOutboxRepository.findById(message.getId()).orElseThrow();
+        assertThat(message.getStatus()).isEqualTo(MailOutboxStatus.FAILED);
+        assertThat(message.getAttempts()).isEqualTo(applicationProperties.getMailOutbox().getMaxAttempts());
+        assertThat(messagesCount("failed")).isEqualTo(failed + 1);
+    }
+
+    @Test
+    void testOnlyTheFailedEmailsOfABatchAreRetried() {
+        doAnswer(invocation -> {
+                MimeMessage first = invocation.getArgument(0);
+                MimeMessage rejected = first.getSubject().equals("rejected") ? first : invocation.getArgument(1);
+                throw new MailSendException(Map.of(rejected, new IllegalStateException("Mailbox unavailable")));
+            })
+            .when(javaMailSender)
+            .send(any(MimeMessage.class), any(MimeMessage.class));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            mailService.sendEmail("john.doe@example.com", "accepted", "testContent", false, false);
+            mailService.sendEmail("jane.doe@example.com", "rejected", "testContent", false, false);
+        });
+
+        List<MailOutboxMessage> messages = mailOutboxRepository.findAll();
+        assertThat(messages).extracting(MailOutboxMessage::getSubject).containsExactly("rejected");
+        assertThat(messages.get(0).getLastError()).contains("Mailbox unavailable");
+    }
+
+    @Test
+    void testQueuedEmailIsDueAtOnce() {
+        MailOutboxMessage message = mailOutboxService.enqueue("john.doe@example.com", "testSubject", "testContent", false, false);
+
+        // Claimed within the same millisecond, as by a dispatch right after the commit
+        assertThat(message.getNextAttemptAt()).isEqualTo(message.getNextAttemptAt().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(mailOutboxService.claimDue(1)).extracting(MailOutboxMessage::getId).containsExactly(message.getId());
+    }
+
+    @Test
+    void testEmailsClaimedByAnotherDispatcherWithinTheSameMillisecondAreNotClaimedAgain() {
+        mailOutboxService.enqueue("john.doe@example.com", "testSubject", "testContent", false, false);
+        // Another dispatcher claims the same emails just before, with the same time and so the same lease end, which
+        // leaves none of them due for the update of this claim
+        doAnswer(invocation -> {
+                mailOutboxRepository.claim(
+                    invocation.getArgument(0),
+                    invocation.getArgument(1),
+                    invocation.getArgument(2),
+                    invocation.getArgument(3),
+                    "other-dispatcher"
+                );
+                return 0;
+            })
+            .when(mailOutboxRepository)
+            .claim(any(), any(), any(), any(), not(eq("other-dispatcher")));
+
+        assertThat(mailOutboxService.claimDue(1)).isEmpty();
+        assertThat(mailOutboxRepository.findAll()).extracting(MailOutboxMessage::getAttempts).containsExactly(1);
+    }
+
+    private void verifyNoMoreInteractionsWithSend() {
+        // Matches the single message and the batch overloads, whatever the size of the batch
+        assertThat(mockingDetails(javaMailSender).getInvocations())
+            .extracting(invocation -> invocation.getMethod().getName())
+            .doesNotContain("send");
+    }
+
+    private double messagesCount(String outcome) {
+        return meterRegistry
+            .get(MailMetersService.MESSAGES_METER_NAME)
+            .tag(MailMetersService.MESSAGES_METER_OUTCOME_DIMENSION, outcome)
+            .counter()
+            .count();
+    }
+}
@@ -7,6 +7,7 @@ import static org.mockito.Mockito.*;
 import com.mattring.pharmascript.IntegrationTest;
 import com.mattring.pharmascript.config.Constants;
 import com.mattring.pharmascript.domain.User;
+import com.mattring.pharmascript.repository.MailOutboxRepository;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -14,6 +15,7 @@ import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.List;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -56,10 +58,15 @@ class MailServiceIT {
     @Autowired
     private MailService mailService;
 
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
     @BeforeEach
     public void setup() {
+        mailOutboxRepository.deleteAll();
         doNothing().when(javaMailSender).send(any(MimeMessage.class));
-        when(javaMailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+        // A new message for every email, as a batch holds several of them
+        when(javaMailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
     }
 
     @Test
@@ -138,6 +145,33 @@ class MailServiceIT {
         assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
     }
 
+    @Test
+    void testSendEmailsFromTemplate() throws Exception {
+        User john = new User();
+        john.setLangKey(Constants.DEFAULT_LANGUAGE);
+        john.setLogin("john");
+        john.setEmail("john.doe@example.com");
+        User jane = new User();
+        jane.setLangKey(Constants.DEFAULT_LANGUAGE);
+        jane.setLogin("jane");
+        jane.setEmail("jane.doe@example.com");
+        User noEmail = new User();
+        noEmail.setLangKey(Constants.DEFAULT_LANGUAGE);
+        noEmail.setLogin("jim");
+        mailService.sendEmailsFromTemplate(List.of(john, noEmail, jane), "mail/testEmail", "email.test.title");
+        // The varargs of the batch are captured one by one
+        verify(javaMailSender).send(messageCaptor.capture(), messageCaptor.capture());
+        List<MimeMessage> messages = messageCaptor.getAllValues();
+        assertThat(messages).hasSize(2);
+        assertThat(messages).extracting(MimeMessage::getSubject).containsOnly("test title");
+        assertThat(messages)
+            .extracting(message -> message.getContent().toString())
+            .containsExactlyInAnyOrder(
+                "<html>test title, http://127.0.0.1:8080, john</html>\n",
+                "<html>test title, http://127.0.0.1:8080, jane</html>\n"
+            );
+    }
+
     @Test
     void testSendActivationEmail() throws Exception {
         User user = new User();
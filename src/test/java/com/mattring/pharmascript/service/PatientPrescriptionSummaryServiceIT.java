@@ -0,0 +1,203 @@
+package com.mattring.pharmascript.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.domain.Drug;
+import com.mattring.pharmascript.domain.Patient;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.service.dto.DrugDosageDTO;
+import com.mattring.pharmascript.service.dto.PatientDTO;
+import com.mattring.pharmascript.service.dto.PatientPrescriptionSummaryDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import com.mattring.pharmascript.service.mapper.PrescriptionMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link PatientPrescriptionSummaryService}.
+ */
+@IntegrationTest
+@Transactional
+class PatientPrescriptionSummaryServiceIT {
+
+    private static final ZonedDateTime DEFAULT_DATE = ZonedDateTime.of(2023, 5, 8, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final int MOVES = 20;
+
+    @Autowired
+    private PatientPrescriptionSummaryService patientPrescriptionSummaryService;
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private PrescriptionMapper prescriptionMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Patient createPatient() {
+        Patient patient = new Patient()
+            .firstName("AAAAAAAAAA")
+            .lastName("AAAAAAAAAA")
+            .birthdate(LocalDate.ofEpochDay(0L))
+            .createdDate(DEFAULT_DATE)
+            .updatedDate(DEFAULT_DATE);
+        em.persist(patient);
+        return patient;
+    }
+
+    private Drug createDrug() {
+        return createDrug("AAAAAAAAAA");
+    }
+
+    private Drug createDrug(String genericName) {
+        Drug drug = new Drug()
+            .maker("AAAAAAAAAA")
+            .brandName("AAAAAAAAAA")
+            .genericName(genericName)
+            .createdDate(DEFAULT_DATE)
+            .updatedDate(DEFAULT_DATE);
+        em.persist(drug);
+        return drug;
+    }
+
+    private static String dosages(PatientPrescriptionSummaryDTO summary) {
+        return summary
+            .getDrugs()
+            .stream()
+            .map(dosage -> dosage.getDrug().getId() + ":" + dosage.getPrescriptions() + ":" + dosage.getDailyDosage())
+            .sorted()
+            .collect(Collectors.joining(","));
+    }
+
+    @Test
+    void testDailyDosageIsRoundedPerPrescription() {
+        assertThat(PatientPrescriptionSummaryService.dailyDosage(1, 8)).isEqualByComparingTo("3");
+        assertThat(PatientPrescriptionSummaryService.dailyDosage(1, 7)).isEqualTo(new BigDecimal("3.429"));
+        assertThat(PatientPrescriptionSummaryService.dailyDosage(3, 0)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void testRebuildGivesTheIncrementallyMaintainedSummaries() {
+        Patient patient = createPatient();
+        Drug drug = createDrug();
+        Drug otherDrug = createDrug();
+        int[][] dosages = { { 1, 7 }, { 2, 7 }, { 5, 24 }, { 1, 0 } };
+        for (int[] dosage : dosages) {
+            Prescription prescription = new Prescription()
+                .createdDate(DEFAULT_DATE)
+                .updatedDate(DEFAULT_DATE)
+                .patient(patient)
+                .drug(dosage[1] == 7 ? drug : otherDrug)
+                .dosageAmount(dosage[0])
+                .dosageInterval(dosage[1]);
+            prescriptionService.save(prescriptionMapper.toDto(prescription));
+        }
+        PatientPrescriptionSummaryDTO maintained = patientPrescriptionSummaryService.findByPatient(patient.getId());
+
+        patientPrescriptionSummaryService.rebuild();
+        em.clear();
+
+        PatientPrescriptionSummaryDTO rebuilt = patientPrescriptionSummaryService.findByPatient(patient.getId());
+        assertThat(rebuilt.getActivePrescriptions()).isEqualTo(4);
+        assertThat(dosages(rebuilt)).isEqualTo(dosages(maintained));
+        List<DrugDosageDTO> drugs = maintained.getDrugs();
+        assertThat(drugs).hasSize(2);
+        // 3.429 + 6.857, and 5 + 0
+        assertThat(drugs.stream().map(DrugDosageDTO::getDailyDosage).map(BigDecimal::stripTrailingZeros).map(BigDecimal::toPlainString))
+            .containsExactlyInAnyOrder("10.286", "5");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testPrescriptionsMovedBetweenTwoPatientsInOppositeDirectionsDoNotDeadlock() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Long> ids = transactionTemplate.execute(status -> {
+            Patient patient = createPatient();
+            Patient otherPatient = createPatient();
+            Drug drug = createDrug("BBBBBBBBBB");
+            Drug otherDrug = createDrug("CCCCCCCCCC");
+            Prescription prescription = new Prescription()
+                .createdDate(DEFAULT_DATE)
+                .updatedDate(DEFAULT_DATE)
+                .patient(patient)
+                .drug(drug)
+                .dosageAmount(1)
+                .dosageInterval(24);
+            Prescription otherPrescription = new Prescription()
+                .createdDate(DEFAULT_DATE)
+                .updatedDate(DEFAULT_DATE)
+                .patient(otherPatient)
+                .drug(otherDrug)
+                .dosageAmount(1)
+                .dosageInterval(24);
+            return List.of(
+                patient.getId(),
+                otherPatient.getId(),
+                prescriptionService.save(prescriptionMapper.toDto(prescription)).getId(),
+                prescriptionService.save(prescriptionMapper.toDto(otherPrescription)).getId(),
+                drug.getId(),
+                otherDrug.getId()
+            );
+        });
+        Long patientId = ids.get(0);
+        Long otherPatientId = ids.get(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < MOVES; i++) {
+                // Each prescription moves to the patient of the other one, the two writes starting together
+                CyclicBarrier start = new CyclicBarrier(2);
+                boolean back = i % 2 == 1;
+                Future<PrescriptionDTO> move = executor.submit(() -> move(start, ids.get(2), back ? patientId : otherPatientId));
+                Future<PrescriptionDTO> otherMove = executor.submit(() -> move(start, ids.get(3), back ? otherPatientId : patientId));
+                assertThat(move.get(30, TimeUnit.SECONDS).getPatient().getId()).isEqualTo(back ? patientId : otherPatientId);
+                assertThat(otherMove.get(30, TimeUnit.SECONDS).getPatient().getId()).isEqualTo(back ? otherPatientId : patientId);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(patientPrescriptionSummaryService.findByPatient(patientId).getActivePrescriptions()).isEqualTo(1);
+        assertThat(patientPrescriptionSummaryService.findByPatient(otherPatientId).getActivePrescriptions()).isEqualTo(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            prescriptionService.delete(ids.get(2));
+            prescriptionService.delete(ids.get(3));
+            em
+                .createQuery("delete from PatientDrugDosage dosage where dosage.patientId in :ids")
+                .setParameter("ids", ids.subList(0, 2))
+                .executeUpdate();
+            em.createQuery("delete from Patient patient where patient.id in :ids").setParameter("ids", ids.subList(0, 2)).executeUpdate();
+            em.createQuery("delete from Drug drug where drug.id in :ids").setParameter("ids", ids.subList(4, 6)).executeUpdate();
+        });
+    }
+
+    private PrescriptionDTO move(CyclicBarrier start, Long prescriptionId, Long patientId) throws Exception {
+        PrescriptionDTO prescriptionDTO = prescriptionService.findOne(prescriptionId).orElseThrow();
+        PatientDTO patientDTO = new PatientDTO();
+        patientDTO.setId(patientId);
+        prescriptionDTO.setPatient(patientDTO);
+        start.await(30, TimeUnit.SECONDS);
+        return prescriptionService.update(prescriptionDTO);
+    }
+}
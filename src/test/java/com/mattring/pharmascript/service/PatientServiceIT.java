@@ -0,0 +1,92 @@
+package com.mattring.pharmascript.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.domain.Patient;
+import com.mattring.pharmascript.repository.PatientRepository;
+import com.mattring.pharmascript.service.dto.PatientDTO;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Integration tests for {@link PatientService}, with the second-level cache on.
+ * <p>
+ * The patients are committed, so that they are put in the cache, and deleted after each test.
+ */
+@IntegrationTest
+@TestPropertySource(
+    properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+    }
+)
+class PatientServiceIT {
+
+    private static final int PATIENT_COUNT = 3;
+
+    private static final ZonedDateTime DEFAULT_DATE = ZonedDateTime.of(2023, 3, 7, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    public void init() {
+        for (int i = 0; i < PATIENT_COUNT; i++) {
+            Patient patient = new Patient()
+                .firstName("Patient " + i)
+                .lastName("AAAAAAAAAA")
+                .birthdate(LocalDate.ofEpochDay(0L))
+                .createdDate(DEFAULT_DATE)
+                .updatedDate(DEFAULT_DATE);
+            ids.add(patientRepository.save(patient).getId());
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        patientRepository.deleteAllById(ids);
+    }
+
+    @Test
+    void findAllByIdOnlyQueriesThePatientsMissingFromTheCache() {
+        entityManagerFactory.getCache().evict(Patient.class, ids.get(1));
+
+        List<PatientDTO> patients = patientService.findAllById(List.of(ids.get(2), ids.get(1), Long.MAX_VALUE, ids.get(0), ids.get(2)));
+
+        // In the order of the ids, without the unknown and duplicate ones
+        assertThat(patients.stream().map(PatientDTO::getId).collect(Collectors.toList())).containsExactly(
+            ids.get(2),
+            ids.get(1),
+            ids.get(0)
+        );
+        assertThat(patients.get(0).getFirstName()).isEqualTo("Patient 2");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+        // One query for the evicted patient and the unknown id
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
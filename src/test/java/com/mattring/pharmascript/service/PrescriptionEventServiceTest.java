@@ -0,0 +1,209 @@
+package com.mattring.pharmascript.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mattring.pharmascript.config.ApplicationProperties;
+import com.mattring.pharmascript.domain.Doctor;
+import com.mattring.pharmascript.domain.Patient;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.management.PrescriptionEventsMetersService;
+import com.mattring.pharmascript.service.dto.PrescriptionEventDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link PrescriptionEventService} class.
+ */
+class PrescriptionEventServiceTest {
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private Queue<Runnable> tasks;
+
+    private PrescriptionEventService prescriptionEventService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getPrescriptionEvents().setBufferSize(2);
+        tasks = new ArrayDeque<>();
+        prescriptionEventService =
+            new PrescriptionEventService(
+                new PrescriptionEventsMetersService(meterRegistry),
+                tasks::add,
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                applicationProperties
+            );
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static PrescriptionEventDTO event(long prescriptionId) {
+        return new PrescriptionEventDTO(PrescriptionEventDTO.Type.UPDATED, prescriptionId, null);
+    }
+
+    private static PrescriptionEventService.Audience audience(long patientId, long doctorId) {
+        return new PrescriptionEventService.Audience()
+            .add(new Prescription().patient(new Patient().id(patientId)).doctor(new Doctor().id(doctorId)));
+    }
+
+    @Test
+    void testSubscribersOnlyReceiveTheEventsOfTheirPatientAndDoctor() {
+        RecordingSink all = new RecordingSink();
+        RecordingSink patient = new RecordingSink();
+        RecordingSink patientAndDoctor = new RecordingSink();
+        RecordingSink otherDoctor = new RecordingSink();
+        prescriptionEventService.subscribe(null, null, all);
+        prescriptionEventService.subscribe(1L, null, patient);
+        prescriptionEventService.subscribe(1L, 10L, patientAndDoctor);
+        prescriptionEventService.subscribe(null, 20L, otherDoctor);
+
+        prescriptionEventService.publish(event(100L), audience(1L, 10L));
+        prescriptionEventService.publish(event(200L), audience(1L, 30L));
+        runTasks();
+
+        assertThat(all.prescriptionIds()).containsExactly(100L, 200L);
+        assertThat(patient.prescriptionIds()).containsExactly(100L, 200L);
+        assertThat(patientAndDoctor.prescriptionIds()).containsExactly(100L);
+        assertThat(otherDoctor.prescriptionIds()).isEmpty();
+        assertThat(meterRegistry.get(PrescriptionEventsMetersService.SUBSCRIBERS_METER_NAME).gauge().value()).isEqualTo(4);
+        assertThat(meterRegistry.get(PrescriptionEventsMetersService.LAG_METER_NAME).timer().count()).isEqualTo(5);
+    }
+
+    @Test
+    void testFullBuffersCoalesceTheEventsOfAPrescription() {
+        RecordingSink sink = new RecordingSink();
+        prescriptionEventService.subscribe(null, null, sink);
+
+        prescriptionEventService.publish(event(100L), audience(1L, 10L));
+        prescriptionEventService.publish(event(200L), audience(1L, 10L));
+        prescriptionEventService.publish(event(100L), audience(1L, 10L));
+        prescriptionEventService.publish(event(300L), audience(1L, 10L));
+        runTasks();
+
+        assertThat(sink.overflows).containsExactly(1L);
+        assertThat(sink.prescriptionIds()).containsExactly(100L, 300L);
+        assertThat(meterRegistry.get(PrescriptionEventsMetersService.DROPPED_METER_NAME).tag("reason", "coalesced").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get(PrescriptionEventsMetersService.DROPPED_METER_NAME).tag("reason", "overflow").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void testFullBuffersDropTheOldestEvents() {
+        applicationProperties
+            .getPrescriptionEvents()
+            .setOverflowPolicy(ApplicationProperties.PrescriptionEvents.OverflowPolicy.DROP_OLDEST);
+        RecordingSink sink = new RecordingSink();
+        prescriptionEventService.subscribe(null, null, sink);
+
+        prescriptionEventService.publish(event(100L), audience(1L, 10L));
+        prescriptionEventService.publish(event(100L), audience(1L, 10L));
+        prescriptionEventService.publish(event(200L), audience(1L, 10L));
+        runTasks();
+
+        assertThat(sink.overflows).containsExactly(1L);
+        assertThat(sink.prescriptionIds()).containsExactly(100L, 200L);
+    }
+
+    @Test
+    void testFailedWritesCancelTheSubscription() {
+        RecordingSink sink = new RecordingSink();
+        sink.failing = true;
+        prescriptionEventService.subscribe(null, null, sink);
+
+        prescriptionEventService.publish(event(100L), audience(1L, 10L));
+        runTasks();
+
+        assertThat(sink.closed).isTrue();
+        assertThat(prescriptionEventService.hasSubscribers()).isFalse();
+    }
+
+    @Test
+    void testHeartbeatsAreOnlySentToIdleSubscribers() {
+        RecordingSink sink = new RecordingSink();
+        prescriptionEventService.subscribe(null, null, sink);
+
+        prescriptionEventService.sendHeartbeats();
+        runTasks();
+        assertThat(sink.heartbeats).isZero();
+
+        applicationProperties.getPrescriptionEvents().setHeartbeatInterval(Duration.ZERO);
+        prescriptionEventService.sendHeartbeats();
+        runTasks();
+        assertThat(sink.heartbeats).isEqualTo(1);
+    }
+
+    @Test
+    void testCancelledSubscriptionsReceiveNoEvents() {
+        RecordingSink sink = new RecordingSink();
+        prescriptionEventService.subscribe(1L, null, sink).cancel();
+
+        prescriptionEventService.publish(event(100L), audience(1L, 10L));
+        runTasks();
+
+        assertThat(sink.events).isEmpty();
+        assertThat(tasks).isEmpty();
+        assertThat(meterRegistry.get(PrescriptionEventsMetersService.SUBSCRIBERS_METER_NAME).gauge().value()).isZero();
+    }
+
+    private static class RecordingSink implements PrescriptionEventService.Sink {
+
+        private final List<PrescriptionEventDTO> events = new ArrayList<>();
+
+        private final List<Long> overflows = new ArrayList<>();
+
+        private int heartbeats;
+
+        private boolean failing;
+
+        private boolean closed;
+
+        @Override
+        public void send(PrescriptionEventDTO event, String json) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            assertThat(json).startsWith("{\"type\":\"UPDATED\",\"prescriptionId\":" + event.getPrescriptionId());
+            events.add(event);
+        }
+
+        @Override
+        public void sendOverflow(long dropped) {
+            overflows.add(dropped);
+        }
+
+        @Override
+        public void sendHeartbeat() {
+            heartbeats++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        private List<Long> prescriptionIds() {
+            return events.stream().map(PrescriptionEventDTO::getPrescriptionId).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.mattring.pharmascript.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.domain.Doctor;
+import com.mattring.pharmascript.domain.Drug;
+import com.mattring.pharmascript.domain.Patient;
+import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.repository.PrescriptionRepository;
+import com.mattring.pharmascript.service.dto.DoctorDTO;
+import com.mattring.pharmascript.service.dto.PatientDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link PrescriptionService}.
+ */
+@IntegrationTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PrescriptionServiceIT {
+
+    private static final int PRESCRIPTION_COUNT = 5;
+
+    private static final ZonedDateTime DEFAULT_DATE = ZonedDateTime.of(2023, 3, 7, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    private Long prescriptionId;
+
+    private Long firstDoctorId;
+
+    private Patient patient;
+
+    private Doctor doctor;
+
+    private Drug drug;
+
+    @BeforeEach
+    public void init() {
+        // Every prescription gets its own drug, patient and doctor, which is the worst case for N+1 loads
+        for (int i = 0; i < PRESCRIPTION_COUNT; i++) {
+            drug = new Drug()
+                .maker("AAAAAAAAAA")
+                .brandName("AAAAAAAAAA")
+                .genericName("AAAAAAAAAA")
+                .createdDate(DEFAULT_DATE)
+                .updatedDate(DEFAULT_DATE);
+            em.persist(drug);
+            patient = new Patient()
+                .firstName("AAAAAAAAAA")
+                .lastName("AAAAAAAAAA")
+                .birthdate(LocalDate.ofEpochDay(0L))
+                .createdDate(DEFAULT_DATE)
+                .updatedDate(DEFAULT_DATE);
+            em.persist(patient);
+            doctor = new Doctor()
+                .firstName("AAAAAAAAAA")
+                .lastName("AAAAAAAAAA")
+                .licenseNumber("AAAAAAAAAA")
+                .createdDate(DEFAULT_DATE)
+                .updatedDate(DEFAULT_DATE);
+            em.persist(doctor);
+            if (firstDoctorId == null) {
+                firstDoctorId = doctor.getId();
+            }
+            Prescription prescription = new Prescription()
+                .dosageAmount(1)
+                .dosageInterval(1)
+                .createdDate(DEFAULT_DATE)
+                .updatedDate(DEFAULT_DATE)
+                .drug(drug)
+                .patient(patient)
+                .doctor(doctor);
+            prescriptionId = prescriptionRepository.save(prescription).getId();
+        }
+        em.flush();
+        em.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllLoadsAPageInOneQuery() {
+        Page<PrescriptionDTO> page = prescriptionService.findAll(PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).hasSizeGreaterThanOrEqualTo(PRESCRIPTION_COUNT);
+        assertThat(page.getContent()).allSatisfy(dto -> {
+            assertThat(dto.getDrug()).isNotNull();
+            assertThat(dto.getPatient().getFirstName()).isNotNull();
+            assertThat(dto.getDoctor()).isNotNull();
+        });
+        // The page itself, plus the count query when the page is full
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(statistics.getEntityFetchCount()).isZero();
+    }
+
+    @Test
+    void findAllAfterLoadsASliceInOneQuery() {
+        prescriptionService.findAllAfter(null, PageRequest.of(0, 20));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityFetchCount()).isZero();
+    }
+
+    @Test
+    void findOneLoadsAssociationsInOneQuery() {
+        Optional<PrescriptionDTO> prescriptionDTO = prescriptionService.findOne(prescriptionId);
+
+        assertThat(prescriptionDTO).isPresent();
+        assertThat(prescriptionDTO.get().getDrug()).isNotNull();
+        assertThat(prescriptionDTO.get().getPatient()).isNotNull();
+        assertThat(prescriptionDTO.get().getDoctor()).isNotNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findAllByPatientIsCachedUntilASaveEvictsIt() {
+        assertThat(prescriptionService.findAllByPatient(patient.getId())).hasSize(1);
+        statistics.clear();
+
+        assertThat(prescriptionService.findAllByPatient(patient.getId())).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(
+            meterRegistry
+                .get("cache.gets")
+                .tag("cache", PrescriptionRepository.PRESCRIPTIONS_BY_PATIENT_CACHE)
+                .tag("result", "hit")
+                .functionCounter()
+                .count()
+        )
+            .isPositive();
+
+        PrescriptionDTO prescriptionDTO = new PrescriptionDTO();
+        prescriptionDTO.setDosageAmount(2);
+        prescriptionDTO.setDosageInterval(2);
+        prescriptionDTO.setCreatedDate(DEFAULT_DATE);
+        prescriptionDTO.setUpdatedDate(DEFAULT_DATE);
+        PatientDTO patientDTO = new PatientDTO();
+        patientDTO.setId(patient.getId());
+        prescriptionDTO.setPatient(patientDTO);
+        prescriptionService.save(prescriptionDTO);
+
+        assertThat(prescriptionService.findAllByPatient(patient.getId())).hasSize(2);
+    }
+
+    @Test
+    void findAllByDoctorReadsAPageOfTheCurrentPrescriptions() {
+        assertThat(prescriptionService.findAllByDoctor(doctor.getId(), PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+        assertThat(prescriptionService.findAllByDoctor(firstDoctorId, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+
+        PrescriptionDTO prescriptionDTO = prescriptionService.findOne(prescriptionId).orElseThrow();
+        DoctorDTO doctorDTO = new DoctorDTO();
+        doctorDTO.setId(firstDoctorId);
+        prescriptionDTO.setDoctor(doctorDTO);
+        prescriptionService.update(prescriptionDTO);
+
+        assertThat(prescriptionService.findAllByDoctor(doctor.getId(), PageRequest.of(0, 10))).isEmpty();
+        Page<PrescriptionDTO> page = prescriptionService.findAllByDoctor(firstDoctorId, PageRequest.of(0, 1));
+        assertThat(page.getContent()).extracting(PrescriptionDTO::getId).containsExactly(prescriptionId);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void findAllByDrugReadsAPageOfTheCurrentPrescriptions() {
+        assertThat(prescriptionService.findAllByDrug(drug.getId(), PageRequest.of(0, 10))).hasSize(1);
+
+        prescriptionService.delete(prescriptionId);
+
+        assertThat(prescriptionService.findAllByDrug(drug.getId(), PageRequest.of(0, 10))).isEmpty();
+    }
+}
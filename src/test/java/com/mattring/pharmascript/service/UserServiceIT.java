@@ -4,20 +4,31 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
 import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.config.ApplicationProperties;
 import com.mattring.pharmascript.config.Constants;
+import com.mattring.pharmascript.domain.Authority;
 import com.mattring.pharmascript.domain.User;
+import com.mattring.pharmascript.management.UserPurgeMetersService;
+import com.mattring.pharmascript.repository.AuthorityRepository;
 import com.mattring.pharmascript.repository.UserRepository;
+import com.mattring.pharmascript.security.AuthoritiesConstants;
 import com.mattring.pharmascript.service.dto.AdminUserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import javax.persistence.EntityManager;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.auditing.AuditingHandler;
 import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.domain.Page;
@@ -53,6 +64,21 @@ class UserServiceIT {
     @Autowired
     private AuditingHandler auditingHandler;
 
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @MockBean
     private DateTimeProvider dateTimeProvider;
 
@@ -166,6 +192,43 @@ class UserServiceIT {
         assertThat(users).isEmpty();
     }
 
+    @Test
+    @Transactional
+    void assertThatNotActivatedUsersAreDeletedByChunksWithTheirAuthorities() {
+        Instant now = Instant.now();
+        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
+        Authority authority = authorityRepository.findById(AuthoritiesConstants.USER).orElseThrow();
+        for (int i = 0; i < 5; i++) {
+            User notActivated = new User();
+            notActivated.setLogin("not-activated-" + i);
+            notActivated.setEmail("not-activated-" + i + "@localhost");
+            notActivated.setPassword(RandomStringUtils.randomAlphanumeric(60));
+            notActivated.setActivated(false);
+            notActivated.setActivationKey(RandomStringUtils.random(20));
+            notActivated.setAuthorities(new HashSet<>(Set.of(authority)));
+            userRepository.saveAndFlush(notActivated);
+            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).put(notActivated.getLogin(), notActivated);
+        }
+        double deletedBefore = meterRegistry.get(UserPurgeMetersService.DELETED_METER_NAME).counter().count();
+        int chunkSize = applicationProperties.getUserPurge().getChunkSize();
+        applicationProperties.getUserPurge().setChunkSize(2);
+        try {
+            userService.removeNotActivatedUsers();
+        } finally {
+            applicationProperties.getUserPurge().setChunkSize(chunkSize);
+        }
+        entityManager.clear();
+
+        assertThat(userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(now)).isEmpty();
+        Number orphanAuthorities = (Number) entityManager
+            .createNativeQuery("select count(*) from jhi_user_authority where user_id not in (select id from jhi_user)")
+            .getSingleResult();
+        assertThat(orphanAuthorities.longValue()).isZero();
+        assertThat(Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).get("not-activated-0")).isNull();
+        assertThat(meterRegistry.get(UserPurgeMetersService.DELETED_METER_NAME).counter().count() - deletedBefore).isEqualTo(5);
+        assertThat(meterRegistry.get(UserPurgeMetersService.CHUNK_METER_NAME).timer().count()).isPositive();
+    }
+
     @Test
     @Transactional
     void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() {
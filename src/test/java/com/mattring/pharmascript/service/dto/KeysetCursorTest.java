@@ -0,0 +1,38 @@
+package com.mattring.pharmascript.service.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        ZonedDateTime updatedDate = ZonedDateTime.ofInstant(Instant.ofEpochSecond(1678158000L, 123456000L), ZoneId.of("Europe/Paris"));
+        KeysetCursor cursor = KeysetCursor.of(updatedDate, 42L);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThat(decoded.getUpdatedDate().toInstant()).isEqualTo(updatedDate.toInstant());
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String token = KeysetCursor.of(ZonedDateTime.now(), Long.MAX_VALUE).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void decodeRejectsMalformedTokens() {
+        assertThatIllegalArgumentException().isThrownBy(() -> KeysetCursor.decode("not a cursor"));
+        assertThatIllegalArgumentException().isThrownBy(() -> KeysetCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThatIllegalArgumentException().isThrownBy(() -> KeysetCursor.decode("MjAyMy0wMy0wN19hYmM"));
+    }
+}
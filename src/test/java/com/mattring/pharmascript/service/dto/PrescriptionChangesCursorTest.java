@@ -0,0 +1,35 @@
+package com.mattring.pharmascript.service.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.mattring.pharmascript.service.dto.PrescriptionChangesCursor.Position;
+import org.junit.jupiter.api.Test;
+
+class PrescriptionChangesCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        PrescriptionChangesCursor cursor = PrescriptionChangesCursor.of(Position.of(12L, 42L), Position.of(13L, 7L));
+
+        PrescriptionChangesCursor decoded = PrescriptionChangesCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void beforeComesBeforeTheRowsOfTheSequence() {
+        Position position = Position.before(12L);
+
+        assertThat(position.getSequence()).isEqualTo(12L);
+        assertThat(position.getId()).isZero();
+    }
+
+    @Test
+    void decodeRejectsMalformedTokens() {
+        assertThatIllegalArgumentException().isThrownBy(() -> PrescriptionChangesCursor.decode("not-a-cursor"));
+        assertThatIllegalArgumentException().isThrownBy(() -> PrescriptionChangesCursor.decode("abc."));
+        assertThatIllegalArgumentException().isThrownBy(() -> PrescriptionChangesCursor.decode(".not a cursor"));
+    }
+}
@@ -1,5 +1,6 @@
 package com.mattring.pharmascript.web.rest;
 
+import static com.mattring.pharmascript.web.rest.TestUtil.assertKeysetPagination;
 import static com.mattring.pharmascript.web.rest.TestUtil.sameInstant;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
@@ -15,6 +16,8 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -112,6 +115,7 @@ class DoctorResourceIT {
     @Transactional
     void createDoctor() throws Exception {
         int databaseSizeBeforeCreate = doctorRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
         // Create the Doctor
         DoctorDTO doctorDTO = doctorMapper.toDto(doctor);
         restDoctorMockMvc
@@ -126,7 +130,8 @@ class DoctorResourceIT {
         assertThat(testDoctor.getLastName()).isEqualTo(DEFAULT_LAST_NAME);
         assertThat(testDoctor.getLicenseNumber()).isEqualTo(DEFAULT_LICENSE_NUMBER);
         assertThat(testDoctor.getCreatedDate()).isEqualTo(DEFAULT_CREATED_DATE);
-        assertThat(testDoctor.getUpdatedDate()).isEqualTo(DEFAULT_UPDATED_DATE);
+        // Set by the server, whatever the client sent
+        assertThat(testDoctor.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -257,6 +262,18 @@ class DoctorResourceIT {
             .andExpect(jsonPath("$.[*].updatedDate").value(hasItem(sameInstant(DEFAULT_UPDATED_DATE))));
     }
 
+    @Test
+    @Transactional
+    void getAllDoctorsWithKeysetPagination() throws Exception {
+        // Initialize the database
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(doctorRepository.saveAndFlush(createEntity(em)).getId());
+        }
+
+        assertKeysetPagination(restDoctorMockMvc, ENTITY_API_URL, DEFAULT_UPDATED_DATE, ids);
+    }
+
     @Test
     @Transactional
     void getDoctor() throws Exception {
@@ -276,6 +293,23 @@ class DoctorResourceIT {
             .andExpect(jsonPath("$.updatedDate").value(sameInstant(DEFAULT_UPDATED_DATE)));
     }
 
+    @Test
+    @Transactional
+    void getDoctorsById() throws Exception {
+        // Initialize the database
+        Long firstId = doctorRepository.saveAndFlush(createEntity(em)).getId();
+        Long secondId = doctorRepository.saveAndFlush(createEntity(em)).getId();
+
+        // Get the doctors in the order of their ids, skipping the unknown one
+        restDoctorMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + secondId + "," + Long.MAX_VALUE + "," + firstId))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(secondId.intValue()))
+            .andExpect(jsonPath("$.[1].id").value(firstId.intValue()));
+    }
+
     @Test
     @Transactional
     void getNonExistingDoctor() throws Exception {
@@ -290,6 +324,7 @@ class DoctorResourceIT {
         doctorRepository.saveAndFlush(doctor);
 
         int databaseSizeBeforeUpdate = doctorRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the doctor
         Doctor updatedDoctor = doctorRepository.findById(doctor.getId()).get();
@@ -319,7 +354,7 @@ class DoctorResourceIT {
         assertThat(testDoctor.getLastName()).isEqualTo(UPDATED_LAST_NAME);
         assertThat(testDoctor.getLicenseNumber()).isEqualTo(UPDATED_LICENSE_NUMBER);
         assertThat(testDoctor.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testDoctor.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testDoctor.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -394,6 +429,7 @@ class DoctorResourceIT {
         doctorRepository.saveAndFlush(doctor);
 
         int databaseSizeBeforeUpdate = doctorRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the doctor using partial update
         Doctor partialUpdatedDoctor = new Doctor();
@@ -417,7 +453,7 @@ class DoctorResourceIT {
         assertThat(testDoctor.getLastName()).isEqualTo(UPDATED_LAST_NAME);
         assertThat(testDoctor.getLicenseNumber()).isEqualTo(DEFAULT_LICENSE_NUMBER);
         assertThat(testDoctor.getCreatedDate()).isEqualTo(DEFAULT_CREATED_DATE);
-        assertThat(testDoctor.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testDoctor.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -427,6 +463,7 @@ class DoctorResourceIT {
         doctorRepository.saveAndFlush(doctor);
 
         int databaseSizeBeforeUpdate = doctorRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the doctor using partial update
         Doctor partialUpdatedDoctor = new Doctor();
@@ -455,7 +492,7 @@ class DoctorResourceIT {
         assertThat(testDoctor.getLastName()).isEqualTo(UPDATED_LAST_NAME);
         assertThat(testDoctor.getLicenseNumber()).isEqualTo(UPDATED_LICENSE_NUMBER);
         assertThat(testDoctor.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testDoctor.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testDoctor.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
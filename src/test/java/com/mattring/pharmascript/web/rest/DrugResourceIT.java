@@ -1,20 +1,27 @@
 package com.mattring.pharmascript.web.rest;
 
+import static com.mattring.pharmascript.web.rest.TestUtil.assertKeysetPagination;
 import static com.mattring.pharmascript.web.rest.TestUtil.sameInstant;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.mattring.pharmascript.IntegrationTest;
 import com.mattring.pharmascript.domain.Drug;
 import com.mattring.pharmascript.repository.DrugRepository;
+import com.mattring.pharmascript.service.DrugCatalogService;
 import com.mattring.pharmascript.service.dto.DrugDTO;
 import com.mattring.pharmascript.service.mapper.DrugMapper;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -23,8 +30,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.AfterTransaction;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -63,6 +72,9 @@ class DrugResourceIT {
     @Autowired
     private DrugMapper drugMapper;
 
+    @Autowired
+    private DrugCatalogService drugCatalogService;
+
     @Autowired
     private EntityManager em;
 
@@ -112,6 +124,7 @@ class DrugResourceIT {
     @Transactional
     void createDrug() throws Exception {
         int databaseSizeBeforeCreate = drugRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
         // Create the Drug
         DrugDTO drugDTO = drugMapper.toDto(drug);
         restDrugMockMvc
@@ -126,7 +139,8 @@ class DrugResourceIT {
         assertThat(testDrug.getBrandName()).isEqualTo(DEFAULT_BRAND_NAME);
         assertThat(testDrug.getGenericName()).isEqualTo(DEFAULT_GENERIC_NAME);
         assertThat(testDrug.getCreatedDate()).isEqualTo(DEFAULT_CREATED_DATE);
-        assertThat(testDrug.getUpdatedDate()).isEqualTo(DEFAULT_UPDATED_DATE);
+        // Set by the server, whatever the client sent
+        assertThat(testDrug.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -257,6 +271,18 @@ class DrugResourceIT {
             .andExpect(jsonPath("$.[*].updatedDate").value(hasItem(sameInstant(DEFAULT_UPDATED_DATE))));
     }
 
+    @Test
+    @Transactional
+    void getAllDrugsWithKeysetPagination() throws Exception {
+        // Initialize the database
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(drugRepository.saveAndFlush(createEntity(em)).getId());
+        }
+
+        assertKeysetPagination(restDrugMockMvc, ENTITY_API_URL, DEFAULT_UPDATED_DATE, ids);
+    }
+
     @Test
     @Transactional
     void getDrug() throws Exception {
@@ -276,6 +302,70 @@ class DrugResourceIT {
             .andExpect(jsonPath("$.updatedDate").value(sameInstant(DEFAULT_UPDATED_DATE)));
     }
 
+    @Test
+    @Transactional
+    void getDrugsById() throws Exception {
+        // Initialize the database
+        Long firstId = drugRepository.saveAndFlush(createEntity(em)).getId();
+        Long secondId = drugRepository.saveAndFlush(createEntity(em)).getId();
+
+        // Get the drugs in the order of their ids, skipping the unknown one
+        restDrugMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + secondId + "," + Long.MAX_VALUE + "," + firstId))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(secondId.intValue()))
+            .andExpect(jsonPath("$.[1].id").value(firstId.intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getDrugsByIdFromTheCatalog() throws Exception {
+        // Initialize the database
+        Drug cataloged = drugRepository.saveAndFlush(createEntity(em));
+        drugCatalogService.reload();
+        Long uncatalogedId = drugRepository.saveAndFlush(createEntity(em)).getId();
+        // Behind the back of the catalog
+        drugRepository.saveAndFlush(cataloged.brandName(UPDATED_BRAND_NAME));
+
+        // The cataloged drug is read from the catalog, the other one from the database
+        restDrugMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + uncatalogedId + "," + cataloged.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(uncatalogedId.intValue(), cataloged.getId().intValue())))
+            .andExpect(jsonPath("$.[1].brandName").value(DEFAULT_BRAND_NAME));
+    }
+
+    @Test
+    @Transactional
+    void catalogDrugsAreCopies() {
+        // Initialize the database
+        drugRepository.saveAndFlush(drug);
+        drugCatalogService.reload();
+
+        drugCatalogService.findOne(drug.getId()).orElseThrow().setBrandName(UPDATED_BRAND_NAME);
+        drugCatalogService.findAll().forEach(drugDTO -> drugDTO.setBrandName(UPDATED_BRAND_NAME));
+        drugCatalogService.search(DEFAULT_GENERIC_NAME, 10).forEach(drugDTO -> drugDTO.setBrandName(UPDATED_BRAND_NAME));
+
+        assertThat(drugCatalogService.findOne(drug.getId())).get().extracting(DrugDTO::getBrandName).isEqualTo(DEFAULT_BRAND_NAME);
+    }
+
+    @Test
+    @Transactional
+    void getDrugsByIdWithCursor() throws Exception {
+        restDrugMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=1,2&after="))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.idswithcursor"));
+    }
+
+    @AfterTransaction
+    void reloadDrugCatalog() {
+        // Forget the drugs of the rolled back transaction
+        drugCatalogService.reload();
+    }
+
     @Test
     @Transactional
     void getNonExistingDrug() throws Exception {
@@ -283,6 +373,137 @@ class DrugResourceIT {
         restDrugMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    void getDrugWithConditionalRequest() throws Exception {
+        // Initialize the database
+        drugRepository.saveAndFlush(drug);
+
+        String expectedETag = "\"" + drug.getId() + "-" + DEFAULT_UPDATED_DATE.toInstant().toEpochMilli() + "\"";
+        String eTag = restDrugMockMvc
+            .perform(get(ENTITY_API_URL_ID, drug.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, expectedETag))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restDrugMockMvc
+            .perform(get(ENTITY_API_URL_ID, drug.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+
+        // Update the drug, the client sending back the updatedDate it read
+        DrugDTO updatedDrugDTO = drugMapper.toDto(drugRepository.findById(drug.getId()).get());
+        updatedDrugDTO.setBrandName(UPDATED_BRAND_NAME);
+        restDrugMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedDrugDTO.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedDrugDTO))
+            )
+            .andExpect(status().isOk());
+
+        restDrugMockMvc
+            .perform(get(ENTITY_API_URL_ID, drug.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andExpect(jsonPath("$.brandName").value(UPDATED_BRAND_NAME));
+    }
+
+    @Test
+    @Transactional
+    void getAllDrugsWithConditionalRequest() throws Exception {
+        // Initialize the database
+        drugRepository.saveAndFlush(drug);
+
+        String eTag = restDrugMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restDrugMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(content().string(""));
+
+        // Delete the drug, which leaves the last modified date of the drugs as it was
+        drugRepository.delete(drug);
+        drugRepository.flush();
+
+        restDrugMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(drug.getId().intValue()))));
+    }
+
+    @Test
+    void searchDrugsFromTheCatalog() throws Exception {
+        // Not transactional: the catalog only sees committed changes
+        Long ibuprofenId = createDrugThroughTheApi("Ibuprofen", "Advil");
+        Long acetaminophenId = createDrugThroughTheApi("Acetaminophen", "Iburelief");
+        try {
+            restDrugMockMvc
+                .perform(get(ENTITY_API_URL + "/search?prefix=IBU"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(ibuprofenId.intValue(), acetaminophenId.intValue())))
+                .andExpect(jsonPath("$[0].brandName").value("Advil"));
+            restDrugMockMvc
+                .perform(get(ENTITY_API_URL + "/search?prefix=ibu&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(ibuprofenId.intValue())));
+        } finally {
+            restDrugMockMvc.perform(delete(ENTITY_API_URL_ID, ibuprofenId)).andExpect(status().isNoContent());
+            restDrugMockMvc.perform(delete(ENTITY_API_URL_ID, acetaminophenId)).andExpect(status().isNoContent());
+        }
+
+        restDrugMockMvc
+            .perform(get(ENTITY_API_URL + "/search?prefix=ibu"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void searchDrugsChangedByAnotherNode() throws Exception {
+        // Not transactional: written to the table directly, as another node would
+        Drug ibuprofen = drugRepository.saveAndFlush(drug.genericName("Ibuprofen").brandName("Advil"));
+        try {
+            drugCatalogService.reloadIfChanged();
+            restDrugMockMvc
+                .perform(get(ENTITY_API_URL + "/search?prefix=ibu"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(ibuprofen.getId().intValue())));
+        } finally {
+            drugRepository.deleteById(ibuprofen.getId());
+        }
+
+        drugCatalogService.reloadIfChanged();
+        restDrugMockMvc
+            .perform(get(ENTITY_API_URL + "/search?prefix=ibu"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    private Long createDrugThroughTheApi(String genericName, String brandName) throws Exception {
+        DrugDTO drugDTO = drugMapper.toDto(drug.genericName(genericName).brandName(brandName));
+        String location = restDrugMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(drugDTO)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+        return Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+    }
+
     @Test
     @Transactional
     void putExistingDrug() throws Exception {
@@ -290,6 +511,7 @@ class DrugResourceIT {
         drugRepository.saveAndFlush(drug);
 
         int databaseSizeBeforeUpdate = drugRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the drug
         Drug updatedDrug = drugRepository.findById(drug.getId()).get();
@@ -319,7 +541,7 @@ class DrugResourceIT {
         assertThat(testDrug.getBrandName()).isEqualTo(UPDATED_BRAND_NAME);
         assertThat(testDrug.getGenericName()).isEqualTo(UPDATED_GENERIC_NAME);
         assertThat(testDrug.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testDrug.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testDrug.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -394,6 +616,7 @@ class DrugResourceIT {
         drugRepository.saveAndFlush(drug);
 
         int databaseSizeBeforeUpdate = drugRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the drug using partial update
         Drug partialUpdatedDrug = new Drug();
@@ -421,7 +644,7 @@ class DrugResourceIT {
         assertThat(testDrug.getBrandName()).isEqualTo(DEFAULT_BRAND_NAME);
         assertThat(testDrug.getGenericName()).isEqualTo(UPDATED_GENERIC_NAME);
         assertThat(testDrug.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testDrug.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testDrug.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -431,6 +654,7 @@ class DrugResourceIT {
         drugRepository.saveAndFlush(drug);
 
         int databaseSizeBeforeUpdate = drugRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the drug using partial update
         Drug partialUpdatedDrug = new Drug();
@@ -459,7 +683,7 @@ class DrugResourceIT {
         assertThat(testDrug.getBrandName()).isEqualTo(UPDATED_BRAND_NAME);
         assertThat(testDrug.getGenericName()).isEqualTo(UPDATED_GENERIC_NAME);
         assertThat(testDrug.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testDrug.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testDrug.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -1,5 +1,6 @@
 package com.mattring.pharmascript.web.rest;
 
+import static com.mattring.pharmascript.web.rest.TestUtil.assertKeysetPagination;
 import static com.mattring.pharmascript.web.rest.TestUtil.sameInstant;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
@@ -11,14 +12,19 @@ import com.mattring.pharmascript.domain.Patient;
 import com.mattring.pharmascript.repository.PatientRepository;
 import com.mattring.pharmascript.service.dto.PatientDTO;
 import com.mattring.pharmascript.service.mapper.PatientMapper;
+import com.mattring.pharmascript.web.rest.util.MultiGetUtil;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -113,6 +119,7 @@ class PatientResourceIT {
     @Transactional
     void createPatient() throws Exception {
         int databaseSizeBeforeCreate = patientRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
         // Create the Patient
         PatientDTO patientDTO = patientMapper.toDto(patient);
         restPatientMockMvc
@@ -127,7 +134,8 @@ class PatientResourceIT {
         assertThat(testPatient.getLastName()).isEqualTo(DEFAULT_LAST_NAME);
         assertThat(testPatient.getBirthdate()).isEqualTo(DEFAULT_BIRTHDATE);
         assertThat(testPatient.getCreatedDate()).isEqualTo(DEFAULT_CREATED_DATE);
-        assertThat(testPatient.getUpdatedDate()).isEqualTo(DEFAULT_UPDATED_DATE);
+        // Set by the server, whatever the client sent
+        assertThat(testPatient.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -258,6 +266,18 @@ class PatientResourceIT {
             .andExpect(jsonPath("$.[*].updatedDate").value(hasItem(sameInstant(DEFAULT_UPDATED_DATE))));
     }
 
+    @Test
+    @Transactional
+    void getAllPatientsWithKeysetPagination() throws Exception {
+        // Initialize the database
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(patientRepository.saveAndFlush(createEntity(em)).getId());
+        }
+
+        assertKeysetPagination(restPatientMockMvc, ENTITY_API_URL, DEFAULT_UPDATED_DATE, ids);
+    }
+
     @Test
     @Transactional
     void getPatient() throws Exception {
@@ -277,6 +297,34 @@ class PatientResourceIT {
             .andExpect(jsonPath("$.updatedDate").value(sameInstant(DEFAULT_UPDATED_DATE)));
     }
 
+    @Test
+    @Transactional
+    void getPatientsById() throws Exception {
+        // Initialize the database
+        Long firstId = patientRepository.saveAndFlush(createEntity(em)).getId();
+        Long secondId = patientRepository.saveAndFlush(createEntity(em)).getId();
+
+        // Get the patients in the order of their ids, skipping the unknown one
+        restPatientMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + secondId + "," + Long.MAX_VALUE + "," + firstId))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(secondId.intValue()))
+            .andExpect(jsonPath("$.[1].id").value(firstId.intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getTooManyPatientsById() throws Exception {
+        String ids = LongStream.rangeClosed(1, MultiGetUtil.MAX_IDS + 1).mapToObj(Long::toString).collect(Collectors.joining(","));
+
+        restPatientMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + ids))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.toomanyids"));
+    }
+
     @Test
     @Transactional
     void getNonExistingPatient() throws Exception {
@@ -291,6 +339,7 @@ class PatientResourceIT {
         patientRepository.saveAndFlush(patient);
 
         int databaseSizeBeforeUpdate = patientRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the patient
         Patient updatedPatient = patientRepository.findById(patient.getId()).get();
@@ -320,7 +369,7 @@ class PatientResourceIT {
         assertThat(testPatient.getLastName()).isEqualTo(UPDATED_LAST_NAME);
         assertThat(testPatient.getBirthdate()).isEqualTo(UPDATED_BIRTHDATE);
         assertThat(testPatient.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testPatient.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testPatient.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -395,6 +444,7 @@ class PatientResourceIT {
         patientRepository.saveAndFlush(patient);
 
         int databaseSizeBeforeUpdate = patientRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the patient using partial update
         Patient partialUpdatedPatient = new Patient();
@@ -422,7 +472,7 @@ class PatientResourceIT {
         assertThat(testPatient.getLastName()).isEqualTo(UPDATED_LAST_NAME);
         assertThat(testPatient.getBirthdate()).isEqualTo(UPDATED_BIRTHDATE);
         assertThat(testPatient.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testPatient.getUpdatedDate()).isEqualTo(DEFAULT_UPDATED_DATE);
+        assertThat(testPatient.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -432,6 +482,7 @@ class PatientResourceIT {
         patientRepository.saveAndFlush(patient);
 
         int databaseSizeBeforeUpdate = patientRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the patient using partial update
         Patient partialUpdatedPatient = new Patient();
@@ -460,7 +511,7 @@ class PatientResourceIT {
         assertThat(testPatient.getLastName()).isEqualTo(UPDATED_LAST_NAME);
         assertThat(testPatient.getBirthdate()).isEqualTo(UPDATED_BIRTHDATE);
         assertThat(testPatient.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testPatient.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testPatient.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -1,31 +1,55 @@
 package com.mattring.pharmascript.web.rest;
 
+import static com.mattring.pharmascript.web.rest.TestUtil.assertKeysetPagination;
 import static com.mattring.pharmascript.web.rest.TestUtil.sameInstant;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.jayway.jsonpath.JsonPath;
 import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.domain.Doctor;
+import com.mattring.pharmascript.domain.Drug;
+import com.mattring.pharmascript.domain.Patient;
 import com.mattring.pharmascript.domain.Prescription;
+import com.mattring.pharmascript.repository.PatientRepository;
 import com.mattring.pharmascript.repository.PrescriptionRepository;
+import com.mattring.pharmascript.repository.PrescriptionTombstoneRepository;
+import com.mattring.pharmascript.service.ChangeSequenceService;
+import com.mattring.pharmascript.service.DrugCatalogService;
+import com.mattring.pharmascript.service.dto.PatientDTO;
+import com.mattring.pharmascript.service.dto.PrescriptionChangesCursor;
+import com.mattring.pharmascript.service.dto.PrescriptionChangesCursor.Position;
 import com.mattring.pharmascript.service.dto.PrescriptionDTO;
+import com.mattring.pharmascript.service.mapper.DrugMapper;
 import com.mattring.pharmascript.service.mapper.PrescriptionMapper;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.AfterTransaction;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -44,9 +68,12 @@ class PrescriptionResourceIT {
 
     private static final ZonedDateTime DEFAULT_CREATED_DATE = ZonedDateTime.ofInstant(Instant.ofEpochMilli(0L), ZoneOffset.UTC);
     private static final ZonedDateTime UPDATED_CREATED_DATE = ZonedDateTime.now(ZoneId.systemDefault()).withNano(0);
+    private static final ZonedDateTime SMALLER_CREATED_DATE = ZonedDateTime.ofInstant(Instant.ofEpochMilli(-1L), ZoneOffset.UTC);
 
     private static final ZonedDateTime DEFAULT_UPDATED_DATE = ZonedDateTime.ofInstant(Instant.ofEpochMilli(0L), ZoneOffset.UTC);
     private static final ZonedDateTime UPDATED_UPDATED_DATE = ZonedDateTime.now(ZoneId.systemDefault()).withNano(0);
+    private static final ZonedDateTime SMALLER_UPDATED_DATE = ZonedDateTime.ofInstant(Instant.ofEpochMilli(-1L), ZoneOffset.UTC);
+    private static final ZonedDateTime LATER_UPDATED_DATE = ZonedDateTime.ofInstant(Instant.ofEpochMilli(1L), ZoneOffset.UTC);
 
     private static final String ENTITY_API_URL = "/api/prescriptions";
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
@@ -57,9 +84,24 @@ class PrescriptionResourceIT {
     @Autowired
     private PrescriptionRepository prescriptionRepository;
 
+    @Autowired
+    private PrescriptionTombstoneRepository prescriptionTombstoneRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
     @Autowired
     private PrescriptionMapper prescriptionMapper;
 
+    @Autowired
+    private DrugMapper drugMapper;
+
+    @Autowired
+    private DrugCatalogService drugCatalogService;
+
+    @Autowired
+    private ChangeSequenceService changeSequenceService;
+
     @Autowired
     private EntityManager em;
 
@@ -107,6 +149,7 @@ class PrescriptionResourceIT {
     @Transactional
     void createPrescription() throws Exception {
         int databaseSizeBeforeCreate = prescriptionRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
         // Create the Prescription
         PrescriptionDTO prescriptionDTO = prescriptionMapper.toDto(prescription);
         restPrescriptionMockMvc
@@ -122,7 +165,8 @@ class PrescriptionResourceIT {
         assertThat(testPrescription.getDosageAmount()).isEqualTo(DEFAULT_DOSAGE_AMOUNT);
         assertThat(testPrescription.getDosageInterval()).isEqualTo(DEFAULT_DOSAGE_INTERVAL);
         assertThat(testPrescription.getCreatedDate()).isEqualTo(DEFAULT_CREATED_DATE);
-        assertThat(testPrescription.getUpdatedDate()).isEqualTo(DEFAULT_UPDATED_DATE);
+        // Set by the server, whatever the client sent
+        assertThat(testPrescription.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -226,6 +270,96 @@ class PrescriptionResourceIT {
         assertThat(prescriptionList).hasSize(databaseSizeBeforeTest);
     }
 
+    @Test
+    void importPrescriptionsFromNdjson() throws Exception {
+        Set<Long> idsBeforeImport = findAllIds();
+        String body =
+            "{\"dosageAmount\":1,\"dosageInterval\":8,\"createdDate\":\"2023-03-07T00:00:00Z\"}\n" +
+            "{\"dosageInterval\":8,\"createdDate\":\"2023-03-07T00:00:00Z\",\"updatedDate\":\"2023-03-07T00:00:00Z\"}\n" +
+            "\n" +
+            "{\"id\":1,\"dosageAmount\":1,\"dosageInterval\":8,\"createdDate\":\"2023-03-07T00:00:00Z\",\"updatedDate\":\"2023-03-07T00:00:00Z\"}\n" +
+            "{\"dosageAmount\":2,\"dosageInterval\":12,\"createdDate\":\"2023-03-07T00:00:00Z\",\"updatedDate\":\"2023-03-07T00:00:00Z\"}\n" +
+            "not json\n";
+        try {
+            restPrescriptionMockMvc
+                .perform(post(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[*].line").value(contains(2, 4, 6)))
+                .andExpect(jsonPath("$.errors[0].message").value("dosageAmount must not be null"));
+
+            assertThat(findAllIds()).hasSize(idsBeforeImport.size() + 2);
+        } finally {
+            deleteAllExcept(idsBeforeImport);
+        }
+    }
+
+    @Test
+    void importPrescriptionsFromCsv() throws Exception {
+        Set<Long> idsBeforeImport = findAllIds();
+        String body =
+            "updatedDate,createdDate,dosageAmount,dosageInterval,drugId,patientId,doctorId\n" +
+            "2023-03-07T00:00:00Z,2023-03-07T00:00:00Z,1,8,,,\n" +
+            "2023-03-07T00:00:00Z,2023-03-07T00:00:00Z,1,8,999999999,,\n" +
+            "2023-03-07T00:00:00Z,2023-03-07T00:00:00Z,one,8,,,\n";
+        try {
+            restPrescriptionMockMvc
+                .perform(post(ENTITY_API_URL + "/bulk").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.errors[*].line").value(contains(4, 3)));
+
+            List<Prescription> imported = prescriptionRepository.findAllById(
+                findAllIds().stream().filter(id -> !idsBeforeImport.contains(id)).collect(Collectors.toList())
+            );
+            assertThat(imported).hasSize(1);
+            assertThat(imported.get(0).getDosageInterval()).isEqualTo(8);
+        } finally {
+            deleteAllExcept(idsBeforeImport);
+        }
+    }
+
+    @Test
+    void importPrescriptionsFromCsvWithoutUpdatedDate() throws Exception {
+        Set<Long> idsBeforeImport = findAllIds();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        String body = "dosageAmount,dosageInterval,createdDate,drugId,patientId,doctorId\n1,8,2023-03-07T00:00:00Z,,,\n";
+        try {
+            restPrescriptionMockMvc
+                .perform(post(ENTITY_API_URL + "/bulk").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(0));
+
+            List<Prescription> imported = prescriptionRepository.findAllById(
+                findAllIds().stream().filter(id -> !idsBeforeImport.contains(id)).collect(Collectors.toList())
+            );
+            assertThat(imported).hasSize(1);
+            assertThat(imported.get(0).getUpdatedDate()).isAfterOrEqualTo(start);
+        } finally {
+            deleteAllExcept(idsBeforeImport);
+        }
+    }
+
+    @Test
+    void importPrescriptionsWithInvalidCsvHeader() throws Exception {
+        restPrescriptionMockMvc
+            .perform(post(ENTITY_API_URL + "/bulk").contentType("text/csv").content("dosageAmount,dosageInterval\n1,8\n"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private Set<Long> findAllIds() {
+        return prescriptionRepository.findAll().stream().map(Prescription::getId).collect(Collectors.toSet());
+    }
+
+    private void deleteAllExcept(Set<Long> ids) {
+        prescriptionRepository.deleteAll(
+            prescriptionRepository.findAll().stream().filter(p -> !ids.contains(p.getId())).collect(Collectors.toList())
+        );
+    }
+
     @Test
     @Transactional
     void getAllPrescriptions() throws Exception {
@@ -244,6 +378,373 @@ class PrescriptionResourceIT {
             .andExpect(jsonPath("$.[*].updatedDate").value(hasItem(sameInstant(DEFAULT_UPDATED_DATE))));
     }
 
+    @Test
+    @Transactional
+    void getAllPrescriptionsWithKeysetPagination() throws Exception {
+        // Initialize the database
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(prescriptionRepository.saveAndFlush(createEntity(em)).getId());
+        }
+
+        assertKeysetPagination(restPrescriptionMockMvc, ENTITY_API_URL, DEFAULT_UPDATED_DATE, ids);
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsWithEmptyCursorStartsFromFirstPage() throws Exception {
+        // Initialize the database
+        prescriptionRepository.saveAndFlush(prescription);
+
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + "?after=&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"first\"")));
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsWithInvalidCursor() throws Exception {
+        restPrescriptionMockMvc.perform(get(ENTITY_API_URL + "?after=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getPrescriptionChangesSince() throws Exception {
+        // Initialize the database through the API, committing, since the writes only take their place in the feed as
+        // they commit
+        // Just before them, at the precision of their updatedDate
+        ZonedDateTime since = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MILLIS).minus(1, ChronoUnit.MILLIS);
+        List<Long> ids = new ArrayList<>();
+        try {
+            ids.add(createPrescriptionThroughApi(createEntity(em)).getId());
+            ids.add(createPrescriptionThroughApi(createEntity(em)).getId());
+
+            // Get the first change, which must report more changes
+            String body = restPrescriptionMockMvc
+                .perform(get(ENTITY_API_URL + "/changes?since=" + since.toInstant() + "&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.updated.[*].id").value(contains(ids.get(0).intValue())))
+                .andExpect(jsonPath("$.deleted").isEmpty())
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            String cursor = JsonPath.read(body, "$.cursor");
+
+            // Follow the cursor to the end of the changes
+            body =
+                restPrescriptionMockMvc
+                    .perform(get(ENTITY_API_URL + "/changes?after=" + cursor + "&size=1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.updated.[*].id").value(contains(ids.get(1).intValue())))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            cursor = JsonPath.read(body, "$.cursor");
+            restPrescriptionMockMvc
+                .perform(get(ENTITY_API_URL + "/changes?after=" + cursor + "&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").isEmpty())
+                .andExpect(jsonPath("$.hasMore").value(false));
+        } finally {
+            for (Long id : ids) {
+                restPrescriptionMockMvc.perform(delete(ENTITY_API_URL_ID, id)).andExpect(status().isNoContent());
+            }
+            prescriptionTombstoneRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void getPrescriptionChangesReportsDeletions() throws Exception {
+        // Initialize the database through the API, committing, since the writes only take their place in the feed as
+        // they commit
+        ZonedDateTime since = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MILLIS).minus(1, ChronoUnit.MILLIS);
+        Long id = createPrescriptionThroughApi(prescription).getId();
+        try {
+            String body = restPrescriptionMockMvc
+                .perform(get(ENTITY_API_URL + "/changes?since=" + since.toInstant()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated.[*].id").value(contains(id.intValue())))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            String cursor = JsonPath.read(body, "$.cursor");
+
+            // Delete the prescription
+            restPrescriptionMockMvc
+                .perform(delete(ENTITY_API_URL_ID, id).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+
+            restPrescriptionMockMvc
+                .perform(get(ENTITY_API_URL + "/changes?after=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").isEmpty())
+                .andExpect(jsonPath("$.deleted").value(contains(id.intValue())));
+        } finally {
+            prescriptionRepository.findById(id).ifPresent(prescriptionRepository::delete);
+            prescriptionTombstoneRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional
+    void getPrescriptionChangesWithInvalidCursor() throws Exception {
+        restPrescriptionMockMvc.perform(get(ENTITY_API_URL + "/changes?after=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getPrescriptionChangesWithExpiredCursor() throws Exception {
+        // The tombstones were purged up to the current writes
+        long until = changeSequenceService.findValues(ChangeSequenceService.PRESCRIPTION).get(0);
+        changeSequenceService.markPurged(ChangeSequenceService.PRESCRIPTION, until + 1);
+        String cursor = PrescriptionChangesCursor.of(Position.before(0L), Position.before(until)).encode();
+
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + "/changes?after=" + cursor))
+            .andExpect(status().isGone())
+            .andExpect(jsonPath("$.message").value("error.changesCursorExpired"));
+    }
+
+    @Test
+    @Transactional
+    void getPrescriptionChangesSinceExpiredDate() throws Exception {
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + "/changes?since=" + ZonedDateTime.now(ZoneOffset.UTC).minusYears(1).toInstant()))
+            .andExpect(status().isGone())
+            .andExpect(jsonPath("$.message").value("error.changesCursorExpired"));
+    }
+
+    @Test
+    void streamPrescriptionEventsOfPatient() throws Exception {
+        // Initialize the database, committing, since events are only pushed once committed
+        Patient patient = patientRepository.saveAndFlush(PatientResourceIT.createEntity(em));
+        MvcResult patientStream = restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + "/events?patientId=" + patient.getId()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        MvcResult otherPatientStream = restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + "/events?patientId=" + Long.MAX_VALUE))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        try {
+            PrescriptionDTO prescriptionDTO = prescriptionMapper.toDto(prescription);
+            prescriptionDTO.setPatient(new PatientDTO());
+            prescriptionDTO.getPatient().setId(patient.getId());
+            String body = restPrescriptionMockMvc
+                .perform(
+                    post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(prescriptionDTO))
+                )
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            Integer id = JsonPath.read(body, "$.id");
+            restPrescriptionMockMvc.perform(delete(ENTITY_API_URL_ID, id)).andExpect(status().isNoContent());
+
+            String events = patientStream.getResponse().getContentAsString();
+            assertThat(events)
+                .contains("event:created\ndata:{\"type\":\"CREATED\",\"prescriptionId\":" + id)
+                .contains("event:deleted\ndata:{\"type\":\"DELETED\",\"prescriptionId\":" + id);
+            assertThat(otherPatientStream.getResponse().getContentAsString()).isEqualTo(":subscribed\n\n");
+        } finally {
+            patientStream.getRequest().getAsyncContext().complete();
+            otherPatientStream.getRequest().getAsyncContext().complete();
+            prescriptionTombstoneRepository.deleteAll();
+            patientRepository.delete(patient);
+        }
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsOfPatient() throws Exception {
+        // Initialize the database
+        Patient patient = PatientResourceIT.createEntity(em);
+        em.persist(patient);
+        prescriptionRepository.saveAndFlush(prescription.patient(patient));
+
+        restPrescriptionMockMvc
+            .perform(get("/api/patients/{patientId}/prescriptions", patient.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(prescription.getId().intValue()))
+            .andExpect(jsonPath("$.[0].patient.id").value(patient.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getPrescriptionSummaryOfPatient() throws Exception {
+        // Initialize the database
+        Patient patient = PatientResourceIT.createEntity(em);
+        em.persist(patient);
+        Drug drug = DrugResourceIT.createEntity(em);
+        em.persist(drug);
+        Drug otherDrug = DrugResourceIT.createEntity(em);
+        em.persist(otherDrug);
+        em.flush();
+        PrescriptionDTO first = createPrescriptionThroughApi(createEntity(em).patient(patient).drug(drug));
+        PrescriptionDTO second = createPrescriptionThroughApi(
+            createEntity(em).patient(patient).drug(drug).dosageAmount(2).dosageInterval(8)
+        );
+
+        restPrescriptionMockMvc
+            .perform(get("/api/patients/{patientId}/prescriptions/summary", patient.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.patientId").value(patient.getId().intValue()))
+            .andExpect(jsonPath("$.activePrescriptions").value(2))
+            .andExpect(jsonPath("$.lastChangedDate").isNotEmpty())
+            .andExpect(jsonPath("$.drugs.length()").value(1))
+            .andExpect(jsonPath("$.drugs.[0].drug.id").value(drug.getId().intValue()))
+            .andExpect(jsonPath("$.drugs.[0].prescriptions").value(2))
+            // 1 every hour and 2 every 8 hours
+            .andExpect(jsonPath("$.drugs.[0].dailyDosage").value(30.0));
+
+        // Move the second prescription to the other drug, and delete the first one
+        second.setDrug(drugMapper.toDto(otherDrug));
+        second.setDosageAmount(3);
+        second.setDosageInterval(7);
+        restPrescriptionMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, second.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(second))
+            )
+            .andExpect(status().isOk());
+        restPrescriptionMockMvc.perform(delete(ENTITY_API_URL_ID, first.getId())).andExpect(status().isNoContent());
+
+        // The drug without prescriptions is kept, with its last change
+        restPrescriptionMockMvc
+            .perform(get("/api/patients/{patientId}/prescriptions/summary", patient.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.activePrescriptions").value(1))
+            .andExpect(jsonPath("$.drugs.length()").value(2))
+            .andExpect(jsonPath("$.drugs[?(@.drug.id == " + otherDrug.getId() + ")].prescriptions").value(contains(1)))
+            .andExpect(jsonPath("$.drugs[?(@.drug.id == " + otherDrug.getId() + ")].dailyDosage").value(contains(10.286)))
+            .andExpect(jsonPath("$.drugs[?(@.drug.id == " + drug.getId() + ")].prescriptions").value(contains(0)))
+            .andExpect(jsonPath("$.drugs[?(@.drug.id == " + drug.getId() + ")].dailyDosage").value(contains(0.0)));
+    }
+
+    @Test
+    @Transactional
+    void getPrescriptionSummaryOfPatientWithoutPrescriptions() throws Exception {
+        restPrescriptionMockMvc
+            .perform(get("/api/patients/{patientId}/prescriptions/summary", Long.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.activePrescriptions").value(0))
+            .andExpect(jsonPath("$.lastChangedDate").doesNotExist())
+            .andExpect(jsonPath("$.drugs").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void createPrescriptionWithMajorDrugInteraction() throws Exception {
+        // Initialize the database
+        Patient patient = PatientResourceIT.createEntity(em);
+        em.persist(patient);
+        Drug warfarin = DrugResourceIT.createEntity(em).genericName("warfarin");
+        em.persist(warfarin);
+        Drug aspirin = DrugResourceIT.createEntity(em).genericName("aspirin");
+        em.persist(aspirin);
+        em.flush();
+        drugCatalogService.reload();
+        createPrescriptionThroughApi(createEntity(em).patient(patient).drug(warfarin));
+        int databaseSizeBeforeCreate = prescriptionRepository.findAll().size();
+
+        // Aspirin is rejected for a patient taking warfarin
+        PrescriptionDTO prescriptionDTO = prescriptionMapper.toDto(createEntity(em).patient(patient).drug(aspirin));
+        restPrescriptionMockMvc
+            .perform(
+                post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(prescriptionDTO))
+            )
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("error.drugInteraction"))
+            .andExpect(jsonPath("$.interactions.[0].type").value("INTERACTION"))
+            .andExpect(jsonPath("$.interactions.[0].severity").value("MAJOR"))
+            .andExpect(jsonPath("$.interactions.[0].interactingDrugId").value(warfarin.getId().intValue()));
+
+        assertThat(prescriptionRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+        restPrescriptionMockMvc
+            .perform(get("/api/patients/{patientId}/drug-interactions?drugId={drugId}", patient.getId(), aspirin.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].drugId").value(aspirin.getId().intValue()))
+            .andExpect(jsonPath("$.[0].severity").value("MAJOR"));
+    }
+
+    @AfterTransaction
+    void reloadDrugCatalog() {
+        // Forget the drugs of the rolled back transaction
+        drugCatalogService.reload();
+    }
+
+    private PrescriptionDTO createPrescriptionThroughApi(Prescription prescription) throws Exception {
+        PrescriptionDTO prescriptionDTO = prescriptionMapper.toDto(prescription);
+        String body = restPrescriptionMockMvc
+            .perform(
+                post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(prescriptionDTO))
+            )
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        Integer id = JsonPath.read(body, "$.id");
+        prescriptionDTO.setId(id.longValue());
+        return prescriptionDTO;
+    }
+
+    @Test
+    @Transactional
+    void exportPrescriptionsAsNdjson() throws Exception {
+        // Initialize the database
+        Patient patient = PatientResourceIT.createEntity(em);
+        em.persist(patient);
+        Prescription matching = prescriptionRepository.saveAndFlush(createEntity(em).patient(patient));
+        prescriptionRepository.saveAndFlush(createEntity(em).patient(patient).updatedDate(UPDATED_UPDATED_DATE));
+        prescriptionRepository.saveAndFlush(createEntity(em));
+
+        // Only the first prescription is both the patient's and updated before the end of the range
+        String body = restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + "/export?patientId=" + patient.getId() + "&updatedTo=1970-01-02T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("prescriptions.ndjson")))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertThat(body.split("\n")).hasSize(1);
+        assertThat(body).startsWith("{\"id\":" + matching.getId() + ",").endsWith("}\n");
+    }
+
+    @Test
+    @Transactional
+    void exportPrescriptionsAsCsv() throws Exception {
+        // Initialize the database
+        Patient patient = PatientResourceIT.createEntity(em);
+        em.persist(patient);
+        prescriptionRepository.saveAndFlush(prescription.patient(patient));
+
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + "/export?format=CSV&patientId=" + patient.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(
+                content()
+                    .string(
+                        startsWith(
+                            "id,dosageAmount,dosageInterval,createdDate,updatedDate,drugId,patientId,doctorId\n" +
+                            prescription.getId() +
+                            ",1,1,"
+                        )
+                    )
+            )
+            .andExpect(content().string(containsString(",," + patient.getId() + ",\n")));
+    }
+
     @Test
     @Transactional
     void getPrescription() throws Exception {
@@ -262,6 +763,273 @@ class PrescriptionResourceIT {
             .andExpect(jsonPath("$.updatedDate").value(sameInstant(DEFAULT_UPDATED_DATE)));
     }
 
+    @Test
+    @Transactional
+    void getPrescriptionsByIdFiltering() throws Exception {
+        // Initialize the database
+        prescriptionRepository.saveAndFlush(prescription);
+
+        Long id = prescription.getId();
+
+        defaultPrescriptionShouldBeFound("id.equals=" + id);
+        defaultPrescriptionShouldNotBeFound("id.notEquals=" + id);
+
+        defaultPrescriptionShouldBeFound("id.greaterThanOrEqual=" + id);
+        defaultPrescriptionShouldNotBeFound("id.greaterThan=" + id);
+
+        defaultPrescriptionShouldBeFound("id.lessThanOrEqual=" + id);
+        defaultPrescriptionShouldNotBeFound("id.lessThan=" + id);
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsByDosageAmountIsEqualToSomething() throws Exception {
+        // Initialize the database
+        prescriptionRepository.saveAndFlush(prescription);
+
+        // Get all the prescriptionList where dosageAmount equals to DEFAULT_DOSAGE_AMOUNT
+        defaultPrescriptionShouldBeFound("dosageAmount.equals=" + DEFAULT_DOSAGE_AMOUNT);
+
+        // Get all the prescriptionList where dosageAmount equals to UPDATED_DOSAGE_AMOUNT
+        defaultPrescriptionShouldNotBeFound("dosageAmount.equals=" + UPDATED_DOSAGE_AMOUNT);
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsByDosageAmountIsInShouldWork() throws Exception {
+        // Initialize the database
+        prescriptionRepository.saveAndFlush(prescription);
+
+        // Get all the prescriptionList where dosageAmount in DEFAULT_DOSAGE_AMOUNT or UPDATED_DOSAGE_AMOUNT
+        defaultPrescriptionShouldBeFound("dosageAmount.in=" + DEFAULT_DOSAGE_AMOUNT + "," + UPDATED_DOSAGE_AMOUNT);
+
+        // Get all the prescriptionList where dosageAmount equals to UPDATED_DOSAGE_AMOUNT
+        defaultPrescriptionShouldNotBeFound("dosageAmount.in=" + UPDATED_DOSAGE_AMOUNT);
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsByDosageAmountIsGreaterThanOrEqualToSomething() throws Exception {
+        // Initialize the database
+        prescriptionRepository.saveAndFlush(prescription);
+
+        // Get all the prescriptionList where dosageAmount is greater than or equal to DEFAULT_DOSAGE_AMOUNT
+        defaultPrescriptionShouldBeFound("dosageAmount.greaterThanOrEqual=" + DEFAULT_DOSAGE_AMOUNT);
+
+        // Get all the prescriptionList where dosageAmount is greater than or equal to UPDATED_DOSAGE_AMOUNT
+        defaultPrescriptionShouldNotBeFound("dosageAmount.greaterThanOrEqual=" + UPDATED_DOSAGE_AMOUNT);
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsByDosageIntervalIsLessThanSomething() throws Exception {
+        // Initialize the database
+        prescriptionRepository.saveAndFlush(prescription);
+
+        // Get all the prescriptionList where dosageInterval is less than DEFAULT_DOSAGE_INTERVAL
+        defaultPrescriptionShouldNotBeFound("dosageInterval.lessThan=" + DEFAULT_DOSAGE_INTERVAL);
+
+        // Get all the prescriptionList where dosageInterval is less than UPDATED_DOSAGE_INTERVAL
+        defaultPrescriptionShouldBeFound("dosageInterval.lessThan=" + UPDATED_DOSAGE_INTERVAL);
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsByCreatedDateIsGreaterThanSomething() throws Exception {
+        // Initialize the database
+        prescriptionRepository.saveAndFlush(prescription);
+
+        // Get all the prescriptionList where createdDate is greater than DEFAULT_CREATED_DATE
+        defaultPrescriptionShouldNotBeFound("createdDate.greaterThan=" + DEFAULT_CREATED_DATE);
+
+        // Get all the prescriptionList where createdDate is greater than SMALLER_CREATED_DATE
+        defaultPrescriptionShouldBeFound("createdDate.greaterThan=" + SMALLER_CREATED_DATE);
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsByUpdatedDateIsInARange() throws Exception {
+        // Initialize the database
+        prescriptionRepository.saveAndFlush(prescription);
+
+        // Get all the prescriptionList where updatedDate is in [DEFAULT_UPDATED_DATE, LATER_UPDATED_DATE)
+        defaultPrescriptionShouldBeFound(
+            "updatedDate.greaterThanOrEqual=" + DEFAULT_UPDATED_DATE + "&updatedDate.lessThan=" + LATER_UPDATED_DATE
+        );
+
+        // Get all the prescriptionList where updatedDate is in [SMALLER_UPDATED_DATE, DEFAULT_UPDATED_DATE)
+        defaultPrescriptionShouldNotBeFound(
+            "updatedDate.greaterThanOrEqual=" + SMALLER_UPDATED_DATE + "&updatedDate.lessThan=" + DEFAULT_UPDATED_DATE
+        );
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsByDrugIsEqualToSomething() throws Exception {
+        Drug drug = DrugResourceIT.createEntity(em);
+        em.persist(drug);
+        em.flush();
+        prescription.setDrug(drug);
+        prescriptionRepository.saveAndFlush(prescription);
+        Long drugId = drug.getId();
+
+        // Get all the prescriptionList where drug equals to drugId
+        defaultPrescriptionShouldBeFound("drugId.equals=" + drugId);
+
+        // Get all the prescriptionList where drug equals to (drugId + 1)
+        defaultPrescriptionShouldNotBeFound("drugId.equals=" + (drugId + 1));
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsByPatientIsEqualToSomething() throws Exception {
+        Patient patient = PatientResourceIT.createEntity(em);
+        em.persist(patient);
+        em.flush();
+        prescription.setPatient(patient);
+        prescriptionRepository.saveAndFlush(prescription);
+        Long patientId = patient.getId();
+
+        // Get all the prescriptionList where patient equals to patientId
+        defaultPrescriptionShouldBeFound("patientId.equals=" + patientId);
+
+        // Get all the prescriptionList where patient equals to (patientId + 1)
+        defaultPrescriptionShouldNotBeFound("patientId.equals=" + (patientId + 1));
+    }
+
+    @Test
+    @Transactional
+    void getAllPrescriptionsByDoctorIsEqualToSomething() throws Exception {
+        Doctor doctor = DoctorResourceIT.createEntity(em);
+        em.persist(doctor);
+        em.flush();
+        prescription.setDoctor(doctor);
+        prescriptionRepository.saveAndFlush(prescription);
+        Long doctorId = doctor.getId();
+
+        // Get all the prescriptionList where doctor equals to doctorId
+        defaultPrescriptionShouldBeFound("doctorId.equals=" + doctorId);
+
+        // Get all the prescriptionList where doctor equals to (doctorId + 1)
+        defaultPrescriptionShouldNotBeFound("doctorId.equals=" + (doctorId + 1));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is returned.
+     */
+    private void defaultPrescriptionShouldBeFound(String filter) throws Exception {
+        String search = "?sort=id,desc&" + filter;
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + search))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(prescription.getId().intValue())))
+            .andExpect(jsonPath("$.[*].dosageAmount").value(hasItem(DEFAULT_DOSAGE_AMOUNT)))
+            .andExpect(jsonPath("$.[*].dosageInterval").value(hasItem(DEFAULT_DOSAGE_INTERVAL)))
+            .andExpect(jsonPath("$.[*].createdDate").value(hasItem(sameInstant(DEFAULT_CREATED_DATE))))
+            .andExpect(jsonPath("$.[*].updatedDate").value(hasItem(sameInstant(DEFAULT_UPDATED_DATE))));
+
+        // Check, that the count call also returns 1
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + "/count" + search))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(content().string("1"));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is not returned.
+     */
+    private void defaultPrescriptionShouldNotBeFound(String filter) throws Exception {
+        String search = "?sort=id,desc&" + filter;
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + search))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$").isArray())
+            .andExpect(jsonPath("$").isEmpty());
+
+        // Check, that the count call also returns 0
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL + "/count" + search))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(content().string("0"));
+    }
+
+    @Test
+    @Transactional
+    void getPrescriptionWithConditionalRequest() throws Exception {
+        // Initialize the database
+        Drug drug = DrugResourceIT.createEntity(em);
+        em.persist(drug);
+        prescription.setDrug(drug);
+        prescriptionRepository.saveAndFlush(prescription);
+
+        String eTag = restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL_ID, prescription.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL_ID, prescription.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // Update the drug, which is part of the representation of the prescription
+        drug.setUpdatedDate(UPDATED_UPDATED_DATE);
+        em.flush();
+
+        restPrescriptionMockMvc
+            .perform(get(ENTITY_API_URL_ID, prescription.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void getAllPrescriptionsWithConditionalRequest() throws Exception {
+        // Initialize the database through the API, committing, since the version moves once the writes commit
+        Patient patient = patientRepository.saveAndFlush(PatientResourceIT.createEntity(em));
+        List<Long> ids = new ArrayList<>();
+        try {
+            ids.add(createPrescriptionThroughApi(createEntity(em).patient(patient)).getId());
+            String url = ENTITY_API_URL + "?sort=id,desc&patientId.equals=" + patient.getId();
+
+            String eTag = restPrescriptionMockMvc
+                .perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+            restPrescriptionMockMvc
+                .perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+            // Any write to the prescriptions changes the version
+            ids.add(createPrescriptionThroughApi(createEntity(em).patient(patient)).getId());
+
+            restPrescriptionMockMvc
+                .perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.length()").value(2));
+        } finally {
+            for (Long id : ids) {
+                restPrescriptionMockMvc.perform(delete(ENTITY_API_URL_ID, id)).andExpect(status().isNoContent());
+            }
+            prescriptionTombstoneRepository.deleteAll();
+            patientRepository.delete(patient);
+        }
+    }
+
     @Test
     @Transactional
     void getNonExistingPrescription() throws Exception {
@@ -276,6 +1044,7 @@ class PrescriptionResourceIT {
         prescriptionRepository.saveAndFlush(prescription);
 
         int databaseSizeBeforeUpdate = prescriptionRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the prescription
         Prescription updatedPrescription = prescriptionRepository.findById(prescription.getId()).get();
@@ -303,7 +1072,7 @@ class PrescriptionResourceIT {
         assertThat(testPrescription.getDosageAmount()).isEqualTo(UPDATED_DOSAGE_AMOUNT);
         assertThat(testPrescription.getDosageInterval()).isEqualTo(UPDATED_DOSAGE_INTERVAL);
         assertThat(testPrescription.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testPrescription.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testPrescription.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -380,6 +1149,7 @@ class PrescriptionResourceIT {
         prescriptionRepository.saveAndFlush(prescription);
 
         int databaseSizeBeforeUpdate = prescriptionRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the prescription using partial update
         Prescription partialUpdatedPrescription = new Prescription();
@@ -402,7 +1172,7 @@ class PrescriptionResourceIT {
         assertThat(testPrescription.getDosageAmount()).isEqualTo(DEFAULT_DOSAGE_AMOUNT);
         assertThat(testPrescription.getDosageInterval()).isEqualTo(DEFAULT_DOSAGE_INTERVAL);
         assertThat(testPrescription.getCreatedDate()).isEqualTo(DEFAULT_CREATED_DATE);
-        assertThat(testPrescription.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testPrescription.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -412,6 +1182,7 @@ class PrescriptionResourceIT {
         prescriptionRepository.saveAndFlush(prescription);
 
         int databaseSizeBeforeUpdate = prescriptionRepository.findAll().size();
+        ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
         // Update the prescription using partial update
         Prescription partialUpdatedPrescription = new Prescription();
@@ -438,7 +1209,7 @@ class PrescriptionResourceIT {
         assertThat(testPrescription.getDosageAmount()).isEqualTo(UPDATED_DOSAGE_AMOUNT);
         assertThat(testPrescription.getDosageInterval()).isEqualTo(UPDATED_DOSAGE_INTERVAL);
         assertThat(testPrescription.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
-        assertThat(testPrescription.getUpdatedDate()).isEqualTo(UPDATED_UPDATED_DATE);
+        assertThat(testPrescription.getUpdatedDate()).isAfterOrEqualTo(start);
     }
 
     @Test
@@ -1,11 +1,15 @@
 package com.mattring.pharmascript.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mattring.pharmascript.service.dto.KeysetCursor;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
@@ -22,6 +26,10 @@ import org.hamcrest.TypeSafeMatcher;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
 import org.springframework.format.support.DefaultFormattingConversionService;
 import org.springframework.format.support.FormattingConversionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
 
 /**
  * Utility class for testing REST controllers.
@@ -202,5 +210,37 @@ public final class TestUtil {
         return allQuery.getResultList();
     }
 
+    /**
+     * Walks the keyset pages of an entity list, two entities per page, following the cursors from just before the
+     * first of the given entities. Each page must hold the next given entities, without a total count, and a full
+     * page must link to the next one with the cursor of its last entity.
+     *
+     * @param restMockMvc the MockMvc of the resource.
+     * @param url the URL of the entity list.
+     * @param updatedDate the {@code updatedDate} of the given entities.
+     * @param ids the ids of the given entities, created in that order; other entities may follow them.
+     * @throws Exception if a request fails.
+     */
+    public static void assertKeysetPagination(MockMvc restMockMvc, String url, ZonedDateTime updatedDate, List<Long> ids)
+        throws Exception {
+        int size = 2;
+        String after = KeysetCursor.of(updatedDate, ids.get(0) - 1).encode();
+        for (int from = 0; from < ids.size(); from += size) {
+            List<Long> page = ids.subList(from, Math.min(from + size, ids.size()));
+            ResultActions result = restMockMvc
+                .perform(get(url + "?after=" + after + "&size=" + size))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(header().doesNotExist("X-Total-Count"));
+            for (int i = 0; i < page.size(); i++) {
+                result.andExpect(jsonPath("$.[" + i + "].id").value(page.get(i).intValue()));
+            }
+            after = KeysetCursor.of(updatedDate, page.get(page.size() - 1)).encode();
+            if (page.size() == size) {
+                result.andExpect(header().string(HttpHeaders.LINK, containsString("after=" + after + "&size=" + size + ">; rel=\"next\"")));
+            }
+        }
+    }
+
     private TestUtil() {}
 }
@@ -1,5 +1,6 @@
 package com.mattring.pharmascript.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -10,6 +11,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.mattring.pharmascript.IntegrationTest;
+import com.mattring.pharmascript.config.ApplicationProperties;
 import com.mattring.pharmascript.domain.User;
 import com.mattring.pharmascript.repository.UserRepository;
 import com.mattring.pharmascript.web.rest.vm.LoginVM;
@@ -17,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,6 +37,9 @@ class UserJWTControllerIT {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -60,6 +66,29 @@ class UserJWTControllerIT {
             .andExpect(header().string("Authorization", not(is(emptyString()))));
     }
 
+    @Test
+    @Transactional
+    void testAuthorizeRehashesWeakerPassword() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-rehash");
+        user.setEmail("user-jwt-controller-rehash@example.com");
+        user.setActivated(true);
+        user.setPassword(new BCryptPasswordEncoder(4).encode("test"));
+
+        userRepository.saveAndFlush(user);
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-rehash");
+        login.setPassword("test");
+        mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isOk());
+
+        String password = userRepository.findOneByLogin("user-jwt-controller-rehash").orElseThrow().getPassword();
+        assertThat(password).startsWith(String.format("$2a$%02d$", applicationProperties.getLogin().getBcryptStrength()));
+        assertThat(passwordEncoder.matches("test", password)).isTrue();
+    }
+
     @Test
     @Transactional
     void testAuthorizeWithRememberMe() throws Exception {
@@ -1,5 +1,6 @@
 package com.mattring.pharmascript.web.rest.errors;
 
+import com.mattring.pharmascript.security.LoginCapacityExceededException;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.springframework.dao.ConcurrencyFailureException;
@@ -17,6 +18,11 @@ public class ExceptionTranslatorTestController {
         throw new ConcurrencyFailureException("test concurrency failure");
     }
 
+    @GetMapping("/login-capacity-exceeded")
+    public void loginCapacityExceeded() {
+        throw new LoginCapacityExceededException("test login capacity exceeded");
+    }
+
     @PostMapping("/method-argument")
     public void methodArgument(@Valid @RequestBody TestDTO testDTO) {}
 